@@ -1,10 +1,13 @@
 package com.supasoft.authservice.config;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -22,9 +25,12 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import com.supasoft.authservice.security.JwtAuthenticationEntryPoint;
-import com.supasoft.authservice.security.JwtAuthorizationFilter;
+import com.supasoft.authservice.security.OffloadingPasswordEncoder;
 import com.supasoft.authservice.service.CustomUserDetailsService;
+import com.supasoft.common.config.JwtSecurityConfig;
+import com.supasoft.common.security.JwtAuthenticationFilter;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -33,29 +39,37 @@ import lombok.RequiredArgsConstructor;
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
+@Import(JwtSecurityConfig.class)
 @RequiredArgsConstructor
 public class SecurityConfig {
     
     private final CustomUserDetailsService userDetailsService;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
-    private final JwtAuthorizationFilter jwtAuthorizationFilter;
+    private final JwtAuthenticationFilter jwtAuthenticationFilter;
     
     /**
-     * Password encoder bean
+     * Password encoder bean; bcrypt runs on a bounded pool, off the request threads
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public OffloadingPasswordEncoder passwordEncoder(
+            @Value("${auth.password-hashing.threads:0}") int threads,
+            @Value("${auth.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.password-hashing.max-wait:5s}") Duration maxWait,
+            MeterRegistry meterRegistry) {
+        // Default to half the cores so a login burst leaves CPU for other traffic
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new OffloadingPasswordEncoder(new BCryptPasswordEncoder(12), poolSize, queueCapacity, maxWait,
+                meterRegistry);
     }
     
     /**
      * Authentication provider
      */
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
         return authProvider;
     }
     
@@ -71,7 +85,8 @@ public class SecurityConfig {
      * Security filter chain
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           DaoAuthenticationProvider authenticationProvider) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -94,8 +109,8 @@ public class SecurityConfig {
                         .anyRequest().authenticated()
                 );
         
-        http.authenticationProvider(authenticationProvider());
-        http.addFilterBefore(jwtAuthorizationFilter, UsernamePasswordAuthenticationFilter.class);
+        http.authenticationProvider(authenticationProvider);
+        http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
     }
@@ -7,11 +7,15 @@ import java.time.LocalDateTime;
 
 /**
  * Refresh Token entity for JWT token refresh functionality
+ * Only the SHA-256 of the token is stored, never the token itself.
  */
 @Entity
 @Table(name = "refresh_tokens", indexes = {
-        @Index(name = "idx_token", columnList = "token"),
-        @Index(name = "idx_user_id", columnList = "user_id")
+        @Index(name = "idx_refresh_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_user_id", columnList = "user_id"),
+        @Index(name = "idx_refresh_user_active", columnList = "user_id, revoked, expires_at"),
+        @Index(name = "idx_refresh_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_refresh_revoked_at", columnList = "revoked_at")
 })
 @Data
 @NoArgsConstructor
@@ -24,8 +28,8 @@ public class RefreshToken {
     @Column(name = "token_id")
     private Long tokenId;
     
-    @Column(name = "token", nullable = false, unique = true, length = 500)
-    private String token;
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
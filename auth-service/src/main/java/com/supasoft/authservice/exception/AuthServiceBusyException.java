@@ -0,0 +1,21 @@
+package com.supasoft.authservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when password hashing is saturated and the request should be retried shortly
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class AuthServiceBusyException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public AuthServiceBusyException(String message) {
+        super(message);
+    }
+    
+    public AuthServiceBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
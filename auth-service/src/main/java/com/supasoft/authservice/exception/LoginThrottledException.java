@@ -0,0 +1,17 @@
+package com.supasoft.authservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when an account has made too many sign-in attempts in the current window
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class LoginThrottledException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public LoginThrottledException(String message) {
+        super(message);
+    }
+}
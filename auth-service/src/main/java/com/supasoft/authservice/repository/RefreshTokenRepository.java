@@ -1,6 +1,8 @@
 package com.supasoft.authservice.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +10,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.supasoft.authservice.entity.RefreshToken;
 import com.supasoft.authservice.entity.User;
@@ -19,15 +22,22 @@ import com.supasoft.authservice.entity.User;
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
     
     /**
-     * Find refresh token by token string
+     * Find refresh token by the SHA-256 of the token
      */
-    Optional<RefreshToken> findByToken(String token);
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
     
     /**
-     * Find valid (non-expired, non-revoked) token by token string
+     * Find valid (non-expired, non-revoked) token by the SHA-256 of the token
      */
-    @Query("SELECT rt FROM RefreshToken rt WHERE rt.token = :token AND rt.revoked = false AND rt.expiresAt > :now")
-    Optional<RefreshToken> findValidByToken(@Param("token") String token, @Param("now") LocalDateTime now);
+    @Query("SELECT rt FROM RefreshToken rt WHERE rt.tokenHash = :tokenHash AND rt.revoked = false AND rt.expiresAt > :now")
+    Optional<RefreshToken> findValidByTokenHash(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
+    
+    /**
+     * Ids of a user's valid tokens, newest first
+     */
+    @Query("SELECT rt.tokenId FROM RefreshToken rt WHERE rt.user.userId = :userId AND rt.revoked = false "
+            + "AND rt.expiresAt > :now ORDER BY rt.createdAt DESC, rt.tokenId DESC")
+    List<Long> findActiveTokenIds(@Param("userId") Long userId, @Param("now") LocalDateTime now);
     
     /**
      * Delete all tokens for a user
@@ -35,11 +45,20 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     void deleteByUser(User user);
     
     /**
-     * Delete expired tokens
+     * Revoke a token unless it is already revoked
+     *
+     * @return 1 if this call revoked it, 0 if it was revoked already
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true, rt.revokedAt = :now WHERE rt.tokenId = :tokenId AND rt.revoked = false")
+    int revokeIfActive(@Param("tokenId") Long tokenId, @Param("now") LocalDateTime now);
+    
+    /**
+     * Revoke the given tokens
      */
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :now")
-    void deleteExpiredTokens(@Param("now") LocalDateTime now);
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true, rt.revokedAt = :now WHERE rt.tokenId IN :tokenIds AND rt.revoked = false")
+    int revokeAll(@Param("tokenIds") Collection<Long> tokenIds, @Param("now") LocalDateTime now);
     
     /**
      * Revoke all tokens for a user
@@ -49,9 +68,18 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     void revokeAllUserTokens(@Param("user") User user, @Param("now") LocalDateTime now);
     
     /**
-     * Check if token exists and is valid
+     * Delete up to {@code limit} tokens that expired before the cutoff, in a transaction of their own
      */
-    @Query("SELECT CASE WHEN COUNT(rt) > 0 THEN true ELSE false END FROM RefreshToken rt WHERE rt.token = :token AND rt.revoked = false AND rt.expiresAt > :now")
-    boolean existsValidToken(@Param("token") String token, @Param("now") LocalDateTime now);
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE expires_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+    
+    /**
+     * Delete up to {@code limit} tokens revoked before the cutoff, in a transaction of their own
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM refresh_tokens WHERE revoked_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteRevokedBatch(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
 }
-
@@ -0,0 +1,56 @@
+package com.supasoft.authservice.security;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.supasoft.authservice.exception.LoginThrottledException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-account limit on password checks
+ *
+ * Counts attempts per account in a fixed window that starts with the first attempt; once
+ * {@code max-attempts} is reached, further attempts are refused before any hashing is done.
+ * This bounds the bcrypt work a single account can cause, whether from a stuck till retrying
+ * or from password guessing, independently of the lockout on consecutive failures.
+ */
+@Component
+public class LoginThrottle {
+
+    private final int maxAttempts;
+    private final Cache<String, AtomicInteger> attempts;
+    private final Counter throttled;
+
+    public LoginThrottle(@Value("${auth.login-throttle.max-attempts:10}") int maxAttempts,
+                         @Value("${auth.login-throttle.window:1m}") Duration window,
+                         @Value("${auth.login-throttle.maximum-size:100000}") long maximumSize,
+                         MeterRegistry meterRegistry) {
+        this.maxAttempts = maxAttempts;
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build();
+        this.throttled = Counter.builder("auth.login.throttled").register(meterRegistry);
+    }
+
+    /**
+     * Count an attempt for the account
+     *
+     * @throws LoginThrottledException if the account has used up its attempts in this window
+     */
+    public void acquire(String account) {
+        String key = account.trim().toLowerCase(Locale.ROOT);
+        if (attempts.get(key, k -> new AtomicInteger()).incrementAndGet() > maxAttempts) {
+            throttled.increment();
+            throw new LoginThrottledException("Too many sign-in attempts, please wait and try again");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.supasoft.authservice.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.supasoft.authservice.exception.AuthServiceBusyException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Password encoder that runs the delegate's hashing on a small dedicated pool
+ *
+ * Bcrypt is CPU-bound, so letting every request thread hash at once lets a login burst take
+ * every core and stall all other traffic. Here at most {@code threads} hashes run at once and
+ * at most {@code queueCapacity} wait. The calling request thread still blocks until its hash
+ * is done; the pool only bounds how much hashing runs concurrently. A caller is refused with
+ * {@link AuthServiceBusyException} when the queue is full or its result takes longer than
+ * {@code maxWait}.
+ *
+ * Publishes auth.password.hash (hashing time, by operation), auth.password.queue.wait,
+ * auth.password.rejected and the pool's queue depth and active count.
+ */
+@Slf4j
+public class OffloadingPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejected;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, Duration maxWait,
+                                     MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxWait = maxWait;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("auth.password.hash").tag("operation", "matches").register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.password.queue.wait").register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.rejected").register(meterRegistry);
+        Gauge.builder("auth.password.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Timer timer, Callable<T> work) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(work);
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new AuthServiceBusyException("Too many sign-in requests, please retry shortly", ex);
+        }
+
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            throw new AuthServiceBusyException("Too many sign-in requests, please retry shortly", ex);
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthServiceBusyException("Interrupted while hashing password", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            log.error("Password hashing failed", ex.getCause());
+            throw new IllegalStateException("Password hashing failed", ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.supasoft.authservice.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.supasoft.authservice.entity.RefreshToken;
+import com.supasoft.authservice.entity.User;
+import com.supasoft.authservice.exception.TokenExpiredException;
+import com.supasoft.authservice.repository.RefreshTokenRepository;
+import com.supasoft.authservice.service.JwtTokenService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Refresh-token store
+ *
+ * Tokens are kept as SHA-256 hashes. Each use rotates the token: the presented one is revoked
+ * with a conditional update and a new one is issued, so a token can be redeemed once even when
+ * replicas race. A user keeps at most {@code max-per-user} valid tokens; issuing another revokes
+ * the oldest. Hash lookups are served from a Caffeine cache whose entries expire with the token;
+ * the conditional update in the database stays the authority on revocation.
+ *
+ * Expired tokens, and revoked ones past their retention, are deleted in small batches in the
+ * background so the table stays the size of the active sessions.
+ */
+@Slf4j
+@Component
+public class RefreshTokenStore {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtTokenService jwtTokenService;
+    private final int maxPerUser;
+    private final Duration revokedRetention;
+    private final int purgeBatchSize;
+
+    // token hash -> stored token; only valid tokens are cached
+    private final Cache<String, StoredToken> tokens;
+
+    public RefreshTokenStore(RefreshTokenRepository refreshTokenRepository,
+                             JwtTokenService jwtTokenService,
+                             @Value("${refresh-token.max-per-user:5}") int maxPerUser,
+                             @Value("${refresh-token.cache.maximum-size:50000}") long cacheMaximumSize,
+                             @Value("${refresh-token.revoked-retention:1d}") Duration revokedRetention,
+                             @Value("${refresh-token.purge-batch-size:1000}") int purgeBatchSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtTokenService = jwtTokenService;
+        this.maxPerUser = maxPerUser;
+        this.revokedRetention = revokedRetention;
+        this.purgeBatchSize = purgeBatchSize;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new Expiry<String, StoredToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, StoredToken token, long currentTime) {
+                        return Math.max(Duration.between(LocalDateTime.now(), token.expiresAt()).toNanos(), 0);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, StoredToken token, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, StoredToken token, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Issue a refresh token for the user; joins the caller's transaction
+     */
+    public String issue(User user) {
+        String token = jwtTokenService.generateRefreshToken(user.getUsername());
+        String tokenHash = hash(token);
+        LocalDateTime now = LocalDateTime.now();
+
+        RefreshToken refreshToken = refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(tokenHash)
+                .user(user)
+                .expiresAt(now.plus(Duration.ofMillis(jwtTokenService.getRefreshExpiration())))
+                .revoked(false)
+                .build());
+        enforceLimit(user.getUserId(), now);
+
+        tokens.put(tokenHash, new StoredToken(refreshToken.getTokenId(), user.getUserId(), refreshToken.getExpiresAt()));
+        return token;
+    }
+
+    /**
+     * Redeem a refresh token: revoke it and issue its replacement; joins the caller's transaction
+     *
+     * @throws TokenExpiredException if the token is unknown, expired, already used or revoked,
+     *                               or was not issued to this user
+     */
+    public String rotate(String token, User user) {
+        String tokenHash = hash(token);
+        LocalDateTime now = LocalDateTime.now();
+
+        StoredToken stored = tokens.getIfPresent(tokenHash);
+        if (stored == null) {
+            stored = refreshTokenRepository.findValidByTokenHash(tokenHash, now)
+                    .map(StoredToken::of)
+                    .orElseThrow(() -> new TokenExpiredException("Refresh token not found or expired"));
+        }
+        tokens.invalidate(tokenHash);
+
+        if (!stored.userId().equals(user.getUserId())
+                || !stored.expiresAt().isAfter(now)
+                || refreshTokenRepository.revokeIfActive(stored.tokenId(), now) == 0) {
+            throw new TokenExpiredException("Refresh token not found or expired");
+        }
+        return issue(user);
+    }
+
+    /**
+     * Revoke every refresh token of the user; joins the caller's transaction
+     */
+    public void revokeAll(User user) {
+        refreshTokenRepository.revokeAllUserTokens(user, LocalDateTime.now());
+        tokens.asMap().values().removeIf(token -> token.userId().equals(user.getUserId()));
+    }
+
+    public long cachedTokens() {
+        return tokens.estimatedSize();
+    }
+
+    /**
+     * Revoke the user's oldest valid tokens beyond the per-user limit
+     */
+    private void enforceLimit(Long userId, LocalDateTime now) {
+        List<Long> active = refreshTokenRepository.findActiveTokenIds(userId, now);
+        if (active.size() <= maxPerUser) {
+            return;
+        }
+        Set<Long> excess = new HashSet<>(active.subList(maxPerUser, active.size()));
+        refreshTokenRepository.revokeAll(excess, now);
+        tokens.asMap().values().removeIf(token -> excess.contains(token.tokenId()));
+    }
+
+    /**
+     * Delete expired tokens, and revoked ones older than the retention, one batch per transaction
+     */
+    public int purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        int batch;
+        do {
+            batch = refreshTokenRepository.deleteExpiredBatch(now, purgeBatchSize);
+            deleted += batch;
+        } while (batch == purgeBatchSize);
+
+        LocalDateTime revokedCutoff = now.minus(revokedRetention);
+        do {
+            batch = refreshTokenRepository.deleteRevokedBatch(revokedCutoff, purgeBatchSize);
+            deleted += batch;
+        } while (batch == purgeBatchSize);
+        return deleted;
+    }
+
+    @Scheduled(fixedDelayString = "${refresh-token.purge-interval:1h}")
+    public void purgeQuietly() {
+        try {
+            int deleted = purge();
+            if (deleted > 0) {
+                log.info("Purged {} expired or revoked refresh tokens", deleted);
+            }
+        } catch (Exception ex) {
+            log.error("Refresh token purge failed", ex);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    private record StoredToken(Long tokenId, Long userId, LocalDateTime expiresAt) {
+
+        static StoredToken of(RefreshToken token) {
+            return new StoredToken(token.getTokenId(), token.getUser().getUserId(), token.getExpiresAt());
+        }
+    }
+}
@@ -7,27 +7,29 @@ import com.supasoft.authservice.dto.request.RegisterRequest;
 import com.supasoft.authservice.dto.response.LoginResponse;
 import com.supasoft.authservice.dto.response.TokenResponse;
 import com.supasoft.authservice.dto.response.UserResponse;
-import com.supasoft.authservice.entity.RefreshToken;
 import com.supasoft.authservice.entity.Role;
 import com.supasoft.authservice.entity.User;
 import com.supasoft.authservice.exception.InvalidCredentialsException;
 import com.supasoft.authservice.exception.TokenExpiredException;
 import com.supasoft.authservice.exception.UserAlreadyExistsException;
-import com.supasoft.authservice.repository.RefreshTokenRepository;
 import com.supasoft.authservice.repository.RoleRepository;
 import com.supasoft.authservice.repository.UserRepository;
+import com.supasoft.authservice.security.LoginThrottle;
+import com.supasoft.authservice.security.RefreshTokenStore;
 import com.supasoft.common.exception.ResourceNotFoundException;
+import com.supasoft.common.security.TokenDenyList;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -44,10 +46,13 @@ public class AuthServiceImpl implements AuthService {
     
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenStore refreshTokenStore;
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenService jwtTokenService;
     private final AuthenticationManager authenticationManager;
+    private final TokenDenyList tokenDenyList;
+    private final LoginThrottle loginThrottle;
+    private final TransactionTemplate transactionTemplate;
     
     private static final int MAX_LOGIN_ATTEMPTS = 5;
     private static final int LOCK_DURATION_MINUTES = 30;
@@ -102,8 +107,11 @@ public class AuthServiceImpl implements AuthService {
         return mapToUserResponse(savedUser);
     }
     
+    /**
+     * No transaction is held while the password is checked, so logins queued for the
+     * hashing pool do not tie up database connections
+     */
     @Override
-    @Transactional
     public LoginResponse login(LoginRequest request) {
         log.info("Login attempt for user: {}", request.getUsernameOrEmail());
         
@@ -116,44 +124,17 @@ public class AuthServiceImpl implements AuthService {
             throw new LockedException("Account is locked. Please try again later.");
         }
         
+        // Bound the password checks one account can trigger before any hashing is done
+        loginThrottle.acquire(user.getUsername());
+        
         try {
             // Authenticate
-            Authentication authentication = authenticationManager.authenticate(
+            authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             user.getUsername(),
                             request.getPassword()
                     )
             );
-            
-            // Reset failed attempts on successful login
-            if (user.getFailedLoginAttempts() > 0) {
-                user.setFailedLoginAttempts(0);
-                user.setLockedUntil(null);
-                userRepository.save(user);
-            }
-            
-            // Update last login
-            user.setLastLoginAt(LocalDateTime.now());
-            userRepository.save(user);
-            
-            // Generate tokens
-            String accessToken = jwtTokenService.generateTokenForUser(user);
-            String refreshToken = jwtTokenService.generateRefreshToken(user.getUsername());
-            
-            // Save refresh token
-            saveRefreshToken(user, refreshToken);
-            
-            log.info("User logged in successfully: {}", user.getUsername());
-            
-            // Build response
-            return LoginResponse.builder()
-                    .accessToken(accessToken)
-                    .refreshToken(refreshToken)
-                    .tokenType("Bearer")
-                    .expiresIn(jwtTokenService.getJwtExpiration())
-                    .user(mapToLoginUserResponse(user))
-                    .build();
-            
         } catch (BadCredentialsException ex) {
             // Handle failed login attempt
             handleFailedLoginAttempt(user);
@@ -162,6 +143,42 @@ public class AuthServiceImpl implements AuthService {
             log.error("Authentication failed for user: {}", request.getUsernameOrEmail(), ex);
             throw new InvalidCredentialsException("Authentication failed: " + ex.getMessage());
         }
+        
+        Long userId = user.getUserId();
+        return transactionTemplate.execute(status -> completeLogin(userId));
+    }
+    
+    /**
+     * Record a successful login and issue its tokens
+     */
+    private LoginResponse completeLogin(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+        
+        // Reset failed attempts on successful login
+        if (user.getFailedLoginAttempts() > 0) {
+            user.setFailedLoginAttempts(0);
+            user.setLockedUntil(null);
+        }
+        
+        // Update last login
+        user.setLastLoginAt(LocalDateTime.now());
+        userRepository.save(user);
+        
+        // Generate tokens
+        String accessToken = jwtTokenService.generateTokenForUser(user);
+        String refreshToken = refreshTokenStore.issue(user);
+        
+        log.info("User logged in successfully: {}", user.getUsername());
+        
+        // Build response
+        return LoginResponse.builder()
+                .accessToken(accessToken)
+                .refreshToken(refreshToken)
+                .tokenType("Bearer")
+                .expiresIn(jwtTokenService.getJwtExpiration())
+                .user(mapToLoginUserResponse(user))
+                .build();
     }
     
     @Override
@@ -169,22 +186,21 @@ public class AuthServiceImpl implements AuthService {
     public TokenResponse refreshToken(RefreshTokenRequest request) {
         String refreshTokenStr = request.getRefreshToken();
         
-        // Validate refresh token
-        if (!jwtTokenService.validateToken(refreshTokenStr)) {
+        // Validate refresh token and read its subject in one parse
+        String username;
+        try {
+            username = jwtTokenService.parseClaims(refreshTokenStr).getSubject();
+        } catch (JwtException | IllegalArgumentException ex) {
             throw new TokenExpiredException("Invalid or expired refresh token");
         }
         
-        // Get username from token
-        String username = jwtTokenService.getUsernameFromToken(refreshTokenStr);
-        
-        // Find refresh token in database
-        RefreshToken refreshToken = refreshTokenRepository.findValidByToken(refreshTokenStr, LocalDateTime.now())
-                .orElseThrow(() -> new TokenExpiredException("Refresh token not found or expired"));
-        
         // Find user
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
         
+        // Redeem the refresh token; it is single use and replaced by a new one
+        String newRefreshToken = refreshTokenStore.rotate(refreshTokenStr, user);
+        
         // Generate new access token
         String newAccessToken = jwtTokenService.generateTokenForUser(user);
         
@@ -192,7 +208,7 @@ public class AuthServiceImpl implements AuthService {
         
         return TokenResponse.builder()
                 .accessToken(newAccessToken)
-                .refreshToken(refreshTokenStr)
+                .refreshToken(newRefreshToken)
                 .tokenType("Bearer")
                 .expiresIn(jwtTokenService.getJwtExpiration())
                 .build();
@@ -205,7 +221,10 @@ public class AuthServiceImpl implements AuthService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
         
         // Revoke all refresh tokens for the user
-        refreshTokenRepository.revokeAllUserTokens(user, LocalDateTime.now());
+        refreshTokenStore.revokeAll(user);
+        
+        // Access tokens are verified without a lookup, so they are revoked through the deny list
+        tokenDenyList.revokeUser(username);
         
         log.info("User logged out successfully: {}", username);
     }
@@ -223,6 +242,7 @@ public class AuthServiceImpl implements AuthService {
                 .orElseThrow(() -> new ResourceNotFoundException("User", "username", username));
         
         // Verify current password
+        loginThrottle.acquire(username);
         if (!passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
             throw new InvalidCredentialsException("Current password is incorrect");
         }
@@ -233,7 +253,8 @@ public class AuthServiceImpl implements AuthService {
         userRepository.save(user);
         
         // Revoke all existing tokens
-        refreshTokenRepository.revokeAllUserTokens(user, LocalDateTime.now());
+        refreshTokenStore.revokeAll(user);
+        tokenDenyList.revokeUser(username);
         
         log.info("Password changed successfully for user: {}", username);
     }
@@ -256,20 +277,6 @@ public class AuthServiceImpl implements AuthService {
         log.info("Password reset requested with token: {}", token);
     }
     
-    /**
-     * Save refresh token to database
-     */
-    private void saveRefreshToken(User user, String token) {
-        RefreshToken refreshToken = RefreshToken.builder()
-                .token(token)
-                .user(user)
-                .expiresAt(LocalDateTime.now().plusDays(7))
-                .revoked(false)
-                .build();
-        
-        refreshTokenRepository.save(refreshToken);
-    }
-    
     /**
      * Handle failed login attempt
      */
@@ -1,35 +1,35 @@
 package com.supasoft.authservice.service;
 
 import com.supasoft.authservice.entity.User;
+import com.supasoft.common.security.JwtFailureReason;
+import com.supasoft.common.security.JwtKeyRing;
+import com.supasoft.common.security.JwtVerificationException;
+import com.supasoft.common.security.JwtVerifier;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.UnsupportedJwtException;
-import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
  * Service for JWT token operations
+ * Tokens are signed with the current key of the shared {@link JwtKeyRing} and carry its kid;
+ * parsing goes through the shared {@link JwtVerifier}.
  */
 @Slf4j
 @Service
 public class JwtTokenService {
 
-    @Value("${jwt.secret:supasoft-secret-key-for-jwt-token-generation-must-be-at-least-256-bits}")
-    private String jwtSecret;
+    private final JwtKeyRing keyRing;
+    private final JwtVerifier jwtVerifier;
 
     @Value("${jwt.expiration:86400000}") // 24 hours
     private long jwtExpiration;
@@ -37,6 +37,11 @@ public class JwtTokenService {
     @Value("${jwt.refresh-expiration:604800000}") // 7 days
     private long jwtRefreshExpiration;
 
+    public JwtTokenService(JwtKeyRing keyRing, JwtVerifier jwtVerifier) {
+        this.keyRing = keyRing;
+        this.jwtVerifier = jwtVerifier;
+    }
+
     /**
      * Generate JWT access token
      */
@@ -48,7 +53,8 @@ public class JwtTokenService {
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
 
-        claims.put("authorities", authorities);
+        claims.put(JwtVerifier.AUTHORITIES_CLAIM, authorities);
+        claims.put(JwtVerifier.TOKEN_TYPE_CLAIM, JwtVerifier.ACCESS_TOKEN);
 
         return generateToken(username, claims, jwtExpiration);
     }
@@ -62,9 +68,10 @@ public class JwtTokenService {
                 .map(role -> role.getRoleName())
                 .collect(Collectors.joining(","));
 
-        claims.put("authorities", roles);
-        claims.put("userId", user.getUserId());
+        claims.put(JwtVerifier.AUTHORITIES_CLAIM, roles);
+        claims.put(JwtVerifier.USER_ID_CLAIM, user.getUserId());
         claims.put("email", user.getEmail());
+        claims.put(JwtVerifier.TOKEN_TYPE_CLAIM, JwtVerifier.ACCESS_TOKEN);
 
         return generateToken(user.getUsername(), claims, jwtExpiration);
     }
@@ -73,7 +80,9 @@ public class JwtTokenService {
      * Generate refresh token
      */
     public String generateRefreshToken(String username) {
-        return generateToken(username, new HashMap<>(), jwtRefreshExpiration);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtVerifier.TOKEN_TYPE_CLAIM, JwtVerifier.REFRESH_TOKEN);
+        return generateToken(username, claims, jwtRefreshExpiration);
     }
 
     /**
@@ -84,11 +93,14 @@ public class JwtTokenService {
         Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
-                .setClaims(claims)
-                .setSubject(subject)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .header().keyId(keyRing.getSigningKeyId()).and()
+                .claims(claims)
+                .claim(JwtVerifier.ISSUED_AT_MILLIS_CLAIM, now.getTime())
+                .subject(subject)
+                .id(UUID.randomUUID().toString())
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .signWith(keyRing.getSigningKey(), Jwts.SIG.HS512)
                 .compact();
     }
 
@@ -113,19 +125,10 @@ public class JwtTokenService {
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            jwtVerifier.parseClaims(token);
             return true;
-        } catch (MalformedJwtException ex) {
-            log.error("Invalid JWT token: {}", ex.getMessage());
-        } catch (ExpiredJwtException ex) {
-            log.error("Expired JWT token: {}", ex.getMessage());
-        } catch (UnsupportedJwtException ex) {
-            log.error("Unsupported JWT token: {}", ex.getMessage());
-        } catch (IllegalArgumentException ex) {
-            log.error("JWT claims string is empty: {}", ex.getMessage());
+        } catch (JwtVerificationException ex) {
+            log.debug("Rejected JWT token ({}): {}", ex.getReason().getTag(), ex.getMessage());
         }
         return false;
     }
@@ -137,28 +140,25 @@ public class JwtTokenService {
         try {
             Date expiration = getExpirationDateFromToken(token);
             return expiration.before(new Date());
-        } catch (ExpiredJwtException ex) {
-            return true;
+        } catch (JwtVerificationException ex) {
+            return ex.getReason() == JwtFailureReason.EXPIRED;
         }
     }
 
     /**
-     * Get claims from token
+     * Verify the signature and expiry and return the claims, in a single parse
+     *
+     * @throws JwtVerificationException if the token is malformed, expired or its signature does not match
      */
-    private Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-            .verifyWith(getSigningKey())
-                .build()
-            .parseSignedClaims(token)
-                .getPayload();
+    public Claims parseClaims(String token) {
+        return jwtVerifier.parseClaims(token);
     }
 
     /**
-     * Get signing key
+     * Get claims from token
      */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private Claims getClaimsFromToken(String token) {
+        return jwtVerifier.parseClaims(token);
     }
 
     /**
@@ -167,4 +167,11 @@ public class JwtTokenService {
     public long getJwtExpiration() {
         return jwtExpiration;
     }
+
+    /**
+     * Get refresh token expiration in milliseconds
+     */
+    public long getRefreshExpiration() {
+        return jwtRefreshExpiration;
+    }
 }
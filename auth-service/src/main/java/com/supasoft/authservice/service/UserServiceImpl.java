@@ -4,8 +4,10 @@ import com.supasoft.authservice.dto.response.UserResponse;
 import com.supasoft.authservice.entity.Role;
 import com.supasoft.authservice.entity.User;
 import com.supasoft.authservice.repository.UserRepository;
+import com.supasoft.authservice.security.RefreshTokenStore;
 import com.supasoft.common.dto.PagedResponse;
 import com.supasoft.common.exception.ResourceNotFoundException;
+import com.supasoft.common.security.TokenDenyList;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -27,6 +29,8 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
     
     private final UserRepository userRepository;
+    private final TokenDenyList tokenDenyList;
+    private final RefreshTokenStore refreshTokenStore;
     
     @Override
     @Transactional(readOnly = true)
@@ -111,6 +115,8 @@ public class UserServiceImpl implements UserService {
         user.setIsDeleted(true);
         user.setIsActive(false);
         userRepository.save(user);
+        refreshTokenStore.revokeAll(user);
+        tokenDenyList.revokeUser(user.getUsername());
         
         log.info("User soft deleted: {}", user.getUsername());
     }
@@ -135,6 +141,8 @@ public class UserServiceImpl implements UserService {
         
         user.setIsActive(false);
         userRepository.save(user);
+        refreshTokenStore.revokeAll(user);
+        tokenDenyList.revokeUser(user.getUsername());
         
         log.info("User deactivated: {}", user.getUsername());
     }
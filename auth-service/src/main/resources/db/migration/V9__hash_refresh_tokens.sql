@@ -0,0 +1,13 @@
+-- Store refresh tokens as SHA-256 hashes and index the columns the purge scans
+ALTER TABLE refresh_tokens ADD COLUMN token_hash CHAR(64) NULL AFTER token_id;
+
+UPDATE refresh_tokens SET token_hash = SHA2(token, 256);
+
+ALTER TABLE refresh_tokens
+    MODIFY COLUMN token_hash CHAR(64) NOT NULL,
+    DROP INDEX idx_token,
+    DROP COLUMN token,
+    ADD UNIQUE INDEX idx_refresh_token_hash (token_hash),
+    ADD INDEX idx_refresh_user_active (user_id, revoked, expires_at),
+    ADD INDEX idx_refresh_expires_at (expires_at),
+    ADD INDEX idx_refresh_revoked_at (revoked_at);
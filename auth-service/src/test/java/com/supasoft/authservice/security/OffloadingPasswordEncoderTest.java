@@ -0,0 +1,123 @@
+package com.supasoft.authservice.security;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.supasoft.authservice.exception.AuthServiceBusyException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class OffloadingPasswordEncoderTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private OffloadingPasswordEncoder encoder;
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        if (encoder != null) {
+            encoder.close();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testHashingRunsOnThePoolAndIsTimed() {
+        encoder = new OffloadingPasswordEncoder(NoOpPasswordEncoder.getInstance(), 2, 4, Duration.ofSeconds(5),
+                meterRegistry);
+
+        String encoded = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", encoded));
+        assertFalse(encoder.matches("wrong", encoded));
+        assertEquals(1, meterRegistry.get("auth.password.hash").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("auth.password.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    public void testFullQueueIsRefusedAtOnce() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        encoder = new OffloadingPasswordEncoder(blocking(started), 1, 1, Duration.ofSeconds(5), meterRegistry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        waitForQueueDepth(1);
+
+        assertThrows(AuthServiceBusyException.class, () -> encoder.encode("c"));
+        assertEquals(1.0, meterRegistry.get("auth.password.rejected").counter().count());
+
+        release.countDown();
+        assertNotEquals(running.get(5, TimeUnit.SECONDS), queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCallerWaitsAtMostMaxWait() {
+        encoder = new OffloadingPasswordEncoder(blocking(new CountDownLatch(1)), 1, 1, Duration.ofMillis(50),
+                meterRegistry);
+
+        assertThrows(AuthServiceBusyException.class, () -> encoder.encode("a"));
+        assertEquals(1.0, meterRegistry.get("auth.password.rejected").counter().count());
+    }
+
+    @Test
+    public void testDelegateFailureIsRethrown() {
+        PasswordEncoder failing = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new IllegalArgumentException("rawPassword cannot be null");
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        encoder = new OffloadingPasswordEncoder(failing, 1, 1, Duration.ofSeconds(5), meterRegistry);
+
+        assertThrows(IllegalArgumentException.class, () -> encoder.encode("a"));
+    }
+
+    private PasswordEncoder blocking(CountDownLatch started) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hashed-" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+
+    private void waitForQueueDepth(double depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("auth.password.queue.depth").gauge().value() < depth
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.supasoft.authservice.security;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.supasoft.authservice.entity.RefreshToken;
+import com.supasoft.authservice.entity.User;
+import com.supasoft.authservice.exception.TokenExpiredException;
+import com.supasoft.authservice.repository.RefreshTokenRepository;
+import com.supasoft.authservice.service.JwtTokenService;
+
+public class RefreshTokenStoreTest {
+
+    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenStore store;
+    private User alice;
+
+    @BeforeEach
+    public void setUp() {
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        JwtTokenService jwtTokenService = mock(JwtTokenService.class);
+        AtomicInteger issued = new AtomicInteger();
+        when(jwtTokenService.generateRefreshToken(anyString()))
+                .thenAnswer(invocation -> "refresh-" + invocation.getArgument(0) + "-" + issued.incrementAndGet());
+        when(jwtTokenService.getRefreshExpiration()).thenReturn(Duration.ofDays(7).toMillis());
+
+        AtomicLong ids = new AtomicLong();
+        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(invocation -> {
+            RefreshToken token = invocation.getArgument(0);
+            token.setTokenId(ids.incrementAndGet());
+            return token;
+        });
+        when(refreshTokenRepository.findActiveTokenIds(anyLong(), any())).thenReturn(List.of());
+        when(refreshTokenRepository.findValidByTokenHash(anyString(), any())).thenReturn(Optional.empty());
+
+        store = new RefreshTokenStore(refreshTokenRepository, jwtTokenService, 2, 1000, Duration.ofDays(1), 100);
+        alice = User.builder().userId(1L).username("alice").build();
+    }
+
+    @Test
+    public void testRefreshTokenCanOnlyBeRotatedOnce() {
+        String token = store.issue(alice);
+        when(refreshTokenRepository.revokeIfActive(eq(1L), any())).thenReturn(1);
+
+        String replacement = store.rotate(token, alice);
+
+        assertNotEquals(token, replacement);
+        assertThrows(TokenExpiredException.class, () -> store.rotate(token, alice));
+    }
+
+    @Test
+    public void testRotationLosingTheRaceIsRejected() {
+        String token = store.issue(alice);
+        when(refreshTokenRepository.revokeIfActive(eq(1L), any())).thenReturn(0);
+
+        assertThrows(TokenExpiredException.class, () -> store.rotate(token, alice));
+        verify(refreshTokenRepository).save(any(RefreshToken.class));
+    }
+
+    @Test
+    public void testTokenOfAnotherUserIsRejected() {
+        String token = store.issue(alice);
+        User bob = User.builder().userId(2L).username("bob").build();
+
+        assertThrows(TokenExpiredException.class, () -> store.rotate(token, bob));
+        verify(refreshTokenRepository, never()).revokeIfActive(anyLong(), any());
+    }
+
+    @Test
+    public void testOldestTokensBeyondTheLimitAreRevoked() {
+        when(refreshTokenRepository.findActiveTokenIds(eq(1L), any())).thenReturn(List.of(4L, 3L, 2L, 1L));
+
+        store.issue(alice);
+
+        verify(refreshTokenRepository).revokeAll(eq(Set.of(2L, 1L)), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void testPurgeDeletesInBatchesUntilDrained() {
+        when(refreshTokenRepository.deleteExpiredBatch(any(), anyInt())).thenReturn(100, 100, 7);
+        when(refreshTokenRepository.deleteRevokedBatch(any(), anyInt())).thenReturn(3);
+
+        assertEquals(210, store.purge());
+    }
+}
@@ -0,0 +1,56 @@
+package com.supasoft.authservice.service;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.supasoft.common.security.JwtKeyRing;
+import com.supasoft.common.security.JwtProperties;
+import com.supasoft.common.security.JwtVerificationException;
+import com.supasoft.common.security.JwtVerifier;
+
+import io.jsonwebtoken.Claims;
+
+public class JwtTokenServiceTest {
+
+    private static final String SECRET = "secret-for-jwt-token-service-tests-must-be-at-least-512-bits-long-ok";
+
+    private JwtTokenService jwtTokenService;
+
+    @BeforeEach
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setKeyId("k1");
+        properties.setPreviousKeys(Map.of());
+        JwtKeyRing keyRing = new JwtKeyRing(properties);
+        jwtTokenService = new JwtTokenService(keyRing, new JwtVerifier(keyRing, 1000, (username, issuedAt) -> false));
+        ReflectionTestUtils.setField(jwtTokenService, "jwtRefreshExpiration", 60_000L);
+    }
+
+    @Test
+    public void testRefreshTokenCarriesSubjectTypeAndUniqueId() {
+        Claims first = jwtTokenService.parseClaims(jwtTokenService.generateRefreshToken("alice"));
+        Claims second = jwtTokenService.parseClaims(jwtTokenService.generateRefreshToken("alice"));
+
+        assertEquals("alice", first.getSubject());
+        assertEquals(JwtVerifier.REFRESH_TOKEN, first.get(JwtVerifier.TOKEN_TYPE_CLAIM));
+        assertNotNull(first.getIssuedAt());
+        assertEquals(60_000L, first.getExpiration().getTime() - first.getIssuedAt().getTime(), 1_000L);
+        assertNotEquals(first.getId(), second.getId());
+    }
+
+    @Test
+    public void testTamperedTokenIsRejected() {
+        String token = jwtTokenService.generateRefreshToken("alice");
+
+        assertThrows(JwtVerificationException.class, () -> jwtTokenService.parseClaims(token + "x"));
+    }
+}
@@ -0,0 +1,17 @@
+package com.supasoft.common.cache;
+
+/**
+ * Broadcasts L1 invalidations to other replicas
+ */
+public interface CacheInvalidationPublisher {
+
+    /**
+     * Tell peers to drop one key from their local copy of the cache
+     */
+    void publishEvict(String cacheName, String key);
+
+    /**
+     * Tell peers to drop their whole local copy of the cache
+     */
+    void publishClear(String cacheName);
+}
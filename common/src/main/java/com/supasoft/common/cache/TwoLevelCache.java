@@ -0,0 +1,206 @@
+package com.supasoft.common.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * Near cache: bounded in-process L1 (Caffeine) in front of a shared L2 (Redis).
+ * Every write goes to L2 first, then L1, then an invalidation is broadcast so
+ * other replicas drop their L1 copy. L1 values are shared instances and must be
+ * treated as read-only by callers.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> l1;
+    private final Cache l2;
+    private final CacheInvalidationPublisher invalidationPublisher;
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<String, Object> l1,
+                         Cache l2,
+                         CacheInvalidationPublisher invalidationPublisher) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.invalidationPublisher = invalidationPublisher;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String l1Key = l1Key(key);
+        Object value = l1.getIfPresent(l1Key);
+        if (value != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(value);
+        }
+
+        ValueWrapper wrapper = l2.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            l2Hits.increment();
+            l1.put(l1Key, wrapper.get());
+            return wrapper;
+        }
+
+        misses.increment();
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String l1Key = l1Key(key);
+        Object value = l1.getIfPresent(l1Key);
+        if (value != null) {
+            l1Hits.increment();
+            return (T) value;
+        }
+
+        // L2 handles loader synchronization; count a miss only when the loader actually runs
+        boolean[] loaded = new boolean[1];
+        T result = l2.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+        if (loaded[0]) {
+            misses.increment();
+        } else {
+            l2Hits.increment();
+        }
+        if (result != null) {
+            l1.put(l1Key, result);
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        l2.put(key, value);
+        String l1Key = l1Key(key);
+        if (value != null) {
+            l1.put(l1Key, value);
+        } else {
+            l1.invalidate(l1Key);
+        }
+        invalidationPublisher.publishEvict(name, l1Key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        if (existing == null) {
+            invalidationPublisher.publishEvict(name, l1Key(key));
+        }
+        l1.invalidate(l1Key(key));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        String l1Key = l1Key(key);
+        l1.invalidate(l1Key);
+        invalidationPublisher.publishEvict(name, l1Key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = l2.evictIfPresent(key);
+        String l1Key = l1Key(key);
+        l1.invalidate(l1Key);
+        invalidationPublisher.publishEvict(name, l1Key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        l1.invalidateAll();
+        invalidationPublisher.publishClear(name);
+    }
+
+    /**
+     * Drop a local copy after another replica changed it
+     */
+    void invalidateLocal(String l1Key) {
+        l1.invalidate(l1Key);
+    }
+
+    /**
+     * Drop every local copy after another replica cleared the cache
+     */
+    void clearLocal() {
+        l1.invalidateAll();
+    }
+
+    public long getL1Hits() {
+        return l1Hits.sum();
+    }
+
+    public long getL2Hits() {
+        return l2Hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getL1Size() {
+        return l1.estimatedSize();
+    }
+
+    /**
+     * Share of lookups answered by L1
+     */
+    public double getL1HitRatio() {
+        return ratio(getL1Hits());
+    }
+
+    /**
+     * Share of lookups answered by L2 (after an L1 miss)
+     */
+    public double getL2HitRatio() {
+        return ratio(getL2Hits());
+    }
+
+    private double ratio(long hits) {
+        long total = getL1Hits() + getL2Hits() + getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * L1 and invalidation messages use the string form, matching Redis key conversion for ids and codes
+     */
+    static String l1Key(Object key) {
+        return String.valueOf(key);
+    }
+}
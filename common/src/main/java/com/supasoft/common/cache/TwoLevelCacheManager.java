@@ -0,0 +1,159 @@
+package com.supasoft.common.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache manager that fronts every Redis cache with a bounded Caffeine L1.
+ *
+ * L1 copies are kept coherent across replicas over Redis pub/sub: each write
+ * publishes "instanceId|cacheName|key" (or "instanceId|cacheName" for a clear)
+ * and peers drop their local entry. The L1 TTL bounds staleness if a message is lost.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, CacheInvalidationPublisher, MessageListener, MeterBinder {
+
+    public static final String INVALIDATION_CHANNEL = "supasoft:cache:invalidation";
+
+    private static final String SEPARATOR = "|";
+
+    private final RedisCacheManager l2CacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final long l1MaximumSize;
+    private final Duration l1Ttl;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    public TwoLevelCacheManager(RedisCacheManager l2CacheManager,
+                                StringRedisTemplate redisTemplate,
+                                long l1MaximumSize,
+                                Duration l1Ttl) {
+        this.l2CacheManager = l2CacheManager;
+        this.redisTemplate = redisTemplate;
+        this.l1MaximumSize = l1MaximumSize;
+        this.l1Ttl = l1Ttl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache l2 = l2CacheManager.getCache(name);
+        if (l2 == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> {
+            TwoLevelCache created = new TwoLevelCache(n, Caffeine.newBuilder()
+                    .maximumSize(l1MaximumSize)
+                    .expireAfterWrite(l1Ttl)
+                    .build(), l2, this);
+            MeterRegistry registry = meterRegistry;
+            if (registry != null) {
+                registerMeters(created, registry);
+            }
+            return created;
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    @Override
+    public void publishEvict(String cacheName, String key) {
+        publish(instanceId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+
+    @Override
+    public void publishClear(String cacheName) {
+        publish(instanceId + SEPARATOR + cacheName);
+    }
+
+    /**
+     * Apply an invalidation broadcast by another replica
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        // Redis string serializer wraps nothing, but tolerate JSON-quoted payloads
+        if (body.length() > 1 && body.startsWith("\"") && body.endsWith("\"")) {
+            body = body.substring(1, body.length() - 1);
+        }
+
+        String[] parts = body.split("\\" + SEPARATOR, 3);
+        if (parts.length < 2 || instanceId.equals(parts[0])) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts.length == 2) {
+            cache.clearLocal();
+        } else {
+            cache.invalidateLocal(parts[2]);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        caches.values().forEach(cache -> registerMeters(cache, registry));
+    }
+
+    private void registerMeters(TwoLevelCache cache, MeterRegistry registry) {
+        FunctionCounter.builder("cache.twolevel.gets", cache, TwoLevelCache::getL1Hits)
+                .tag("cache", cache.getName()).tag("result", "l1_hit")
+                .register(registry);
+        FunctionCounter.builder("cache.twolevel.gets", cache, TwoLevelCache::getL2Hits)
+                .tag("cache", cache.getName()).tag("result", "l2_hit")
+                .register(registry);
+        FunctionCounter.builder("cache.twolevel.gets", cache, TwoLevelCache::getMisses)
+                .tag("cache", cache.getName()).tag("result", "miss")
+                .register(registry);
+        Gauge.builder("cache.twolevel.hit.ratio", cache, TwoLevelCache::getL1HitRatio)
+                .tag("cache", cache.getName()).tag("level", "l1")
+                .register(registry);
+        Gauge.builder("cache.twolevel.hit.ratio", cache, TwoLevelCache::getL2HitRatio)
+                .tag("cache", cache.getName()).tag("level", "l2")
+                .register(registry);
+        Gauge.builder("cache.twolevel.l1.size", cache, TwoLevelCache::getL1Size)
+                .tag("cache", cache.getName())
+                .register(registry);
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message);
+        } catch (Exception e) {
+            // L1 TTL bounds staleness on peers; never fail the write because of the broadcast
+            log.warn("Failed to publish cache invalidation '{}': {}", message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.supasoft.common.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.supasoft.common.security.JwtAuthenticationFilter;
+import com.supasoft.common.security.JwtKeyRing;
+import com.supasoft.common.security.JwtProperties;
+import com.supasoft.common.security.JwtVerifier;
+import com.supasoft.common.security.JwtVerifierMetrics;
+import com.supasoft.common.security.TokenDenyList;
+import com.supasoft.common.security.TokenRevocationSubscriber;
+import com.supasoft.common.security.TokenRevocationCheck;
+
+/**
+ * Shared JWT verification beans; each service imports this from its SecurityConfig
+ */
+@Configuration
+@EnableConfigurationProperties(JwtProperties.class)
+public class JwtSecurityConfig {
+
+    @Bean
+    public JwtKeyRing jwtKeyRing(JwtProperties properties) {
+        return new JwtKeyRing(properties);
+    }
+
+    @Bean
+    public JwtVerifier jwtVerifier(JwtKeyRing keyRing, JwtProperties properties,
+                                   ObjectProvider<TokenRevocationCheck> revocationCheck) {
+        return new JwtVerifier(keyRing, properties.getClaimsCache().getMaximumSize(),
+                revocationCheck.getIfAvailable());
+    }
+
+    @Bean
+    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtVerifier jwtVerifier) {
+        return new JwtAuthenticationFilter(jwtVerifier);
+    }
+
+    /**
+     * The filter runs inside the security filter chain only, not again as a plain servlet filter
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(
+            JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    /**
+     * Every service that verifies tokens enforces logouts and deactivations published by auth-service
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.data.redis.core.StringRedisTemplate")
+    static class TokenRevocationConfig {
+
+        @Bean
+        public TokenDenyList tokenDenyList(StringRedisTemplate redisTemplate, JwtProperties properties) {
+            return new TokenDenyList(redisTemplate, Duration.ofMillis(properties.getExpiration()));
+        }
+
+        @Bean
+        public TokenRevocationSubscriber tokenRevocationSubscriber(RedisConnectionFactory connectionFactory,
+                                                                   TokenDenyList tokenDenyList) {
+            return new TokenRevocationSubscriber(connectionFactory, tokenDenyList, Duration.ofSeconds(30));
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class JwtMetricsConfig {
+
+        @Bean
+        public JwtVerifierMetrics jwtVerifierMetrics(JwtVerifier jwtVerifier) {
+            return new JwtVerifierMetrics(jwtVerifier);
+        }
+    }
+}
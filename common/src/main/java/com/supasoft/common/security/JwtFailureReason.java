@@ -0,0 +1,25 @@
+package com.supasoft.common.security;
+
+/**
+ * Why a token was rejected; used as the {@code reason} tag of verification failure metrics
+ */
+public enum JwtFailureReason {
+    MALFORMED("malformed"),
+    EXPIRED("expired"),
+    INVALID_SIGNATURE("invalid_signature"),
+    UNKNOWN_KEY("unknown_key"),
+    UNSUPPORTED("unsupported"),
+    NOT_ACCESS_TOKEN("not_access_token"),
+    REVOKED("revoked"),
+    INVALID("invalid");
+
+    private final String tag;
+
+    JwtFailureReason(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
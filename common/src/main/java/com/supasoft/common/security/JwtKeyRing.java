@@ -0,0 +1,53 @@
+package com.supasoft.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * HMAC keys by key id, derived once from {@link JwtProperties}
+ *
+ * The current key signs new tokens; it and every previous key verify them.
+ */
+public class JwtKeyRing {
+
+    private final String signingKeyId;
+    private final SecretKey signingKey;
+    private final Map<String, SecretKey> keys;
+
+    public JwtKeyRing(JwtProperties properties) {
+        this.signingKeyId = properties.getKeyId();
+        this.signingKey = hmacKey(properties.getSecret());
+
+        Map<String, SecretKey> derived = new HashMap<>();
+        properties.getPreviousKeys().forEach((keyId, secret) -> derived.put(keyId, hmacKey(secret)));
+        derived.put(signingKeyId, signingKey);
+        this.keys = Map.copyOf(derived);
+    }
+
+    public String getSigningKeyId() {
+        return signingKeyId;
+    }
+
+    public SecretKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Find a verification key
+     *
+     * @param keyId the token's kid header; tokens issued without one were signed with the current key
+     * @return the key, or null if the id is unknown
+     */
+    public SecretKey find(String keyId) {
+        return keyId == null ? signingKey : keys.get(keyId);
+    }
+
+    private static SecretKey hmacKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
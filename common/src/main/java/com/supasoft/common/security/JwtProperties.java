@@ -0,0 +1,40 @@
+package com.supasoft.common.security;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * JWT key and verification properties shared by every service
+ *
+ * To rotate keys, move the current secret under {@code jwt.previous-keys.<kid>}, then set a
+ * new {@code jwt.secret} and {@code jwt.key-id}. Tokens signed with the old key stay valid
+ * until they expire; the old entry can be removed after one token lifetime.
+ */
+@Data
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+
+    private String secret = "supasoft-secret-key-for-jwt-token-generation-must-be-at-least-256-bits";
+
+    /** Key id written to the kid header of new tokens */
+    private String keyId = "primary";
+
+    /** Access token lifetime in milliseconds; revocations are kept this long */
+    private long expiration = 86400000;
+
+    /** Retired secrets by key id, accepted for verification only */
+    private Map<String, String> previousKeys = new HashMap<>();
+
+    private ClaimsCache claimsCache = new ClaimsCache();
+
+    @Data
+    public static class ClaimsCache {
+
+        /** Verified tokens kept in memory, each until it expires */
+        private long maximumSize = 100000;
+    }
+}
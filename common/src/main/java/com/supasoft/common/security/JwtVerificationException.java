@@ -0,0 +1,25 @@
+package com.supasoft.common.security;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * Thrown when a token is rejected, carrying the reason
+ */
+public class JwtVerificationException extends JwtException {
+
+    private final JwtFailureReason reason;
+
+    public JwtVerificationException(JwtFailureReason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public JwtVerificationException(JwtFailureReason reason, String message, Throwable cause) {
+        super(message, cause);
+        this.reason = reason;
+    }
+
+    public JwtFailureReason getReason() {
+        return reason;
+    }
+}
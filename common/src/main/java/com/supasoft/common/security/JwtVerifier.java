@@ -0,0 +1,230 @@
+package com.supasoft.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.util.StringUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+/**
+ * Verifies JWTs for every service, with one signature check per token
+ *
+ * The parser is built once and picks the verification key from the token's kid header
+ * through {@link JwtKeyRing}. Verified access tokens are cached under the SHA-256 of the
+ * token until they expire; every call, cached or not, still checks expiry and the optional
+ * {@link TokenRevocationCheck}. Authorities come from the {@code authorities} claim, so no
+ * user lookup is needed.
+ *
+ * Latency of uncached verifications, cache hits and failures by reason are counted here
+ * and exported by {@link JwtVerifierMetrics} when Micrometer is present.
+ */
+public class JwtVerifier {
+
+    public static final String AUTHORITIES_CLAIM = "authorities";
+    public static final String USER_ID_CLAIM = "userId";
+    /** Issue time in epoch milliseconds; the standard iat claim only has second precision */
+    public static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+    public static final String TOKEN_TYPE_CLAIM = "token_type";
+    public static final String ACCESS_TOKEN = "access";
+    public static final String REFRESH_TOKEN = "refresh";
+
+    private final JwtParser parser;
+    private final TokenRevocationCheck revocationCheck;
+    private final Cache<String, VerifiedToken> verified;
+
+    private final LongAdder verifications = new LongAdder();
+    private final LongAdder verificationNanos = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final Map<JwtFailureReason, LongAdder> failures = new EnumMap<>(JwtFailureReason.class);
+
+    public JwtVerifier(JwtKeyRing keyRing, long cacheMaximumSize, TokenRevocationCheck revocationCheck) {
+        this.revocationCheck = revocationCheck;
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        Key key = keyRing.find(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtVerificationException(JwtFailureReason.UNKNOWN_KEY,
+                                    "Unknown signing key id: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        return Math.max(Duration.between(Instant.now(), token.expiresAt()).toNanos(), 0);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        for (JwtFailureReason reason : JwtFailureReason.values()) {
+            failures.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * Verify an access token
+     *
+     * @throws JwtVerificationException if the token is malformed, expired, revoked, not an access
+     *                                  token, or its signature does not match
+     */
+    public VerifiedToken verify(String token) {
+        String key = hash(token);
+        VerifiedToken result = verified.getIfPresent(key);
+        if (result != null) {
+            cacheHits.increment();
+        } else {
+            result = toAccessToken(parseClaims(token));
+            verified.put(key, result);
+        }
+
+        if (result.isExpired(Instant.now())) {
+            throw reject(JwtFailureReason.EXPIRED, "Token expired");
+        }
+        if (revocationCheck != null
+                && revocationCheck.isRevoked(result.username(), result.issuedAt().toEpochMilli())) {
+            throw reject(JwtFailureReason.REVOKED, "Token revoked");
+        }
+        return result;
+    }
+
+    /**
+     * Verify the signature and expiry of any token and return its claims, without caching
+     *
+     * @throws JwtVerificationException if the token is malformed, expired or its signature does not match
+     */
+    public Claims parseClaims(String token) {
+        long start = System.nanoTime();
+        try {
+            return parser.parseSignedClaims(token).getPayload();
+        } catch (JwtVerificationException ex) {
+            failures.get(ex.getReason()).increment();
+            throw ex;
+        } catch (ExpiredJwtException ex) {
+            throw reject(JwtFailureReason.EXPIRED, ex);
+        } catch (SignatureException ex) {
+            throw reject(JwtFailureReason.INVALID_SIGNATURE, ex);
+        } catch (UnsupportedJwtException ex) {
+            throw reject(JwtFailureReason.UNSUPPORTED, ex);
+        } catch (MalformedJwtException | IllegalArgumentException ex) {
+            throw reject(JwtFailureReason.MALFORMED, ex);
+        } catch (JwtException ex) {
+            throw reject(JwtFailureReason.INVALID, ex);
+        } finally {
+            verifications.increment();
+            verificationNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    public long getVerifications() {
+        return verifications.sum();
+    }
+
+    public double getVerificationSeconds() {
+        return verificationNanos.sum() / 1e9;
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getFailures(JwtFailureReason reason) {
+        return failures.get(reason).sum();
+    }
+
+    public long getCachedTokens() {
+        return verified.estimatedSize();
+    }
+
+    private VerifiedToken toAccessToken(Claims claims) {
+        // Refresh tokens carry no authorities claim; older ones have no token type either
+        String authoritiesClaim = claims.get(AUTHORITIES_CLAIM, String.class);
+        if (REFRESH_TOKEN.equals(claims.get(TOKEN_TYPE_CLAIM, String.class)) || authoritiesClaim == null) {
+            throw reject(JwtFailureReason.NOT_ACCESS_TOKEN, "Not an access token");
+        }
+
+        List<GrantedAuthority> authorities = parseAuthorities(authoritiesClaim);
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        Number issuedAtMillis = claims.get(ISSUED_AT_MILLIS_CLAIM, Number.class);
+        Instant issuedAt = issuedAtMillis != null
+                ? Instant.ofEpochMilli(issuedAtMillis.longValue())
+                : claims.getIssuedAt().toInstant();
+        User principal = new User(claims.getSubject(), "", authorities);
+
+        return new VerifiedToken(claims.getSubject(), userId != null ? userId.longValue() : null,
+                issuedAt, claims.getExpiration().toInstant(), principal);
+    }
+
+    private JwtVerificationException reject(JwtFailureReason reason, String message) {
+        failures.get(reason).increment();
+        return new JwtVerificationException(reason, message);
+    }
+
+    private JwtVerificationException reject(JwtFailureReason reason, Exception cause) {
+        failures.get(reason).increment();
+        return new JwtVerificationException(reason, cause.getMessage(), cause);
+    }
+
+    private static List<GrantedAuthority> parseAuthorities(String authorities) {
+        if (!StringUtils.hasText(authorities)) {
+            return List.of();
+        }
+        return Arrays.stream(authorities.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.supasoft.common.security;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes {@link JwtVerifier} counters to Micrometer
+ *
+ * jwt.verification is the time spent on signature checks (cache misses only);
+ * jwt.verification.cache.hits counts tokens answered from the claims cache and
+ * jwt.verification.failures counts rejections by reason.
+ */
+public class JwtVerifierMetrics implements MeterBinder {
+
+    private final JwtVerifier verifier;
+
+    public JwtVerifierMetrics(JwtVerifier verifier) {
+        this.verifier = verifier;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("jwt.verification", verifier,
+                        JwtVerifier::getVerifications, JwtVerifier::getVerificationSeconds, TimeUnit.SECONDS)
+                .description("Signature verifications of tokens not found in the claims cache")
+                .register(registry);
+        FunctionCounter.builder("jwt.verification.cache.hits", verifier, JwtVerifier::getCacheHits)
+                .register(registry);
+        Gauge.builder("jwt.verification.cache.size", verifier, JwtVerifier::getCachedTokens)
+                .register(registry);
+
+        for (JwtFailureReason reason : JwtFailureReason.values()) {
+            FunctionCounter.builder("jwt.verification.failures", verifier, v -> v.getFailures(reason))
+                    .tag("reason", reason.getTag())
+                    .register(registry);
+        }
+    }
+}
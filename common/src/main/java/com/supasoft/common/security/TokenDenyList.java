@@ -0,0 +1,128 @@
+package com.supasoft.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compact in-memory deny list for access tokens
+ *
+ * Access tokens are verified without a database lookup, so revocation is tracked as one
+ * "not before" instant per user, in milliseconds: every token issued at or before it is rejected,
+ * while one issued later in the same second (a fresh login right after a logout) is not. An entry
+ * is only needed for as long as the longest-lived access token, after which it is dropped.
+ *
+ * Revocations are written to Redis with that same TTL, so replicas started later load them,
+ * and broadcast as "instanceId|username|epochMilli" so running replicas apply them at once.
+ * auth-service writes revocations; every service that verifies tokens holds a copy, registered
+ * by {@link com.supasoft.common.config.JwtSecurityConfig} and fed by {@link TokenRevocationSubscriber}.
+ */
+@Slf4j
+public class TokenDenyList implements MessageListener, TokenRevocationCheck {
+
+    public static final String REVOCATION_CHANNEL = "supasoft:auth:revocation";
+
+    private static final String KEY_PREFIX = "auth:revoked-before:";
+    private static final String SEPARATOR = "|";
+    // Epoch seconds stay below this until the year 5138, epoch milliseconds pass it in 1973
+    private static final long SECONDS_THRESHOLD = 100_000_000_000L;
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration retention;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    // username -> epoch millisecond; tokens issued at or before this are revoked
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    public TokenDenyList(StringRedisTemplate redisTemplate, Duration retention) {
+        this.redisTemplate = redisTemplate;
+        this.retention = retention;
+    }
+
+    /**
+     * Seed the list with revocations made while this instance was down or not subscribed
+     */
+    public void load() {
+        ScanOptions options = ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                String value = redisTemplate.opsForValue().get(key);
+                if (value != null) {
+                    apply(key.substring(KEY_PREFIX.length()), Long.parseLong(value));
+                }
+            }
+            log.info("Loaded {} token revocations", revokedBefore.size());
+        } catch (Exception ex) {
+            log.error("Could not load token revocations from Redis", ex);
+        }
+    }
+
+    /**
+     * Revoke every access token issued to the user up to now
+     */
+    public void revokeUser(String username) {
+        long now = Instant.now().toEpochMilli();
+        apply(username, now);
+        purge();
+
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + username, Long.toString(now), retention);
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, instanceId + SEPARATOR + username + SEPARATOR + now);
+        } catch (Exception ex) {
+            // Still revoked on this instance; other replicas see it once Redis is reachable again
+            log.error("Could not publish token revocation for user: {}", username, ex);
+        }
+    }
+
+    /**
+     * Check a token's subject and issue time against the list
+     */
+    @Override
+    public boolean isRevoked(String username, long issuedAtEpochMilli) {
+        Long notBefore = revokedBefore.get(username);
+        return notBefore != null && issuedAtEpochMilli <= notBefore;
+    }
+
+    public int size() {
+        return revokedBefore.size();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return;
+        }
+        try {
+            apply(parts[1], Long.parseLong(parts[2]));
+        } catch (NumberFormatException ex) {
+            log.warn("Ignoring malformed token revocation message");
+        }
+    }
+
+    private void apply(String username, long epochMilli) {
+        // Entries written before revocations carried milliseconds hold epoch seconds
+        long notBefore = epochMilli < SECONDS_THRESHOLD ? epochMilli * 1000 + 999 : epochMilli;
+        revokedBefore.merge(username, notBefore, Math::max);
+    }
+
+    /**
+     * Drop entries older than any access token that could still be presented
+     */
+    private void purge() {
+        long cutoff = Instant.now().minus(retention).toEpochMilli();
+        revokedBefore.values().removeIf(epochMilli -> epochMilli < cutoff);
+    }
+}
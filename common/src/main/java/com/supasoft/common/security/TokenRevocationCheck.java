@@ -0,0 +1,10 @@
+package com.supasoft.common.security;
+
+/**
+ * Optional hook consulted by {@link JwtVerifier} after a token's signature and expiry check out
+ */
+@FunctionalInterface
+public interface TokenRevocationCheck {
+
+    boolean isRevoked(String username, long issuedAtEpochMilli);
+}
@@ -0,0 +1,89 @@
+package com.supasoft.common.security;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Subscribes the {@link TokenDenyList} to revocations broadcast by auth-service
+ *
+ * The listener container is owned here rather than registered as a bean, because a container bean
+ * is started with the context and fails its startup while Redis is unreachable. Instead the
+ * subscription is made once the application is ready and retried every {@code retryInterval}. Once subscribed,
+ * the list is loaded from Redis, which covers revocations made before or while it was down.
+ */
+@Slf4j
+public class TokenRevocationSubscriber {
+
+    private final RedisMessageListenerContainer container;
+    private final TokenDenyList denyList;
+    private final Duration retryInterval;
+
+    private final ScheduledExecutorService retries = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "token-revocation-subscriber");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TokenRevocationSubscriber(RedisConnectionFactory connectionFactory, TokenDenyList denyList,
+                                     Duration retryInterval) {
+        this(listenerContainer(connectionFactory, denyList), denyList, retryInterval);
+    }
+
+    TokenRevocationSubscriber(RedisMessageListenerContainer container, TokenDenyList denyList, Duration retryInterval) {
+        this.container = container;
+        this.denyList = denyList;
+        this.retryInterval = retryInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        retries.execute(this::subscribe);
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        retries.shutdownNow();
+        container.destroy();
+    }
+
+    /**
+     * Start the listener container and load the list, or schedule another attempt
+     *
+     * @return whether the subscription is up
+     */
+    boolean subscribe() {
+        try {
+            container.start();
+        } catch (RuntimeException ex) {
+            // A failed start leaves the container marked as running; stop it so the next start retries
+            container.stop();
+            log.warn("Could not subscribe to token revocations, retrying in {}: {}", retryInterval, ex.getMessage());
+            if (!retries.isShutdown()) {
+                retries.schedule(this::subscribe, retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            return false;
+        }
+        denyList.load();
+        return true;
+    }
+
+    private static RedisMessageListenerContainer listenerContainer(RedisConnectionFactory connectionFactory,
+                                                                   TokenDenyList denyList) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(denyList, new ChannelTopic(TokenDenyList.REVOCATION_CHANNEL));
+        container.afterPropertiesSet();
+        return container;
+    }
+}
@@ -0,0 +1,18 @@
+package com.supasoft.common.security;
+
+import java.time.Instant;
+
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Claims of an access token whose signature has already been checked
+ *
+ * @param principal user details built from the token's claims, without a database lookup
+ */
+public record VerifiedToken(String username, Long userId, Instant issuedAt, Instant expiresAt,
+                            UserDetails principal) {
+
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+}
@@ -0,0 +1,238 @@
+package com.supasoft.common.util;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+
+/**
+ * Open-addressing hash map keyed by primitive {@code long}.
+ * Avoids boxing keys and per-entry node objects on hot lookup paths.
+ * Writes are serialized; reads are optimistic and never block on other readers.
+ */
+public class LongObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private final StampedLock lock = new StampedLock();
+
+    private volatile Table table;
+    private int size;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        this.table = new Table(tableSizeFor((int) (Math.max(expectedSize, 16) / LOAD_FACTOR)));
+    }
+
+    /**
+     * Get value for key, or null if absent
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        Object value = table.find(key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = table.find(key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return (V) value;
+    }
+
+    /**
+     * Check if key is present
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Put value for key, returning the previous value or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (size + 1 > table.threshold) {
+                table = table.resize(table.keys.length << 1);
+            }
+            Object previous = table.put(key, value);
+            if (previous == null) {
+                size++;
+            }
+            return (V) previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove key, returning the previous value or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            Object previous = table.remove(key);
+            if (previous != null) {
+                size--;
+            }
+            return (V) previous;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            table = new Table(table.keys.length);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Number of entries
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Visit every entry under a read lock
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<Long, V> action) {
+        long stamp = lock.readLock();
+        try {
+            Table current = table;
+            for (int i = 0; i < current.keys.length; i++) {
+                if (current.values[i] != null) {
+                    action.accept(current.keys[i], (V) current.values[i]);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(capacity, 16) - 1) << 1;
+        return n < 0 ? 1 << 30 : n;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Key and value arrays swapped as a unit on resize so optimistic readers always see matching lengths
+     */
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+        private final int threshold;
+
+        private Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+            this.threshold = (int) (capacity * LOAD_FACTOR);
+        }
+
+        private Object find(long key) {
+            int index = mix(key) & mask;
+            // Bounded probe: a torn optimistic read must not spin forever
+            for (int probes = 0; probes <= mask; probes++) {
+                Object value = values[index];
+                if (value == null) {
+                    return null;
+                }
+                if (keys[index] == key) {
+                    return value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private Object put(long key, Object value) {
+            int index = mix(key) & mask;
+            while (values[index] != null) {
+                if (keys[index] == key) {
+                    Object previous = values[index];
+                    values[index] = value;
+                    return previous;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            return null;
+        }
+
+        private Object remove(long key) {
+            int index = mix(key) & mask;
+            while (values[index] != null) {
+                if (keys[index] == key) {
+                    Object previous = values[index];
+                    shiftBack(index);
+                    return previous;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Backward-shift deletion keeps probe chains intact without tombstones
+         */
+        private void shiftBack(int gap) {
+            int index = (gap + 1) & mask;
+            while (values[index] != null) {
+                int home = mix(keys[index]) & mask;
+                boolean movable = gap <= index
+                        ? home <= gap || home > index
+                        : home <= gap && home > index;
+                if (movable) {
+                    keys[gap] = keys[index];
+                    values[gap] = values[index];
+                    gap = index;
+                }
+                index = (index + 1) & mask;
+            }
+            values[gap] = null;
+            keys[gap] = 0L;
+        }
+
+        private Table resize(int capacity) {
+            Table resized = new Table(capacity);
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] != null) {
+                    resized.put(keys[i], values[i]);
+                }
+            }
+            return resized;
+        }
+    }
+}
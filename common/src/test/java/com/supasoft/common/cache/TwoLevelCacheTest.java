@@ -0,0 +1,97 @@
+package com.supasoft.common.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+public class TwoLevelCacheTest {
+
+    private ConcurrentMapCache shared;
+    private List<String> published;
+    private TwoLevelCache replicaA;
+    private TwoLevelCache replicaB;
+
+    @BeforeEach
+    public void setUp() {
+        shared = new ConcurrentMapCache("items");
+        published = new ArrayList<>();
+        replicaA = replica();
+        replicaB = replica();
+    }
+
+    @Test
+    public void testReadFillsL1FromL2() {
+        shared.put(1L, "first");
+
+        assertEquals("first", replicaA.get(1L, String.class));
+        assertEquals("first", replicaA.get(1L, String.class));
+
+        assertEquals(1, replicaA.getL2Hits());
+        assertEquals(1, replicaA.getL1Hits());
+        assertEquals(1, replicaA.getL1Size());
+    }
+
+    @Test
+    public void testWriteIsBroadcastAndPeerDropsItsCopy() {
+        replicaA.put(1L, "first");
+        assertEquals("first", replicaB.get(1L, String.class));
+
+        replicaA.put(1L, "second");
+        assertEquals(List.of("evict:items:1", "evict:items:1"), published);
+        // Until the broadcast arrives the peer may still serve its own copy
+        assertEquals("first", replicaB.get(1L, String.class));
+
+        replicaB.invalidateLocal(TwoLevelCache.l1Key(1L));
+        assertEquals("second", replicaB.get(1L, String.class));
+    }
+
+    @Test
+    public void testEvictRemovesBothLevels() {
+        replicaA.put(1L, "first");
+
+        replicaA.evict(1L);
+
+        assertNull(shared.get(1L));
+        assertNull(replicaA.get(1L));
+        assertEquals(1, replicaA.getMisses());
+    }
+
+    @Test
+    public void testLoaderRunsOnceAndCountsOneMiss() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertEquals("loaded", replicaA.get(1L, () -> {
+            calls.incrementAndGet();
+            return "loaded";
+        }));
+        assertEquals("loaded", replicaA.get(1L, () -> "again" + calls.incrementAndGet()));
+        assertEquals("loaded", replicaB.get(1L, () -> "again" + calls.incrementAndGet()));
+
+        assertEquals(1, calls.get());
+        assertEquals(1, replicaA.getMisses());
+        assertEquals(1, replicaB.getL2Hits());
+    }
+
+    private TwoLevelCache replica() {
+        return new TwoLevelCache("items", Caffeine.newBuilder().maximumSize(100).build(), shared,
+                new CacheInvalidationPublisher() {
+                    @Override
+                    public void publishEvict(String cacheName, String key) {
+                        published.add("evict:" + cacheName + ":" + key);
+                    }
+
+                    @Override
+                    public void publishClear(String cacheName) {
+                        published.add("clear:" + cacheName);
+                    }
+                });
+    }
+}
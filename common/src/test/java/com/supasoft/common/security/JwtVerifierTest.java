@@ -0,0 +1,130 @@
+package com.supasoft.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+public class JwtVerifierTest {
+
+    private static final String CURRENT_SECRET = "current-secret-for-jwt-verifier-tests-must-be-at-least-512-bits-long-ok";
+    private static final String OLD_SECRET = "retired-secret-for-jwt-verifier-tests-must-be-at-least-512-bits-long-ok";
+
+    private final Set<String> revokedUsers = new HashSet<>();
+    private JwtVerifier verifier;
+
+    @BeforeEach
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(CURRENT_SECRET);
+        properties.setKeyId("k2");
+        properties.setPreviousKeys(Map.of("k1", OLD_SECRET));
+        verifier = new JwtVerifier(new JwtKeyRing(properties), 1000,
+                (username, issuedAt) -> revokedUsers.contains(username));
+    }
+
+    @Test
+    public void testAccessTokenIsVerifiedOnceThenServedFromCache() {
+        String token = token("k2", CURRENT_SECRET).compact();
+
+        VerifiedToken first = verifier.verify(token);
+        VerifiedToken second = verifier.verify(token);
+
+        assertEquals("alice", second.username());
+        assertEquals(42L, second.userId());
+        assertEquals(List.of("ROLE_CASHIER", "items:read"),
+                first.principal().getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertEquals(1, verifier.getVerifications());
+        assertEquals(1, verifier.getCacheHits());
+        assertEquals(1, verifier.getCachedTokens());
+    }
+
+    @Test
+    public void testKeyIsPickedByKid() {
+        assertEquals("alice", verifier.verify(token("k1", OLD_SECRET).compact()).username());
+        assertEquals("alice", verifier.verify(token(null, CURRENT_SECRET).compact()).username());
+
+        assertReason(JwtFailureReason.UNKNOWN_KEY, token("k9", CURRENT_SECRET).compact());
+        assertReason(JwtFailureReason.INVALID_SIGNATURE, token("k2", OLD_SECRET).compact());
+    }
+
+    @Test
+    public void testOnlyValidAccessTokensPass() {
+        assertReason(JwtFailureReason.NOT_ACCESS_TOKEN,
+                token("k2", CURRENT_SECRET).claim(JwtVerifier.TOKEN_TYPE_CLAIM, JwtVerifier.REFRESH_TOKEN).compact());
+        assertReason(JwtFailureReason.EXPIRED, token("k2", CURRENT_SECRET)
+                .expiration(Date.from(Instant.now().minusSeconds(1))).compact());
+        assertReason(JwtFailureReason.MALFORMED, "not-a-token");
+
+        assertEquals(1, verifier.getFailures(JwtFailureReason.EXPIRED));
+        assertEquals(1, verifier.getFailures(JwtFailureReason.MALFORMED));
+    }
+
+    @Test
+    public void testRevocationIsCheckedOnEveryCall() {
+        String token = token("k2", CURRENT_SECRET).compact();
+        verifier.verify(token);
+
+        revokedUsers.add("alice");
+
+        assertReason(JwtFailureReason.REVOKED, token);
+        assertEquals(1, verifier.getVerifications());
+    }
+
+    @Test
+    public void testRevocationIsComparedInMilliseconds() {
+        long[] checkedIssuedAt = new long[1];
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(CURRENT_SECRET);
+        properties.setKeyId("k2");
+        JwtVerifier millisVerifier = new JwtVerifier(new JwtKeyRing(properties), 1000, (username, issuedAt) -> {
+            checkedIssuedAt[0] = issuedAt;
+            return false;
+        });
+
+        millisVerifier.verify(token("k2", CURRENT_SECRET)
+                .claim(JwtVerifier.ISSUED_AT_MILLIS_CLAIM, 1_700_000_000_123L).compact());
+        assertEquals(1_700_000_000_123L, checkedIssuedAt[0]);
+
+        // Tokens issued before iat_ms existed fall back to the whole-second iat
+        Date issuedAt = Date.from(Instant.ofEpochSecond(1_700_000_000L));
+        millisVerifier.verify(token("k2", CURRENT_SECRET).issuedAt(issuedAt).compact());
+        assertEquals(1_700_000_000_000L, checkedIssuedAt[0]);
+    }
+
+    private void assertReason(JwtFailureReason reason, String token) {
+        JwtVerificationException ex = assertThrows(JwtVerificationException.class, () -> verifier.verify(token));
+        assertEquals(reason, ex.getReason());
+    }
+
+    private static JwtBuilder token(String keyId, String secret) {
+        Instant now = Instant.now();
+        JwtBuilder builder = Jwts.builder();
+        if (keyId != null) {
+            builder.header().keyId(keyId).and();
+        }
+        return builder
+                .subject("alice")
+                .claim(JwtVerifier.AUTHORITIES_CLAIM, "ROLE_CASHIER,items:read")
+                .claim(JwtVerifier.USER_ID_CLAIM, 42)
+                .claim(JwtVerifier.TOKEN_TYPE_CLAIM, JwtVerifier.ACCESS_TOKEN)
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(1, ChronoUnit.HOURS)))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.supasoft.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+public class TokenDenyListTest {
+
+    private static final long EXPIRATION = 3_600_000;
+
+    private StringRedisTemplate redisTemplate;
+    private ValueOperations<String, String> valueOperations;
+    private TokenDenyList denyList;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        denyList = new TokenDenyList(redisTemplate, Duration.ofMillis(EXPIRATION));
+    }
+
+    @Test
+    public void testRevocationCoversTokensIssuedUpToNow() {
+        long issuedBefore = Instant.now().toEpochMilli();
+
+        denyList.revokeUser("alice");
+        long issuedAfter = Instant.now().toEpochMilli() + 1;
+
+        assertTrue(denyList.isRevoked("alice", issuedBefore));
+        // A login straight after the logout, even within the same second, is not affected
+        assertFalse(denyList.isRevoked("alice", issuedAfter));
+        assertFalse(denyList.isRevoked("bob", issuedBefore));
+        verify(valueOperations).set(eq("auth:revoked-before:alice"), anyString(), eq(Duration.ofMillis(EXPIRATION)));
+        verify(redisTemplate).convertAndSend(eq(TokenDenyList.REVOCATION_CHANNEL), anyString());
+    }
+
+    @Test
+    public void testRevocationStillAppliesLocallyWhenRedisIsDown() {
+        doThrow(new RedisConnectionFailureException("down"))
+                .when(valueOperations).set(anyString(), anyString(), eq(Duration.ofMillis(EXPIRATION)));
+
+        long issuedAt = Instant.now().toEpochMilli();
+
+        denyList.revokeUser("alice");
+
+        assertTrue(denyList.isRevoked("alice", issuedAt));
+    }
+
+    @Test
+    public void testRevocationsFromOtherReplicasAreApplied() {
+        long now = Instant.now().toEpochMilli();
+        denyList.onMessage(message("other-instance|alice|" + now), null);
+        denyList.onMessage(message("other-instance|bob|not-a-number"), null);
+        denyList.onMessage(message("garbage"), null);
+
+        assertTrue(denyList.isRevoked("alice", now));
+        assertFalse(denyList.isRevoked("alice", now + 1));
+        assertFalse(denyList.isRevoked("bob", now));
+        assertEquals(1, denyList.size());
+    }
+
+    @Test
+    public void testRevocationsInEpochSecondsCoverTheWholeSecond() {
+        long second = Instant.now().getEpochSecond();
+        denyList.onMessage(message("other-instance|alice|" + second), null);
+
+        assertTrue(denyList.isRevoked("alice", second * 1000 + 999));
+        assertFalse(denyList.isRevoked("alice", (second + 1) * 1000));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(TokenDenyList.REVOCATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
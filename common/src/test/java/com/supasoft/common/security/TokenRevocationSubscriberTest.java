@@ -0,0 +1,53 @@
+package com.supasoft.common.security;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+public class TokenRevocationSubscriberTest {
+
+    private RedisMessageListenerContainer container;
+    private TokenDenyList denyList;
+    private TokenRevocationSubscriber subscriber;
+
+    @BeforeEach
+    public void setUp() {
+        container = mock(RedisMessageListenerContainer.class);
+        denyList = mock(TokenDenyList.class);
+        subscriber = new TokenRevocationSubscriber(container, denyList, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        subscriber.stop();
+    }
+
+    @Test
+    public void testListIsLoadedOnceSubscribed() {
+        assertTrue(subscriber.subscribe());
+
+        verify(container).start();
+        verify(denyList).load();
+    }
+
+    @Test
+    public void testFailedSubscriptionIsResetForTheNextAttempt() {
+        doThrow(new RedisConnectionFailureException("Unable to connect to Redis")).when(container).start();
+
+        assertFalse(subscriber.subscribe());
+
+        verify(container).stop();
+        verify(denyList, never()).load();
+    }
+}
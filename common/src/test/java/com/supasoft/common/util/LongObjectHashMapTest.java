@@ -0,0 +1,51 @@
+package com.supasoft.common.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+public class LongObjectHashMapTest {
+
+    @Test
+    public void testMatchesHashMapAcrossPutsRemovesAndResizes() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(16);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            // A small key range keeps collisions and removals in the same probe chains
+            long key = random.nextInt(4_000) - 2_000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -2_000; key < 2_000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    public void testClearAndNullValues() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(0L, "zero");
+        map.put(Long.MIN_VALUE, "min");
+
+        assertEquals("zero", map.get(0L));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1L, null));
+
+        map.clear();
+
+        assertNull(map.get(0L));
+        assertEquals(0, map.size());
+    }
+}
@@ -0,0 +1,217 @@
+package com.supasoft.itemservice.cache;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.supasoft.itemservice.dto.response.ItemBarcodeResponse;
+import com.supasoft.itemservice.dto.response.ItemDetailResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Item detail cache with one canonical entry per item and secondary-key pointers.
+ *
+ * item-details : itemId  -> ItemDetailResponse
+ * item-codes   : itemCode -> itemId
+ * item-barcodes: barcode -> itemId (primary and secondary)
+ *
+ * Writes evict exactly the keys of the affected item and are applied after commit.
+ */
+@Component
+@Slf4j
+public class ItemDetailCache {
+
+    public static final String DETAILS_CACHE = "item-details";
+    public static final String CODES_CACHE = "item-codes";
+    public static final String BARCODES_CACHE = "item-barcodes";
+
+    private final Cache details;
+    private final Cache codes;
+    private final Cache barcodes;
+
+    private final KeyTypeMetrics idMetrics;
+    private final KeyTypeMetrics codeMetrics;
+    private final KeyTypeMetrics barcodeMetrics;
+
+    public ItemDetailCache(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.details = cacheManager.getCache(DETAILS_CACHE);
+        this.codes = cacheManager.getCache(CODES_CACHE);
+        this.barcodes = cacheManager.getCache(BARCODES_CACHE);
+        this.idMetrics = new KeyTypeMetrics(meterRegistry, "id");
+        this.codeMetrics = new KeyTypeMetrics(meterRegistry, "code");
+        this.barcodeMetrics = new KeyTypeMetrics(meterRegistry, "barcode");
+    }
+
+    /**
+     * Get item by ID, loading and caching on miss
+     */
+    public ItemDetailResponse getById(Long itemId, Supplier<ItemDetailResponse> loader) {
+        ItemDetailResponse cached = details.get(itemId, ItemDetailResponse.class);
+        if (cached != null) {
+            idMetrics.hits.increment();
+            return cached;
+        }
+        idMetrics.misses.increment();
+        return load(loader);
+    }
+
+    /**
+     * Get item by code through the code pointer, loading and caching on miss
+     */
+    public ItemDetailResponse getByCode(String itemCode, Supplier<ItemDetailResponse> loader) {
+        ItemDetailResponse cached = resolvePointer(codes, itemCode);
+        if (cached != null && itemCode.equals(cached.getItemCode())) {
+            codeMetrics.hits.increment();
+            return cached;
+        }
+        codeMetrics.misses.increment();
+        return load(loader);
+    }
+
+    /**
+     * Get item by barcode through the barcode pointer, loading and caching on miss
+     */
+    public ItemDetailResponse getByBarcode(String barcode, Supplier<ItemDetailResponse> loader) {
+        ItemDetailResponse cached = resolvePointer(barcodes, barcode);
+        if (cached != null && barcodesOf(cached).contains(barcode)) {
+            barcodeMetrics.hits.increment();
+            return cached;
+        }
+        barcodeMetrics.misses.increment();
+        return load(loader);
+    }
+
+    /**
+     * Replace the canonical entry, evicting pointers the new version no longer owns
+     */
+    public void put(ItemDetailResponse detail) {
+        afterCommit(() -> {
+            ItemDetailResponse previous = details.get(detail.getItemId(), ItemDetailResponse.class);
+            if (previous != null) {
+                evictStalePointers(previous, detail);
+            }
+            store(detail);
+        });
+    }
+
+    /**
+     * Evict the canonical entry and every pointer to it
+     */
+    public void evict(Long itemId) {
+        afterCommit(() -> {
+            ItemDetailResponse previous = details.get(itemId, ItemDetailResponse.class);
+            if (previous != null) {
+                evictStalePointers(previous, null);
+            }
+            details.evict(itemId);
+            idMetrics.evictions.increment();
+        });
+    }
+
+    private ItemDetailResponse load(Supplier<ItemDetailResponse> loader) {
+        ItemDetailResponse detail = loader.get();
+        store(detail);
+        return detail;
+    }
+
+    private void store(ItemDetailResponse detail) {
+        details.put(detail.getItemId(), detail);
+        if (detail.getItemCode() != null) {
+            codes.put(detail.getItemCode(), detail.getItemId());
+        }
+        for (String barcode : barcodesOf(detail)) {
+            barcodes.put(barcode, detail.getItemId());
+        }
+    }
+
+    private void evictStalePointers(ItemDetailResponse previous, ItemDetailResponse current) {
+        if (previous.getItemCode() != null
+                && (current == null || !previous.getItemCode().equals(current.getItemCode()))) {
+            codes.evict(previous.getItemCode());
+            codeMetrics.evictions.increment();
+        }
+        Set<String> retained = current == null ? Set.of() : barcodesOf(current);
+        for (String barcode : barcodesOf(previous)) {
+            if (!retained.contains(barcode)) {
+                barcodes.evict(barcode);
+                barcodeMetrics.evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Follow a pointer to its canonical entry; dangling pointers are evicted
+     */
+    private ItemDetailResponse resolvePointer(Cache pointers, String key) {
+        Cache.ValueWrapper pointer = pointers.get(key);
+        if (pointer == null || pointer.get() == null) {
+            return null;
+        }
+        // JSON serialization may hand small ids back as Integer
+        Long itemId = ((Number) pointer.get()).longValue();
+        ItemDetailResponse detail = details.get(itemId, ItemDetailResponse.class);
+        if (detail == null) {
+            pointers.evict(key);
+        }
+        return detail;
+    }
+
+    private static Set<String> barcodesOf(ItemDetailResponse detail) {
+        Set<String> result = new HashSet<>();
+        if (detail.getBarcode() != null) {
+            result.add(detail.getBarcode());
+        }
+        if (detail.getBarcodes() != null) {
+            detail.getBarcodes().stream()
+                    .filter(b -> !Boolean.FALSE.equals(b.getIsActive()))
+                    .map(ItemBarcodeResponse::getBarcode)
+                    .filter(Objects::nonNull)
+                    .forEach(result::add);
+        }
+        return result;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Hit/miss/eviction counters for one key type
+     */
+    private static final class KeyTypeMetrics {
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter evictions;
+
+        private KeyTypeMetrics(MeterRegistry registry, String keyType) {
+            this.hits = Counter.builder("item.cache.requests")
+                    .tag("keyType", keyType).tag("result", "hit")
+                    .register(registry);
+            this.misses = Counter.builder("item.cache.requests")
+                    .tag("keyType", keyType).tag("result", "miss")
+                    .register(registry);
+            this.evictions = Counter.builder("item.cache.evictions")
+                    .tag("keyType", keyType)
+                    .register(registry);
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.supasoft.itemservice.config;
 
 import java.time.Duration;
 
-import org.springframework.cache.CacheManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,31 +10,58 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import com.supasoft.common.cache.TwoLevelCacheManager;
+
 /**
- * Redis Cache Configuration
+ * Two-level cache configuration (Caffeine near cache + Redis)
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
     
+    @Value("${supasoft.cache.l1.maximum-size:10000}")
+    private long l1MaximumSize;
+    
+    @Value("${supasoft.cache.l1.ttl:5m}")
+    private Duration l1Ttl;
+    
     /**
-     * Configure Redis Cache Manager with TTL
+     * Two-level cache manager: Caffeine L1 in front of Redis L2 (1 hour TTL)
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate stringRedisTemplate) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofHours(1)) // 1 hour TTL
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
                 .disableCachingNullValues();
         
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+        
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, l1MaximumSize, l1Ttl);
+    }
+    
+    /**
+     * Subscribe to L1 invalidations broadcast by other replicas
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        return container;
     }
     
     /**
@@ -51,4 +78,3 @@ public class CacheConfig {
         return template;
     }
 }
-
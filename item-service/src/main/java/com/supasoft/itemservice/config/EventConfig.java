@@ -1,5 +1,6 @@
 package com.supasoft.itemservice.config;
 
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
@@ -80,6 +81,35 @@ public class EventConfig {
                 .with(itemDeletedRoutingKey);
     }
     
+    /**
+     * Per-instance queue so every replica sees item events for its local indexes
+     */
+    @Bean
+    public Queue itemIndexSyncQueue() {
+        return new AnonymousQueue();
+    }
+    
+    @Bean
+    public Binding itemIndexSyncCreatedBinding() {
+        return BindingBuilder.bind(itemIndexSyncQueue())
+                .to(itemExchange())
+                .with(itemCreatedRoutingKey);
+    }
+    
+    @Bean
+    public Binding itemIndexSyncUpdatedBinding() {
+        return BindingBuilder.bind(itemIndexSyncQueue())
+                .to(itemExchange())
+                .with(itemUpdatedRoutingKey);
+    }
+    
+    @Bean
+    public Binding itemIndexSyncDeletedBinding() {
+        return BindingBuilder.bind(itemIndexSyncQueue())
+                .to(itemExchange())
+                .with(itemDeletedRoutingKey);
+    }
+    
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -8,6 +8,7 @@ import com.supasoft.itemservice.dto.request.UpdateItemRequest;
 import com.supasoft.itemservice.dto.response.ItemDetailResponse;
 import com.supasoft.itemservice.dto.response.ItemListResponse;
 import com.supasoft.itemservice.dto.response.ItemResponse;
+import com.supasoft.itemservice.dto.response.ItemScanResponse;
 import com.supasoft.itemservice.service.ItemService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -74,6 +75,13 @@ public class ItemController {
         return ResponseEntity.ok(ApiResponse.success("Item retrieved successfully", response));
     }
 
+    @GetMapping("/scan/{barcode}")
+    @Operation(summary = "Resolve a POS barcode scan (primary or secondary barcode)")
+    public ResponseEntity<ApiResponse<ItemScanResponse>> scanBarcode(@PathVariable String barcode) {
+        ItemScanResponse response = itemService.scanBarcode(barcode);
+        return ResponseEntity.ok(ApiResponse.success("Item retrieved successfully", response));
+    }
+
     @GetMapping
     @Operation(summary = "Get all active items with pagination")
     public ResponseEntity<ApiResponse<PagedResponse<ItemResponse>>> getAllItems(
@@ -0,0 +1,32 @@
+package com.supasoft.itemservice.dto.response;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Lightweight DTO for POS barcode scans (served from the in-memory index)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ItemScanResponse {
+    
+    private Long itemId;
+    private String itemCode;
+    private String itemName;
+    private String scannedBarcode;
+    private String primaryBarcode;
+    private BigDecimal sellingPrice;
+    private BigDecimal vatRate;
+    private Boolean isVatExempt;
+    private Boolean isActive;
+    private Boolean isForSale;
+}
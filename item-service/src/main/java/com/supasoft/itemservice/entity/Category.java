@@ -82,5 +82,12 @@ public class Category extends BaseEntity {
         }
         return categoryName;
     }
+    
+    /**
+     * Top-level category this one sits under (itself if it has no parent), reported as the department
+     */
+    public Category getDepartment() {
+        return parent != null ? parent.getDepartment() : this;
+    }
 }
 
@@ -1,7 +1,9 @@
 package com.supasoft.itemservice.event;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,6 +24,18 @@ public class ItemCreatedEvent implements Serializable {
     private String itemCode;
     private String itemName;
     private String barcode;
+    private List<String> secondaryBarcodes;
+    private BigDecimal sellingPrice;
+    private BigDecimal vatRate;
+    private Boolean isVatExempt;
+    private Boolean isActive;
+    private Boolean isForSale;
+    private Boolean isForPurchase;
+    private Boolean trackInventory;
+    private Long categoryId;
+    private Long departmentId;
+    private Long brandId;
+    private Long supplierId;
     
     @Builder.Default
     private LocalDateTime timestamp = LocalDateTime.now();
@@ -1,16 +1,24 @@
 package com.supasoft.itemservice.event;
 
+import java.util.List;
+
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.supasoft.itemservice.entity.Item;
+import com.supasoft.itemservice.entity.ItemBarcode;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Publisher for item-related events to RabbitMQ
+ * Publisher for item-related events to RabbitMQ.
+ * Events are raised in-process first; the local indexes and the RabbitMQ send both happen
+ * after the caller's transaction commits, so peers never see an item change that rolled back.
  */
 @Component
 @RequiredArgsConstructor
@@ -18,6 +26,7 @@ import lombok.extern.slf4j.Slf4j;
 public class ItemEventPublisher {
     
     private final RabbitTemplate rabbitTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
     
     @Value("${rabbitmq.exchange.item:item.exchange}")
     private String itemExchange;
@@ -41,10 +50,21 @@ public class ItemEventPublisher {
                     .itemCode(item.getItemCode())
                     .itemName(item.getItemName())
                     .barcode(item.getBarcode())
+                    .secondaryBarcodes(secondaryBarcodes(item))
+                    .sellingPrice(item.getSellingPrice())
+                    .vatRate(item.getVatRate())
+                    .isVatExempt(item.getIsVatExempt())
+                    .isActive(item.getIsActive())
+                    .isForSale(item.getIsForSale())
+                    .isForPurchase(item.getIsForPurchase())
+                    .trackInventory(item.getTrackInventory())
+                    .categoryId(item.getCategory() != null ? item.getCategory().getCategoryId() : null)
+                    .departmentId(item.getCategory() != null ? item.getCategory().getDepartment().getCategoryId() : null)
+                    .brandId(item.getBrand() != null ? item.getBrand().getBrandId() : null)
+                    .supplierId(item.getSupplier() != null ? item.getSupplier().getSupplierId() : null)
                     .build();
             
-            rabbitTemplate.convertAndSend(itemExchange, itemCreatedRoutingKey, event);
-            log.info("Published ItemCreatedEvent for item ID: {}", item.getItemId());
+            applicationEventPublisher.publishEvent(event);
         } catch (Exception e) {
             log.error("Error publishing ItemCreatedEvent for item ID: {}", item.getItemId(), e);
         }
@@ -60,10 +80,21 @@ public class ItemEventPublisher {
                     .itemCode(item.getItemCode())
                     .itemName(item.getItemName())
                     .barcode(item.getBarcode())
+                    .secondaryBarcodes(secondaryBarcodes(item))
+                    .sellingPrice(item.getSellingPrice())
+                    .vatRate(item.getVatRate())
+                    .isVatExempt(item.getIsVatExempt())
+                    .isActive(item.getIsActive())
+                    .isForSale(item.getIsForSale())
+                    .isForPurchase(item.getIsForPurchase())
+                    .trackInventory(item.getTrackInventory())
+                    .categoryId(item.getCategory() != null ? item.getCategory().getCategoryId() : null)
+                    .departmentId(item.getCategory() != null ? item.getCategory().getDepartment().getCategoryId() : null)
+                    .brandId(item.getBrand() != null ? item.getBrand().getBrandId() : null)
+                    .supplierId(item.getSupplier() != null ? item.getSupplier().getSupplierId() : null)
                     .build();
             
-            rabbitTemplate.convertAndSend(itemExchange, itemUpdatedRoutingKey, event);
-            log.info("Published ItemUpdatedEvent for item ID: {}", item.getItemId());
+            applicationEventPublisher.publishEvent(event);
         } catch (Exception e) {
             log.error("Error publishing ItemUpdatedEvent for item ID: {}", item.getItemId(), e);
         }
@@ -80,11 +111,47 @@ public class ItemEventPublisher {
                     .itemName(item.getItemName())
                     .build();
             
-            rabbitTemplate.convertAndSend(itemExchange, itemDeletedRoutingKey, event);
-            log.info("Published ItemDeletedEvent for item ID: {}", item.getItemId());
+            applicationEventPublisher.publishEvent(event);
         } catch (Exception e) {
             log.error("Error publishing ItemDeletedEvent for item ID: {}", item.getItemId(), e);
         }
     }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void sendItemCreatedEvent(ItemCreatedEvent event) {
+        send(itemCreatedRoutingKey, event, event.getItemId());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void sendItemUpdatedEvent(ItemUpdatedEvent event) {
+        send(itemUpdatedRoutingKey, event, event.getItemId());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void sendItemDeletedEvent(ItemDeletedEvent event) {
+        send(itemDeletedRoutingKey, event, event.getItemId());
+    }
+    
+    private void send(String routingKey, Object event, Long itemId) {
+        try {
+            rabbitTemplate.convertAndSend(itemExchange, routingKey, event);
+            log.info("Published {} for item ID: {}", event.getClass().getSimpleName(), itemId);
+        } catch (Exception e) {
+            log.error("Error publishing {} for item ID: {}", event.getClass().getSimpleName(), itemId, e);
+        }
+    }
+    
+    /**
+     * Active non-primary barcodes carried on the event so consumers need no lookup
+     */
+    private List<String> secondaryBarcodes(Item item) {
+        if (item.getBarcodes() == null) {
+            return List.of();
+        }
+        return item.getBarcodes().stream()
+                .filter(b -> Boolean.TRUE.equals(b.getIsActive()) && !Boolean.TRUE.equals(b.getIsDeleted()))
+                .map(ItemBarcode::getBarcode)
+                .filter(b -> !b.equals(item.getBarcode()))
+                .toList();
+    }
 }
-
@@ -0,0 +1,46 @@
+package com.supasoft.itemservice.event;
+
+import org.springframework.amqp.rabbit.annotation.RabbitHandler;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import com.supasoft.itemservice.index.BarcodeIndex;
+import com.supasoft.itemservice.index.ItemSearchIndex;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies item events from other replicas to the local in-memory indexes.
+ * Events from this instance arrive here too; applying them twice is harmless.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@RabbitListener(queues = "#{itemIndexSyncQueue.name}")
+public class ItemIndexSyncListener {
+    
+    private final BarcodeIndex barcodeIndex;
+    private final ItemSearchIndex itemSearchIndex;
+    
+    @RabbitHandler
+    public void onItemCreated(ItemCreatedEvent event) {
+        log.debug("Index sync: item created {}", event.getItemId());
+        barcodeIndex.onItemCreated(event);
+        itemSearchIndex.onItemCreated(event);
+    }
+    
+    @RabbitHandler
+    public void onItemUpdated(ItemUpdatedEvent event) {
+        log.debug("Index sync: item updated {}", event.getItemId());
+        barcodeIndex.onItemUpdated(event);
+        itemSearchIndex.onItemUpdated(event);
+    }
+    
+    @RabbitHandler
+    public void onItemDeleted(ItemDeletedEvent event) {
+        log.debug("Index sync: item deleted {}", event.getItemId());
+        barcodeIndex.onItemDeleted(event);
+        itemSearchIndex.onItemDeleted(event);
+    }
+}
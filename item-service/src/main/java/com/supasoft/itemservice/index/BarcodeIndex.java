@@ -0,0 +1,201 @@
+package com.supasoft.itemservice.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.supasoft.common.util.LongObjectHashMap;
+import com.supasoft.itemservice.event.ItemCreatedEvent;
+import com.supasoft.itemservice.event.ItemDeletedEvent;
+import com.supasoft.itemservice.event.ItemUpdatedEvent;
+import com.supasoft.itemservice.repository.ItemBarcodeRepository;
+import com.supasoft.itemservice.repository.ItemRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resident barcode-to-item index for POS scans.
+ * Covers primary and secondary barcodes; numeric barcodes are keyed by primitive long.
+ * Loaded at startup and kept current from item created/updated/deleted events.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BarcodeIndex {
+
+    /**
+     * Digits that fit the numeric key alongside the 5-bit length tag
+     */
+    private static final int MAX_NUMERIC_DIGITS = 17;
+    private static final String[] NO_BARCODES = new String[0];
+
+    private final ItemRepository itemRepository;
+    private final ItemBarcodeRepository barcodeRepository;
+
+    private final LongObjectHashMap<ItemScanEntry> numericBarcodes = new LongObjectHashMap<>(256 * 1024);
+    private final Map<String, ItemScanEntry> textBarcodes = new ConcurrentHashMap<>();
+    private final LongObjectHashMap<String[]> barcodesByItem = new LongObjectHashMap<>(256 * 1024);
+
+    private volatile boolean ready;
+
+    /**
+     * Load all non-deleted items and their active barcodes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+
+        Map<Long, List<String>> secondary = new HashMap<>();
+        for (Object[] row : barcodeRepository.findAllActiveBarcodePairs()) {
+            secondary.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        List<ItemScanEntry> entries = itemRepository.findAllScanEntries();
+        for (ItemScanEntry entry : entries) {
+            put(entry, secondary.getOrDefault(entry.getItemId(), List.of()));
+        }
+
+        ready = true;
+        log.info("Barcode index loaded: {} items, {} barcodes in {} ms",
+                entries.size(), numericBarcodes.size() + textBarcodes.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Resolve a scanned barcode, or null if not indexed
+     */
+    public ItemScanEntry lookup(String barcode) {
+        if (barcode == null || barcode.isEmpty()) {
+            return null;
+        }
+        long key = numericKey(barcode);
+        return key >= 0 ? numericBarcodes.get(key) : textBarcodes.get(barcode);
+    }
+
+    /**
+     * Whether the startup load has completed
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Number of indexed barcodes
+     */
+    public int size() {
+        return numericBarcodes.size() + textBarcodes.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemCreated(ItemCreatedEvent event) {
+        put(new ItemScanEntry(event.getItemId(), event.getItemCode(), event.getItemName(), event.getBarcode(),
+                event.getSellingPrice(), event.getVatRate(), event.getIsVatExempt(),
+                event.getIsActive(), event.getIsForSale()), event.getSecondaryBarcodes());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemUpdated(ItemUpdatedEvent event) {
+        put(new ItemScanEntry(event.getItemId(), event.getItemCode(), event.getItemName(), event.getBarcode(),
+                event.getSellingPrice(), event.getVatRate(), event.getIsVatExempt(),
+                event.getIsActive(), event.getIsForSale()), event.getSecondaryBarcodes());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemDeleted(ItemDeletedEvent event) {
+        remove(event.getItemId());
+    }
+
+    /**
+     * Index an item under its primary and secondary barcodes, replacing any previous mapping
+     */
+    public synchronized void put(ItemScanEntry entry, List<String> secondaryBarcodes) {
+        long itemId = entry.getItemId();
+
+        List<String> barcodes = new ArrayList<>();
+        if (entry.getBarcode() != null && !entry.getBarcode().isEmpty()) {
+            barcodes.add(entry.getBarcode());
+        }
+        if (secondaryBarcodes != null) {
+            barcodes.addAll(secondaryBarcodes);
+        }
+
+        String[] previous = barcodesByItem.get(itemId);
+        if (previous != null) {
+            for (String barcode : previous) {
+                if (!barcodes.contains(barcode)) {
+                    unmap(barcode, itemId);
+                }
+            }
+        }
+
+        for (String barcode : barcodes) {
+            long key = numericKey(barcode);
+            if (key >= 0) {
+                numericBarcodes.put(key, entry);
+            } else {
+                textBarcodes.put(barcode, entry);
+            }
+        }
+
+        if (barcodes.isEmpty()) {
+            barcodesByItem.remove(itemId);
+        } else {
+            barcodesByItem.put(itemId, barcodes.toArray(NO_BARCODES));
+        }
+    }
+
+    /**
+     * Drop every barcode mapped to the item
+     */
+    public synchronized void remove(Long itemId) {
+        String[] previous = barcodesByItem.remove(itemId);
+        if (previous == null) {
+            return;
+        }
+        for (String barcode : previous) {
+            unmap(barcode, itemId);
+        }
+    }
+
+    /**
+     * Remove a barcode mapping only while it still points at the given item (it may have been reassigned)
+     */
+    private void unmap(String barcode, long itemId) {
+        long key = numericKey(barcode);
+        if (key >= 0) {
+            ItemScanEntry current = numericBarcodes.get(key);
+            if (current != null && current.getItemId() == itemId) {
+                numericBarcodes.remove(key);
+            }
+        } else {
+            textBarcodes.computeIfPresent(barcode, (k, current) -> current.getItemId() == itemId ? null : current);
+        }
+    }
+
+    /**
+     * Pack an all-digit barcode into a long, tagging the length so leading zeros stay distinct.
+     * Returns -1 for barcodes that must go through the string map.
+     */
+    static long numericKey(String barcode) {
+        int length = barcode.length();
+        if (length == 0 || length > MAX_NUMERIC_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = barcode.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return (value << 5) | length;
+    }
+}
@@ -0,0 +1,24 @@
+package com.supasoft.itemservice.index;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Immutable POS scan record held by the barcode index
+ */
+@Value
+@AllArgsConstructor
+public class ItemScanEntry {
+    
+    Long itemId;
+    String itemCode;
+    String itemName;
+    String barcode;
+    BigDecimal sellingPrice;
+    BigDecimal vatRate;
+    Boolean isVatExempt;
+    Boolean isActive;
+    Boolean isForSale;
+}
@@ -0,0 +1,24 @@
+package com.supasoft.itemservice.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Searchable fields and filter attributes of an item held by the search index
+ */
+@Value
+@AllArgsConstructor
+public class ItemSearchDoc {
+    
+    Long itemId;
+    String itemCode;
+    String itemName;
+    String barcode;
+    Long categoryId;
+    Long brandId;
+    Long supplierId;
+    Boolean isActive;
+    Boolean isForSale;
+    Boolean isForPurchase;
+    Boolean trackInventory;
+}
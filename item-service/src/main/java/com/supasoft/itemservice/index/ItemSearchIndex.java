@@ -0,0 +1,485 @@
+package com.supasoft.itemservice.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.supasoft.itemservice.event.ItemCreatedEvent;
+import com.supasoft.itemservice.event.ItemDeletedEvent;
+import com.supasoft.itemservice.event.ItemUpdatedEvent;
+import com.supasoft.itemservice.repository.ItemBarcodeRepository;
+import com.supasoft.itemservice.repository.ItemRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Embedded inverted index for item keyword search (name, code, barcodes).
+ *
+ * Terms live in a sorted map so a query token matches exact terms, terms it is a
+ * prefix of, and (when neither exists) terms within a small edit distance.
+ * Every query token must match (AND); documents are ranked by the sum of
+ * match-type weight x IDF per token. Posting lists are immutable sorted int arrays
+ * replaced copy-on-write, so readers never lock.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ItemSearchIndex {
+
+    private static final float EXACT_WEIGHT = 3.0f;
+    private static final float PREFIX_WEIGHT = 2.0f;
+    private static final float FUZZY_WEIGHT = 1.0f;
+    private static final float NAME_START_BONUS = 1.0f;
+
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_QUERY_TOKENS = 8;
+    private static final int[] EMPTY = new int[0];
+
+    private final ItemRepository itemRepository;
+    private final ItemBarcodeRepository barcodeRepository;
+
+    private final ConcurrentSkipListMap<String, int[]> postings = new ConcurrentSkipListMap<>();
+    private final Map<Long, Integer> docIdByItem = new ConcurrentHashMap<>();
+    private volatile ItemSearchDoc[] docs = new ItemSearchDoc[0];
+    private volatile String[][] docTerms = new String[0][];
+    private int nextDocId;
+    private volatile int liveDocs;
+    private volatile boolean ready;
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Bulk-build the index from all non-deleted items
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+
+        Map<Long, List<String>> secondary = new HashMap<>();
+        for (Object[] row : barcodeRepository.findAllActiveBarcodePairs()) {
+            secondary.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+
+        List<ItemSearchDoc> all = itemRepository.findAllSearchDocs();
+        // Start clean: events may have been applied before the application was ready
+        postings.clear();
+        docIdByItem.clear();
+        ItemSearchDoc[] newDocs = new ItemSearchDoc[all.size() + 1024];
+        String[][] newTerms = new String[newDocs.length][];
+        Map<String, IntList> building = new HashMap<>();
+
+        for (int docId = 0; docId < all.size(); docId++) {
+            ItemSearchDoc doc = all.get(docId);
+            String[] terms = termsOf(doc, secondary.getOrDefault(doc.getItemId(), List.of()));
+            newDocs[docId] = doc;
+            newTerms[docId] = terms;
+            docIdByItem.put(doc.getItemId(), docId);
+            for (String term : terms) {
+                building.computeIfAbsent(term, t -> new IntList()).add(docId);
+            }
+        }
+        // Doc ids were assigned in ascending order, so every posting list is already sorted
+        building.forEach((term, list) -> postings.put(term, list.toArray()));
+
+        docs = newDocs;
+        docTerms = newTerms;
+        nextDocId = all.size();
+        liveDocs = all.size();
+        ready = true;
+        log.info("Item search index loaded: {} items, {} terms in {} ms",
+                all.size(), postings.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Whether the startup load has completed
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * One page of ranked item ids matching every token of the query and the filter,
+     * plus the total number of matches
+     */
+    public SearchResult search(String query, Predicate<ItemSearchDoc> filter, int offset, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+        if (tokens.size() > MAX_QUERY_TOKENS) {
+            tokens = tokens.subList(0, MAX_QUERY_TOKENS);
+        }
+
+        ItemSearchDoc[] snapshot = docs;
+        Scratch s = scratch.get();
+        s.ensureCapacity(snapshot.length);
+        double totalDocs = Math.max(liveDocs, 1);
+
+        try {
+            for (int k = 0; k < tokens.size(); k++) {
+                String token = tokens.get(k);
+                s.tokenTouched.clear();
+
+                for (Map.Entry<String, Float> candidate : candidateTerms(token).entrySet()) {
+                    int[] docIds = postings.getOrDefault(candidate.getKey(), EMPTY);
+                    if (docIds.length == 0) {
+                        continue;
+                    }
+                    float weight = candidate.getValue() * (float) Math.log(1.0 + totalDocs / docIds.length);
+                    for (int docId : docIds) {
+                        if (docId >= snapshot.length || s.matched[docId] != k) {
+                            continue;
+                        }
+                        if (s.tokenBest[docId] == 0f) {
+                            s.tokenTouched.add(docId);
+                        }
+                        if (weight > s.tokenBest[docId]) {
+                            s.tokenBest[docId] = weight;
+                        }
+                    }
+                }
+
+                // Keep only documents that matched this token and all previous ones
+                for (int i = 0; i < s.tokenTouched.size; i++) {
+                    int docId = s.tokenTouched.values[i];
+                    if (k == 0) {
+                        s.touched.add(docId);
+                    }
+                    s.matched[docId] = (byte) (k + 1);
+                    s.score[docId] += s.tokenBest[docId];
+                    s.tokenBest[docId] = 0f;
+                }
+            }
+
+            // Bounded heap keeps only the top offset+limit hits instead of sorting every match
+            int keep = Math.max(offset + limit, 1);
+            PriorityQueue<ScoredDoc> top = new PriorityQueue<>(Math.min(keep, 1024), RANKING.reversed());
+            String firstToken = tokens.get(0);
+            int total = 0;
+            for (int i = 0; i < s.touched.size; i++) {
+                int docId = s.touched.values[i];
+                ItemSearchDoc doc = snapshot[docId];
+                if (s.matched[docId] != tokens.size() || doc == null || !filter.test(doc)) {
+                    continue;
+                }
+                total++;
+                float score = s.score[docId];
+                if (doc.getItemName() != null && doc.getItemName().toLowerCase().startsWith(firstToken)) {
+                    score += NAME_START_BONUS;
+                }
+                ScoredDoc hit = new ScoredDoc(doc, score);
+                if (top.size() < keep) {
+                    top.add(hit);
+                } else if (RANKING.compare(hit, top.peek()) < 0) {
+                    top.poll();
+                    top.add(hit);
+                }
+            }
+
+            List<ScoredDoc> ranked = new ArrayList<>(top);
+            ranked.sort(RANKING);
+            List<Long> page = ranked.subList(Math.min(offset, ranked.size()), ranked.size()).stream()
+                    .map(h -> h.doc().getItemId())
+                    .toList();
+            return new SearchResult(page, total);
+        } finally {
+            s.reset();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemCreated(ItemCreatedEvent event) {
+        put(new ItemSearchDoc(event.getItemId(), event.getItemCode(), event.getItemName(), event.getBarcode(),
+                event.getCategoryId(), event.getBrandId(), event.getSupplierId(), event.getIsActive(),
+                event.getIsForSale(), event.getIsForPurchase(), event.getTrackInventory()),
+                event.getSecondaryBarcodes());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemUpdated(ItemUpdatedEvent event) {
+        put(new ItemSearchDoc(event.getItemId(), event.getItemCode(), event.getItemName(), event.getBarcode(),
+                event.getCategoryId(), event.getBrandId(), event.getSupplierId(), event.getIsActive(),
+                event.getIsForSale(), event.getIsForPurchase(), event.getTrackInventory()),
+                event.getSecondaryBarcodes());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemDeleted(ItemDeletedEvent event) {
+        remove(event.getItemId());
+    }
+
+    /**
+     * Index or re-index one item
+     */
+    public synchronized void put(ItemSearchDoc doc, List<String> secondaryBarcodes) {
+        String[] terms = termsOf(doc, secondaryBarcodes == null ? List.of() : secondaryBarcodes);
+        Integer existing = docIdByItem.get(doc.getItemId());
+        int docId;
+        if (existing != null) {
+            docId = existing;
+            unpost(docId, docTerms[docId]);
+        } else {
+            docId = nextDocId++;
+            ensureDocCapacity(docId + 1);
+            liveDocs++;
+        }
+
+        docTerms[docId] = terms;
+        docs[docId] = doc;
+        for (String term : terms) {
+            postings.compute(term, (t, current) -> insertSorted(current == null ? EMPTY : current, docId));
+        }
+        docIdByItem.put(doc.getItemId(), docId);
+    }
+
+    /**
+     * Drop an item from the index
+     */
+    public synchronized void remove(Long itemId) {
+        Integer docId = docIdByItem.remove(itemId);
+        if (docId == null) {
+            return;
+        }
+        docs[docId] = null;
+        unpost(docId, docTerms[docId]);
+        docTerms[docId] = null;
+        liveDocs--;
+    }
+
+    private void unpost(int docId, String[] terms) {
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            postings.computeIfPresent(term, (t, current) -> {
+                int[] updated = removeSorted(current, docId);
+                return updated.length == 0 ? null : updated;
+            });
+        }
+    }
+
+    private void ensureDocCapacity(int required) {
+        if (required <= docs.length) {
+            return;
+        }
+        int capacity = Math.max(required, docs.length + (docs.length >> 1) + 16);
+        docTerms = Arrays.copyOf(docTerms, capacity);
+        docs = Arrays.copyOf(docs, capacity);
+    }
+
+    /**
+     * Terms a query token expands to, with their match weight
+     */
+    private Map<String, Float> candidateTerms(String token) {
+        Map<String, Float> candidates = new HashMap<>();
+        if (postings.containsKey(token)) {
+            candidates.put(token, EXACT_WEIGHT);
+        }
+
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            NavigableMap<String, int[]> range = postings.subMap(token, false, token + Character.MAX_VALUE, false);
+            for (String term : range.keySet()) {
+                // Closer completions rank higher than long ones
+                candidates.putIfAbsent(term, PREFIX_WEIGHT * token.length() / term.length() + 1.0f);
+            }
+        }
+
+        // Typo tolerance only for words; numeric codes and barcodes must match exactly or by prefix
+        if (candidates.isEmpty() && token.length() >= MIN_FUZZY_LENGTH && !isNumeric(token)) {
+            int maxEdits = token.length() >= 8 ? 2 : 1;
+            // Assume the first character is right; keeps the scan to one slice of the dictionary
+            String first = token.substring(0, 1);
+            for (String term : postings.subMap(first, true, first + Character.MAX_VALUE, false).keySet()) {
+                if (Math.abs(term.length() - token.length()) <= maxEdits
+                        && !candidates.containsKey(term)
+                        && withinEditDistance(token, term, maxEdits)) {
+                    candidates.put(term, FUZZY_WEIGHT);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static String[] termsOf(ItemSearchDoc doc, List<String> secondaryBarcodes) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(doc.getItemName()));
+        addIdentifier(terms, doc.getItemCode());
+        addIdentifier(terms, doc.getBarcode());
+        secondaryBarcodes.forEach(barcode -> addIdentifier(terms, barcode));
+        return terms.toArray(new String[0]);
+    }
+
+    /**
+     * Codes and barcodes are searchable whole as well as by their parts
+     */
+    private static void addIdentifier(Set<String> terms, String identifier) {
+        if (identifier == null || identifier.isBlank()) {
+            return;
+        }
+        String normalized = identifier.toLowerCase().replaceAll("[^\\p{L}\\p{N}]", "");
+        if (!normalized.isEmpty()) {
+            terms.add(normalized);
+        }
+        terms.addAll(tokenize(identifier));
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String part : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!part.isEmpty() && !tokens.contains(part)) {
+                tokens.add(part);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Banded Levenshtein check with early exit once every cell in a row exceeds the limit
+     */
+    static boolean withinEditDistance(String a, String b, int maxEdits) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= maxEdits;
+    }
+
+    private static int[] insertSorted(int[] array, int value) {
+        int index = Arrays.binarySearch(array, value);
+        if (index >= 0) {
+            return array;
+        }
+        int insertAt = -index - 1;
+        int[] result = new int[array.length + 1];
+        System.arraycopy(array, 0, result, 0, insertAt);
+        result[insertAt] = value;
+        System.arraycopy(array, insertAt, result, insertAt + 1, array.length - insertAt);
+        return result;
+    }
+
+    private static int[] removeSorted(int[] array, int value) {
+        int index = Arrays.binarySearch(array, value);
+        if (index < 0) {
+            return array;
+        }
+        int[] result = new int[array.length - 1];
+        System.arraycopy(array, 0, result, 0, index);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    private static boolean isNumeric(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (!Character.isDigit(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Best first: higher score, then shorter name, then lower item id
+     */
+    private static final Comparator<ScoredDoc> RANKING = Comparator.comparingDouble(ScoredDoc::score).reversed()
+            .thenComparingInt((ScoredDoc h) -> h.doc().getItemName() == null ? 0 : h.doc().getItemName().length())
+            .thenComparing(h -> h.doc().getItemId());
+
+    /**
+     * A page of ranked item ids and the total hit count
+     */
+    public record SearchResult(List<Long> itemIds, int total) {
+    }
+
+    private record ScoredDoc(ItemSearchDoc doc, float score) {
+    }
+
+    /**
+     * Growable int array
+     */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Per-thread scoring buffers, reset after each query by walking the touched list
+     */
+    private static final class Scratch {
+        private float[] score = new float[0];
+        private float[] tokenBest = new float[0];
+        private byte[] matched = new byte[0];
+        private final IntList touched = new IntList();
+        private final IntList tokenTouched = new IntList();
+
+        private void ensureCapacity(int capacity) {
+            if (score.length < capacity) {
+                score = new float[capacity];
+                tokenBest = new float[capacity];
+                matched = new byte[capacity];
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < touched.size; i++) {
+                int docId = touched.values[i];
+                score[docId] = 0f;
+                matched[docId] = 0;
+            }
+            for (int i = 0; i < tokenTouched.size; i++) {
+                tokenBest[tokenTouched.values[i]] = 0f;
+            }
+            touched.clear();
+            tokenTouched.clear();
+        }
+    }
+}
@@ -49,5 +49,10 @@ public interface ItemBarcodeRepository extends JpaRepository<ItemBarcode, Long>
      */
     @Query("SELECT COUNT(ib) FROM ItemBarcode ib WHERE ib.item.itemId = :itemId AND ib.isActive = true AND ib.isDeleted = false")
     long countByItemId(@Param("itemId") Long itemId);
+    
+    /**
+     * All active (itemId, barcode) pairs (barcode index warm-up)
+     */
+    @Query("SELECT ib.item.itemId, ib.barcode FROM ItemBarcode ib WHERE ib.isActive = true AND ib.isDeleted = false")
+    List<Object[]> findAllActiveBarcodePairs();
 }
-
@@ -1,5 +1,6 @@
 package com.supasoft.itemservice.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
@@ -11,6 +12,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.supasoft.itemservice.entity.Item;
+import com.supasoft.itemservice.index.ItemScanEntry;
+import com.supasoft.itemservice.index.ItemSearchDoc;
 
 /**
  * Repository for Item entity
@@ -61,16 +64,6 @@ public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificat
     @Query("SELECT i FROM Item i WHERE i.supplier.supplierId = :supplierId AND i.isActive = true AND i.isDeleted = false")
     Page<Item> findActiveItemsBySupplier(@Param("supplierId") Long supplierId, Pageable pageable);
     
-    /**
-     * Search items by keyword (item name, code, barcode)
-     */
-    @Query("SELECT i FROM Item i WHERE " +
-           "(LOWER(i.itemName) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(i.itemCode) LIKE LOWER(CONCAT('%', :search, '%')) " +
-           "OR LOWER(i.barcode) LIKE LOWER(CONCAT('%', :search, '%'))) " +
-           "AND i.isActive = true AND i.isDeleted = false")
-    Page<Item> searchItems(@Param("search") String search, Pageable pageable);
-    
     /**
      * Find all active items
      */
@@ -118,4 +111,23 @@ public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificat
      */
     @Query("SELECT COUNT(i) FROM Item i WHERE i.brand.brandId = :brandId AND i.isActive = true AND i.isDeleted = false")
     long countByBrand(@Param("brandId") Long brandId);
+    
+    /**
+     * Project every non-deleted item into a POS scan entry (barcode index warm-up)
+     */
+    @Query("SELECT new com.supasoft.itemservice.index.ItemScanEntry(" +
+           "i.itemId, i.itemCode, i.itemName, i.barcode, i.sellingPrice, i.vatRate, " +
+           "i.isVatExempt, i.isActive, i.isForSale) " +
+           "FROM Item i WHERE i.isDeleted = false")
+    List<ItemScanEntry> findAllScanEntries();
+    
+    /**
+     * Project every non-deleted item into a search document (search index warm-up)
+     */
+    @Query("SELECT new com.supasoft.itemservice.index.ItemSearchDoc(" +
+           "i.itemId, i.itemCode, i.itemName, i.barcode, c.categoryId, b.brandId, s.supplierId, " +
+           "i.isActive, i.isForSale, i.isForPurchase, i.trackInventory) " +
+           "FROM Item i LEFT JOIN i.category c LEFT JOIN i.brand b LEFT JOIN i.supplier s " +
+           "WHERE i.isDeleted = false")
+    List<ItemSearchDoc> findAllSearchDocs();
 }
@@ -4,8 +4,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.supasoft.common.exception.BusinessException;
+import com.supasoft.itemservice.cache.ItemDetailCache;
 import com.supasoft.itemservice.entity.Item;
 import com.supasoft.itemservice.entity.ItemBarcode;
+import com.supasoft.itemservice.event.ItemEventPublisher;
 import com.supasoft.itemservice.repository.ItemBarcodeRepository;
 import com.supasoft.itemservice.repository.ItemRepository;
 import com.supasoft.itemservice.util.BarcodeGenerator;
@@ -25,6 +27,8 @@ public class BarcodeServiceImpl implements BarcodeService {
     private final ItemBarcodeRepository barcodeRepository;
     private final ItemRepository itemRepository;
     private final BarcodeGenerator barcodeGenerator;
+    private final ItemEventPublisher eventPublisher;
+    private final ItemDetailCache itemDetailCache;
     
     @Override
     public String generateUniqueBarcode(String type) {
@@ -111,8 +115,12 @@ public class BarcodeServiceImpl implements BarcodeService {
                 .isActive(true)
                 .build();
         
-        barcodeRepository.save(itemBarcode);
+        item.getBarcodes().add(barcodeRepository.save(itemBarcode));
         log.info("Barcode added successfully to item {}", itemId);
+        
+        // Publish so barcode indexes pick up the new secondary barcode
+        eventPublisher.publishItemUpdatedEvent(item);
+        itemDetailCache.evict(itemId);
     }
 }
 
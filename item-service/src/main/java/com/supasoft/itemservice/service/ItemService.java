@@ -8,6 +8,7 @@ import com.supasoft.itemservice.dto.request.UpdateItemRequest;
 import com.supasoft.itemservice.dto.response.ItemDetailResponse;
 import com.supasoft.itemservice.dto.response.ItemListResponse;
 import com.supasoft.itemservice.dto.response.ItemResponse;
+import com.supasoft.itemservice.dto.response.ItemScanResponse;
 
 /**
  * Service interface for Item operations
@@ -39,6 +40,11 @@ public interface ItemService {
      */
     ItemDetailResponse getItemByBarcode(String barcode);
     
+    /**
+     * Resolve a POS scan (primary or secondary barcode) from the in-memory index
+     */
+    ItemScanResponse scanBarcode(String barcode);
+    
     /**
      * Get all active items with pagination
      */
@@ -1,29 +1,42 @@
 package com.supasoft.itemservice.service;
 
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.supasoft.common.exception.BusinessException;
 import com.supasoft.common.exception.ResourceNotFoundException;
+import com.supasoft.itemservice.cache.ItemDetailCache;
 import com.supasoft.itemservice.dto.request.CreateItemRequest;
 import com.supasoft.itemservice.dto.request.UpdateItemRequest;
 import com.supasoft.itemservice.dto.response.ItemDetailResponse;
 import com.supasoft.itemservice.dto.response.ItemListResponse;
 import com.supasoft.itemservice.dto.response.ItemResponse;
+import com.supasoft.itemservice.dto.response.ItemScanResponse;
 import com.supasoft.itemservice.entity.Brand;
 import com.supasoft.itemservice.entity.Category;
 import com.supasoft.itemservice.entity.Item;
+import com.supasoft.itemservice.entity.ItemBarcode;
 import com.supasoft.itemservice.entity.Supplier;
 import com.supasoft.itemservice.entity.UnitOfMeasure;
 import com.supasoft.itemservice.event.ItemEventPublisher;
+import com.supasoft.itemservice.index.BarcodeIndex;
+import com.supasoft.itemservice.index.ItemScanEntry;
+import com.supasoft.itemservice.index.ItemSearchIndex;
 import com.supasoft.itemservice.mapper.ItemMapper;
 import com.supasoft.itemservice.repository.BrandRepository;
+import com.supasoft.itemservice.repository.ItemBarcodeRepository;
 import com.supasoft.itemservice.repository.CategoryRepository;
 import com.supasoft.itemservice.repository.ItemRepository;
 import com.supasoft.itemservice.repository.UnitOfMeasureRepository;
@@ -35,7 +48,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Service implementation for Item operations with Redis caching
+ * Service implementation for Item operations with multi-key item detail caching
  */
 @Service
 @RequiredArgsConstructor
@@ -51,9 +64,12 @@ public class ItemServiceImpl implements ItemService {
     private final ItemCodeGenerator itemCodeGenerator;
     private final BarcodeService barcodeService;
     private final ItemEventPublisher eventPublisher;
+    private final ItemBarcodeRepository itemBarcodeRepository;
+    private final BarcodeIndex barcodeIndex;
+    private final ItemDetailCache itemDetailCache;
+    private final ItemSearchIndex itemSearchIndex;
     
     @Override
-    @CacheEvict(value = "items", allEntries = true)
     public ItemDetailResponse createItem(CreateItemRequest request) {
         log.info("Creating item with code: {}", request.getItemCode());
         
@@ -104,11 +120,12 @@ public class ItemServiceImpl implements ItemService {
         // Publish item created event
         eventPublisher.publishItemCreatedEvent(savedItem);
         
-        return itemMapper.toDetailResponse(savedItem);
+        ItemDetailResponse response = itemMapper.toDetailResponse(savedItem);
+        itemDetailCache.put(response);
+        return response;
     }
     
     @Override
-    @CachePut(value = "items", key = "#itemId")
     public ItemDetailResponse updateItem(Long itemId, UpdateItemRequest request) {
         log.info("Updating item with ID: {}", itemId);
         
@@ -139,34 +156,62 @@ public class ItemServiceImpl implements ItemService {
         // Publish item updated event
         eventPublisher.publishItemUpdatedEvent(updatedItem);
         
-        return itemMapper.toDetailResponse(updatedItem);
+        ItemDetailResponse response = itemMapper.toDetailResponse(updatedItem);
+        itemDetailCache.put(response);
+        return response;
     }
     
     @Override
-    @Cacheable(value = "items", key = "#itemId")
     @Transactional(readOnly = true)
     public ItemDetailResponse getItemById(Long itemId) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Item", "id", itemId));
-        return itemMapper.toDetailResponse(item);
+        return itemDetailCache.getById(itemId, () -> itemMapper.toDetailResponse(itemRepository.findById(itemId)
+                .orElseThrow(() -> new ResourceNotFoundException("Item", "id", itemId))));
     }
     
     @Override
-    @Cacheable(value = "items", key = "#itemCode")
     @Transactional(readOnly = true)
     public ItemDetailResponse getItemByCode(String itemCode) {
-        Item item = itemRepository.findByItemCode(itemCode)
-                .orElseThrow(() -> new ResourceNotFoundException("Item", "code", itemCode));
-        return itemMapper.toDetailResponse(item);
+        return itemDetailCache.getByCode(itemCode, () -> itemMapper.toDetailResponse(itemRepository.findByItemCode(itemCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Item", "code", itemCode))));
     }
     
     @Override
-    @Cacheable(value = "items", key = "#barcode")
     @Transactional(readOnly = true)
     public ItemDetailResponse getItemByBarcode(String barcode) {
-        Item item = itemRepository.findByBarcode(barcode)
-                .orElseThrow(() -> new ResourceNotFoundException("Item", "barcode", barcode));
-        return itemMapper.toDetailResponse(item);
+        ItemScanEntry entry = barcodeIndex.lookup(barcode);
+        if (entry != null) {
+            return getItemById(entry.getItemId());
+        }
+        return itemDetailCache.getByBarcode(barcode, () -> itemMapper.toDetailResponse(findByAnyBarcode(barcode)
+                .orElseThrow(() -> new ResourceNotFoundException("Item", "barcode", barcode))));
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ItemScanResponse scanBarcode(String barcode) {
+        ItemScanEntry entry = barcodeIndex.lookup(barcode);
+        if (entry == null) {
+            // Not indexed yet (warm-up or missed event) - resolve from the database
+            log.debug("Barcode {} not in index, falling back to database", barcode);
+            Item item = findByAnyBarcode(barcode)
+                    .orElseThrow(() -> new ResourceNotFoundException("Item", "barcode", barcode));
+            entry = new ItemScanEntry(item.getItemId(), item.getItemCode(), item.getItemName(), item.getBarcode(),
+                    item.getSellingPrice(), item.getVatRate(), item.getIsVatExempt(),
+                    item.getIsActive(), item.getIsForSale());
+        }
+        
+        return ItemScanResponse.builder()
+                .itemId(entry.getItemId())
+                .itemCode(entry.getItemCode())
+                .itemName(entry.getItemName())
+                .scannedBarcode(barcode)
+                .primaryBarcode(entry.getBarcode())
+                .sellingPrice(entry.getSellingPrice())
+                .vatRate(entry.getVatRate())
+                .isVatExempt(entry.getIsVatExempt())
+                .isActive(entry.getIsActive())
+                .isForSale(entry.getIsForSale())
+                .build();
     }
     
     @Override
@@ -195,6 +240,10 @@ public class ItemServiceImpl implements ItemService {
             Boolean isForPurchase,
             Pageable pageable
     ) {
+        if (search != null && !search.isBlank() && itemSearchIndex.isReady()) {
+            return searchIndexed(search, categoryId, brandId, supplierId, isActive, isForSale, isForPurchase, pageable);
+        }
+        
         Specification<Item> spec = ItemSpecification.buildSearchSpecification(
                 search, categoryId, brandId, supplierId, isActive, isForSale, isForPurchase, true);
         
@@ -202,6 +251,43 @@ public class ItemServiceImpl implements ItemService {
                 .map(itemMapper::toResponse);
     }
     
+    /**
+     * Keyword search through the in-memory index; results are ordered by relevance
+     * and only the requested page is loaded from the database
+     */
+    private Page<ItemResponse> searchIndexed(
+            String search,
+            Long categoryId,
+            Long brandId,
+            Long supplierId,
+            Boolean isActive,
+            Boolean isForSale,
+            Boolean isForPurchase,
+            Pageable pageable
+    ) {
+        ItemSearchIndex.SearchResult result = itemSearchIndex.search(search, doc ->
+                (categoryId == null || categoryId.equals(doc.getCategoryId()))
+                && (brandId == null || brandId.equals(doc.getBrandId()))
+                && (supplierId == null || supplierId.equals(doc.getSupplierId()))
+                && (isActive == null || isActive.equals(doc.getIsActive()))
+                && (isForSale == null || isForSale.equals(doc.getIsForSale()))
+                && (isForPurchase == null || isForPurchase.equals(doc.getIsForPurchase()))
+                && Boolean.TRUE.equals(doc.getTrackInventory()),
+                (int) pageable.getOffset(), pageable.getPageSize());
+        
+        List<Long> pageIds = result.itemIds();
+        
+        Map<Long, Item> itemsById = itemRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Item::getItemId, Function.identity()));
+        List<ItemResponse> content = pageIds.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .map(itemMapper::toResponse)
+                .toList();
+        
+        return new PageImpl<>(content, pageable, result.total());
+    }
+    
     @Override
     @Transactional(readOnly = true)
     public Page<ItemResponse> getItemsByCategory(Long categoryId, Pageable pageable) {
@@ -238,7 +324,6 @@ public class ItemServiceImpl implements ItemService {
     }
     
     @Override
-    @CacheEvict(value = "items", key = "#itemId")
     public void deleteItem(Long itemId) {
         log.info("Deleting item with ID: {}", itemId);
         
@@ -250,12 +335,12 @@ public class ItemServiceImpl implements ItemService {
         
         // Publish item deleted event
         eventPublisher.publishItemDeletedEvent(item);
+        itemDetailCache.evict(itemId);
         
         log.info("Item deleted successfully: {}", itemId);
     }
     
     @Override
-    @CachePut(value = "items", key = "#itemId")
     public void activateItem(Long itemId) {
         log.info("Activating item with ID: {}", itemId);
         
@@ -263,12 +348,13 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new ResourceNotFoundException("Item", "id", itemId));
         
         item.setIsActive(true);
-        itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        eventPublisher.publishItemUpdatedEvent(savedItem);
+        itemDetailCache.put(itemMapper.toDetailResponse(savedItem));
         log.info("Item activated successfully: {}", itemId);
     }
     
     @Override
-    @CachePut(value = "items", key = "#itemId")
     public void deactivateItem(Long itemId) {
         log.info("Deactivating item with ID: {}", itemId);
         
@@ -276,7 +362,9 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new ResourceNotFoundException("Item", "id", itemId));
         
         item.setIsActive(false);
-        itemRepository.save(item);
+        Item savedItem = itemRepository.save(item);
+        eventPublisher.publishItemUpdatedEvent(savedItem);
+        itemDetailCache.put(itemMapper.toDetailResponse(savedItem));
         log.info("Item deactivated successfully: {}", itemId);
     }
     
@@ -285,4 +373,14 @@ public class ItemServiceImpl implements ItemService {
     public long countActiveItems() {
         return itemRepository.countActive();
     }
+    
+    /**
+     * Resolve an item by its primary barcode, then by any secondary barcode
+     */
+    private Optional<Item> findByAnyBarcode(String barcode) {
+        return itemRepository.findByBarcode(barcode)
+                .or(() -> itemBarcodeRepository.findByBarcode(barcode)
+                        .filter(b -> Boolean.TRUE.equals(b.getIsActive()))
+                        .map(ItemBarcode::getItem));
+    }
 }
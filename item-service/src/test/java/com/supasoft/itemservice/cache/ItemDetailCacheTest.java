@@ -0,0 +1,97 @@
+package com.supasoft.itemservice.cache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import com.supasoft.itemservice.dto.response.ItemBarcodeResponse;
+import com.supasoft.itemservice.dto.response.ItemDetailResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ItemDetailCacheTest {
+
+    private ConcurrentMapCacheManager cacheManager;
+    private ItemDetailCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(
+                ItemDetailCache.DETAILS_CACHE, ItemDetailCache.CODES_CACHE, ItemDetailCache.BARCODES_CACHE);
+        cache = new ItemDetailCache(cacheManager, new SimpleMeterRegistry());
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void testEveryKeyResolvesToTheOneCanonicalEntry() {
+        ItemDetailResponse item = item(1L, "IT-1", "111", "222");
+        cache.getById(1L, loader(item));
+
+        assertEquals(item, cache.getByCode("IT-1", loader(null)));
+        assertEquals(item, cache.getByBarcode("111", loader(null)));
+        assertEquals(item, cache.getByBarcode("222", loader(null)));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testPutEvictsPointersTheNewVersionNoLongerOwns() {
+        cache.getById(1L, loader(item(1L, "IT-1", "111", "222")));
+        ItemDetailResponse renamed = item(1L, "IT-9", "111", "333");
+
+        cache.put(renamed);
+
+        assertNull(cacheManager.getCache(ItemDetailCache.CODES_CACHE).get("IT-1"));
+        assertNull(cacheManager.getCache(ItemDetailCache.BARCODES_CACHE).get("222"));
+        assertEquals(renamed, cache.getByBarcode("333", loader(null)));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testEvictDropsEntryAndEveryPointer() {
+        cache.getById(1L, loader(item(1L, "IT-1", "111", "222")));
+
+        cache.evict(1L);
+
+        assertNull(cacheManager.getCache(ItemDetailCache.DETAILS_CACHE).get(1L));
+        assertNull(cacheManager.getCache(ItemDetailCache.CODES_CACHE).get("IT-1"));
+        assertNull(cacheManager.getCache(ItemDetailCache.BARCODES_CACHE).get("111"));
+        assertNull(cacheManager.getCache(ItemDetailCache.BARCODES_CACHE).get("222"));
+    }
+
+    @Test
+    public void testPointerToAReassignedBarcodeIsNotTrusted() {
+        cache.getById(1L, loader(item(1L, "IT-1", "111")));
+        // Item 1 was refreshed without barcode 111, which now belongs to item 2; the pointer still names item 1
+        cacheManager.getCache(ItemDetailCache.DETAILS_CACHE).put(1L, item(1L, "IT-1"));
+        ItemDetailResponse moved = item(2L, "IT-2", "111");
+
+        assertEquals(moved, cache.getByBarcode("111", loader(moved)));
+        assertEquals(2, loads.get());
+    }
+
+    private Supplier<ItemDetailResponse> loader(ItemDetailResponse result) {
+        return () -> {
+            loads.incrementAndGet();
+            return result;
+        };
+    }
+
+    private static ItemDetailResponse item(Long itemId, String itemCode, String... barcodes) {
+        List<ItemBarcodeResponse> secondary = List.of(barcodes).stream().skip(1)
+                .map(barcode -> ItemBarcodeResponse.builder().barcode(barcode).isActive(true).build())
+                .toList();
+        return ItemDetailResponse.builder()
+                .itemId(itemId)
+                .itemCode(itemCode)
+                .barcode(barcodes.length > 0 ? barcodes[0] : null)
+                .barcodes(secondary)
+                .build();
+    }
+}
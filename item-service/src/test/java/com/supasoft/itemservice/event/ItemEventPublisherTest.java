@@ -0,0 +1,119 @@
+package com.supasoft.itemservice.event;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.supasoft.itemservice.entity.Item;
+
+public class ItemEventPublisherTest {
+
+    private AnnotationConfigApplicationContext context;
+    private RabbitTemplate rabbitTemplate;
+    private ItemEventPublisher publisher;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(TestConfig.class);
+        rabbitTemplate = context.getBean(RabbitTemplate.class);
+        publisher = context.getBean(ItemEventPublisher.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void testEventIsSentOnlyAfterCommit() {
+        transactionTemplate.executeWithoutResult(status -> {
+            publisher.publishItemCreatedEvent(item());
+            verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class));
+        });
+
+        verify(rabbitTemplate).convertAndSend(eq("item.exchange"), eq("item.created"), any(ItemCreatedEvent.class));
+    }
+
+    @Test
+    public void testEventIsNotSentWhenTransactionRollsBack() {
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            publisher.publishItemUpdatedEvent(item());
+            throw new IllegalStateException("rolled back");
+        }));
+
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class));
+    }
+
+    @Test
+    public void testEventOutsideTransactionIsSentImmediately() {
+        publisher.publishItemDeletedEvent(item());
+
+        verify(rabbitTemplate).convertAndSend(eq("item.exchange"), eq("item.deleted"), any(ItemDeletedEvent.class));
+    }
+
+    private static Item item() {
+        Item item = new Item();
+        item.setItemId(1L);
+        item.setItemCode("ITM-1");
+        item.setItemName("Item");
+        item.setBarcode("6001234567890");
+        return item;
+    }
+
+    /**
+     * Just enough of a context for transactional event listeners, with a no-op transaction manager
+     */
+    @Configuration
+    @EnableTransactionManagement
+    @Import(ItemEventPublisher.class)
+    static class TestConfig {
+
+        @Bean
+        public RabbitTemplate rabbitTemplate() {
+            return mock(RabbitTemplate.class);
+        }
+
+        @Bean
+        public PlatformTransactionManager transactionManager() {
+            return new AbstractPlatformTransactionManager() {
+                @Override
+                protected Object doGetTransaction() {
+                    return new Object();
+                }
+
+                @Override
+                protected void doBegin(Object transaction, TransactionDefinition definition) {
+                }
+
+                @Override
+                protected void doCommit(DefaultTransactionStatus status) {
+                }
+
+                @Override
+                protected void doRollback(DefaultTransactionStatus status) {
+                }
+            };
+        }
+    }
+}
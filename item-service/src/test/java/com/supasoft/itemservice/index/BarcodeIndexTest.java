@@ -0,0 +1,78 @@
+package com.supasoft.itemservice.index;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+
+import com.supasoft.itemservice.repository.ItemBarcodeRepository;
+import com.supasoft.itemservice.repository.ItemRepository;
+
+public class BarcodeIndexTest {
+
+    private BarcodeIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BarcodeIndex(mock(ItemRepository.class), mock(ItemBarcodeRepository.class));
+    }
+
+    @Test
+    public void testLeadingZerosStayDistinct() {
+        assertNotEquals(BarcodeIndex.numericKey("0123"), BarcodeIndex.numericKey("123"));
+
+        index.put(entry(1L, "0123"), List.of());
+        index.put(entry(2L, "123"), List.of());
+
+        assertEquals(1L, index.lookup("0123").getItemId());
+        assertEquals(2L, index.lookup("123").getItemId());
+    }
+
+    @Test
+    public void testPrimarySecondaryAndTextBarcodesResolve() {
+        index.put(entry(1L, "6001234567890"), List.of("6001234567891", "PLU-ABC", "123456789012345678901"));
+
+        assertEquals(1L, index.lookup("6001234567890").getItemId());
+        assertEquals(1L, index.lookup("6001234567891").getItemId());
+        assertEquals(1L, index.lookup("PLU-ABC").getItemId());
+        assertEquals(1L, index.lookup("123456789012345678901").getItemId());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testUpdateDropsBarcodesNoLongerOnTheItem() {
+        index.put(entry(1L, "111"), List.of("222"));
+        index.put(entry(1L, "111"), List.of("333"));
+
+        assertNull(index.lookup("222"));
+        assertEquals(1L, index.lookup("333").getItemId());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testRemovingAnItemKeepsBarcodesReassignedToAnother() {
+        index.put(entry(1L, "111"), List.of("TEXT-1"));
+        index.put(entry(2L, "111"), List.of("TEXT-1"));
+
+        index.remove(1L);
+
+        assertEquals(2L, index.lookup("111").getItemId());
+        assertEquals(2L, index.lookup("TEXT-1").getItemId());
+
+        index.remove(2L);
+
+        assertNull(index.lookup("111"));
+        assertNull(index.lookup("TEXT-1"));
+        assertEquals(0, index.size());
+    }
+
+    private static ItemScanEntry entry(Long itemId, String barcode) {
+        return new ItemScanEntry(itemId, "IT-" + itemId, "Item " + itemId, barcode,
+                new BigDecimal("10.00"), new BigDecimal("16.00"), false, true, true);
+    }
+}
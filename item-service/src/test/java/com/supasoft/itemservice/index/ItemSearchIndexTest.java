@@ -0,0 +1,94 @@
+package com.supasoft.itemservice.index;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+
+import com.supasoft.itemservice.index.ItemSearchIndex.SearchResult;
+import com.supasoft.itemservice.repository.ItemBarcodeRepository;
+import com.supasoft.itemservice.repository.ItemRepository;
+
+public class ItemSearchIndexTest {
+
+    private ItemSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new ItemSearchIndex(mock(ItemRepository.class), mock(ItemBarcodeRepository.class));
+        index.put(doc(1L, "SUG-001", "Sugar Brown 1kg", "6001000000011", true), List.of());
+        index.put(doc(2L, "SUG-002", "Sugar White 2kg", "6001000000028", true), List.of("2KG-WHITE"));
+        index.put(doc(3L, "MLK-001", "Fresh Milk 500ml", "6001000000035", false), List.of());
+        index.put(doc(4L, "BRD-001", "Brown Bread", "6001000000042", true), List.of());
+    }
+
+    @Test
+    public void testEveryTokenMustMatch() {
+        assertEquals(List.of(1L), search("brown sugar").itemIds());
+        assertEquals(List.of(), search("brown milk").itemIds());
+    }
+
+    @Test
+    public void testExactMatchOutranksPrefixOfEqualRarity() {
+        index.put(doc(5L, "BRW-001", "Brownies", null, true), List.of());
+        index.put(doc(6L, "BRW-002", "Brownies Large", null, true), List.of());
+
+        // Brown Bread also starts with the token, so it leads the exact matches
+        assertEquals(List.of(4L, 1L, 5L, 6L), search("brown").itemIds());
+    }
+
+    @Test
+    public void testCodesAndBarcodesMatchWholeOrByPrefix() {
+        assertEquals(List.of(2L), search("SUG-002").itemIds());
+        assertEquals(List.of(2L), search("2kg-white").itemIds());
+        assertEquals(List.of(2L), search("60010000000").itemIds().stream().filter(id -> id == 2L).toList());
+        assertEquals(4, search("60010000000").total());
+    }
+
+    @Test
+    public void testTypoToleranceOnlyForWords() {
+        assertEquals(List.of(3L), search("mlik").itemIds());
+        assertEquals(0, search("6001000000099").total());
+    }
+
+    @Test
+    public void testReindexAndRemoveDropOldTerms() {
+        index.put(doc(3L, "MLK-001", "Long Life Milk 1l", "6001000000035", true), List.of());
+        assertEquals(0, search("fresh").total());
+        assertEquals(List.of(3L), search("life").itemIds());
+
+        index.remove(3L);
+        assertEquals(0, search("milk").total());
+    }
+
+    @Test
+    public void testFilterAndPaging() {
+        SearchResult active = index.search("6001", doc -> Boolean.TRUE.equals(doc.getIsActive()), 0, 2);
+        assertEquals(3, active.total());
+        assertEquals(2, active.itemIds().size());
+        assertFalse(active.itemIds().contains(3L));
+
+        SearchResult secondPage = index.search("6001", doc -> Boolean.TRUE.equals(doc.getIsActive()), 2, 2);
+        assertEquals(1, secondPage.itemIds().size());
+        assertFalse(active.itemIds().contains(secondPage.itemIds().get(0)));
+    }
+
+    @Test
+    public void testEditDistance() {
+        assertTrue(ItemSearchIndex.withinEditDistance("sugar", "sugra", 2));
+        assertTrue(ItemSearchIndex.withinEditDistance("bread", "brad", 1));
+        assertFalse(ItemSearchIndex.withinEditDistance("bread", "brown", 2));
+    }
+
+    private SearchResult search(String query) {
+        return index.search(query, doc -> true, 0, 10);
+    }
+
+    private static ItemSearchDoc doc(Long itemId, String code, String name, String barcode, boolean active) {
+        return new ItemSearchDoc(itemId, code, name, barcode, 1L, 1L, 1L, active, true, true, true);
+    }
+}
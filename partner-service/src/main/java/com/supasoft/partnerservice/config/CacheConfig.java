@@ -1,40 +1,65 @@
 package com.supasoft.partnerservice.config;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
-import java.time.Duration;
+import com.supasoft.common.cache.TwoLevelCacheManager;
 
 /**
- * Redis cache configuration for Partner Service
+ * Two-level cache configuration for Partner Service (Caffeine near cache + Redis)
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
-
+    
+    @Value("${supasoft.cache.l1.maximum-size:10000}")
+    private long l1MaximumSize;
+    
+    @Value("${supasoft.cache.l1.ttl:5m}")
+    private Duration l1Ttl;
+    
+    /**
+     * Two-level cache manager: Caffeine L1 in front of Redis L2 (1 hour TTL)
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate stringRedisTemplate) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1))
-                .serializeKeysWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer())
-                )
-                .serializeValuesWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(
-                                new GenericJackson2JsonRedisSerializer()
-                        )
-                );
-
-        return RedisCacheManager.builder(connectionFactory)
+                .entryTtl(Duration.ofHours(1)) // 1 hour TTL
+                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                .disableCachingNullValues();
+        
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
                 .build();
+        redisCacheManager.afterPropertiesSet();
+        
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, l1MaximumSize, l1Ttl);
+    }
+    
+    /**
+     * Subscribe to L1 invalidations broadcast by other replicas
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        return container;
     }
 }
-
@@ -39,6 +39,9 @@ public class DatabaseConfig {
         config.setConnectionTimeout(20000);
         config.setPoolName("PartnerServiceHikariPool");
         
+        // Send JDBC batches as multi-row statements (bulk loyalty expiry)
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
+        
         return new HikariDataSource(config);
     }
 }
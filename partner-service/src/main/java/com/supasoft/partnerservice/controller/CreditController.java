@@ -0,0 +1,68 @@
+package com.supasoft.partnerservice.controller;
+
+import com.supasoft.common.dto.ApiResponse;
+import com.supasoft.partnerservice.dto.request.CreditReservationRequest;
+import com.supasoft.partnerservice.dto.response.CreditReservationResponse;
+import com.supasoft.partnerservice.service.CreditService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+
+/**
+ * REST Controller for customer credit
+ */
+@RestController
+@RequestMapping("/api/v1/credit")
+@RequiredArgsConstructor
+@Tag(name = "Credit", description = "Customer credit reservation APIs")
+public class CreditController {
+    
+    private final CreditService creditService;
+    
+    @GetMapping("/customers/{customerId}/available")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Get available credit for customer")
+    public ResponseEntity<ApiResponse<BigDecimal>> getAvailableCredit(@PathVariable Long customerId) {
+        BigDecimal available = creditService.getAvailableCredit(customerId);
+        return ResponseEntity.ok(ApiResponse.success("Available credit retrieved successfully", available));
+    }
+    
+    @PostMapping("/reservations")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Reserve credit for a sale in progress")
+    public ResponseEntity<ApiResponse<CreditReservationResponse>> reserveCredit(
+            @Valid @RequestBody CreditReservationRequest request) {
+        CreditReservationResponse reservation = creditService.reserveCredit(request);
+        return ResponseEntity.ok(ApiResponse.success("Credit reserved successfully", reservation));
+    }
+    
+    @GetMapping("/reservations/{id}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Get credit reservation")
+    public ResponseEntity<ApiResponse<CreditReservationResponse>> getReservation(@PathVariable Long id) {
+        CreditReservationResponse reservation = creditService.getReservation(id);
+        return ResponseEntity.ok(ApiResponse.success("Credit reservation retrieved successfully", reservation));
+    }
+    
+    @PostMapping("/reservations/{id}/commit")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Commit reserved credit once the sale completes")
+    public ResponseEntity<ApiResponse<CreditReservationResponse>> commitReservation(@PathVariable Long id) {
+        CreditReservationResponse reservation = creditService.commitReservation(id);
+        return ResponseEntity.ok(ApiResponse.success("Credit reservation committed successfully", reservation));
+    }
+    
+    @PostMapping("/reservations/{id}/release")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Release reserved credit when the sale is abandoned")
+    public ResponseEntity<ApiResponse<CreditReservationResponse>> releaseReservation(@PathVariable Long id) {
+        CreditReservationResponse reservation = creditService.releaseReservation(id);
+        return ResponseEntity.ok(ApiResponse.success("Credit reservation released successfully", reservation));
+    }
+}
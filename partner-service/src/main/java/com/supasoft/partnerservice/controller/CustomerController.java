@@ -4,6 +4,7 @@ import com.supasoft.common.dto.ApiResponse;
 import com.supasoft.common.dto.PagedResponse;
 import com.supasoft.partnerservice.dto.request.CreateCustomerRequest;
 import com.supasoft.partnerservice.dto.request.UpdateCustomerRequest;
+import com.supasoft.partnerservice.dto.response.CustomerBalanceResponse;
 import com.supasoft.partnerservice.dto.response.CustomerResponse;
 import com.supasoft.partnerservice.service.CustomerService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,6 +19,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * REST Controller for Customer management
@@ -85,6 +87,16 @@ public class CustomerController {
         return ResponseEntity.ok(ApiResponse.success("Search completed successfully", response));
     }
     
+    @GetMapping("/lookup")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Look up customers by code, phone, email, KRA PIN or name prefix")
+    public ResponseEntity<ApiResponse<List<CustomerResponse>>> lookupCustomers(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<CustomerResponse> response = customerService.lookupCustomers(query, Math.min(limit, 50));
+        return ResponseEntity.ok(ApiResponse.success("Lookup completed successfully", response));
+    }
+    
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Delete a customer (soft delete)")
@@ -123,6 +135,14 @@ public class CustomerController {
         return ResponseEntity.ok(ApiResponse.success("Payment recorded successfully", null));
     }
     
+    @GetMapping("/{id}/balance")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Get customer balances including entries not yet applied")
+    public ResponseEntity<ApiResponse<CustomerBalanceResponse>> getCustomerBalance(@PathVariable Long id) {
+        CustomerBalanceResponse balance = customerService.getCustomerBalance(id);
+        return ResponseEntity.ok(ApiResponse.success("Customer balance retrieved successfully", balance));
+    }
+    
     @PostMapping("/{id}/loyalty/earn")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'USER')")
     @Operation(summary = "Add loyalty points to customer")
@@ -0,0 +1,88 @@
+package com.supasoft.partnerservice.controller;
+
+import com.supasoft.common.dto.ApiResponse;
+import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.partnerservice.dto.response.CustomerResponse;
+import com.supasoft.partnerservice.dto.response.CustomerSegmentResponse;
+import com.supasoft.partnerservice.dto.response.SegmentSummaryResponse;
+import com.supasoft.partnerservice.enums.InactivityCohort;
+import com.supasoft.partnerservice.enums.RfmSegment;
+import com.supasoft.partnerservice.service.SegmentationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+
+/**
+ * REST Controller for customer segments and rankings
+ */
+@RestController
+@RequestMapping("/api/v1/segments")
+@RequiredArgsConstructor
+@Tag(name = "Customer Segments", description = "Precomputed customer segment and ranking APIs")
+public class SegmentationController {
+    
+    private final SegmentationService segmentationService;
+    
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Get segment sizes")
+    public ResponseEntity<ApiResponse<SegmentSummaryResponse>> getSummary() {
+        return ResponseEntity.ok(ApiResponse.success("Segment summary retrieved successfully",
+                segmentationService.getSummary()));
+    }
+    
+    @GetMapping("/top-customers")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Get top customers by total sales")
+    public ResponseEntity<ApiResponse<PagedResponse<CustomerSegmentResponse>>> getTopCustomers(
+            @PageableDefault(size = 20) Pageable pageable) {
+        PagedResponse<CustomerSegmentResponse> response = segmentationService.getTopCustomers(pageable);
+        return ResponseEntity.ok(ApiResponse.success("Top customers retrieved successfully", response));
+    }
+    
+    @GetMapping("/vip")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Get VIP customers by total sales")
+    public ResponseEntity<ApiResponse<PagedResponse<CustomerSegmentResponse>>> getVipCustomers(
+            @PageableDefault(size = 20) Pageable pageable) {
+        PagedResponse<CustomerSegmentResponse> response = segmentationService.getVipCustomers(pageable);
+        return ResponseEntity.ok(ApiResponse.success("VIP customers retrieved successfully", response));
+    }
+    
+    @GetMapping("/rfm/{segment}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Get customers in an RFM segment")
+    public ResponseEntity<ApiResponse<PagedResponse<CustomerSegmentResponse>>> getRfmSegment(
+            @PathVariable RfmSegment segment,
+            @PageableDefault(size = 20) Pageable pageable) {
+        PagedResponse<CustomerSegmentResponse> response = segmentationService.getRfmSegment(segment, pageable);
+        return ResponseEntity.ok(ApiResponse.success("Segment customers retrieved successfully", response));
+    }
+    
+    @GetMapping("/inactivity/{cohort}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Get customers in an inactivity cohort")
+    public ResponseEntity<ApiResponse<PagedResponse<CustomerSegmentResponse>>> getInactivityCohort(
+            @PathVariable InactivityCohort cohort,
+            @PageableDefault(size = 20) Pageable pageable) {
+        PagedResponse<CustomerSegmentResponse> response = segmentationService.getInactivityCohort(cohort, pageable);
+        return ResponseEntity.ok(ApiResponse.success("Cohort customers retrieved successfully", response));
+    }
+    
+    @GetMapping("/low-credit")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Get credit customers with available credit below a threshold")
+    public ResponseEntity<ApiResponse<PagedResponse<CustomerResponse>>> getLowCreditCustomers(
+            @RequestParam BigDecimal threshold,
+            @PageableDefault(size = 20) Pageable pageable) {
+        PagedResponse<CustomerResponse> response = segmentationService.getLowCreditCustomers(threshold, pageable);
+        return ResponseEntity.ok(ApiResponse.success("Low credit customers retrieved successfully", response));
+    }
+}
@@ -0,0 +1,32 @@
+package com.supasoft.partnerservice.credit;
+
+import com.supasoft.partnerservice.service.CreditService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gives back credit held by reservations that were never committed or released,
+ * e.g. when a till crashed mid-sale
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CreditReservationExpiryJob {
+
+    private final CreditService creditService;
+
+    @Scheduled(fixedDelayString = "${credit.reservation.sweep-interval:1m}",
+            initialDelayString = "${credit.reservation.sweep-interval:1m}")
+    public void sweep() {
+        try {
+            // Each call handles one batch; keep going while batches come back non-empty
+            while (creditService.expireReservations() > 0) {
+                log.debug("Expired a batch of credit reservations");
+            }
+        } catch (Exception e) {
+            log.error("Credit reservation expiry failed", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.supasoft.partnerservice.dto.request;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Request DTO for holding credit for a sale in progress
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditReservationRequest {
+    
+    @NotNull(message = "Customer ID is required")
+    private Long customerId;
+    
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be greater than zero")
+    private BigDecimal amount;
+    
+    @Size(max = 50, message = "Reference number must not exceed 50 characters")
+    private String referenceNumber;
+}
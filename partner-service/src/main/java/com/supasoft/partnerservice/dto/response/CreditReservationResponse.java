@@ -0,0 +1,28 @@
+package com.supasoft.partnerservice.dto.response;
+
+import com.supasoft.partnerservice.enums.CreditReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for a credit reservation
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditReservationResponse {
+    
+    private Long id;
+    private Long customerId;
+    private BigDecimal amount;
+    private CreditReservationStatus status;
+    private String referenceNumber;
+    private LocalDateTime expiresAt;
+    private LocalDateTime settledAt;
+}
@@ -0,0 +1,32 @@
+package com.supasoft.partnerservice.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Response DTO for a customer's running totals, including ledger entries not yet applied
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerBalanceResponse {
+    
+    private Long customerId;
+    private BigDecimal creditLimit;
+    private BigDecimal currentBalance;
+    private BigDecimal reservedCredit;
+    private BigDecimal availableCredit;
+    private BigDecimal totalSales;
+    private BigDecimal totalPayments;
+    private Integer loyaltyPoints;
+    private Integer totalPointsEarned;
+    private Integer totalPointsRedeemed;
+    private LocalDate lastPurchaseDate;
+    private Integer pendingEntries;
+}
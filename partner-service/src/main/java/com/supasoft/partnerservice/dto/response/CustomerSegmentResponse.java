@@ -0,0 +1,34 @@
+package com.supasoft.partnerservice.dto.response;
+
+import com.supasoft.partnerservice.enums.InactivityCohort;
+import com.supasoft.partnerservice.enums.RfmSegment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Response DTO for one customer's entry in a segment snapshot
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerSegmentResponse {
+    
+    private Long customerId;
+    private String code;
+    private String name;
+    private Boolean isVip;
+    private BigDecimal totalSales;
+    private LocalDate lastPurchaseDate;
+    private Integer purchasesLast12Months;
+    private Integer recencyScore;
+    private Integer frequencyScore;
+    private Integer monetaryScore;
+    private RfmSegment rfmSegment;
+    private InactivityCohort inactivityCohort;
+}
@@ -0,0 +1,28 @@
+package com.supasoft.partnerservice.dto.response;
+
+import com.supasoft.partnerservice.enums.InactivityCohort;
+import com.supasoft.partnerservice.enums.RfmSegment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Response DTO for segment sizes in the current segmentation snapshot
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SegmentSummaryResponse {
+    
+    private LocalDateTime snapshotAt;
+    private Integer customers;
+    private Integer topCustomers;
+    private Integer vipCustomers;
+    private Map<RfmSegment, Integer> rfmSegments;
+    private Map<InactivityCohort, Integer> inactivityCohorts;
+}
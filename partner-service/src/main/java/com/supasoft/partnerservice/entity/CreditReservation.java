@@ -0,0 +1,57 @@
+package com.supasoft.partnerservice.entity;
+
+import com.supasoft.common.entity.BaseEntity;
+import com.supasoft.partnerservice.enums.CreditReservationStatus;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entity for Credit Reservations
+ * Credit held for a sale in progress; counted in the customer's reserved credit until settled
+ */
+@Entity
+@Table(name = "credit_reservations", indexes = {
+        @Index(name = "idx_credit_reservation_customer", columnList = "customer_id"),
+        @Index(name = "idx_credit_reservation_status_expiry", columnList = "status, expires_at"),
+        @Index(name = "idx_credit_reservation_reference", columnList = "reference_number")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditReservation extends BaseEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "Customer is required")
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+    
+    @NotNull(message = "Amount is required")
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CreditReservationStatus status = CreditReservationStatus.RESERVED;
+    
+    @Size(max = 50, message = "Reference number must not exceed 50 characters")
+    @Column(name = "reference_number", length = 50)
+    private String referenceNumber;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "settled_at")
+    private LocalDateTime settledAt;
+}
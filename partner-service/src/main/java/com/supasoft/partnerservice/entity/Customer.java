@@ -30,7 +30,8 @@ import java.util.List;
         @Index(name = "idx_customer_phone", columnList = "phone"),
         @Index(name = "idx_customer_category", columnList = "category_id"),
         @Index(name = "idx_customer_status", columnList = "status"),
-        @Index(name = "idx_customer_created", columnList = "created_at")
+        @Index(name = "idx_customer_created", columnList = "created_at"),
+        @Index(name = "idx_customer_updated", columnList = "updated_at")
 })
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -73,33 +74,47 @@ public class Customer extends AuditableEntity {
     @JoinColumn(name = "category_id")
     private CustomerCategory category;
     
+    /**
+     * Set on insert; afterwards only changed through {@link com.supasoft.partnerservice.service.CreditService},
+     * so a full-row save cannot write back a stale credit position
+     */
     @DecimalMin(value = "0.00", message = "Credit limit must be non-negative")
-    @Column(name = "credit_limit", precision = 19, scale = 2)
+    @Column(name = "credit_limit", precision = 19, scale = 2, updatable = false)
     private BigDecimal creditLimit = BigDecimal.ZERO;
     
-    @Column(name = "current_balance", precision = 19, scale = 2)
+    @Column(name = "current_balance", precision = 19, scale = 2, updatable = false)
     private BigDecimal currentBalance = BigDecimal.ZERO;
     
-    @Column(name = "available_credit", precision = 19, scale = 2)
+    /**
+     * Credit held by open reservations; only changed by the atomic credit statements
+     */
+    @Column(name = "reserved_credit", precision = 19, scale = 2, insertable = false, updatable = false)
+    private BigDecimal reservedCredit = BigDecimal.ZERO;
+    
+    @Column(name = "available_credit", precision = 19, scale = 2, updatable = false)
     private BigDecimal availableCredit = BigDecimal.ZERO;
     
-    @Column(name = "total_sales", precision = 19, scale = 2)
+    /**
+     * Ledger-applied totals: set on insert, then only changed by {@link com.supasoft.partnerservice.ledger.CustomerLedger}
+     * and the loyalty expiry job, so a full-row save cannot overwrite deltas applied since the entity was read
+     */
+    @Column(name = "total_sales", precision = 19, scale = 2, updatable = false)
     private BigDecimal totalSales = BigDecimal.ZERO;
     
-    @Column(name = "total_payments", precision = 19, scale = 2)
+    @Column(name = "total_payments", precision = 19, scale = 2, updatable = false)
     private BigDecimal totalPayments = BigDecimal.ZERO;
     
-    @Column(name = "loyalty_points")
+    @Column(name = "loyalty_points", updatable = false)
     private Integer loyaltyPoints = 0;
     
     @Enumerated(EnumType.STRING)
     @Column(name = "loyalty_tier", length = 20)
     private LoyaltyTier loyaltyTier = LoyaltyTier.BRONZE;
     
-    @Column(name = "total_points_earned")
+    @Column(name = "total_points_earned", updatable = false)
     private Integer totalPointsEarned = 0;
     
-    @Column(name = "total_points_redeemed")
+    @Column(name = "total_points_redeemed", updatable = false)
     private Integer totalPointsRedeemed = 0;
     
     @Enumerated(EnumType.STRING)
@@ -112,7 +127,7 @@ public class Customer extends AuditableEntity {
     @Column(name = "registration_date")
     private LocalDate registrationDate;
     
-    @Column(name = "last_purchase_date")
+    @Column(name = "last_purchase_date", updatable = false)
     private LocalDate lastPurchaseDate;
     
     @Column(name = "notes", columnDefinition = "TEXT")
@@ -157,7 +172,8 @@ public class Customer extends AuditableEntity {
     
     public void updateAvailableCredit() {
         if (creditLimit != null && currentBalance != null) {
-            this.availableCredit = creditLimit.subtract(currentBalance);
+            this.availableCredit = creditLimit.subtract(currentBalance)
+                    .subtract(reservedCredit != null ? reservedCredit : BigDecimal.ZERO);
         }
     }
 }
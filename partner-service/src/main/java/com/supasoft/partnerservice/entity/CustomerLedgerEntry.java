@@ -0,0 +1,61 @@
+package com.supasoft.partnerservice.entity;
+
+import com.supasoft.common.entity.BaseEntity;
+import com.supasoft.partnerservice.enums.LedgerEntryType;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity for Customer Ledger Entries
+ * Append-only record of events that change a customer's running totals;
+ * appliedAt is set once the entry has been folded into the customer row
+ */
+@Entity
+@Table(name = "customer_ledger_entries", indexes = {
+        @Index(name = "idx_customer_ledger_pending", columnList = "customer_id, applied_at"),
+        @Index(name = "idx_customer_ledger_unapplied", columnList = "applied_at, id"),
+        @Index(name = "idx_ledger_type_date", columnList = "entry_type, entry_date, customer_id")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerLedgerEntry extends BaseEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "Customer is required")
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 20)
+    private LedgerEntryType entryType;
+    
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount = BigDecimal.ZERO;
+    
+    @Column(nullable = false)
+    private Integer points = 0;
+    
+    @Size(max = 50, message = "Reference number must not exceed 50 characters")
+    @Column(name = "reference_number", length = 50)
+    private String referenceNumber;
+    
+    @Column(name = "entry_date", nullable = false)
+    private LocalDate entryDate;
+    
+    @Column(name = "applied_at")
+    private LocalDateTime appliedAt;
+}
@@ -0,0 +1,45 @@
+package com.supasoft.partnerservice.entity;
+
+import com.supasoft.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Entity for Loyalty Point Buckets
+ * Points a customer still holds, grouped by expiry month; together they form the balance
+ */
+@Entity
+@Table(name = "loyalty_point_buckets",
+        uniqueConstraints = @UniqueConstraint(name = "uk_loyalty_bucket_customer_expiry",
+                columnNames = {"customer_id", "expiry_date"}),
+        indexes = @Index(name = "idx_loyalty_bucket_expiry", columnList = "expiry_date"))
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoyaltyPointBucket extends BaseEntity {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotNull(message = "Customer is required")
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+    
+    /**
+     * Last day of the expiry month; points are usable up to and including this date
+     */
+    @NotNull(message = "Expiry date is required")
+    @Column(name = "expiry_date", nullable = false)
+    private LocalDate expiryDate;
+    
+    @Column(nullable = false)
+    private Integer points = 0;
+}
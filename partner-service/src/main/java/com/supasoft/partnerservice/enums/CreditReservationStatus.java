@@ -0,0 +1,11 @@
+package com.supasoft.partnerservice.enums;
+
+/**
+ * Enum for credit reservation lifecycle
+ */
+public enum CreditReservationStatus {
+    RESERVED,
+    COMMITTED,
+    RELEASED,
+    EXPIRED
+}
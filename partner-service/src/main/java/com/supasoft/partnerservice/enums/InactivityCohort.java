@@ -0,0 +1,39 @@
+package com.supasoft.partnerservice.enums;
+
+/**
+ * Enum for cohorts by days since last purchase
+ */
+public enum InactivityCohort {
+    ACTIVE(30),
+    DAYS_31_60(60),
+    DAYS_61_90(90),
+    DAYS_91_180(180),
+    DAYS_181_365(365),
+    OVER_365_DAYS(Integer.MAX_VALUE),
+    NEVER_PURCHASED(Integer.MAX_VALUE);
+
+    private final int maxDays;
+
+    InactivityCohort(int maxDays) {
+        this.maxDays = maxDays;
+    }
+
+    public int getMaxDays() {
+        return maxDays;
+    }
+
+    /**
+     * Cohort for a customer whose last purchase was {@code days} ago, or null if never
+     */
+    public static InactivityCohort forDaysSincePurchase(Long days) {
+        if (days == null) {
+            return NEVER_PURCHASED;
+        }
+        for (InactivityCohort cohort : values()) {
+            if (days <= cohort.maxDays) {
+                return cohort;
+            }
+        }
+        return OVER_365_DAYS;
+    }
+}
@@ -0,0 +1,12 @@
+package com.supasoft.partnerservice.enums;
+
+/**
+ * Enum for customer ledger entry types
+ */
+public enum LedgerEntryType {
+    SALE,
+    PAYMENT,
+    POINTS_EARNED,
+    POINTS_REDEEMED,
+    POINTS_EXPIRED
+}
@@ -0,0 +1,25 @@
+package com.supasoft.partnerservice.enums;
+
+/**
+ * Enum for RFM (recency, frequency, monetary) customer segments
+ */
+public enum RfmSegment {
+    CHAMPIONS("Bought recently, often and for high value"),
+    LOYAL("Buys often"),
+    POTENTIAL_LOYALIST("Recent customer with repeat purchases"),
+    NEW("Recent first-time customer"),
+    AT_RISK("Used to buy often, not seen for a while"),
+    HIBERNATING("Infrequent and not seen for a while"),
+    LOST("Not seen for over six months"),
+    PROSPECT("Registered but never purchased");
+
+    private final String description;
+
+    RfmSegment(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
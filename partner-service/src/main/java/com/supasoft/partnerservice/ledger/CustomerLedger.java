@@ -0,0 +1,411 @@
+package com.supasoft.partnerservice.ledger;
+
+import com.supasoft.partnerservice.dto.response.CustomerBalanceResponse;
+import com.supasoft.partnerservice.entity.CustomerLedgerEntry;
+import com.supasoft.partnerservice.enums.LedgerEntryType;
+import com.supasoft.partnerservice.exception.CustomerNotFoundException;
+import com.supasoft.partnerservice.repository.CustomerLedgerEntryRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only customer ledger with coalesced write-back.
+ *
+ * Sales, payments and loyalty point movements are inserted as ledger entries instead
+ * of rewriting the customer row. Committed entries are summed per customer in memory
+ * and folded into the customer row every {@code flush-interval}: one UPDATE per
+ * customer per flush, however many events arrived. Entries are marked applied in the
+ * same transaction, so each is counted exactly once.
+ *
+ * Entries left unapplied by a crashed instance are picked up from the table once they
+ * are older than {@code recovery-age}. Balance reads add the unapplied entries to the
+ * persisted totals, so callers always see their own writes, on any replica.
+ *
+ * Credit balance changes are not deferred: they stay on the atomic credit statements,
+ * which enforce the credit limit.
+ */
+@Slf4j
+@Component
+public class CustomerLedger {
+
+    private static final String MARK_APPLIED =
+            "UPDATE customer_ledger_entries SET applied_at = :appliedAt WHERE id IN (:ids) AND applied_at IS NULL";
+
+    private static final String APPLY_DELTA =
+            "UPDATE customers SET " +
+            "total_sales = COALESCE(total_sales, 0) + ?, " +
+            "total_payments = COALESCE(total_payments, 0) + ?, " +
+            "loyalty_points = COALESCE(loyalty_points, 0) + ? - ? - ?, " +
+            "total_points_earned = COALESCE(total_points_earned, 0) + ?, " +
+            "total_points_redeemed = COALESCE(total_points_redeemed, 0) + ?, " +
+            "last_purchase_date = COALESCE(GREATEST(last_purchase_date, ?), ?, last_purchase_date) " +
+            "WHERE id = ?";
+
+    private static final String SELECT_UNAPPLIED =
+            "SELECT id, customer_id, entry_type, amount, points, entry_date FROM customer_ledger_entries " +
+            "WHERE applied_at IS NULL AND created_at < :cutoff ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED";
+
+    private static final String SELECT_UNAPPLIED_BY_ID =
+            "SELECT id, customer_id, entry_type, amount, points, entry_date FROM customer_ledger_entries " +
+            "WHERE applied_at IS NULL AND id IN (:ids) FOR UPDATE SKIP LOCKED";
+
+    private static final String SELECT_BALANCE =
+            "SELECT c.credit_limit, c.current_balance, c.reserved_credit, c.available_credit, " +
+            "COALESCE(c.total_sales, 0) + COALESCE(p.sales, 0), " +
+            "COALESCE(c.total_payments, 0) + COALESCE(p.payments, 0), " +
+            "COALESCE(c.loyalty_points, 0) + COALESCE(p.earned, 0) " +
+            "- COALESCE(p.redeemed, 0) - COALESCE(p.expired, 0), " +
+            "COALESCE(c.total_points_earned, 0) + COALESCE(p.earned, 0), " +
+            "COALESCE(c.total_points_redeemed, 0) + COALESCE(p.redeemed, 0), " +
+            "COALESCE(GREATEST(c.last_purchase_date, p.last_purchase), p.last_purchase, c.last_purchase_date), " +
+            "COALESCE(p.entries, 0) " +
+            "FROM customers c LEFT JOIN (" +
+            "SELECT customer_id, " +
+            "SUM(CASE WHEN entry_type = 'SALE' THEN amount ELSE 0 END) AS sales, " +
+            "SUM(CASE WHEN entry_type = 'PAYMENT' THEN amount ELSE 0 END) AS payments, " +
+            "SUM(CASE WHEN entry_type = 'POINTS_EARNED' THEN points ELSE 0 END) AS earned, " +
+            "SUM(CASE WHEN entry_type = 'POINTS_REDEEMED' THEN points ELSE 0 END) AS redeemed, " +
+            "SUM(CASE WHEN entry_type = 'POINTS_EXPIRED' THEN points ELSE 0 END) AS expired, " +
+            "MAX(CASE WHEN entry_type = 'SALE' THEN entry_date END) AS last_purchase, " +
+            "COUNT(*) AS entries " +
+            "FROM customer_ledger_entries WHERE customer_id = ? AND applied_at IS NULL GROUP BY customer_id" +
+            ") p ON p.customer_id = c.id " +
+            "WHERE c.id = ?";
+
+    private final CustomerLedgerEntryRepository entryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+
+    private final Duration flushInterval;
+    private final Duration recoveryAge;
+    private final int batchSize;
+
+    private final Object lock = new Object();
+
+    // Guarded by lock; swapped out whole on flush
+    private Map<Long, Delta> pending = new HashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "customer-ledger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CustomerLedger(CustomerLedgerEntryRepository entryRepository,
+                          JdbcTemplate jdbcTemplate,
+                          NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                          TransactionTemplate transactionTemplate,
+                          CacheManager cacheManager,
+                          @Value("${customer.ledger.flush-interval:2s}") Duration flushInterval,
+                          @Value("${customer.ledger.recovery-age:5m}") Duration recoveryAge,
+                          @Value("${customer.ledger.batch-size:500}") int batchSize) {
+        this.entryRepository = entryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.flushInterval = flushInterval;
+        this.recoveryAge = recoveryAge;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::recoverQuietly,
+                0, recoveryAge.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+        flushQuietly();
+    }
+
+    /**
+     * Append an entry; it joins the caller's transaction and is queued for write-back once that commits
+     */
+    public void record(Long customerId, LedgerEntryType type, BigDecimal amount, int points, String reference) {
+        CustomerLedgerEntry entry = new CustomerLedgerEntry();
+        entry.setCustomerId(customerId);
+        entry.setEntryType(type);
+        entry.setAmount(amount != null ? amount : BigDecimal.ZERO);
+        entry.setPoints(points);
+        entry.setReferenceNumber(reference);
+        entry.setEntryDate(LocalDate.now());
+        CustomerLedgerEntry saved = entryRepository.save(entry);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    coalesce(saved);
+                }
+            });
+        } else {
+            coalesce(saved);
+        }
+    }
+
+    /**
+     * Persisted totals plus every entry not yet applied
+     */
+    public CustomerBalanceResponse getBalance(Long customerId) {
+        List<CustomerBalanceResponse> rows = jdbcTemplate.query(SELECT_BALANCE, (rs, rowNum) -> {
+            Date lastPurchase = rs.getDate(10);
+            return CustomerBalanceResponse.builder()
+                    .customerId(customerId)
+                    .creditLimit(rs.getBigDecimal(1))
+                    .currentBalance(rs.getBigDecimal(2))
+                    .reservedCredit(rs.getBigDecimal(3))
+                    .availableCredit(rs.getBigDecimal(4))
+                    .totalSales(rs.getBigDecimal(5))
+                    .totalPayments(rs.getBigDecimal(6))
+                    .loyaltyPoints(rs.getInt(7))
+                    .totalPointsEarned(rs.getInt(8))
+                    .totalPointsRedeemed(rs.getInt(9))
+                    .lastPurchaseDate(lastPurchase != null ? lastPurchase.toLocalDate() : null)
+                    .pendingEntries(rs.getInt(11))
+                    .build();
+        }, customerId, customerId);
+
+        if (rows.isEmpty()) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * Fold everything coalesced so far into the customer rows
+     */
+    public void flush() {
+        Map<Long, Delta> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+
+        List<Delta> deltas = new ArrayList<>(new TreeMap<>(batch).values());
+        for (int from = 0; from < deltas.size(); from += batchSize) {
+            List<Delta> chunk = deltas.subList(from, Math.min(from + batchSize, deltas.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> apply(chunk, true));
+                evict(chunk);
+            } catch (AlreadyAppliedException e) {
+                // Recovery got to some of these first; apply whatever is still outstanding from the table
+                log.warn("Ledger entries were applied elsewhere; re-reading {} customers from the ledger",
+                        chunk.size());
+                List<Long> ids = chunk.stream().flatMap(delta -> delta.entryIds.stream()).toList();
+                transactionTemplate.executeWithoutResult(status ->
+                        evict(apply(load(SELECT_UNAPPLIED_BY_ID, new MapSqlParameterSource("ids", ids)), false)));
+            } catch (RuntimeException e) {
+                log.error("Failed to flush customer ledger for {} customers, will retry", chunk.size(), e);
+                requeue(chunk);
+            }
+        }
+    }
+
+    /**
+     * Apply entries left behind by instances that stopped before flushing
+     *
+     * @return number of entries applied
+     */
+    public int recover() {
+        int applied = 0;
+        while (true) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("cutoff", Timestamp.valueOf(LocalDateTime.now().minus(recoveryAge)))
+                    .addValue("limit", batchSize);
+            Integer entries = transactionTemplate.execute(status -> {
+                Collection<Delta> deltas = load(SELECT_UNAPPLIED, params);
+                apply(deltas, false);
+                evict(deltas);
+                return deltas.stream().mapToInt(delta -> delta.entryIds.size()).sum();
+            });
+            if (entries == null || entries == 0) {
+                break;
+            }
+            applied += entries;
+        }
+        if (applied > 0) {
+            log.info("Recovered {} unapplied customer ledger entries", applied);
+        }
+        return applied;
+    }
+
+    private void coalesce(CustomerLedgerEntry entry) {
+        synchronized (lock) {
+            pending.computeIfAbsent(entry.getCustomerId(), Delta::new)
+                    .add(entry.getId(), entry.getEntryType(), entry.getAmount(), entry.getPoints(), entry.getEntryDate());
+        }
+    }
+
+    private void requeue(List<Delta> deltas) {
+        synchronized (lock) {
+            for (Delta delta : deltas) {
+                pending.merge(delta.customerId, delta, Delta::merge);
+            }
+        }
+    }
+
+    /**
+     * Mark the entries applied and add their totals to the customer rows, in customer id order
+     *
+     * @param strict throw if any entry was already applied (the in-memory totals would then be wrong)
+     */
+    private Collection<Delta> apply(Collection<Delta> deltas, boolean strict) {
+        List<Long> ids = deltas.stream().flatMap(delta -> delta.entryIds.stream()).toList();
+        if (ids.isEmpty()) {
+            return deltas;
+        }
+
+        int marked = namedParameterJdbcTemplate.update(MARK_APPLIED, new MapSqlParameterSource()
+                .addValue("appliedAt", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("ids", ids));
+        if (strict && marked != ids.size()) {
+            throw new AlreadyAppliedException();
+        }
+
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Delta delta : deltas) {
+            Date lastPurchase = delta.lastPurchaseDate != null ? Date.valueOf(delta.lastPurchaseDate) : null;
+            args.add(new Object[]{delta.sales, delta.payments, delta.pointsEarned, delta.pointsRedeemed,
+                    delta.pointsExpired, delta.pointsEarned, delta.pointsRedeemed, lastPurchase, lastPurchase,
+                    delta.customerId});
+        }
+        jdbcTemplate.batchUpdate(APPLY_DELTA, args);
+        return deltas;
+    }
+
+    /**
+     * Lock and sum unapplied entries straight from the table
+     */
+    private Collection<Delta> load(String sql, MapSqlParameterSource params) {
+        Map<Long, Delta> deltas = new TreeMap<>();
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            Date entryDate = rs.getDate(6);
+            deltas.computeIfAbsent(rs.getLong(2), Delta::new).add(
+                    rs.getLong(1),
+                    LedgerEntryType.valueOf(rs.getString(3)),
+                    rs.getBigDecimal(4),
+                    rs.getInt(5),
+                    entryDate != null ? entryDate.toLocalDate() : null);
+        });
+        return deltas.values();
+    }
+
+    private void evict(Collection<Delta> deltas) {
+        Cache cache = cacheManager.getCache("customers");
+        if (cache != null) {
+            deltas.forEach(delta -> cache.evict(delta.customerId));
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Customer ledger flush failed", e);
+        }
+    }
+
+    private void recoverQuietly() {
+        try {
+            recover();
+        } catch (Exception e) {
+            log.error("Customer ledger recovery failed", e);
+        }
+    }
+
+    /**
+     * Summed effect of one customer's entries
+     */
+    private static final class Delta {
+
+        private final Long customerId;
+        private final List<Long> entryIds = new ArrayList<>();
+        private BigDecimal sales = BigDecimal.ZERO;
+        private BigDecimal payments = BigDecimal.ZERO;
+        private int pointsEarned;
+        private int pointsRedeemed;
+        private int pointsExpired;
+        private LocalDate lastPurchaseDate;
+
+        private Delta(Long customerId) {
+            this.customerId = customerId;
+        }
+
+        private void add(Long entryId, LedgerEntryType type, BigDecimal amount, int points, LocalDate entryDate) {
+            entryIds.add(entryId);
+            switch (type) {
+                case SALE -> {
+                    sales = sales.add(amount);
+                    if (lastPurchaseDate == null || (entryDate != null && entryDate.isAfter(lastPurchaseDate))) {
+                        lastPurchaseDate = entryDate;
+                    }
+                }
+                case PAYMENT -> payments = payments.add(amount);
+                case POINTS_EARNED -> pointsEarned += points;
+                case POINTS_REDEEMED -> pointsRedeemed += points;
+                case POINTS_EXPIRED -> pointsExpired += points;
+            }
+        }
+
+        private Delta merge(Delta other) {
+            entryIds.addAll(other.entryIds);
+            sales = sales.add(other.sales);
+            payments = payments.add(other.payments);
+            pointsEarned += other.pointsEarned;
+            pointsRedeemed += other.pointsRedeemed;
+            pointsExpired += other.pointsExpired;
+            if (lastPurchaseDate == null
+                    || (other.lastPurchaseDate != null && other.lastPurchaseDate.isAfter(lastPurchaseDate))) {
+                lastPurchaseDate = other.lastPurchaseDate;
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Some entries in a flush were applied by recovery in the meantime; rolls the flush back
+     */
+    private static final class AlreadyAppliedException extends RuntimeException {
+        private AlreadyAppliedException() {
+            super("Ledger entries already applied", null, false, false);
+        }
+    }
+}
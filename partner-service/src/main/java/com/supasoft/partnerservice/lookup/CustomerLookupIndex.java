@@ -0,0 +1,363 @@
+package com.supasoft.partnerservice.lookup;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.partnerservice.entity.Customer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory index for identifying customers at the till.
+ *
+ * Active customers are indexed by normalized code, phone and mobile, email and KRA PIN
+ * (tax id) for exact matches, and by each word of their name for prefix matches. Reads
+ * are lock-free map lookups; writes are serialized and rare.
+ *
+ * The index is loaded in id order on startup and then kept current two ways: changes
+ * made through this instance are applied as soon as their transaction commits, and
+ * rows changed since the last refresh (on any replica) are re-read every
+ * {@code refresh-interval}. Until the first load finishes {@link #isReady()} is false
+ * and callers fall back to the database; a failed load is retried on the next tick.
+ */
+@Slf4j
+@Component
+public class CustomerLookupIndex {
+
+    private static final String SELECT_COLUMNS =
+            "SELECT id, code, name, email, phone, mobile, tax_id, status FROM customers ";
+
+    private static final String SELECT_CHUNK = SELECT_COLUMNS + "WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String SELECT_CHANGED = SELECT_COLUMNS + "WHERE updated_at >= ? OR created_at >= ?";
+
+    // Row timestamps come from application clocks; re-read a little behind the watermark
+    private static final Duration CLOCK_SLACK = Duration.ofSeconds(5);
+
+    private static final int MAX_PREFIX_SCAN = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int loadChunkSize;
+    private final String countryCode;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> byCode = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> byPhone = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> byEmail = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> byTaxPin = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<Long>> byNameToken = new ConcurrentSkipListMap<>();
+
+    private final Object writeLock = new Object();
+    private volatile boolean ready;
+    private Timestamp watermark;
+
+    public CustomerLookupIndex(JdbcTemplate jdbcTemplate,
+                               @Value("${customer.lookup.load-chunk-size:10000}") int loadChunkSize,
+                               @Value("${customer.lookup.country-code:254}") String countryCode) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.loadChunkSize = loadChunkSize;
+        this.countryCode = countryCode;
+    }
+
+    /**
+     * Load on the first tick (and after a failed load), refresh after that
+     */
+    @Scheduled(fixedDelayString = "${customer.lookup.refresh-interval:10s}")
+    public void maintain() {
+        if (!ready) {
+            try {
+                load();
+            } catch (Exception e) {
+                log.error("Customer lookup index load failed; lookups fall back to the database", e);
+            }
+            return;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Customer lookup index refresh failed", e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Ids of customers matching the query, exact matches first
+     *
+     * Code, KRA PIN, email and phone are tried as exact keys; if none match, the query is
+     * treated as the start of one or more name words ("jo kam" finds "John Kamau").
+     */
+    public List<Long> lookup(String query, int limit) {
+        if (query == null || query.isBlank() || limit <= 0) {
+            return List.of();
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        Long codeMatch = byCode.get(normalizeCode(query));
+        if (codeMatch != null) {
+            ids.add(codeMatch);
+        }
+        addExact(byTaxPin, normalizeTaxPin(query), ids);
+        if (query.indexOf('@') >= 0) {
+            addExact(byEmail, normalizeEmail(query), ids);
+        }
+        addExact(byPhone, normalizePhone(query), ids);
+
+        if (ids.isEmpty()) {
+            findByNamePrefix(query, limit, ids);
+        }
+        return ids.stream().limit(limit).toList();
+    }
+
+    /**
+     * Reflect a saved customer once the surrounding transaction commits
+     */
+    public void index(Customer customer) {
+        Entry entry = new Entry(customer.getId(), customer.getCode(), customer.getName(), customer.getEmail(),
+                customer.getPhone(), customer.getMobile(), customer.getTaxId(),
+                customer.getStatus() == Status.ACTIVE);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(entry);
+                }
+            });
+        } else {
+            put(entry);
+        }
+    }
+
+    /**
+     * Full reload in id order; rows changed meanwhile are caught by the next refresh
+     */
+    public void load() {
+        Timestamp startedAt = databaseNow();
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        int loaded = 0;
+
+        while (true) {
+            List<Entry> chunk = jdbcTemplate.query(SELECT_CHUNK, (rs, rowNum) -> readEntry(rs), lastId, loadChunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            chunk.forEach(this::put);
+            loaded += chunk.size();
+            lastId = chunk.get(chunk.size() - 1).id();
+        }
+
+        synchronized (writeLock) {
+            watermark = startedAt;
+        }
+        ready = true;
+        log.info("Customer lookup index loaded: {} rows read, {} active customers indexed in {} ms",
+                loaded, entries.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-read customers created or changed since the previous refresh
+     */
+    public void refresh() {
+        Timestamp since;
+        synchronized (writeLock) {
+            since = watermark;
+        }
+        if (since == null) {
+            return;
+        }
+
+        Timestamp startedAt = databaseNow();
+        Timestamp from = new Timestamp(since.getTime() - CLOCK_SLACK.toMillis());
+        List<Entry> changed = jdbcTemplate.query(SELECT_CHANGED, (rs, rowNum) -> readEntry(rs), from, from);
+        changed.forEach(this::put);
+
+        synchronized (writeLock) {
+            watermark = startedAt;
+        }
+        if (!changed.isEmpty()) {
+            log.debug("Customer lookup index refreshed {} customers", changed.size());
+        }
+    }
+
+    private static void addExact(Map<String, Set<Long>> index, String key, Set<Long> ids) {
+        if (key != null) {
+            ids.addAll(index.getOrDefault(key, Set.of()));
+        }
+    }
+
+    private void findByNamePrefix(String query, int limit, Set<Long> ids) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return;
+        }
+
+        // Walk the first word's range and keep customers whose name also has the other words
+        String first = tokens.get(0);
+        int scanned = 0;
+        for (Set<Long> candidates : byNameToken.subMap(first, true, first + Character.MAX_VALUE, false).values()) {
+            for (Long id : candidates) {
+                if (++scanned > MAX_PREFIX_SCAN || ids.size() >= limit) {
+                    return;
+                }
+                Entry entry = entries.get(id);
+                if (entry != null && matchesAll(entry, tokens)) {
+                    ids.add(id);
+                }
+            }
+        }
+    }
+
+    private static boolean matchesAll(Entry entry, List<String> tokens) {
+        List<String> nameTokens = tokenize(entry.name());
+        for (String token : tokens) {
+            if (nameTokens.stream().noneMatch(nameToken -> nameToken.startsWith(token))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void put(Entry entry) {
+        synchronized (writeLock) {
+            Entry previous = entry.active() ? entries.put(entry.id(), entry) : entries.remove(entry.id());
+            if (previous != null) {
+                unlink(previous);
+            }
+            if (entry.active()) {
+                link(entry);
+            }
+        }
+    }
+
+    private void link(Entry entry) {
+        forEachKey(entry, (index, key) -> index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(entry.id()));
+        String code = normalizeCode(entry.code());
+        if (code != null) {
+            byCode.put(code, entry.id());
+        }
+    }
+
+    private void unlink(Entry entry) {
+        forEachKey(entry, (index, key) -> index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(entry.id());
+            return ids.isEmpty() ? null : ids;
+        }));
+        String code = normalizeCode(entry.code());
+        if (code != null) {
+            byCode.remove(code, entry.id());
+        }
+    }
+
+    private void forEachKey(Entry entry, KeyVisitor visitor) {
+        visitIfPresent(byPhone, normalizePhone(entry.phone()), visitor);
+        visitIfPresent(byPhone, normalizePhone(entry.mobile()), visitor);
+        visitIfPresent(byEmail, normalizeEmail(entry.email()), visitor);
+        visitIfPresent(byTaxPin, normalizeTaxPin(entry.taxId()), visitor);
+        tokenize(entry.name()).forEach(token -> visitor.visit(byNameToken, token));
+    }
+
+    private static void visitIfPresent(Map<String, Set<Long>> index, String key, KeyVisitor visitor) {
+        if (key != null) {
+            visitor.visit(index, key);
+        }
+    }
+
+    private Timestamp databaseNow() {
+        return jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP", Timestamp.class);
+    }
+
+    private static Entry readEntry(ResultSet rs) throws SQLException {
+        return new Entry(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5),
+                rs.getString(6), rs.getString(7), Status.ACTIVE.name().equals(rs.getString(8)));
+    }
+
+    private static String normalizeCode(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String normalizeEmail(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeTaxPin(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pin = value.replaceAll("[\\s-]", "").toUpperCase(Locale.ROOT);
+        return pin.isEmpty() ? null : pin;
+    }
+
+    /**
+     * Digits only, in international form: "0712 345678", "712345678" and "+254712345678" are the same key
+     */
+    private String normalizePhone(String value) {
+        if (value == null) {
+            return null;
+        }
+        String digits = value.replaceAll("\\D", "");
+        if (digits.length() < 7 || digits.length() < value.trim().length() / 2) {
+            return null;
+        }
+        if (digits.startsWith("00")) {
+            return digits.substring(2);
+        }
+        if (digits.startsWith("0")) {
+            return countryCode + digits.substring(1);
+        }
+        if (digits.length() == 9) {
+            return countryCode + digits;
+        }
+        return digits;
+    }
+
+    private static List<String> tokenize(String name) {
+        if (name == null) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : name.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens.isEmpty() ? List.of() : Collections.unmodifiableList(tokens);
+    }
+
+    @FunctionalInterface
+    private interface KeyVisitor {
+        void visit(Map<String, Set<Long>> index, String key);
+    }
+
+    /**
+     * Searchable fields of one customer as last seen
+     */
+    private record Entry(Long id, String code, String name, String email, String phone, String mobile,
+                         String taxId, boolean active) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.supasoft.partnerservice.loyalty;
+
+import com.supasoft.partnerservice.enums.LedgerEntryType;
+import com.supasoft.partnerservice.ledger.CustomerLedger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Expires loyalty point buckets whose expiry month has passed.
+ *
+ * Expired buckets are walked in id order, {@code chunk-size} at a time, and each
+ * chunk is handled in its own transaction: one batched insert of EXPIRE
+ * transactions, one ledger entry per affected customer and one delete of the
+ * buckets. A crash loses at most the chunk in flight, which rolls back and is picked
+ * up by the next run, so the job can simply be re-run. Rows are read with SKIP LOCKED
+ * so runs on several replicas share the work instead of colliding.
+ *
+ * Customer balances are not rewritten here: the expired points go through the
+ * customer ledger like any other point movement, so earnings and redemptions still
+ * waiting to be folded into the customer row are not lost.
+ *
+ * Runs daily on {@code loyalty.expiry.cron}; set it to {@code -} to only run on demand.
+ */
+@Slf4j
+@Component
+public class LoyaltyPointExpiryJob {
+
+    private static final String SELECT_EXPIRED_CHUNK =
+            "SELECT b.id, b.customer_id, b.expiry_date, b.points, " +
+            "(SELECT SUM(a.points) FROM loyalty_point_buckets a WHERE a.customer_id = b.customer_id) " +
+            "FROM loyalty_point_buckets b " +
+            "WHERE b.expiry_date < ? AND b.id > ? " +
+            "ORDER BY b.id LIMIT ? " +
+            "FOR UPDATE OF b SKIP LOCKED";
+
+    private static final String INSERT_EXPIRY_TRANSACTION =
+            "INSERT INTO loyalty_transactions (customer_id, transaction_type, points_earned, points_redeemed, " +
+            "points_balance, reference_number, transaction_date, expiry_date, description, created_at, " +
+            "created_by, is_deleted, version) " +
+            "VALUES (?, 'EXPIRE', 0, ?, ?, ?, ?, ?, ?, ?, 'system', FALSE, 0)";
+
+    private static final String DELETE_BUCKETS = "DELETE FROM loyalty_point_buckets WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CustomerLedger customerLedger;
+
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public LoyaltyPointExpiryJob(JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 CustomerLedger customerLedger,
+                                 @Value("${loyalty.expiry.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.customerLedger = customerLedger;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(cron = "${loyalty.expiry.cron:0 0 1 * * *}")
+    public void scheduledRun() {
+        try {
+            run();
+        } catch (Exception e) {
+            log.error("Loyalty point expiry failed; unprocessed buckets will be retried on the next run", e);
+        }
+    }
+
+    /**
+     * Expire everything that expired before today
+     *
+     * @return the run's totals, or an empty result if a run is already in progress on this instance
+     */
+    public ExpiryResult run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Loyalty point expiry already running, skipping");
+            return new ExpiryResult(0, 0, 0);
+        }
+        try {
+            LocalDate today = LocalDate.now();
+            long start = System.currentTimeMillis();
+            long buckets = 0;
+            long points = 0;
+            int chunks = 0;
+            long lastId = 0;
+
+            while (true) {
+                long afterId = lastId;
+                Chunk chunk = transactionTemplate.execute(status -> expireChunk(today, afterId));
+                if (chunk == null || chunk.buckets == 0) {
+                    break;
+                }
+                buckets += chunk.buckets;
+                points += chunk.points;
+                chunks++;
+                lastId = chunk.lastId;
+                if (chunks % 100 == 0) {
+                    log.info("Loyalty point expiry progress: {} buckets, {} points (last bucket {})",
+                            buckets, points, lastId);
+                }
+            }
+
+            log.info("Loyalty point expiry finished: {} buckets, {} points in {} chunks, {} ms",
+                    buckets, points, chunks, System.currentTimeMillis() - start);
+            return new ExpiryResult(buckets, points, chunks);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Expire one chunk of buckets after {@code afterId}; runs inside a transaction
+     */
+    private Chunk expireChunk(LocalDate today, long afterId) {
+        List<long[]> rows = new ArrayList<>(chunkSize);
+        List<Object[]> inserts = new ArrayList<>(chunkSize);
+        Map<Long, Integer> balances = new HashMap<>();
+        Map<Long, Integer> expired = new TreeMap<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.query(SELECT_EXPIRED_CHUNK, rs -> {
+            long bucketId = rs.getLong(1);
+            long customerId = rs.getLong(2);
+            Date expiryDate = rs.getDate(3);
+            int points = rs.getInt(4);
+            // The buckets hold every point not yet spent or expired, whether or not the ledger has
+            // folded it into the customer row; several buckets of one customer can share a chunk
+            int balanceBefore = balances.getOrDefault(customerId, rs.getInt(5));
+            int balanceAfter = balanceBefore - points;
+            balances.put(customerId, balanceAfter);
+            expired.merge(customerId, points, Integer::sum);
+
+            rows.add(new long[]{bucketId, points});
+            inserts.add(new Object[]{customerId, points, balanceAfter, "EXP-" + bucketId, now, expiryDate,
+                    "Points expired " + expiryDate, now});
+        }, Date.valueOf(today), afterId, chunkSize);
+
+        if (rows.isEmpty()) {
+            return new Chunk(0, 0, afterId);
+        }
+
+        List<Long> ids = new ArrayList<>(rows.size());
+        long points = 0;
+        for (long[] row : rows) {
+            ids.add(row[0]);
+            points += row[1];
+        }
+        jdbcTemplate.batchUpdate(INSERT_EXPIRY_TRANSACTION, inserts);
+        String reference = "EXP-" + today;
+        expired.forEach((customerId, customerPoints) ->
+                customerLedger.record(customerId, LedgerEntryType.POINTS_EXPIRED, null, customerPoints, reference));
+        namedParameterJdbcTemplate.update(DELETE_BUCKETS, new MapSqlParameterSource("ids", ids));
+
+        return new Chunk(rows.size(), points, ids.get(ids.size() - 1));
+    }
+
+    /**
+     * Totals for one expiry run
+     */
+    public record ExpiryResult(long buckets, long points, int chunks) {
+    }
+
+    private record Chunk(int buckets, long points, long lastId) {
+    }
+}
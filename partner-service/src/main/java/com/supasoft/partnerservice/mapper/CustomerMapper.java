@@ -35,6 +35,7 @@ public interface CustomerMapper {
     
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "code", ignore = true)
+    @Mapping(target = "creditLimit", ignore = true)
     @Mapping(target = "currentBalance", ignore = true)
     @Mapping(target = "availableCredit", ignore = true)
     @Mapping(target = "totalSales", ignore = true)
@@ -0,0 +1,35 @@
+package com.supasoft.partnerservice.repository;
+
+import com.supasoft.partnerservice.entity.CreditReservation;
+import com.supasoft.partnerservice.enums.CreditReservationStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for CreditReservation entity
+ */
+@Repository
+public interface CreditReservationRepository extends JpaRepository<CreditReservation, Long> {
+    
+    /**
+     * Settle a reservation that is still open; 0 if someone else settled it first
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE CreditReservation r SET r.status = :status, r.settledAt = :settledAt " +
+           "WHERE r.id = :id AND r.status = com.supasoft.partnerservice.enums.CreditReservationStatus.RESERVED")
+    int settle(@Param("id") Long id,
+               @Param("status") CreditReservationStatus status,
+               @Param("settledAt") LocalDateTime settledAt);
+    
+    @Query("SELECT r.id FROM CreditReservation r " +
+           "WHERE r.status = com.supasoft.partnerservice.enums.CreditReservationStatus.RESERVED " +
+           "AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<Long> findExpiredReservationIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
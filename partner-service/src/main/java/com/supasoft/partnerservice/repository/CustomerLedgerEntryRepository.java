@@ -0,0 +1,12 @@
+package com.supasoft.partnerservice.repository;
+
+import com.supasoft.partnerservice.entity.CustomerLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for CustomerLedgerEntry entity
+ */
+@Repository
+public interface CustomerLedgerEntryRepository extends JpaRepository<CustomerLedgerEntry, Long> {
+}
@@ -6,12 +6,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,22 +41,73 @@ public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSp
     @Query("SELECT c FROM Customer c WHERE c.currentBalance > c.creditLimit AND c.status = :status")
     List<Customer> findOverdueCreditCustomers(@Param("status") Status status);
     
-    @Query("SELECT c FROM Customer c WHERE c.availableCredit < :threshold AND c.isCreditAllowed = true")
-    List<Customer> findLowCreditCustomers(@Param("threshold") BigDecimal threshold);
-    
-    @Query("SELECT c FROM Customer c WHERE c.status = :status ORDER BY c.totalSales DESC")
-    Page<Customer> findTopCustomers(@Param("status") Status status, Pageable pageable);
-    
-    @Query("SELECT c FROM Customer c WHERE c.lastPurchaseDate < :date AND c.status = :status")
-    List<Customer> findInactiveCustomers(@Param("date") LocalDate date, @Param("status") Status status);
-    
-    @Query("SELECT c FROM Customer c WHERE c.isVip = true AND c.status = :status")
-    List<Customer> findVipCustomers(@Param("status") Status status);
+    @Query("SELECT c FROM Customer c WHERE c.availableCredit < :threshold AND c.isCreditAllowed = true " +
+           "ORDER BY c.availableCredit")
+    Page<Customer> findLowCreditCustomers(@Param("threshold") BigDecimal threshold, Pageable pageable);
     
     @Query("SELECT COUNT(c) FROM Customer c WHERE c.status = :status")
     Long countByStatus(@Param("status") Status status);
     
     @Query("SELECT SUM(c.totalSales) FROM Customer c WHERE c.status = :status")
     BigDecimal sumTotalSalesByStatus(@Param("status") Status status);
+    
+    /**
+     * Hold credit if the limit allows it; 0 rows means insufficient credit (or no such customer).
+     * MySQL applies SET assignments left to right, so available_credit is computed first from the old values.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE customers SET " +
+                   "available_credit = credit_limit - COALESCE(current_balance, 0) - reserved_credit - :amount, " +
+                   "reserved_credit = reserved_credit + :amount " +
+                   "WHERE id = :customerId " +
+                   "AND credit_limit - COALESCE(current_balance, 0) - reserved_credit >= :amount",
+           nativeQuery = true)
+    int reserveCredit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+    
+    /**
+     * Turn held credit into balance; available credit is unchanged
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE customers SET " +
+                   "reserved_credit = reserved_credit - :amount, " +
+                   "current_balance = COALESCE(current_balance, 0) + :amount " +
+                   "WHERE id = :customerId",
+           nativeQuery = true)
+    int commitReservedCredit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE customers SET " +
+                   "reserved_credit = reserved_credit - :amount, " +
+                   "available_credit = credit_limit - COALESCE(current_balance, 0) - reserved_credit " +
+                   "WHERE id = :customerId",
+           nativeQuery = true)
+    int releaseReservedCredit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+    
+    /**
+     * Charge credit directly if the limit allows it; 0 rows means insufficient credit (or no such customer)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE customers SET " +
+                   "available_credit = credit_limit - COALESCE(current_balance, 0) - reserved_credit - :amount, " +
+                   "current_balance = COALESCE(current_balance, 0) + :amount " +
+                   "WHERE id = :customerId " +
+                   "AND credit_limit - COALESCE(current_balance, 0) - reserved_credit >= :amount",
+           nativeQuery = true)
+    int chargeCredit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE customers SET " +
+                   "current_balance = COALESCE(current_balance, 0) - :amount, " +
+                   "available_credit = credit_limit - current_balance - reserved_credit " +
+                   "WHERE id = :customerId",
+           nativeQuery = true)
+    int refundCredit(@Param("customerId") Long customerId, @Param("amount") BigDecimal amount);
+    
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE customers SET " +
+                   "credit_limit = :creditLimit, " +
+                   "available_credit = :creditLimit - COALESCE(current_balance, 0) - reserved_credit " +
+                   "WHERE id = :customerId",
+           nativeQuery = true)
+    int updateCreditLimit(@Param("customerId") Long customerId, @Param("creditLimit") BigDecimal creditLimit);
 }
-
@@ -0,0 +1,49 @@
+package com.supasoft.partnerservice.repository;
+
+import com.supasoft.partnerservice.entity.LoyaltyPointBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository for LoyaltyPointBucket entity
+ */
+@Repository
+public interface LoyaltyPointBucketRepository extends JpaRepository<LoyaltyPointBucket, Long> {
+    
+    /**
+     * Add points to the customer's bucket for the given expiry month, creating it if needed
+     */
+    @Modifying
+    @Query(value = "INSERT INTO loyalty_point_buckets (customer_id, expiry_date, points, created_at, version) " +
+                   "VALUES (:customerId, :expiryDate, :points, CURRENT_TIMESTAMP, 0) " +
+                   "ON DUPLICATE KEY UPDATE points = points + VALUES(points), version = version + 1",
+           nativeQuery = true)
+    int addPoints(@Param("customerId") Long customerId,
+                  @Param("expiryDate") LocalDate expiryDate,
+                  @Param("points") Integer points);
+    
+    /**
+     * Unexpired balance; touches at most one row per expiry month
+     */
+    @Query("SELECT COALESCE(SUM(b.points), 0) FROM LoyaltyPointBucket b " +
+           "WHERE b.customerId = :customerId AND b.expiryDate >= :currentDate")
+    Integer sumAvailablePoints(@Param("customerId") Long customerId, @Param("currentDate") LocalDate currentDate);
+    
+    /**
+     * Unexpired buckets, oldest expiry first, locked for redemption
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM LoyaltyPointBucket b " +
+           "WHERE b.customerId = :customerId AND b.expiryDate >= :currentDate AND b.points > 0 " +
+           "ORDER BY b.expiryDate ASC")
+    List<LoyaltyPointBucket> findRedeemableForUpdate(@Param("customerId") Long customerId,
+                                                     @Param("currentDate") LocalDate currentDate);
+}
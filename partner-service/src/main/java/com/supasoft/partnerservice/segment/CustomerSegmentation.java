@@ -0,0 +1,666 @@
+package com.supasoft.partnerservice.segment;
+
+import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.common.enums.Status;
+import com.supasoft.partnerservice.dto.response.CustomerSegmentResponse;
+import com.supasoft.partnerservice.dto.response.SegmentSummaryResponse;
+import com.supasoft.partnerservice.entity.Customer;
+import com.supasoft.partnerservice.enums.InactivityCohort;
+import com.supasoft.partnerservice.enums.LedgerEntryType;
+import com.supasoft.partnerservice.enums.RfmSegment;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Precomputed customer segments: top customers by sales, VIPs, RFM segments and
+ * inactivity cohorts.
+ *
+ * Profiles of all active customers are built once on startup and again daily on
+ * {@code rebuild-cron}, in one consistent read. In between, the engine tails the
+ * customer ledger by id and applies each sale to that customer's profile only: the
+ * top-N min-heap, RFM bucket, cohort and VIP set are updated in place. Customer
+ * edits and deactivations made through the customer service are applied the same
+ * way once they commit; changes written to the table directly wait for the rebuild. Every
+ * {@code snapshot-interval} the segments that changed are re-sorted into immutable
+ * lists, which requests page through without touching the customers table.
+ *
+ * All state is owned by a single thread; the scheduled ticks only hand work to it, and
+ * readers only see published snapshots.
+ * Recency moves with the calendar, so days-since-purchase is exact as of the last
+ * rebuild or sale.
+ */
+@Slf4j
+@Component
+public class CustomerSegmentation {
+
+    private static final String SELECT_MAX_LEDGER_ID = "SELECT COALESCE(MAX(id), 0) FROM customer_ledger_entries";
+
+    private static final String SELECT_CUSTOMER_CHUNK =
+            "SELECT c.id, c.code, c.name, c.is_vip, " +
+            "COALESCE(c.total_sales, 0) + COALESCE(p.sales, 0), " +
+            "COALESCE(GREATEST(c.last_purchase_date, p.last_purchase), p.last_purchase, c.last_purchase_date) " +
+            "FROM customers c LEFT JOIN (" +
+            "SELECT customer_id, SUM(amount) AS sales, MAX(entry_date) AS last_purchase " +
+            "FROM customer_ledger_entries WHERE entry_type = 'SALE' AND applied_at IS NULL AND id <= ? " +
+            "GROUP BY customer_id" +
+            ") p ON p.customer_id = c.id " +
+            "WHERE c.status = 'ACTIVE' AND c.id > ? ORDER BY c.id LIMIT ?";
+
+    private static final String SELECT_MONTHLY_PURCHASES =
+            "SELECT customer_id, YEAR(entry_date) * 12 + MONTH(entry_date) - 1, COUNT(*) " +
+            "FROM customer_ledger_entries WHERE entry_type = 'SALE' AND entry_date >= ? AND id <= ? " +
+            "GROUP BY customer_id, YEAR(entry_date), MONTH(entry_date)";
+
+    private static final String SELECT_LEDGER_COLUMNS =
+            "SELECT e.id, e.customer_id, e.entry_type, e.amount, e.entry_date, c.code, c.name, c.is_vip, c.status " +
+            "FROM customer_ledger_entries e JOIN customers c ON c.id = e.customer_id ";
+
+    private static final String SELECT_LEDGER_TAIL = SELECT_LEDGER_COLUMNS + "WHERE e.id > ? ORDER BY e.id LIMIT ?";
+
+    private static final String SELECT_LEDGER_BY_ID = SELECT_LEDGER_COLUMNS + "WHERE e.id IN (:ids)";
+
+    // Ids skipped by the tail may belong to transactions still in flight; re-check them for this long
+    private static final long HOLE_TTL_MILLIS = Duration.ofMinutes(2).toMillis();
+    private static final int MAX_HOLES = 10_000;
+
+    private static final Comparator<Profile> BY_SALES =
+            Comparator.comparing(Profile::totalSales).thenComparing(Profile::id);
+    private static final Comparator<Profile> BY_SALES_DESC = BY_SALES.reversed();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final int topSize;
+    private final int chunkSize;
+
+    // Owned by the owner thread
+    private final Map<Long, Profile> profiles = new HashMap<>();
+    private final PriorityQueue<Profile> top = new PriorityQueue<>(BY_SALES);
+    private final Set<Long> vipMembers = new HashSet<>();
+    private final Map<RfmSegment, Set<Long>> rfmMembers = new EnumMap<>(RfmSegment.class);
+    private final Map<InactivityCohort, Set<Long>> cohortMembers = new EnumMap<>(InactivityCohort.class);
+    private final Set<RfmSegment> dirtyRfm = EnumSet.noneOf(RfmSegment.class);
+    private final Set<InactivityCohort> dirtyCohorts = EnumSet.noneOf(InactivityCohort.class);
+    private final Map<Long, Long> holes = new HashMap<>();
+    private boolean topDirty;
+    private boolean vipDirty;
+    private BigDecimal[] monetaryBounds = new BigDecimal[0];
+    private LocalDate today = LocalDate.now();
+    private long lastLedgerId;
+    private boolean built;
+
+    private volatile Snapshot snapshot = Snapshot.empty();
+
+    /**
+     * Periodic tasks waiting on the owner thread; a tick is dropped while its task is still queued
+     */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService owner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "customer-segmentation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CustomerSegmentation(JdbcTemplate jdbcTemplate,
+                                NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${customer.segmentation.top-size:1000}") int topSize,
+                                @Value("${customer.segmentation.chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.topSize = topSize;
+        this.chunkSize = chunkSize;
+
+        for (RfmSegment segment : RfmSegment.values()) {
+            rfmMembers.put(segment, new HashSet<>());
+        }
+        for (InactivityCohort cohort : InactivityCohort.values()) {
+            cohortMembers.put(cohort, new HashSet<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        submit("rebuild", this::rebuild);
+    }
+
+    @PreDestroy
+    public void stop() {
+        owner.shutdownNow();
+    }
+
+    @Scheduled(cron = "${customer.segmentation.rebuild-cron:0 0 2 * * *}")
+    public void scheduledRebuild() {
+        submit("rebuild", this::rebuild);
+    }
+
+    @Scheduled(fixedDelayString = "${customer.segmentation.poll-interval:5s}",
+            initialDelayString = "${customer.segmentation.poll-interval:5s}")
+    public void scheduledPoll() {
+        submit("ledger poll", this::poll);
+    }
+
+    @Scheduled(fixedDelayString = "${customer.segmentation.snapshot-interval:1m}",
+            initialDelayString = "${customer.segmentation.snapshot-interval:1m}")
+    public void scheduledPublish() {
+        submit("snapshot", this::publish);
+    }
+
+    public PagedResponse<CustomerSegmentResponse> getTopCustomers(int page, int size) {
+        return page(snapshot.top(), page, size);
+    }
+
+    public PagedResponse<CustomerSegmentResponse> getVipCustomers(int page, int size) {
+        return page(snapshot.vip(), page, size);
+    }
+
+    public PagedResponse<CustomerSegmentResponse> getRfmSegment(RfmSegment segment, int page, int size) {
+        return page(snapshot.rfm().getOrDefault(segment, List.of()), page, size);
+    }
+
+    public PagedResponse<CustomerSegmentResponse> getInactivityCohort(InactivityCohort cohort, int page, int size) {
+        return page(snapshot.cohorts().getOrDefault(cohort, List.of()), page, size);
+    }
+
+    public SegmentSummaryResponse getSummary() {
+        Snapshot current = snapshot;
+        Map<RfmSegment, Integer> rfm = new EnumMap<>(RfmSegment.class);
+        current.rfm().forEach((segment, members) -> rfm.put(segment, members.size()));
+        Map<InactivityCohort, Integer> cohorts = new EnumMap<>(InactivityCohort.class);
+        current.cohorts().forEach((cohort, members) -> cohorts.put(cohort, members.size()));
+
+        return SegmentSummaryResponse.builder()
+                .snapshotAt(current.builtAt())
+                .customers(current.customers())
+                .topCustomers(current.top().size())
+                .vipCustomers(current.vip().size())
+                .rfmSegments(rfm)
+                .inactivityCohorts(cohorts)
+                .build();
+    }
+
+    /**
+     * Take over a customer's code, name, VIP flag and status once the caller's transaction commits
+     *
+     * A customer that becomes active rejoins with its stored sales total; its monthly purchase
+     * counts, which only the rebuild reads, start from zero until the next rebuild.
+     */
+    public void update(Customer customer) {
+        CustomerChange change = new CustomerChange(customer.getId(), customer.getCode(), customer.getName(),
+                Boolean.TRUE.equals(customer.getIsVip()), customer.getStatus() == Status.ACTIVE,
+                customer.getTotalSales(), customer.getLastPurchaseDate());
+        Runnable submit = () -> owner.execute(() -> runQuietly("customer update", () -> apply(change)));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    /**
+     * Rebuild every profile from one consistent read of the customers and the ledger
+     */
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        LocalDate asOf = LocalDate.now();
+        int asOfMonth = epochMonth(asOf);
+        Map<Long, Profile> loaded = new HashMap<>();
+
+        Long tailStart = readOnlyTransaction.execute(status -> {
+            long maxLedgerId = jdbcTemplate.queryForObject(SELECT_MAX_LEDGER_ID, Long.class);
+
+            long lastId = 0;
+            while (true) {
+                List<Profile> chunk = jdbcTemplate.query(SELECT_CUSTOMER_CHUNK, (rs, rowNum) -> {
+                    Date lastPurchase = rs.getDate(6);
+                    return new Profile(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBoolean(4),
+                            rs.getBigDecimal(5), lastPurchase != null ? lastPurchase.toLocalDate() : null,
+                            asOfMonth, new int[12], null);
+                }, maxLedgerId, lastId, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                chunk.forEach(profile -> loaded.put(profile.id(), profile));
+                lastId = chunk.get(chunk.size() - 1).id();
+            }
+
+            // Profiles are still private to this method, so the month counters are filled in place
+            jdbcTemplate.query(SELECT_MONTHLY_PURCHASES, rs -> {
+                Profile profile = loaded.get(rs.getLong(1));
+                if (profile != null) {
+                    profile.monthlyPurchases()[Math.floorMod(rs.getInt(2), 12)] += rs.getInt(3);
+                }
+            }, Date.valueOf(asOf.withDayOfMonth(1).minusMonths(11)), maxLedgerId);
+            return maxLedgerId;
+        });
+
+        today = asOf;
+        monetaryBounds = quintileBounds(loaded.values());
+        profiles.clear();
+        top.clear();
+        vipMembers.clear();
+        rfmMembers.values().forEach(Set::clear);
+        cohortMembers.values().forEach(Set::clear);
+        holes.clear();
+        lastLedgerId = tailStart != null ? tailStart : 0;
+
+        for (Profile profile : loaded.values()) {
+            replace(null, classify(profile));
+        }
+        built = true;
+        publish();
+        log.info("Customer segmentation rebuilt: {} customers in {} ms", profiles.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Apply ledger entries written since the last poll, then any late commits into earlier gaps
+     */
+    private void poll() {
+        if (!built) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (!holes.isEmpty()) {
+            holes.values().removeIf(firstSeen -> now - firstSeen > HOLE_TTL_MILLIS);
+            if (!holes.isEmpty()) {
+                List<LedgerRow> late = namedParameterJdbcTemplate.query(SELECT_LEDGER_BY_ID,
+                        new MapSqlParameterSource("ids", new ArrayList<>(holes.keySet())), (rs, rowNum) -> readRow(rs));
+                for (LedgerRow row : late) {
+                    holes.remove(row.id());
+                    apply(row);
+                }
+            }
+        }
+
+        while (true) {
+            List<LedgerRow> rows = jdbcTemplate.query(SELECT_LEDGER_TAIL, (rs, rowNum) -> readRow(rs),
+                    lastLedgerId, chunkSize);
+            for (LedgerRow row : rows) {
+                for (long id = lastLedgerId + 1; id < row.id() && holes.size() < MAX_HOLES; id++) {
+                    holes.put(id, now);
+                }
+                lastLedgerId = row.id();
+                apply(row);
+            }
+            if (rows.size() < chunkSize) {
+                break;
+            }
+        }
+    }
+
+    private void apply(LedgerRow row) {
+        if (!"ACTIVE".equals(row.status())) {
+            remove(row.customerId());
+            return;
+        }
+        if (row.type() != LedgerEntryType.SALE) {
+            return;
+        }
+
+        Profile current = profiles.get(row.customerId());
+        Profile base = current != null ? current
+                : new Profile(row.customerId(), row.code(), row.name(), row.vip(), BigDecimal.ZERO, null,
+                        epochMonth(today), new int[12], null);
+        replace(current, classify(base.withSale(row.code(), row.name(), row.vip(), row.amount(), row.entryDate())));
+    }
+
+    private void apply(CustomerChange change) {
+        if (!built) {
+            // The first rebuild has not finished and will read the change itself
+            return;
+        }
+        if (!change.active()) {
+            remove(change.id());
+            return;
+        }
+
+        Profile current = profiles.get(change.id());
+        Profile base = current != null
+                ? current.withDetails(change.code(), change.name(), change.vip())
+                : new Profile(change.id(), change.code(), change.name(), change.vip(),
+                        change.totalSales() != null ? change.totalSales() : BigDecimal.ZERO,
+                        change.lastPurchaseDate(), epochMonth(today), new int[12], null);
+        replace(current, classify(base));
+    }
+
+    /**
+     * Swap a customer's profile in every structure it belongs to
+     */
+    private void replace(Profile previous, Profile profile) {
+        profiles.put(profile.id(), profile);
+        Scores scores = profile.scores();
+
+        if (previous != null) {
+            Scores old = previous.scores();
+            if (old.segment() != scores.segment()) {
+                rfmMembers.get(old.segment()).remove(previous.id());
+            }
+            if (old.cohort() != scores.cohort()) {
+                cohortMembers.get(old.cohort()).remove(previous.id());
+            }
+            dirtyRfm.add(old.segment());
+            dirtyCohorts.add(old.cohort());
+        }
+        rfmMembers.get(scores.segment()).add(profile.id());
+        cohortMembers.get(scores.cohort()).add(profile.id());
+        dirtyRfm.add(scores.segment());
+        dirtyCohorts.add(scores.cohort());
+
+        boolean wasVip = previous != null && previous.vip();
+        if (profile.vip()) {
+            vipMembers.add(profile.id());
+        } else {
+            vipMembers.remove(profile.id());
+        }
+        vipDirty |= wasVip || profile.vip();
+
+        // Sales only grow, so a bounded min-heap stays exact without rescanning
+        if (previous != null && top.remove(previous)) {
+            top.add(profile);
+            topDirty = true;
+        } else if (top.size() < topSize) {
+            top.add(profile);
+            topDirty = true;
+        } else if (BY_SALES.compare(profile, top.peek()) > 0) {
+            top.poll();
+            top.add(profile);
+            topDirty = true;
+        }
+    }
+
+    private void remove(Long customerId) {
+        Profile previous = profiles.remove(customerId);
+        if (previous == null) {
+            return;
+        }
+        Scores scores = previous.scores();
+        rfmMembers.get(scores.segment()).remove(customerId);
+        cohortMembers.get(scores.cohort()).remove(customerId);
+        dirtyRfm.add(scores.segment());
+        dirtyCohorts.add(scores.cohort());
+        vipDirty |= vipMembers.remove(customerId);
+
+        if (top.remove(previous)) {
+            // Refill the freed slot from memory; deactivations are rare
+            top.clear();
+            for (Profile profile : profiles.values()) {
+                if (top.size() < topSize) {
+                    top.add(profile);
+                } else if (BY_SALES.compare(profile, top.peek()) > 0) {
+                    top.poll();
+                    top.add(profile);
+                }
+            }
+            topDirty = true;
+        }
+    }
+
+    /**
+     * Re-sort the segments that changed and publish them with the untouched ones
+     */
+    private void publish() {
+        if (!built) {
+            return;
+        }
+        Snapshot previous = snapshot;
+        if (!topDirty && !vipDirty && dirtyRfm.isEmpty() && dirtyCohorts.isEmpty()
+                && previous.customers() == profiles.size()) {
+            return;
+        }
+
+        List<Profile> topList = topDirty ? sorted(top) : previous.top();
+        List<Profile> vipList = vipDirty ? sorted(vipMembers) : previous.vip();
+        Map<RfmSegment, List<Profile>> rfm = new EnumMap<>(RfmSegment.class);
+        for (RfmSegment segment : RfmSegment.values()) {
+            rfm.put(segment, dirtyRfm.contains(segment) || !previous.rfm().containsKey(segment)
+                    ? sorted(rfmMembers.get(segment)) : previous.rfm().get(segment));
+        }
+        Map<InactivityCohort, List<Profile>> cohorts = new EnumMap<>(InactivityCohort.class);
+        for (InactivityCohort cohort : InactivityCohort.values()) {
+            cohorts.put(cohort, dirtyCohorts.contains(cohort) || !previous.cohorts().containsKey(cohort)
+                    ? sorted(cohortMembers.get(cohort)) : previous.cohorts().get(cohort));
+        }
+
+        snapshot = new Snapshot(LocalDateTime.now(), profiles.size(), topList, vipList, rfm, cohorts);
+        topDirty = false;
+        vipDirty = false;
+        dirtyRfm.clear();
+        dirtyCohorts.clear();
+    }
+
+    private List<Profile> sorted(Collection<?> members) {
+        List<Profile> list = new ArrayList<>(members.size());
+        for (Object member : members) {
+            Profile profile = member instanceof Profile p ? p : profiles.get((Long) member);
+            if (profile != null) {
+                list.add(profile);
+            }
+        }
+        list.sort(BY_SALES_DESC);
+        return List.copyOf(list);
+    }
+
+    private Profile classify(Profile profile) {
+        Long days = profile.lastPurchaseDate() != null
+                ? Math.max(ChronoUnit.DAYS.between(profile.lastPurchaseDate(), today), 0) : null;
+        int purchases = profile.purchasesInYearTo(epochMonth(today));
+
+        int recency = days == null ? 1 : days <= 30 ? 5 : days <= 60 ? 4 : days <= 90 ? 3 : days <= 180 ? 2 : 1;
+        int frequency = purchases >= 24 ? 5 : purchases >= 12 ? 4 : purchases >= 6 ? 3 : purchases >= 2 ? 2 : 1;
+        int monetary = 1;
+        for (BigDecimal bound : monetaryBounds) {
+            if (profile.totalSales().compareTo(bound) >= 0) {
+                monetary++;
+            }
+        }
+
+        RfmSegment segment;
+        if (days == null) {
+            segment = RfmSegment.PROSPECT;
+        } else if (recency >= 4 && frequency >= 4 && monetary >= 4) {
+            segment = RfmSegment.CHAMPIONS;
+        } else if (frequency >= 4) {
+            segment = recency <= 2 ? RfmSegment.AT_RISK : RfmSegment.LOYAL;
+        } else if (recency >= 4) {
+            segment = frequency >= 2 ? RfmSegment.POTENTIAL_LOYALIST : RfmSegment.NEW;
+        } else if (recency == 1) {
+            segment = RfmSegment.LOST;
+        } else if (frequency >= 3) {
+            segment = RfmSegment.AT_RISK;
+        } else {
+            segment = RfmSegment.HIBERNATING;
+        }
+
+        return profile.withScores(new Scores(purchases, recency, frequency, monetary, segment,
+                InactivityCohort.forDaysSincePurchase(days)));
+    }
+
+    /**
+     * Sales values at the 20th, 40th, 60th and 80th percentile of customers who have bought
+     */
+    private static BigDecimal[] quintileBounds(Collection<Profile> all) {
+        List<BigDecimal> totals = new ArrayList<>();
+        for (Profile profile : all) {
+            if (profile.totalSales().signum() > 0) {
+                totals.add(profile.totalSales());
+            }
+        }
+        if (totals.isEmpty()) {
+            return new BigDecimal[0];
+        }
+        totals.sort(null);
+        BigDecimal[] bounds = new BigDecimal[4];
+        for (int i = 0; i < bounds.length; i++) {
+            bounds[i] = totals.get(totals.size() * (i + 1) / 5);
+        }
+        return bounds;
+    }
+
+    private static PagedResponse<CustomerSegmentResponse> page(List<Profile> members, int page, int size) {
+        int from = (int) Math.min((long) page * size, members.size());
+        int to = Math.min(from + size, members.size());
+        List<CustomerSegmentResponse> content = members.subList(from, to).stream()
+                .map(CustomerSegmentation::toResponse)
+                .toList();
+        return PagedResponse.of(content, page, size, members.size());
+    }
+
+    private static CustomerSegmentResponse toResponse(Profile profile) {
+        Scores scores = profile.scores();
+        return CustomerSegmentResponse.builder()
+                .customerId(profile.id())
+                .code(profile.code())
+                .name(profile.name())
+                .isVip(profile.vip())
+                .totalSales(profile.totalSales())
+                .lastPurchaseDate(profile.lastPurchaseDate())
+                .purchasesLast12Months(scores.purchases())
+                .recencyScore(scores.recency())
+                .frequencyScore(scores.frequency())
+                .monetaryScore(scores.monetary())
+                .rfmSegment(scores.segment())
+                .inactivityCohort(scores.cohort())
+                .build();
+    }
+
+    private static LedgerRow readRow(ResultSet rs) throws SQLException {
+        Date entryDate = rs.getDate(5);
+        return new LedgerRow(rs.getLong(1), rs.getLong(2), LedgerEntryType.valueOf(rs.getString(3)),
+                rs.getBigDecimal(4), entryDate != null ? entryDate.toLocalDate() : LocalDate.now(),
+                rs.getString(6), rs.getString(7), rs.getBoolean(8), rs.getString(9));
+    }
+
+    private static int epochMonth(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private void submit(String task, Runnable runnable) {
+        if (queued.add(task)) {
+            owner.execute(() -> {
+                queued.remove(task);
+                runQuietly(task, runnable);
+            });
+        }
+    }
+
+    private void runQuietly(String task, Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Exception e) {
+            log.error("Customer segmentation {} failed", task, e);
+        }
+    }
+
+    /**
+     * One customer's sales history as far as segmentation needs it.
+     * {@code monthlyPurchases} is a ring of sale counts for the twelve months up to {@code lastMonth}.
+     */
+    private record Profile(Long id, String code, String name, boolean vip, BigDecimal totalSales,
+                           LocalDate lastPurchaseDate, int lastMonth, int[] monthlyPurchases, Scores scores) {
+
+        Profile withSale(String newCode, String newName, boolean newVip, BigDecimal amount, LocalDate date) {
+            int month = epochMonth(date);
+            int[] monthly = monthlyPurchases.clone();
+            int last = lastMonth;
+            if (month > last) {
+                for (int k = Math.max(last + 1, month - 11); k <= month; k++) {
+                    monthly[Math.floorMod(k, 12)] = 0;
+                }
+                last = month;
+            }
+            if (month > last - 12) {
+                monthly[Math.floorMod(month, 12)]++;
+            }
+            LocalDate lastPurchase = lastPurchaseDate == null || date.isAfter(lastPurchaseDate)
+                    ? date : lastPurchaseDate;
+            return new Profile(id, newCode, newName, newVip, totalSales.add(amount), lastPurchase, last, monthly,
+                    scores);
+        }
+
+        Profile withDetails(String newCode, String newName, boolean newVip) {
+            return new Profile(id, newCode, newName, newVip, totalSales, lastPurchaseDate, lastMonth,
+                    monthlyPurchases, scores);
+        }
+
+        Profile withScores(Scores newScores) {
+            return new Profile(id, code, name, vip, totalSales, lastPurchaseDate, lastMonth, monthlyPurchases,
+                    newScores);
+        }
+
+        int purchasesInYearTo(int month) {
+            int total = 0;
+            for (int k = Math.max(month, lastMonth) - 11; k <= Math.min(month, lastMonth); k++) {
+                total += monthlyPurchases[Math.floorMod(k, 12)];
+            }
+            return total;
+        }
+    }
+
+    private record Scores(int purchases, int recency, int frequency, int monetary, RfmSegment segment,
+                          InactivityCohort cohort) {
+    }
+
+    private record CustomerChange(Long id, String code, String name, boolean vip, boolean active,
+                                  BigDecimal totalSales, LocalDate lastPurchaseDate) {
+    }
+
+    private record LedgerRow(long id, Long customerId, LedgerEntryType type, BigDecimal amount, LocalDate entryDate,
+                             String code, String name, boolean vip, String status) {
+    }
+
+    /**
+     * Immutable, pre-sorted segment lists served to readers
+     */
+    private record Snapshot(LocalDateTime builtAt, int customers, List<Profile> top, List<Profile> vip,
+                            Map<RfmSegment, List<Profile>> rfm, Map<InactivityCohort, List<Profile>> cohorts) {
+
+        static Snapshot empty() {
+            return new Snapshot(null, 0, List.of(), List.of(), Map.of(), Map.of());
+        }
+    }
+}
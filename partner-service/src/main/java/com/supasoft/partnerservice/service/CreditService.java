@@ -1,10 +1,14 @@
 package com.supasoft.partnerservice.service;
 
+import com.supasoft.partnerservice.dto.request.CreditReservationRequest;
+import com.supasoft.partnerservice.dto.response.CreditReservationResponse;
+
 import java.math.BigDecimal;
 
 /**
  * Service interface for Credit management
- * TODO: Implement full credit management operations
+ * Every change to a customer's credit position is a single conditional update,
+ * so concurrent sales cannot overdraw the limit
  */
 public interface CreditService {
     
@@ -17,5 +21,20 @@ public interface CreditService {
     BigDecimal getAvailableCredit(Long customerId);
     
     void updateCreditLimit(Long customerId, BigDecimal newLimit);
+    
+    /**
+     * Hold credit for a sale in progress until it is committed, released or expires
+     */
+    CreditReservationResponse reserveCredit(CreditReservationRequest request);
+    
+    CreditReservationResponse commitReservation(Long reservationId);
+    
+    CreditReservationResponse releaseReservation(Long reservationId);
+    
+    CreditReservationResponse getReservation(Long reservationId);
+    
+    /**
+     * Release reservations past their expiry; returns how many were released
+     */
+    int expireReservations();
 }
-
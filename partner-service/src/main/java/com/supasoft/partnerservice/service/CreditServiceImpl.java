@@ -1,88 +1,216 @@
 package com.supasoft.partnerservice.service;
 
+import com.supasoft.common.exception.BusinessException;
+import com.supasoft.common.exception.ResourceNotFoundException;
+import com.supasoft.partnerservice.dto.request.CreditReservationRequest;
+import com.supasoft.partnerservice.dto.response.CreditReservationResponse;
+import com.supasoft.partnerservice.entity.CreditReservation;
 import com.supasoft.partnerservice.entity.Customer;
+import com.supasoft.partnerservice.enums.CreditReservationStatus;
 import com.supasoft.partnerservice.exception.CustomerNotFoundException;
 import com.supasoft.partnerservice.exception.InsufficientCreditException;
+import com.supasoft.partnerservice.repository.CreditReservationRepository;
 import com.supasoft.partnerservice.repository.CustomerRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Implementation of CreditService
- * Basic implementation - extend as needed
+ * Credit checks and balance changes are done by conditional UPDATE statements on the
+ * customer row, so the row is locked only for the statement and never read-modify-written.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class CreditServiceImpl implements CreditService {
-    
+
+    private static final int EXPIRY_BATCH_SIZE = 500;
+
     private final CustomerRepository customerRepository;
-    
+    private final CreditReservationRepository creditReservationRepository;
+    private final CacheManager cacheManager;
+    private final Duration reservationTtl;
+
+    public CreditServiceImpl(CustomerRepository customerRepository,
+                             CreditReservationRepository creditReservationRepository,
+                             CacheManager cacheManager,
+                             @Value("${credit.reservation.ttl:30m}") Duration reservationTtl) {
+        this.customerRepository = customerRepository;
+        this.creditReservationRepository = creditReservationRepository;
+        this.cacheManager = cacheManager;
+        this.reservationTtl = reservationTtl;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean validateCreditLimit(Long customerId, BigDecimal amount) {
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException(customerId));
-        
-        return customer.getAvailableCredit().compareTo(amount) >= 0;
+        return getAvailableCredit(customerId).compareTo(amount) >= 0;
     }
-    
+
     @Override
+    @CacheEvict(value = "customers", key = "#customerId")
     public void allocateCredit(Long customerId, BigDecimal amount) {
         log.info("Allocating credit for customer {}: {}", customerId, amount);
-        
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException(customerId));
-        
-        if (!validateCreditLimit(customerId, amount)) {
-            throw new InsufficientCreditException(
-                    customerId,
-                    amount,
-                    customer.getAvailableCredit()
-            );
+
+        requirePositive(amount);
+        if (customerRepository.chargeCredit(customerId, amount) == 0) {
+            throw insufficientCredit(customerId, amount);
         }
-        
-        customer.setCurrentBalance(customer.getCurrentBalance().add(amount));
-        customer.updateAvailableCredit();
-        customerRepository.save(customer);
     }
-    
+
     @Override
+    @CacheEvict(value = "customers", key = "#customerId")
     public void releaseCredit(Long customerId, BigDecimal amount) {
         log.info("Releasing credit for customer {}: {}", customerId, amount);
-        
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException(customerId));
-        
-        customer.setCurrentBalance(customer.getCurrentBalance().subtract(amount));
-        customer.updateAvailableCredit();
-        customerRepository.save(customer);
+
+        requirePositive(amount);
+        if (customerRepository.refundCredit(customerId, amount) == 0) {
+            throw new CustomerNotFoundException(customerId);
+        }
     }
-    
+
     @Override
     @Transactional(readOnly = true)
     public BigDecimal getAvailableCredit(Long customerId) {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new CustomerNotFoundException(customerId));
-        
+
         return customer.getAvailableCredit();
     }
-    
+
     @Override
+    @CacheEvict(value = "customers", key = "#customerId")
     public void updateCreditLimit(Long customerId, BigDecimal newLimit) {
         log.info("Updating credit limit for customer {}: {}", customerId, newLimit);
-        
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException(customerId));
-        
-        customer.setCreditLimit(newLimit);
-        customer.updateAvailableCredit();
-        customerRepository.save(customer);
+
+        if (customerRepository.updateCreditLimit(customerId, newLimit) == 0) {
+            throw new CustomerNotFoundException(customerId);
+        }
     }
-}
 
+    @Override
+    @CacheEvict(value = "customers", key = "#request.customerId")
+    public CreditReservationResponse reserveCredit(CreditReservationRequest request) {
+        log.info("Reserving credit for customer {}: {}", request.getCustomerId(), request.getAmount());
+
+        requirePositive(request.getAmount());
+        if (customerRepository.reserveCredit(request.getCustomerId(), request.getAmount()) == 0) {
+            throw insufficientCredit(request.getCustomerId(), request.getAmount());
+        }
+
+        CreditReservation reservation = new CreditReservation();
+        reservation.setCustomerId(request.getCustomerId());
+        reservation.setAmount(request.getAmount());
+        reservation.setStatus(CreditReservationStatus.RESERVED);
+        reservation.setReferenceNumber(request.getReferenceNumber());
+        reservation.setExpiresAt(LocalDateTime.now().plus(reservationTtl));
+
+        return toResponse(creditReservationRepository.save(reservation));
+    }
+
+    @Override
+    public CreditReservationResponse commitReservation(Long reservationId) {
+        log.info("Committing credit reservation {}", reservationId);
+
+        CreditReservation reservation = settle(reservationId, CreditReservationStatus.COMMITTED);
+        customerRepository.commitReservedCredit(reservation.getCustomerId(), reservation.getAmount());
+        evictCustomer(reservation.getCustomerId());
+        return toResponse(reservation);
+    }
+
+    @Override
+    public CreditReservationResponse releaseReservation(Long reservationId) {
+        log.info("Releasing credit reservation {}", reservationId);
+
+        CreditReservation reservation = settle(reservationId, CreditReservationStatus.RELEASED);
+        customerRepository.releaseReservedCredit(reservation.getCustomerId(), reservation.getAmount());
+        evictCustomer(reservation.getCustomerId());
+        return toResponse(reservation);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CreditReservationResponse getReservation(Long reservationId) {
+        return toResponse(findReservation(reservationId));
+    }
+
+    @Override
+    public int expireReservations() {
+        List<Long> expired = creditReservationRepository.findExpiredReservationIds(
+                LocalDateTime.now(), PageRequest.of(0, EXPIRY_BATCH_SIZE));
+
+        int released = 0;
+        for (Long reservationId : expired) {
+            // Another replica, or a late commit, may settle it first; that is not an error here
+            if (creditReservationRepository.settle(reservationId, CreditReservationStatus.EXPIRED,
+                    LocalDateTime.now()) == 1) {
+                CreditReservation reservation = findReservation(reservationId);
+                customerRepository.releaseReservedCredit(reservation.getCustomerId(), reservation.getAmount());
+                evictCustomer(reservation.getCustomerId());
+                released++;
+            }
+        }
+
+        if (released > 0) {
+            log.info("Released {} expired credit reservations", released);
+        }
+        return released;
+    }
+
+    /**
+     * Move an open reservation to its final status; exactly one caller wins
+     */
+    private CreditReservation settle(Long reservationId, CreditReservationStatus status) {
+        if (creditReservationRepository.settle(reservationId, status, LocalDateTime.now()) == 0) {
+            CreditReservation reservation = findReservation(reservationId);
+            throw new BusinessException(String.format("Credit reservation %d is already %s",
+                    reservationId, reservation.getStatus()));
+        }
+        return findReservation(reservationId);
+    }
+
+    private CreditReservation findReservation(Long reservationId) {
+        return creditReservationRepository.findById(reservationId)
+                .orElseThrow(() -> new ResourceNotFoundException("CreditReservation", "id", reservationId));
+    }
+
+    private InsufficientCreditException insufficientCredit(Long customerId, BigDecimal amount) {
+        return new InsufficientCreditException(customerId, amount, getAvailableCredit(customerId));
+    }
+
+    private void evictCustomer(Long customerId) {
+        Cache cache = cacheManager.getCache("customers");
+        if (cache != null) {
+            cache.evict(customerId);
+        }
+    }
+
+    private static void requirePositive(BigDecimal amount) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new BusinessException("Credit amount must be greater than zero");
+        }
+    }
+
+    private static CreditReservationResponse toResponse(CreditReservation reservation) {
+        return CreditReservationResponse.builder()
+                .id(reservation.getId())
+                .customerId(reservation.getCustomerId())
+                .amount(reservation.getAmount())
+                .status(reservation.getStatus())
+                .referenceNumber(reservation.getReferenceNumber())
+                .expiresAt(reservation.getExpiresAt())
+                .settledAt(reservation.getSettledAt())
+                .build();
+    }
+}
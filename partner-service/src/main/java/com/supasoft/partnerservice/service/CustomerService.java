@@ -3,10 +3,12 @@ package com.supasoft.partnerservice.service;
 import com.supasoft.common.dto.PagedResponse;
 import com.supasoft.partnerservice.dto.request.CreateCustomerRequest;
 import com.supasoft.partnerservice.dto.request.UpdateCustomerRequest;
+import com.supasoft.partnerservice.dto.response.CustomerBalanceResponse;
 import com.supasoft.partnerservice.dto.response.CustomerResponse;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * Service interface for Customer management
@@ -25,6 +27,11 @@ public interface CustomerService {
     
     PagedResponse<CustomerResponse> searchCustomers(String search, Pageable pageable);
     
+    /**
+     * Identify customers at the till by code, phone, email, KRA PIN or the start of their name
+     */
+    List<CustomerResponse> lookupCustomers(String query, int limit);
+    
     void deleteCustomer(Long id);
     
     void adjustCreditLimit(Long id, BigDecimal newLimit);
@@ -33,6 +40,11 @@ public interface CustomerService {
     
     void recordPayment(Long id, BigDecimal amount);
     
+    /**
+     * Current totals including sale, payment and points entries not yet applied to the customer row
+     */
+    CustomerBalanceResponse getCustomerBalance(Long id);
+    
     void addLoyaltyPoints(Long id, Integer points);
     
     void redeemLoyaltyPoints(Long id, Integer points);
@@ -4,27 +4,36 @@ import com.supasoft.common.dto.PagedResponse;
 import com.supasoft.common.enums.Status;
 import com.supasoft.partnerservice.dto.request.CreateCustomerRequest;
 import com.supasoft.partnerservice.dto.request.UpdateCustomerRequest;
+import com.supasoft.partnerservice.dto.response.CustomerBalanceResponse;
 import com.supasoft.partnerservice.dto.response.CustomerResponse;
 import com.supasoft.partnerservice.entity.Customer;
 import com.supasoft.partnerservice.entity.CustomerCategory;
+import com.supasoft.partnerservice.enums.LedgerEntryType;
 import com.supasoft.partnerservice.exception.CustomerNotFoundException;
-import com.supasoft.partnerservice.exception.InsufficientCreditException;
-import com.supasoft.partnerservice.exception.InsufficientLoyaltyPointsException;
+import com.supasoft.partnerservice.ledger.CustomerLedger;
+import com.supasoft.partnerservice.lookup.CustomerLookupIndex;
 import com.supasoft.partnerservice.mapper.CustomerMapper;
 import com.supasoft.partnerservice.repository.CustomerCategoryRepository;
 import com.supasoft.partnerservice.repository.CustomerRepository;
+import com.supasoft.partnerservice.segment.CustomerSegmentation;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of CustomerService
@@ -38,6 +47,11 @@ public class CustomerServiceImpl implements CustomerService {
     private final CustomerRepository customerRepository;
     private final CustomerCategoryRepository categoryRepository;
     private final CustomerMapper customerMapper;
+    private final LoyaltyService loyaltyService;
+    private final CreditService creditService;
+    private final CustomerLedger customerLedger;
+    private final CustomerLookupIndex customerLookupIndex;
+    private final CustomerSegmentation customerSegmentation;
     
     @Override
     @CacheEvict(value = "customers", allEntries = true)
@@ -68,6 +82,8 @@ public class CustomerServiceImpl implements CustomerService {
         customer.updateAvailableCredit();
         
         Customer savedCustomer = customerRepository.save(customer);
+        customerLookupIndex.index(savedCustomer);
+        customerSegmentation.update(savedCustomer);
         log.info("Customer created successfully: {}", savedCustomer.getCode());
         
         return customerMapper.toResponse(savedCustomer);
@@ -89,11 +105,16 @@ public class CustomerServiceImpl implements CustomerService {
             customer.setCategory(category);
         }
         
+        Customer updatedCustomer = customerRepository.save(customer);
+        
+        // The limit and available credit are only written by the atomic credit statements
         if (request.getCreditLimit() != null) {
-            customer.updateAvailableCredit();
+            creditService.updateCreditLimit(id, request.getCreditLimit());
+            updatedCustomer = customerRepository.findById(id)
+                    .orElseThrow(() -> new CustomerNotFoundException(id));
         }
-        
-        Customer updatedCustomer = customerRepository.save(customer);
+        customerLookupIndex.index(updatedCustomer);
+        customerSegmentation.update(updatedCustomer);
         log.info("Customer updated successfully: {}", updatedCustomer.getCode());
         
         return customerMapper.toResponse(updatedCustomer);
@@ -145,6 +166,30 @@ public class CustomerServiceImpl implements CustomerService {
         return new PagedResponse<>(responsePage);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerResponse> lookupCustomers(String query, int limit) {
+        log.debug("Looking up customers with query: {}", query);
+        
+        if (!customerLookupIndex.isReady()) {
+            return searchCustomers(query, PageRequest.of(0, limit)).getContent();
+        }
+        
+        List<Long> ids = customerLookupIndex.lookup(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        
+        // Keep the index's ranking: exact matches first
+        Map<Long, Customer> customers = customerRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        return ids.stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .map(customerMapper::toResponse)
+                .toList();
+    }
+    
     @Override
     @CacheEvict(value = "customers", key = "#id")
     public void deleteCustomer(Long id) {
@@ -155,6 +200,8 @@ public class CustomerServiceImpl implements CustomerService {
         
         customer.setStatus(Status.INACTIVE);
         customerRepository.save(customer);
+        customerLookupIndex.index(customer);
+        customerSegmentation.update(customer);
         
         log.info("Customer deleted (soft delete): {}", customer.getCode());
     }
@@ -164,14 +211,8 @@ public class CustomerServiceImpl implements CustomerService {
     public void adjustCreditLimit(Long id, BigDecimal newLimit) {
         log.info("Adjusting credit limit for customer ID: {}", id);
         
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> new CustomerNotFoundException(id));
-        
-        customer.setCreditLimit(newLimit);
-        customer.updateAvailableCredit();
-        
-        customerRepository.save(customer);
-        log.info("Credit limit adjusted to {} for customer: {}", newLimit, customer.getCode());
+        creditService.updateCreditLimit(id, newLimit);
+        log.info("Credit limit adjusted to {} for customer ID: {}", newLimit, id);
     }
     
     @Override
@@ -182,24 +223,13 @@ public class CustomerServiceImpl implements CustomerService {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new CustomerNotFoundException(id));
         
-        // Check credit limit if credit is allowed
+        // Check and charge the credit limit atomically if credit is allowed
         if (customer.getIsCreditAllowed()) {
-            BigDecimal newBalance = customer.getCurrentBalance().add(amount);
-            if (newBalance.compareTo(customer.getCreditLimit()) > 0) {
-                throw new InsufficientCreditException(
-                        id, 
-                        amount, 
-                        customer.getAvailableCredit()
-                );
-            }
-            customer.setCurrentBalance(newBalance);
+            creditService.allocateCredit(id, amount);
         }
         
-        customer.setTotalSales(customer.getTotalSales().add(amount));
-        customer.setLastPurchaseDate(LocalDate.now());
-        customer.updateAvailableCredit();
-        
-        customerRepository.save(customer);
+        // Sales totals are appended to the ledger and applied to the customer row in batches
+        customerLedger.record(id, LedgerEntryType.SALE, amount, 0, null);
         log.info("Sale recorded: {} for customer: {}", amount, customer.getCode());
     }
     
@@ -208,15 +238,15 @@ public class CustomerServiceImpl implements CustomerService {
     public void recordPayment(Long id, BigDecimal amount) {
         log.info("Recording payment for customer ID: {}", id);
         
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> new CustomerNotFoundException(id));
-        
-        customer.setCurrentBalance(customer.getCurrentBalance().subtract(amount));
-        customer.setTotalPayments(customer.getTotalPayments().add(amount));
-        customer.updateAvailableCredit();
-        
-        customerRepository.save(customer);
-        log.info("Payment recorded: {} for customer: {}", amount, customer.getCode());
+        creditService.releaseCredit(id, amount);
+        customerLedger.record(id, LedgerEntryType.PAYMENT, amount, 0, null);
+        log.info("Payment recorded: {} for customer ID: {}", amount, id);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerBalanceResponse getCustomerBalance(Long id) {
+        return customerLedger.getBalance(id);
     }
     
     @Override
@@ -224,14 +254,8 @@ public class CustomerServiceImpl implements CustomerService {
     public void addLoyaltyPoints(Long id, Integer points) {
         log.info("Adding loyalty points for customer ID: {}", id);
         
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> new CustomerNotFoundException(id));
-        
-        customer.setLoyaltyPoints(customer.getLoyaltyPoints() + points);
-        customer.setTotalPointsEarned(customer.getTotalPointsEarned() + points);
-        
-        customerRepository.save(customer);
-        log.info("Loyalty points added: {} for customer: {}", points, customer.getCode());
+        // Goes through the loyalty ledger so expiry buckets and the balance stay in step
+        loyaltyService.earnPoints(id, points, null);
     }
     
     @Override
@@ -239,22 +263,7 @@ public class CustomerServiceImpl implements CustomerService {
     public void redeemLoyaltyPoints(Long id, Integer points) {
         log.info("Redeeming loyalty points for customer ID: {}", id);
         
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> new CustomerNotFoundException(id));
-        
-        if (customer.getLoyaltyPoints() < points) {
-            throw new InsufficientLoyaltyPointsException(
-                    id,
-                    points,
-                    customer.getLoyaltyPoints()
-            );
-        }
-        
-        customer.setLoyaltyPoints(customer.getLoyaltyPoints() - points);
-        customer.setTotalPointsRedeemed(customer.getTotalPointsRedeemed() + points);
-        
-        customerRepository.save(customer);
-        log.info("Loyalty points redeemed: {} for customer: {}", points, customer.getCode());
+        loyaltyService.redeemPoints(id, points, null);
     }
     
     private String generateCustomerCode() {
@@ -1,24 +1,36 @@
 package com.supasoft.partnerservice.service;
 
+import com.supasoft.common.exception.BusinessException;
 import com.supasoft.partnerservice.entity.Customer;
+import com.supasoft.partnerservice.entity.LoyaltyPointBucket;
 import com.supasoft.partnerservice.entity.LoyaltyTransaction;
+import com.supasoft.partnerservice.enums.LedgerEntryType;
 import com.supasoft.partnerservice.exception.CustomerNotFoundException;
+import com.supasoft.partnerservice.exception.InsufficientLoyaltyPointsException;
+import com.supasoft.partnerservice.ledger.CustomerLedger;
+import com.supasoft.partnerservice.loyalty.LoyaltyPointExpiryJob;
 import com.supasoft.partnerservice.repository.CustomerRepository;
+import com.supasoft.partnerservice.repository.LoyaltyPointBucketRepository;
 import com.supasoft.partnerservice.repository.LoyaltyTransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Implementation of LoyaltyService
- * Basic implementation - extend as needed
+ * Balances come from per-expiry-month point buckets maintained on earn and redeem
  */
 @Service
 @RequiredArgsConstructor
@@ -26,8 +38,13 @@ import java.time.LocalDateTime;
 @Transactional
 public class LoyaltyServiceImpl implements LoyaltyService {
     
+    private static final int POINTS_VALIDITY_MONTHS = 12;
+    
     private final LoyaltyTransactionRepository loyaltyTransactionRepository;
+    private final LoyaltyPointBucketRepository loyaltyPointBucketRepository;
     private final CustomerRepository customerRepository;
+    private final LoyaltyPointExpiryJob loyaltyPointExpiryJob;
+    private final CustomerLedger customerLedger;
     
     @Override
     public Integer calculatePointsForPurchase(Long customerId, BigDecimal purchaseAmount) {
@@ -42,36 +59,76 @@ public class LoyaltyServiceImpl implements LoyaltyService {
     }
     
     @Override
+    @CacheEvict(value = "customers", key = "#customerId")
     public void earnPoints(Long customerId, Integer points, String reference) {
         log.info("Customer {} earning {} points", customerId, points);
         
+        if (points == null || points <= 0) {
+            throw new BusinessException("Points to earn must be greater than zero");
+        }
+        
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new CustomerNotFoundException(customerId));
         
+        // Points expire at the end of the month, so one bucket per month holds them all
+        LocalDate expiryDate = YearMonth.now().plusMonths(POINTS_VALIDITY_MONTHS).atEndOfMonth();
+        loyaltyPointBucketRepository.addPoints(customerId, expiryDate, points);
+        customerLedger.record(customerId, LedgerEntryType.POINTS_EARNED, null, points, reference);
+        
         LoyaltyTransaction transaction = new LoyaltyTransaction();
         transaction.setCustomer(customer);
         transaction.setTransactionType("EARN");
         transaction.setPointsEarned(points);
-        transaction.setPointsBalance(customer.getLoyaltyPoints() + points);
+        transaction.setPointsBalance(loyaltyPointBucketRepository.sumAvailablePoints(customerId, LocalDate.now()));
         transaction.setReferenceNumber(reference);
         transaction.setTransactionDate(LocalDateTime.now());
-        transaction.setExpiryDate(LocalDate.now().plusMonths(12)); // 12 months expiry
+        transaction.setExpiryDate(expiryDate);
         
         loyaltyTransactionRepository.save(transaction);
     }
     
     @Override
+    @CacheEvict(value = "customers", key = "#customerId")
     public void redeemPoints(Long customerId, Integer points, String reference) {
         log.info("Customer {} redeeming {} points", customerId, points);
         
+        if (points == null || points <= 0) {
+            throw new BusinessException("Points to redeem must be greater than zero");
+        }
+        
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new CustomerNotFoundException(customerId));
         
+        // Locks the customer's live buckets, so concurrent redemptions queue here
+        List<LoyaltyPointBucket> buckets = loyaltyPointBucketRepository
+                .findRedeemableForUpdate(customerId, LocalDate.now());
+        int available = buckets.stream().mapToInt(LoyaltyPointBucket::getPoints).sum();
+        if (available < points) {
+            throw new InsufficientLoyaltyPointsException(customerId, points, available);
+        }
+        
+        // Consume the soonest-expiring points first
+        int remaining = points;
+        List<LoyaltyPointBucket> emptied = new ArrayList<>();
+        for (LoyaltyPointBucket bucket : buckets) {
+            int taken = Math.min(remaining, bucket.getPoints());
+            bucket.setPoints(bucket.getPoints() - taken);
+            if (bucket.getPoints() == 0) {
+                emptied.add(bucket);
+            }
+            remaining -= taken;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        loyaltyPointBucketRepository.deleteAll(emptied);
+        customerLedger.record(customerId, LedgerEntryType.POINTS_REDEEMED, null, points, reference);
+        
         LoyaltyTransaction transaction = new LoyaltyTransaction();
         transaction.setCustomer(customer);
         transaction.setTransactionType("REDEEM");
         transaction.setPointsRedeemed(points);
-        transaction.setPointsBalance(customer.getLoyaltyPoints() - points);
+        transaction.setPointsBalance(available - points);
         transaction.setReferenceNumber(reference);
         transaction.setTransactionDate(LocalDateTime.now());
         
@@ -81,7 +138,7 @@ public class LoyaltyServiceImpl implements LoyaltyService {
     @Override
     @Transactional(readOnly = true)
     public Integer getAvailablePoints(Long customerId) {
-        return loyaltyTransactionRepository.calculateAvailablePoints(customerId, LocalDate.now());
+        return loyaltyPointBucketRepository.sumAvailablePoints(customerId, LocalDate.now());
     }
     
     @Override
@@ -91,9 +148,10 @@ public class LoyaltyServiceImpl implements LoyaltyService {
     }
     
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void expirePoints() {
         log.info("Expiring loyalty points");
-        // TODO: Implement point expiration logic
+        // Commits chunk by chunk, so it must not join a surrounding transaction
+        loyaltyPointExpiryJob.run();
     }
 }
-
@@ -0,0 +1,29 @@
+package com.supasoft.partnerservice.service;
+
+import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.partnerservice.dto.response.CustomerResponse;
+import com.supasoft.partnerservice.dto.response.CustomerSegmentResponse;
+import com.supasoft.partnerservice.dto.response.SegmentSummaryResponse;
+import com.supasoft.partnerservice.enums.InactivityCohort;
+import com.supasoft.partnerservice.enums.RfmSegment;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+
+/**
+ * Service interface for customer segments and rankings
+ */
+public interface SegmentationService {
+    
+    PagedResponse<CustomerSegmentResponse> getTopCustomers(Pageable pageable);
+    
+    PagedResponse<CustomerSegmentResponse> getVipCustomers(Pageable pageable);
+    
+    PagedResponse<CustomerSegmentResponse> getRfmSegment(RfmSegment segment, Pageable pageable);
+    
+    PagedResponse<CustomerSegmentResponse> getInactivityCohort(InactivityCohort cohort, Pageable pageable);
+    
+    SegmentSummaryResponse getSummary();
+    
+    PagedResponse<CustomerResponse> getLowCreditCustomers(BigDecimal threshold, Pageable pageable);
+}
@@ -0,0 +1,66 @@
+package com.supasoft.partnerservice.service;
+
+import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.partnerservice.dto.response.CustomerResponse;
+import com.supasoft.partnerservice.dto.response.CustomerSegmentResponse;
+import com.supasoft.partnerservice.dto.response.SegmentSummaryResponse;
+import com.supasoft.partnerservice.enums.InactivityCohort;
+import com.supasoft.partnerservice.enums.RfmSegment;
+import com.supasoft.partnerservice.mapper.CustomerMapper;
+import com.supasoft.partnerservice.repository.CustomerRepository;
+import com.supasoft.partnerservice.segment.CustomerSegmentation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+/**
+ * Implementation of SegmentationService
+ * Segments are served from the precomputed snapshots in {@link CustomerSegmentation}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SegmentationServiceImpl implements SegmentationService {
+    
+    private final CustomerSegmentation customerSegmentation;
+    private final CustomerRepository customerRepository;
+    private final CustomerMapper customerMapper;
+    
+    @Override
+    public PagedResponse<CustomerSegmentResponse> getTopCustomers(Pageable pageable) {
+        return customerSegmentation.getTopCustomers(pageable.getPageNumber(), pageable.getPageSize());
+    }
+    
+    @Override
+    public PagedResponse<CustomerSegmentResponse> getVipCustomers(Pageable pageable) {
+        return customerSegmentation.getVipCustomers(pageable.getPageNumber(), pageable.getPageSize());
+    }
+    
+    @Override
+    public PagedResponse<CustomerSegmentResponse> getRfmSegment(RfmSegment segment, Pageable pageable) {
+        return customerSegmentation.getRfmSegment(segment, pageable.getPageNumber(), pageable.getPageSize());
+    }
+    
+    @Override
+    public PagedResponse<CustomerSegmentResponse> getInactivityCohort(InactivityCohort cohort, Pageable pageable) {
+        return customerSegmentation.getInactivityCohort(cohort, pageable.getPageNumber(), pageable.getPageSize());
+    }
+    
+    @Override
+    public SegmentSummaryResponse getSummary() {
+        return customerSegmentation.getSummary();
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public PagedResponse<CustomerResponse> getLowCreditCustomers(BigDecimal threshold, Pageable pageable) {
+        log.debug("Fetching customers with available credit below {}", threshold);
+        
+        return new PagedResponse<>(customerRepository.findLowCreditCustomers(threshold, pageable)
+                .map(customerMapper::toResponse));
+    }
+}
@@ -0,0 +1,49 @@
+-- Loyalty points still available, grouped by the last day of the month in which they expire
+CREATE TABLE loyalty_point_buckets (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    expiry_date DATE NOT NULL,
+    points INT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL ON UPDATE CURRENT_TIMESTAMP,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    is_deleted BOOLEAN DEFAULT FALSE,
+    version BIGINT DEFAULT 0,
+    UNIQUE KEY uk_loyalty_bucket_customer_expiry (customer_id, expiry_date),
+    INDEX idx_loyalty_bucket_expiry (expiry_date),
+    FOREIGN KEY (customer_id) REFERENCES customers(id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Rebuild buckets from history: redemptions consume earned points oldest expiry first
+INSERT INTO loyalty_point_buckets (customer_id, expiry_date, points)
+SELECT b.customer_id, b.expiry_date, b.remaining
+FROM (
+    SELECT e.customer_id,
+           e.expiry_date,
+           GREATEST(0, LEAST(e.earned, e.cumulative - COALESCE(r.redeemed, 0))) AS remaining
+    FROM (
+        SELECT m.customer_id,
+               m.expiry_date,
+               m.earned,
+               SUM(m.earned) OVER (PARTITION BY m.customer_id ORDER BY m.expiry_date) AS cumulative
+        FROM (
+            SELECT customer_id,
+                   LAST_DAY(COALESCE(expiry_date, '9999-12-31')) AS expiry_date,
+                   SUM(points_earned) AS earned
+            FROM loyalty_transactions
+            WHERE points_earned > 0
+            GROUP BY customer_id, LAST_DAY(COALESCE(expiry_date, '9999-12-31'))
+        ) m
+    ) e
+    LEFT JOIN (
+        SELECT customer_id, SUM(points_redeemed) AS redeemed
+        FROM loyalty_transactions
+        WHERE points_redeemed > 0
+        GROUP BY customer_id
+    ) r ON r.customer_id = e.customer_id
+) b
+WHERE b.remaining > 0 AND b.expiry_date >= CURDATE();
+
+UPDATE customers c
+SET c.loyalty_points = COALESCE((SELECT SUM(b.points) FROM loyalty_point_buckets b WHERE b.customer_id = c.id), 0);
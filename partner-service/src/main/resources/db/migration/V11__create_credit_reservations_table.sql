@@ -0,0 +1,23 @@
+-- Credit held for in-flight credit sales, counted against the limit until committed or released
+ALTER TABLE customers
+    ADD COLUMN reserved_credit DECIMAL(19,2) NOT NULL DEFAULT 0.00 AFTER current_balance;
+
+CREATE TABLE credit_reservations (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    amount DECIMAL(19,2) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    reference_number VARCHAR(50),
+    expires_at TIMESTAMP NOT NULL,
+    settled_at TIMESTAMP NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL ON UPDATE CURRENT_TIMESTAMP,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    is_deleted BOOLEAN DEFAULT FALSE,
+    version BIGINT DEFAULT 0,
+    INDEX idx_credit_reservation_customer (customer_id),
+    INDEX idx_credit_reservation_status_expiry (status, expires_at),
+    INDEX idx_credit_reservation_reference (reference_number),
+    FOREIGN KEY (customer_id) REFERENCES customers(id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
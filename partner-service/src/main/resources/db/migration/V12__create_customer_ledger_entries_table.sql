@@ -0,0 +1,20 @@
+-- Append-only log of sale, payment and loyalty events; applied to customers in coalesced batches
+CREATE TABLE customer_ledger_entries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    customer_id BIGINT NOT NULL,
+    entry_type VARCHAR(20) NOT NULL,
+    amount DECIMAL(19,2) NOT NULL DEFAULT 0.00,
+    points INT NOT NULL DEFAULT 0,
+    reference_number VARCHAR(50),
+    entry_date DATE NOT NULL,
+    applied_at TIMESTAMP NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NULL ON UPDATE CURRENT_TIMESTAMP,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    is_deleted BOOLEAN DEFAULT FALSE,
+    version BIGINT DEFAULT 0,
+    INDEX idx_customer_ledger_pending (customer_id, applied_at),
+    INDEX idx_customer_ledger_unapplied (applied_at, id),
+    FOREIGN KEY (customer_id) REFERENCES customers(id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,2 @@
+-- Lets the customer lookup index re-read only the rows changed since its last refresh
+CREATE INDEX idx_customer_updated ON customers (updated_at);
@@ -0,0 +1,2 @@
+-- Lets the segmentation rebuild count each customer's sales per month without reading whole rows
+CREATE INDEX idx_ledger_type_date ON customer_ledger_entries (entry_type, entry_date, customer_id);
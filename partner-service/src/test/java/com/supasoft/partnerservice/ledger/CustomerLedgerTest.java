@@ -0,0 +1,187 @@
+package com.supasoft.partnerservice.ledger;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.supasoft.partnerservice.entity.CustomerLedgerEntry;
+import com.supasoft.partnerservice.enums.LedgerEntryType;
+import com.supasoft.partnerservice.repository.CustomerLedgerEntryRepository;
+
+public class CustomerLedgerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private CustomerLedger ledger;
+
+    /**
+     * Ids of entries already marked applied, as the MARK_APPLIED statement would see them
+     */
+    private final List<Long> applied = new ArrayList<>();
+
+    /**
+     * Argument rows of every successful customer balance update
+     */
+    private final List<Object[]> customerUpdates = new ArrayList<>();
+
+    private boolean failNextUpdate;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        CustomerLedgerEntryRepository entryRepository = mock(CustomerLedgerEntryRepository.class);
+        AtomicLong ids = new AtomicLong();
+        when(entryRepository.save(any())).thenAnswer(invocation -> {
+            CustomerLedgerEntry entry = invocation.getArgument(0);
+            entry.setId(ids.incrementAndGet());
+            return entry;
+        });
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        namedParameterJdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+        // A transaction either commits all its marks and updates or none of them
+        doAnswer(invocation -> {
+            List<Long> marks = new ArrayList<>();
+            doAnswer(mark -> {
+                List<Long> requested = (List<Long>) ((MapSqlParameterSource) mark.getArgument(1)).getValue("ids");
+                List<Long> fresh = requested.stream().filter(id -> !applied.contains(id) && !marks.contains(id)).toList();
+                marks.addAll(fresh);
+                return fresh.size();
+            }).when(namedParameterJdbcTemplate).update(contains("applied_at ="), any(SqlParameterSource.class));
+            List<Object[]> updates = new ArrayList<>();
+            doAnswer(update -> {
+                if (failNextUpdate) {
+                    failNextUpdate = false;
+                    throw new IllegalStateException("lock wait timeout");
+                }
+                updates.addAll(update.getArgument(1));
+                return new int[0];
+            }).when(jdbcTemplate).batchUpdate(contains("UPDATE customers"), anyList());
+
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            applied.addAll(marks);
+            customerUpdates.addAll(updates);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        ledger = new CustomerLedger(entryRepository, jdbcTemplate, namedParameterJdbcTemplate, transactionTemplate,
+                mock(CacheManager.class), Duration.ofSeconds(2), Duration.ofMinutes(5), 500);
+    }
+
+    @Test
+    public void testEventsAreCoalescedIntoOneUpdatePerCustomer() {
+        ledger.record(7L, LedgerEntryType.SALE, new BigDecimal("100.00"), 0, "S1");
+        ledger.record(7L, LedgerEntryType.SALE, new BigDecimal("50.00"), 0, "S2");
+        ledger.record(7L, LedgerEntryType.POINTS_EARNED, null, 15, "S2");
+        ledger.record(8L, LedgerEntryType.PAYMENT, new BigDecimal("20.00"), 0, "P1");
+
+        ledger.flush();
+
+        assertEquals(2, customerUpdates.size());
+        assertDelta(customerUpdates.get(0), 7L, "150.00", "0", 15, 0, 0);
+        assertDelta(customerUpdates.get(1), 8L, "0", "20.00", 0, 0, 0);
+        assertEquals(List.of(1L, 2L, 3L, 4L), applied);
+    }
+
+    @Test
+    public void testFailedFlushIsRetriedWithoutCountingAnythingTwice() {
+        ledger.record(7L, LedgerEntryType.SALE, new BigDecimal("100.00"), 0, "S1");
+        failNextUpdate = true;
+
+        ledger.flush();
+        assertEquals(0, customerUpdates.size());
+        assertEquals(List.of(), applied);
+
+        ledger.record(7L, LedgerEntryType.SALE, new BigDecimal("40.00"), 0, "S2");
+        ledger.flush();
+        ledger.flush();
+
+        assertEquals(1, customerUpdates.size());
+        assertDelta(customerUpdates.get(0), 7L, "140.00", "0", 0, 0, 0);
+        assertEquals(List.of(1L, 2L), applied);
+    }
+
+    @Test
+    public void testEntriesRecoveredElsewhereAreNotAppliedAgain() throws SQLException {
+        ledger.record(7L, LedgerEntryType.SALE, new BigDecimal("100.00"), 0, "S1");
+        ledger.record(7L, LedgerEntryType.SALE, new BigDecimal("40.00"), 0, "S2");
+        // Recovery on another replica applied entry 1 in the meantime; only entry 2 is still unapplied
+        applied.add(1L);
+        ResultSet entry2 = mock(ResultSet.class);
+        when(entry2.getLong(1)).thenReturn(2L);
+        when(entry2.getLong(2)).thenReturn(7L);
+        when(entry2.getString(3)).thenReturn("SALE");
+        when(entry2.getBigDecimal(4)).thenReturn(new BigDecimal("40.00"));
+        when(entry2.getDate(6)).thenReturn(Date.valueOf(LocalDate.now()));
+        doAnswer(invocation -> {
+            ((RowCallbackHandler) invocation.getArgument(2)).processRow(entry2);
+            return null;
+        }).when(namedParameterJdbcTemplate).query(anyString(), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        ledger.flush();
+
+        assertEquals(1, customerUpdates.size());
+        assertDelta(customerUpdates.get(0), 7L, "40.00", "0", 0, 0, 0);
+        assertEquals(List.of(1L, 2L), applied);
+    }
+
+    @Test
+    public void testExpiryIsFoldedInAlongsidePendingEarnings() {
+        // Earned before the expiry run but not yet applied to the customer row
+        ledger.record(7L, LedgerEntryType.POINTS_EARNED, null, 100, "S1");
+        ledger.record(7L, LedgerEntryType.POINTS_EXPIRED, null, 30, "EXP-" + LocalDate.now());
+
+        ledger.flush();
+
+        assertEquals(1, customerUpdates.size());
+        assertDelta(customerUpdates.get(0), 7L, "0", "0", 100, 0, 30);
+    }
+
+    @Test
+    public void testEmptyFlushTouchesNothing() {
+        ledger.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private static void assertDelta(Object[] args, Long customerId, String sales, String payments,
+                                    int earned, int redeemed, int expired) {
+        assertEquals(customerId, args[9]);
+        assertEquals(0, new BigDecimal(sales).compareTo((BigDecimal) args[0]));
+        assertEquals(0, new BigDecimal(payments).compareTo((BigDecimal) args[1]));
+        assertArrayEquals(new Object[]{earned, redeemed, expired, earned, redeemed},
+                new Object[]{args[2], args[3], args[4], args[5], args[6]});
+    }
+}
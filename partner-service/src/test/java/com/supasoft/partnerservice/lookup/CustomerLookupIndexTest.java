@@ -0,0 +1,103 @@
+package com.supasoft.partnerservice.lookup;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.partnerservice.entity.Customer;
+
+public class CustomerLookupIndexTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private CustomerLookupIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        index = new CustomerLookupIndex(jdbcTemplate, 10_000, "254");
+        index.index(customer(1L, "CUST001", "John Kamau", "John.Kamau@Example.com", "0712 345678", "P051234567X"));
+        index.index(customer(2L, "CUST002", "John Otieno", "otieno@example.com", "+254 733 000111", null));
+        index.index(customer(3L, "CUST003", "Mary Wanjiru", null, "0722-999888", null));
+    }
+
+    @Test
+    public void testPhoneNumbersMatchInAnyLocalOrInternationalForm() {
+        assertEquals(List.of(1L), index.lookup("+254712345678", 10));
+        assertEquals(List.of(1L), index.lookup("712345678", 10));
+        assertEquals(List.of(2L), index.lookup("0733000111", 10));
+        assertEquals(List.of(3L), index.lookup("00254722999888", 10));
+    }
+
+    @Test
+    public void testCodeEmailAndTaxPinAreExactKeys() {
+        assertEquals(List.of(2L), index.lookup(" cust002 ", 10));
+        assertEquals(List.of(1L), index.lookup("john.kamau@example.COM", 10));
+        assertEquals(List.of(1L), index.lookup("p051-234-567x", 10));
+    }
+
+    @Test
+    public void testNameWordsMatchByPrefix() {
+        assertEquals(List.of(1L, 2L), index.lookup("john", 10));
+        assertEquals(List.of(1L), index.lookup("jo kam", 10));
+        assertEquals(List.of(3L), index.lookup("wanj", 10));
+        assertEquals(List.of(1L), index.lookup("john", 1));
+        assertEquals(List.of(), index.lookup("peter", 10));
+    }
+
+    @Test
+    public void testChangedCustomerReplacesItsOldKeys() {
+        index.index(customer(1L, "CUST001", "John Kamau", null, "0799 111222", null));
+
+        assertEquals(List.of(), index.lookup("0712345678", 10));
+        assertEquals(List.of(1L), index.lookup("0799111222", 10));
+
+        Customer inactive = customer(3L, "CUST003", "Mary Wanjiru", null, "0722-999888", null);
+        inactive.setStatus(Status.INACTIVE);
+        index.index(inactive);
+
+        assertEquals(List.of(), index.lookup("CUST003", 10));
+        assertEquals(List.of(), index.lookup("mary", 10));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedLoadIsRetriedOnTheNextTick() {
+        assertFalse(index.isReady());
+        when(jdbcTemplate.queryForObject(anyString(), eq(Timestamp.class)))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(new Timestamp(System.currentTimeMillis()));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(List.of());
+
+        index.maintain();
+        assertFalse(index.isReady());
+
+        index.maintain();
+        assertTrue(index.isReady());
+    }
+
+    private static Customer customer(Long id, String code, String name, String email, String phone, String taxId) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setCode(code);
+        customer.setName(name);
+        customer.setEmail(email);
+        customer.setPhone(phone);
+        customer.setTaxId(taxId);
+        customer.setStatus(Status.ACTIVE);
+        return customer;
+    }
+}
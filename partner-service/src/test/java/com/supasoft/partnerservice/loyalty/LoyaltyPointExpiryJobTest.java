@@ -0,0 +1,144 @@
+package com.supasoft.partnerservice.loyalty;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.supasoft.partnerservice.enums.LedgerEntryType;
+import com.supasoft.partnerservice.ledger.CustomerLedger;
+
+public class LoyaltyPointExpiryJobTest {
+
+    private static final Date EXPIRED = Date.valueOf(LocalDate.now().minusMonths(1));
+
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private CustomerLedger customerLedger;
+    private LoyaltyPointExpiryJob job;
+
+    /**
+     * Chunks returned by successive SELECTs: {bucketId, customerId, points, customer's bucket total}
+     */
+    private final List<long[][]> chunks = new ArrayList<>();
+    private final List<Object[]> selectArgs = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws SQLException {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        namedParameterJdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        doAnswer(invocation -> {
+            selectArgs.add(new Object[]{invocation.getArgument(2), invocation.getArgument(3), invocation.getArgument(4)});
+            RowCallbackHandler handler = invocation.getArgument(1);
+            long[][] rows = chunks.isEmpty() ? new long[0][] : chunks.remove(0);
+            for (long[] row : rows) {
+                handler.processRow(resultSet(row));
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        customerLedger = mock(CustomerLedger.class);
+        job = new LoyaltyPointExpiryJob(jdbcTemplate, namedParameterJdbcTemplate, transactionTemplate, customerLedger, 2);
+    }
+
+    @Test
+    public void testExpiredBucketsAreWalkedInChunksById() {
+        chunks.add(new long[][]{{5, 7, 30, 100}, {9, 8, 10, 10}});
+        chunks.add(new long[][]{{12, 7, 20, 100}});
+
+        LoyaltyPointExpiryJob.ExpiryResult result = job.run();
+
+        assertEquals(new LoyaltyPointExpiryJob.ExpiryResult(3, 60, 2), result);
+        assertEquals(3, selectArgs.size());
+        assertEquals(0L, selectArgs.get(0)[1]);
+        assertEquals(9L, selectArgs.get(1)[1]);
+        assertEquals(12L, selectArgs.get(2)[1]);
+        verify(namedParameterJdbcTemplate).update(contains("DELETE"), argThat(ids(5L, 9L)));
+        verify(namedParameterJdbcTemplate).update(contains("DELETE"), argThat(ids(12L)));
+    }
+
+    @Test
+    public void testExpiryTransactionsCarryARunningBalancePerCustomer() {
+        chunks.add(new long[][]{{5, 7, 30, 100}, {6, 7, 50, 100}});
+
+        job.run();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(contains("INSERT INTO loyalty_transactions"), inserts.capture());
+        assertEquals(70, inserts.getValue().get(0)[2]);
+        assertEquals(20, inserts.getValue().get(1)[2]);
+        assertEquals("EXP-6", inserts.getValue().get(1)[3]);
+    }
+
+    @Test
+    public void testExpiredPointsArePostedThroughTheLedgerOncePerCustomer() {
+        chunks.add(new long[][]{{5, 7, 30, 100}, {6, 7, 50, 100}, {9, 8, 10, 10}});
+
+        job.run();
+
+        String reference = "EXP-" + LocalDate.now();
+        verify(customerLedger).record(7L, LedgerEntryType.POINTS_EXPIRED, null, 80, reference);
+        verify(customerLedger).record(8L, LedgerEntryType.POINTS_EXPIRED, null, 10, reference);
+        // The customer row is left to the ledger, so balances it has not folded in yet are kept
+        verify(namedParameterJdbcTemplate, never()).update(contains("UPDATE customers"), any(SqlParameterSource.class));
+    }
+
+    @Test
+    public void testFailedChunkStopsTheRunBeforeItsBucketsAreDeleted() {
+        chunks.add(new long[][]{{5, 7, 30, 100}});
+        doThrow(new IllegalStateException("deadlock")).when(customerLedger)
+                .record(eq(7L), eq(LedgerEntryType.POINTS_EXPIRED), any(), eq(30), anyString());
+
+        job.scheduledRun();
+
+        verify(namedParameterJdbcTemplate, never()).update(contains("DELETE"), any(SqlParameterSource.class));
+        // The job is not left marked as running
+        chunks.add(new long[][]{});
+        job.run();
+        assertEquals(2, selectArgs.size());
+    }
+
+    private static org.mockito.ArgumentMatcher<SqlParameterSource> ids(Long... ids) {
+        return params -> List.of(ids).equals(((MapSqlParameterSource) params).getValue("ids"));
+    }
+
+    private static ResultSet resultSet(long[] row) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(row[0]);
+        when(rs.getLong(2)).thenReturn(row[1]);
+        when(rs.getDate(3)).thenReturn(EXPIRED);
+        when(rs.getInt(4)).thenReturn((int) row[2]);
+        when(rs.getInt(5)).thenReturn((int) row[3]);
+        return rs;
+    }
+}
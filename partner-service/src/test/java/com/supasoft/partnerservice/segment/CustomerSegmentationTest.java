@@ -0,0 +1,200 @@
+package com.supasoft.partnerservice.segment;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.partnerservice.dto.response.CustomerSegmentResponse;
+import com.supasoft.partnerservice.entity.Customer;
+import com.supasoft.partnerservice.enums.InactivityCohort;
+import com.supasoft.partnerservice.enums.RfmSegment;
+
+public class CustomerSegmentationTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private JdbcTemplate jdbcTemplate;
+    private CustomerSegmentation segmentation;
+
+    /**
+     * Ledger rows handed out by the next tail query: id, customerId, type, amount, status
+     */
+    private final List<Object[]> ledgerTail = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws SQLException {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(10L);
+
+        List<ResultSet> customers = List.of(
+                customer(1L, "C1", false, "500.00", TODAY.minusDays(10)),
+                customer(2L, "C2", true, "300.00", TODAY.minusDays(100)),
+                customer(3L, "C3", false, "0.00", null));
+        when(jdbcTemplate.query(contains("FROM customers c"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> map(invocation.getArgument(1), customers))
+                .thenReturn(List.of());
+        when(jdbcTemplate.query(contains("WHERE e.id > ?"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    List<ResultSet> rows = new ArrayList<>();
+                    for (Object[] row : ledgerTail) {
+                        rows.add(ledgerRow(row));
+                    }
+                    ledgerTail.clear();
+                    return map(invocation.getArgument(1), rows);
+                });
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        segmentation = new CustomerSegmentation(jdbcTemplate, mock(NamedParameterJdbcTemplate.class),
+                transactionTemplate, 2, 100);
+        segmentation.start();
+        await(() -> segmentation.getSummary().getCustomers() == 3);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        segmentation.stop();
+    }
+
+    @Test
+    public void testRebuildRanksAndClassifiesEveryActiveCustomer() {
+        assertEquals(List.of(1L, 2L), ids(segmentation.getTopCustomers(0, 10).getContent()));
+        assertEquals(List.of(2L), ids(segmentation.getVipCustomers(0, 10).getContent()));
+        assertEquals(List.of(3L), ids(segmentation.getRfmSegment(RfmSegment.PROSPECT, 0, 10).getContent()));
+        assertEquals(List.of(1L), ids(segmentation.getInactivityCohort(InactivityCohort.ACTIVE, 0, 10).getContent()));
+        assertEquals(List.of(2L),
+                ids(segmentation.getInactivityCohort(InactivityCohort.DAYS_91_180, 0, 10).getContent()));
+    }
+
+    @Test
+    public void testNewSaleMovesOnlyThatCustomer() {
+        ledgerTail.add(new Object[]{11L, 3L, "SALE", "1000.00", "ACTIVE"});
+
+        segmentation.scheduledPoll();
+        segmentation.scheduledPublish();
+        await(() -> segmentation.getTopCustomers(0, 10).getContent().get(0).getCustomerId() == 3L);
+
+        assertEquals(List.of(3L, 1L), ids(segmentation.getTopCustomers(0, 10).getContent()));
+        CustomerSegmentResponse newcomer = segmentation.getTopCustomers(0, 1).getContent().get(0);
+        assertEquals(InactivityCohort.ACTIVE, newcomer.getInactivityCohort());
+        assertEquals(RfmSegment.NEW, newcomer.getRfmSegment());
+        assertEquals(List.of(), ids(segmentation.getRfmSegment(RfmSegment.PROSPECT, 0, 10).getContent()));
+    }
+
+    @Test
+    public void testDeactivatedCustomerLeavesEverySegment() {
+        ledgerTail.add(new Object[]{11L, 1L, "PAYMENT", "10.00", "INACTIVE"});
+
+        segmentation.scheduledPoll();
+        segmentation.scheduledPublish();
+        await(() -> segmentation.getSummary().getCustomers() == 2);
+
+        // The freed top slot is refilled from memory
+        assertEquals(List.of(2L, 3L), ids(segmentation.getTopCustomers(0, 10).getContent()));
+        assertEquals(List.of(), ids(segmentation.getInactivityCohort(InactivityCohort.ACTIVE, 0, 10).getContent()));
+    }
+
+    @Test
+    public void testCustomerEditMovesOnlyThatCustomer() {
+        segmentation.update(customerEntity(1L, true, Status.ACTIVE));
+        segmentation.scheduledPublish();
+        await(() -> segmentation.getVipCustomers(0, 10).getContent().size() == 2);
+
+        assertEquals(List.of(1L, 2L), ids(segmentation.getVipCustomers(0, 10).getContent()));
+        assertEquals("Renamed", segmentation.getTopCustomers(0, 1).getContent().get(0).getName());
+    }
+
+    @Test
+    public void testDeactivatedAndReactivatedCustomerLeavesAndRejoins() {
+        segmentation.update(customerEntity(1L, false, Status.INACTIVE));
+        segmentation.scheduledPublish();
+        await(() -> segmentation.getSummary().getCustomers() == 2);
+        assertEquals(List.of(2L, 3L), ids(segmentation.getTopCustomers(0, 10).getContent()));
+
+        segmentation.update(customerEntity(1L, false, Status.ACTIVE));
+        segmentation.scheduledPublish();
+        await(() -> segmentation.getSummary().getCustomers() == 3);
+        assertEquals(List.of(1L, 2L), ids(segmentation.getTopCustomers(0, 10).getContent()));
+    }
+
+    private static Customer customerEntity(Long id, boolean vip, Status status) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setCode("C" + id);
+        customer.setName("Renamed");
+        customer.setIsVip(vip);
+        customer.setStatus(status);
+        customer.setTotalSales(new BigDecimal("500.00"));
+        customer.setLastPurchaseDate(TODAY.minusDays(10));
+        return customer;
+    }
+
+    private static List<Long> ids(List<CustomerSegmentResponse> members) {
+        return members.stream().map(CustomerSegmentResponse::getCustomerId).toList();
+    }
+
+    private static <T> List<T> map(RowMapper<T> mapper, List<ResultSet> rows) throws SQLException {
+        List<T> mapped = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            mapped.add(mapper.mapRow(rows.get(i), i));
+        }
+        return mapped;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the segmentation thread");
+            Thread.onSpinWait();
+        }
+    }
+
+    private static ResultSet customer(Long id, String code, boolean vip, String sales, LocalDate lastPurchase)
+            throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(id);
+        when(rs.getString(2)).thenReturn(code);
+        when(rs.getString(3)).thenReturn("Customer " + code);
+        when(rs.getBoolean(4)).thenReturn(vip);
+        when(rs.getBigDecimal(5)).thenReturn(new BigDecimal(sales));
+        when(rs.getDate(6)).thenReturn(lastPurchase != null ? Date.valueOf(lastPurchase) : null);
+        return rs;
+    }
+
+    private static ResultSet ledgerRow(Object[] row) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn((Long) row[0]);
+        when(rs.getLong(2)).thenReturn((Long) row[1]);
+        when(rs.getString(3)).thenReturn((String) row[2]);
+        when(rs.getBigDecimal(4)).thenReturn(new BigDecimal((String) row[3]));
+        when(rs.getDate(5)).thenReturn(Date.valueOf(TODAY));
+        when(rs.getString(6)).thenReturn("C" + row[1]);
+        when(rs.getString(7)).thenReturn("Customer C" + row[1]);
+        when(rs.getString(9)).thenReturn((String) row[4]);
+        return rs;
+    }
+}
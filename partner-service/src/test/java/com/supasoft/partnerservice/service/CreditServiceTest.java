@@ -0,0 +1,184 @@
+package com.supasoft.partnerservice.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+
+import com.supasoft.common.exception.BusinessException;
+import com.supasoft.partnerservice.dto.request.CreditReservationRequest;
+import com.supasoft.partnerservice.entity.CreditReservation;
+import com.supasoft.partnerservice.entity.Customer;
+import com.supasoft.partnerservice.enums.CreditReservationStatus;
+import com.supasoft.partnerservice.exception.InsufficientCreditException;
+import com.supasoft.partnerservice.repository.CreditReservationRepository;
+import com.supasoft.partnerservice.repository.CustomerRepository;
+
+public class CreditServiceTest {
+
+    private static final Long CUSTOMER_ID = 7L;
+
+    private CustomerRepository customerRepository;
+    private CreditReservationRepository reservationRepository;
+    private CreditService creditService;
+
+    /**
+     * Customer row as the conditional UPDATE statements see it; each statement is atomic
+     */
+    private final CreditRow row = new CreditRow(new BigDecimal("1000.00"));
+
+    @BeforeEach
+    public void setUp() {
+        customerRepository = mock(CustomerRepository.class);
+        reservationRepository = mock(CreditReservationRepository.class);
+        when(customerRepository.reserveCredit(eq(CUSTOMER_ID), any()))
+                .thenAnswer(invocation -> row.reserve(invocation.getArgument(1)));
+        when(customerRepository.chargeCredit(eq(CUSTOMER_ID), any()))
+                .thenAnswer(invocation -> row.charge(invocation.getArgument(1)));
+        when(customerRepository.findById(CUSTOMER_ID)).thenAnswer(invocation -> Optional.of(row.toCustomer()));
+        when(reservationRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        creditService = new CreditServiceImpl(customerRepository, reservationRepository, mock(CacheManager.class),
+                Duration.ofMinutes(30));
+    }
+
+    @Test
+    public void testConcurrentReservationsNeverExceedTheLimit() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Object>> tasks = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tasks.add(() -> creditService.reserveCredit(new CreditReservationRequest(CUSTOMER_ID,
+                    new BigDecimal("30.00"), "SALE")));
+        }
+
+        int reserved = 0;
+        int rejected = 0;
+        for (Future<Object> future : executor.invokeAll(tasks)) {
+            try {
+                future.get();
+                reserved++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(InsufficientCreditException.class, e.getCause());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(33, reserved);
+        assertEquals(17, rejected);
+        assertEquals(new BigDecimal("990.00"), row.reserved);
+        verify(reservationRepository, times(33)).save(any());
+    }
+
+    @Test
+    public void testChargeCountsOpenReservations() {
+        creditService.reserveCredit(new CreditReservationRequest(CUSTOMER_ID, new BigDecimal("600.00"), "SALE-1"));
+
+        assertThrows(InsufficientCreditException.class,
+                () -> creditService.allocateCredit(CUSTOMER_ID, new BigDecimal("400.01")));
+        creditService.allocateCredit(CUSTOMER_ID, new BigDecimal("400.00"));
+
+        assertEquals(0, creditService.getAvailableCredit(CUSTOMER_ID).signum());
+    }
+
+    @Test
+    public void testNonPositiveAmountsAreRejected() {
+        assertThrows(BusinessException.class, () -> creditService.allocateCredit(CUSTOMER_ID, BigDecimal.ZERO));
+        assertThrows(BusinessException.class, () -> creditService.reserveCredit(
+                new CreditReservationRequest(CUSTOMER_ID, new BigDecimal("-1"), "SALE")));
+        verify(customerRepository, never()).reserveCredit(anyLong(), any());
+    }
+
+    @Test
+    public void testSettledReservationCannotBeSettledAgain() {
+        when(reservationRepository.settle(eq(5L), any(), any())).thenReturn(0);
+        when(reservationRepository.findById(5L)).thenReturn(Optional.of(reservation(5L, CreditReservationStatus.COMMITTED)));
+
+        assertThrows(BusinessException.class, () -> creditService.releaseReservation(5L));
+        verify(customerRepository, never()).releaseReservedCredit(anyLong(), any());
+    }
+
+    @Test
+    public void testExpiryOnlyReleasesReservationsItSettled() {
+        when(reservationRepository.findExpiredReservationIds(any(), any(Pageable.class))).thenReturn(List.of(5L, 6L));
+        when(reservationRepository.settle(eq(5L), eq(CreditReservationStatus.EXPIRED), any())).thenReturn(1);
+        // Committed by the till between the query and the settle
+        when(reservationRepository.settle(eq(6L), eq(CreditReservationStatus.EXPIRED), any())).thenReturn(0);
+        when(reservationRepository.findById(5L)).thenReturn(Optional.of(reservation(5L, CreditReservationStatus.EXPIRED)));
+
+        assertEquals(1, creditService.expireReservations());
+        verify(customerRepository).releaseReservedCredit(CUSTOMER_ID, new BigDecimal("30.00"));
+        verify(customerRepository, times(1)).releaseReservedCredit(anyLong(), any());
+    }
+
+    private static CreditReservation reservation(Long id, CreditReservationStatus status) {
+        CreditReservation reservation = new CreditReservation();
+        reservation.setId(id);
+        reservation.setCustomerId(CUSTOMER_ID);
+        reservation.setAmount(new BigDecimal("30.00"));
+        reservation.setStatus(status);
+        return reservation;
+    }
+
+    private static final class CreditRow {
+
+        private final BigDecimal limit;
+        private BigDecimal balance = BigDecimal.ZERO;
+        private BigDecimal reserved = new BigDecimal("0.00");
+
+        private CreditRow(BigDecimal limit) {
+            this.limit = limit;
+        }
+
+        private synchronized int reserve(BigDecimal amount) {
+            if (available().compareTo(amount) < 0) {
+                return 0;
+            }
+            reserved = reserved.add(amount);
+            return 1;
+        }
+
+        private synchronized int charge(BigDecimal amount) {
+            if (available().compareTo(amount) < 0) {
+                return 0;
+            }
+            balance = balance.add(amount);
+            return 1;
+        }
+
+        private synchronized Customer toCustomer() {
+            Customer customer = new Customer();
+            customer.setId(CUSTOMER_ID);
+            customer.setCreditLimit(limit);
+            customer.setCurrentBalance(balance);
+            customer.setAvailableCredit(available());
+            return customer;
+        }
+
+        private BigDecimal available() {
+            return limit.subtract(balance).subtract(reserved);
+        }
+    }
+}
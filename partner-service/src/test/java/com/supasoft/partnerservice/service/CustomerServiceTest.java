@@ -0,0 +1,105 @@
+package com.supasoft.partnerservice.service;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import jakarta.persistence.Column;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.supasoft.partnerservice.dto.request.UpdateCustomerRequest;
+import com.supasoft.partnerservice.dto.response.CustomerResponse;
+import com.supasoft.partnerservice.entity.Customer;
+import com.supasoft.partnerservice.ledger.CustomerLedger;
+import com.supasoft.partnerservice.lookup.CustomerLookupIndex;
+import com.supasoft.partnerservice.mapper.CustomerMapper;
+import com.supasoft.partnerservice.repository.CustomerCategoryRepository;
+import com.supasoft.partnerservice.repository.CustomerRepository;
+import com.supasoft.partnerservice.segment.CustomerSegmentation;
+
+public class CustomerServiceTest {
+
+    private static final Long CUSTOMER_ID = 7L;
+
+    private CustomerRepository customerRepository;
+    private CreditService creditService;
+    private CustomerService customerService;
+
+    @BeforeEach
+    public void setUp() {
+        customerRepository = mock(CustomerRepository.class);
+        creditService = mock(CreditService.class);
+        when(customerRepository.save(any(Customer.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        customerService = new CustomerServiceImpl(customerRepository, mock(CustomerCategoryRepository.class),
+                Mappers.getMapper(CustomerMapper.class), mock(LoyaltyService.class), creditService,
+                mock(CustomerLedger.class), mock(CustomerLookupIndex.class), mock(CustomerSegmentation.class));
+    }
+
+    @Test
+    public void testCreditLimitChangeGoesThroughCreditService() {
+        // The row as read before the update, then as the credit statement left it
+        when(customerRepository.findById(CUSTOMER_ID))
+                .thenReturn(Optional.of(customer("1000.00", "400.00")))
+                .thenReturn(Optional.of(customer("2000.00", "1400.00")));
+        UpdateCustomerRequest request = new UpdateCustomerRequest();
+        request.setName("Renamed");
+        request.setCreditLimit(new BigDecimal("2000.00"));
+
+        CustomerResponse response = customerService.updateCustomer(CUSTOMER_ID, request);
+
+        ArgumentCaptor<Customer> saved = ArgumentCaptor.forClass(Customer.class);
+        verify(customerRepository).save(saved.capture());
+        assertEquals("Renamed", saved.getValue().getName());
+        assertEquals(new BigDecimal("1000.00"), saved.getValue().getCreditLimit());
+        verify(creditService).updateCreditLimit(CUSTOMER_ID, new BigDecimal("2000.00"));
+        assertEquals(new BigDecimal("2000.00"), response.getCreditLimit());
+        assertEquals(new BigDecimal("1400.00"), response.getAvailableCredit());
+    }
+
+    @Test
+    public void testUpdateWithoutCreditLimitLeavesCreditAlone() {
+        when(customerRepository.findById(CUSTOMER_ID)).thenReturn(Optional.of(customer("1000.00", "400.00")));
+        UpdateCustomerRequest request = new UpdateCustomerRequest();
+        request.setName("Renamed");
+
+        customerService.updateCustomer(CUSTOMER_ID, request);
+
+        verify(creditService, never()).updateCreditLimit(anyLong(), any());
+    }
+
+    @Test
+    public void testFullRowSavesNeverWriteCreditColumns() throws Exception {
+        for (String field : new String[]{"creditLimit", "currentBalance", "reservedCredit", "availableCredit"}) {
+            assertFalse(Customer.class.getDeclaredField(field).getAnnotation(Column.class).updatable(), field);
+        }
+    }
+
+    @Test
+    public void testFullRowSavesNeverWriteLedgerTotals() throws Exception {
+        for (String field : new String[]{"totalSales", "totalPayments", "loyaltyPoints", "totalPointsEarned",
+                "totalPointsRedeemed", "lastPurchaseDate"}) {
+            assertFalse(Customer.class.getDeclaredField(field).getAnnotation(Column.class).updatable(), field);
+        }
+    }
+
+    private static Customer customer(String creditLimit, String availableCredit) {
+        Customer customer = new Customer();
+        customer.setId(CUSTOMER_ID);
+        customer.setCode("CUST-7");
+        customer.setName("Customer");
+        customer.setCreditLimit(new BigDecimal(creditLimit));
+        customer.setAvailableCredit(new BigDecimal(availableCredit));
+        return customer;
+    }
+}
@@ -0,0 +1,98 @@
+package com.supasoft.partnerservice.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.supasoft.partnerservice.entity.Customer;
+import com.supasoft.partnerservice.entity.LoyaltyPointBucket;
+import com.supasoft.partnerservice.enums.LedgerEntryType;
+import com.supasoft.partnerservice.exception.InsufficientLoyaltyPointsException;
+import com.supasoft.partnerservice.ledger.CustomerLedger;
+import com.supasoft.partnerservice.loyalty.LoyaltyPointExpiryJob;
+import com.supasoft.partnerservice.repository.CustomerRepository;
+import com.supasoft.partnerservice.repository.LoyaltyPointBucketRepository;
+import com.supasoft.partnerservice.repository.LoyaltyTransactionRepository;
+
+public class LoyaltyServiceTest {
+
+    private static final Long CUSTOMER_ID = 7L;
+
+    private LoyaltyPointBucketRepository bucketRepository;
+    private CustomerRepository customerRepository;
+    private CustomerLedger customerLedger;
+    private LoyaltyService loyaltyService;
+
+    @BeforeEach
+    public void setUp() {
+        bucketRepository = mock(LoyaltyPointBucketRepository.class);
+        customerRepository = mock(CustomerRepository.class);
+        customerLedger = mock(CustomerLedger.class);
+        Customer customer = new Customer();
+        customer.setId(CUSTOMER_ID);
+        when(customerRepository.findById(CUSTOMER_ID)).thenReturn(Optional.of(customer));
+        loyaltyService = new LoyaltyServiceImpl(mock(LoyaltyTransactionRepository.class), bucketRepository,
+                customerRepository, mock(LoyaltyPointExpiryJob.class), customerLedger);
+    }
+
+    @Test
+    public void testRedemptionConsumesSoonestExpiringBucketsFirst() {
+        LoyaltyPointBucket march = bucket(2026, 3, 40);
+        LoyaltyPointBucket april = bucket(2026, 4, 50);
+        LoyaltyPointBucket may = bucket(2026, 5, 70);
+        when(bucketRepository.findRedeemableForUpdate(eq(CUSTOMER_ID), any()))
+                .thenReturn(List.of(march, april, may));
+
+        loyaltyService.redeemPoints(CUSTOMER_ID, 60, "POS-1");
+
+        assertEquals(0, march.getPoints());
+        assertEquals(30, april.getPoints());
+        assertEquals(70, may.getPoints());
+        verify(bucketRepository).deleteAll(List.of(march));
+        verify(customerLedger).record(CUSTOMER_ID, LedgerEntryType.POINTS_REDEEMED, null, 60, "POS-1");
+    }
+
+    @Test
+    public void testRedemptionBeyondBalanceChangesNothing() {
+        LoyaltyPointBucket march = bucket(2026, 3, 40);
+        when(bucketRepository.findRedeemableForUpdate(eq(CUSTOMER_ID), any()))
+                .thenReturn(new ArrayList<>(List.of(march)));
+
+        assertThrows(InsufficientLoyaltyPointsException.class,
+                () -> loyaltyService.redeemPoints(CUSTOMER_ID, 41, "POS-2"));
+
+        assertEquals(40, march.getPoints());
+        verify(customerLedger, never()).record(any(), any(), any(), anyInt(), any());
+    }
+
+    @Test
+    public void testEarnedPointsGoToTheBucketExpiringAtMonthEnd() {
+        loyaltyService.earnPoints(CUSTOMER_ID, 25, "POS-3");
+
+        LocalDate expiry = YearMonth.now().plusMonths(12).atEndOfMonth();
+        verify(bucketRepository).addPoints(CUSTOMER_ID, expiry, 25);
+        verify(customerLedger).record(CUSTOMER_ID, LedgerEntryType.POINTS_EARNED, null, 25, "POS-3");
+    }
+
+    private static LoyaltyPointBucket bucket(int year, int month, int points) {
+        LoyaltyPointBucket bucket = new LoyaltyPointBucket();
+        bucket.setCustomerId(CUSTOMER_ID);
+        bucket.setExpiryDate(YearMonth.of(year, month).atEndOfMonth());
+        bucket.setPoints(points);
+        return bucket;
+    }
+}
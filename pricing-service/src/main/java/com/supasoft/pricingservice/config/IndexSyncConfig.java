@@ -0,0 +1,33 @@
+package com.supasoft.pricingservice.config;
+
+import com.supasoft.pricingservice.discount.DiscountIndex;
+import com.supasoft.pricingservice.promotion.PromotionEngine;
+import com.supasoft.pricingservice.snapshot.PricingSnapshotManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Keeps the in-memory promotion engine, discount index and pricing snapshot in sync across replicas
+ */
+@Configuration
+public class IndexSyncConfig {
+    
+    /**
+     * Subscribe to promotion, discount and price changes made on other replicas
+     */
+    @Bean
+    public RedisMessageListenerContainer indexSyncListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                    PromotionEngine promotionEngine,
+                                                                    DiscountIndex discountIndex,
+                                                                    PricingSnapshotManager snapshotManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(promotionEngine, new ChannelTopic(PromotionEngine.SYNC_CHANNEL));
+        container.addMessageListener(discountIndex, new ChannelTopic(DiscountIndex.SYNC_CHANNEL));
+        container.addMessageListener(snapshotManager, new ChannelTopic(PricingSnapshotManager.SYNC_CHANNEL));
+        return container;
+    }
+}
@@ -86,6 +86,16 @@ public class DiscountController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
     
+    @GetMapping("/applicable")
+    @Operation(summary = "Get applicable discounts", description = "Retrieves active discounts for a basket's items and categories")
+    public ResponseEntity<ApiResponse<List<DiscountResponse>>> getApplicableDiscounts(
+            @Parameter(description = "Item IDs") @RequestParam(required = false) List<Long> itemIds,
+            @Parameter(description = "Category IDs") @RequestParam(required = false) List<Long> categoryIds
+    ) {
+        List<DiscountResponse> response = discountService.getApplicableDiscounts(itemIds, categoryIds);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+    
     @GetMapping
     @Operation(summary = "Get all discounts", description = "Retrieves all discounts with pagination")
     public ResponseEntity<PagedResponse<DiscountResponse>> getAllDiscounts(
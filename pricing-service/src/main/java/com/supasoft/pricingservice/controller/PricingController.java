@@ -2,6 +2,7 @@ package com.supasoft.pricingservice.controller;
 
 import com.supasoft.common.dto.ApiResponse;
 import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.pricingservice.dto.request.BatchPriceCalculationRequest;
 import com.supasoft.pricingservice.dto.request.CreatePriceRequest;
 import com.supasoft.pricingservice.dto.request.PriceCalculationRequest;
 import com.supasoft.pricingservice.dto.request.UpdatePriceRequest;
@@ -125,6 +126,15 @@ public class PricingController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
     
+    @PostMapping("/calculate/batch")
+    @Operation(summary = "Calculate prices in batch", description = "Calculates totals for many baskets in one call")
+    public ResponseEntity<ApiResponse<List<PriceCalculationResponse>>> calculatePrices(
+            @Valid @RequestBody BatchPriceCalculationRequest request
+    ) {
+        List<PriceCalculationResponse> response = priceCalculationService.calculatePrices(request.getBaskets());
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+    
     @GetMapping("/margin/{itemId}/{priceTypeId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
     @Operation(summary = "Calculate margin", description = "Calculates profit margin for an item")
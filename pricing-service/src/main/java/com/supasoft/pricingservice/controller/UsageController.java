@@ -0,0 +1,52 @@
+package com.supasoft.pricingservice.controller;
+
+import com.supasoft.common.dto.ApiResponse;
+import com.supasoft.pricingservice.dto.request.UsageReservationRequest;
+import com.supasoft.pricingservice.dto.response.UsageReservationResponse;
+import com.supasoft.pricingservice.service.UsageService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for promotion and discount usage reservations
+ */
+@RestController
+@RequestMapping("/api/v1/usage/reservations")
+@RequiredArgsConstructor
+@Tag(name = "Usage", description = "Promotion and discount usage reservation endpoints")
+public class UsageController {
+    
+    private final UsageService usageService;
+    
+    @PostMapping
+    @Operation(summary = "Reserve use", description = "Reserves one use of a promotion or discount against its usage limits")
+    public ResponseEntity<ApiResponse<UsageReservationResponse>> reserve(
+            @Valid @RequestBody UsageReservationRequest request
+    ) {
+        UsageReservationResponse response = usageService.reserve(request);
+        return ResponseEntity.ok(ApiResponse.success("Usage reserved", response));
+    }
+    
+    @PostMapping("/{token}/commit")
+    @Operation(summary = "Commit use", description = "Records a reserved use once the sale completes")
+    public ResponseEntity<ApiResponse<Void>> commit(
+            @Parameter(description = "Reservation token") @PathVariable String token
+    ) {
+        usageService.commit(token);
+        return ResponseEntity.ok(ApiResponse.success("Usage committed", null));
+    }
+    
+    @DeleteMapping("/{token}")
+    @Operation(summary = "Release use", description = "Gives back a reserved use when the sale is abandoned")
+    public ResponseEntity<ApiResponse<Void>> release(
+            @Parameter(description = "Reservation token") @PathVariable String token
+    ) {
+        usageService.release(token);
+        return ResponseEntity.ok(ApiResponse.success("Usage released", null));
+    }
+}
@@ -0,0 +1,11 @@
+package com.supasoft.pricingservice.discount;
+
+import lombok.Value;
+
+/**
+ * Published when a discount or its item/category targets change, so the index is rebuilt
+ */
+@Value
+public class DiscountChangedEvent {
+    Long discountId;
+}
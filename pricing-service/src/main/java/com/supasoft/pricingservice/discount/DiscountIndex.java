@@ -0,0 +1,188 @@
+package com.supasoft.pricingservice.discount;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.pricingservice.entity.Discount;
+import com.supasoft.pricingservice.repository.DiscountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * In-memory index of current and upcoming discounts by item and category.
+ *
+ * Each indexed discount gets a dense ordinal; items and categories map to a
+ * BitSet of ordinals. Finding the discounts for a basket is an OR of the
+ * basket's bitsets followed by a date/usage check per set bit.
+ *
+ * The index is small (one entry per discount) and is rebuilt after commit
+ * whenever a discount changes; peers are told over Redis pub/sub.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DiscountIndex implements MessageListener {
+
+    public static final String SYNC_CHANNEL = "supasoft:pricing:discounts";
+
+    private final DiscountRepository discountRepository;
+    private final StringRedisTemplate redisTemplate;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Discount> discounts = discountRepository.findCurrentAndUpcoming(Status.ACTIVE, now);
+        int size = discounts.size();
+        long[] ids = new long[size];
+        LocalDateTime[] startDates = new LocalDateTime[size];
+        LocalDateTime[] endDates = new LocalDateTime[size];
+        int[] remainingUses = new int[size];
+        Map<Long, Integer> ordinals = new HashMap<>(size * 2);
+
+        for (int i = 0; i < size; i++) {
+            Discount discount = discounts.get(i);
+            ids[i] = discount.getId();
+            startDates[i] = discount.getStartDate();
+            endDates[i] = discount.getEndDate();
+            remainingUses[i] = discount.getUsageLimit() == null
+                    ? Integer.MAX_VALUE
+                    : discount.getUsageLimit() - (discount.getUsageCount() != null ? discount.getUsageCount() : 0);
+            ordinals.put(discount.getId(), i);
+        }
+
+        Map<Long, BitSet> byItem = postings(discountRepository.findItemTargets(Status.ACTIVE, now), ordinals);
+        Map<Long, BitSet> byCategory = postings(discountRepository.findCategoryTargets(Status.ACTIVE, now), ordinals);
+
+        snapshot = new Snapshot(ids, startDates, endDates, remainingUses, byItem, byCategory);
+        log.info("Discount index loaded {} discounts, {} items, {} categories in {} ms",
+                size, byItem.size(), byCategory.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Ids of discounts active now that apply to any of the given items or categories
+     */
+    public List<Long> findApplicable(Collection<Long> itemIds, Collection<Long> categoryIds, LocalDateTime now) {
+        Snapshot current = snapshot;
+        BitSet matches = new BitSet(current.ids.length);
+        if (itemIds != null) {
+            for (Long itemId : itemIds) {
+                BitSet postings = current.byItem.get(itemId);
+                if (postings != null) {
+                    matches.or(postings);
+                }
+            }
+        }
+        if (categoryIds != null) {
+            for (Long categoryId : categoryIds) {
+                BitSet postings = current.byCategory.get(categoryId);
+                if (postings != null) {
+                    matches.or(postings);
+                }
+            }
+        }
+
+        List<Long> result = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            if (current.isActive(i, now)) {
+                result.add(current.ids[i]);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return snapshot.ids.length;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDiscountChanged(DiscountChangedEvent event) {
+        load();
+        try {
+            redisTemplate.convertAndSend(SYNC_CHANNEL, instanceId + "|" + event.getDiscountId());
+        } catch (Exception e) {
+            log.warn("Failed to broadcast discount change {}: {}", event.getDiscountId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild after another replica changed a discount
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8).replace("\"", "");
+        if (!body.startsWith(instanceId + "|")) {
+            load();
+        }
+    }
+
+    private static Map<Long, BitSet> postings(List<Object[]> pairs, Map<Long, Integer> ordinals) {
+        Map<Long, BitSet> postings = new HashMap<>();
+        for (Object[] pair : pairs) {
+            Integer ordinal = ordinals.get(((Number) pair[0]).longValue());
+            if (ordinal != null) {
+                postings.computeIfAbsent(((Number) pair[1]).longValue(), k -> new BitSet()).set(ordinal);
+            }
+        }
+        return postings;
+    }
+
+    /**
+     * Immutable index state; replaced wholesale on reload
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new long[0], new LocalDateTime[0],
+                new LocalDateTime[0], new int[0], Map.of(), Map.of());
+
+        private final long[] ids;
+        private final LocalDateTime[] startDates;
+        private final LocalDateTime[] endDates;
+        private final int[] remainingUses;
+        private final Map<Long, BitSet> byItem;
+        private final Map<Long, BitSet> byCategory;
+
+        private Snapshot(long[] ids,
+                         LocalDateTime[] startDates,
+                         LocalDateTime[] endDates,
+                         int[] remainingUses,
+                         Map<Long, BitSet> byItem,
+                         Map<Long, BitSet> byCategory) {
+            this.ids = ids;
+            this.startDates = startDates;
+            this.endDates = endDates;
+            this.remainingUses = remainingUses;
+            this.byItem = byItem;
+            this.byCategory = byCategory;
+        }
+
+        /**
+         * Same window and usage rules as {@link Discount#isActive()}
+         */
+        private boolean isActive(int ordinal, LocalDateTime now) {
+            return now.isAfter(startDates[ordinal])
+                    && now.isBefore(endDates[ordinal])
+                    && remainingUses[ordinal] > 0;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.supasoft.pricingservice.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for pricing several baskets in one call
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPriceCalculationRequest {
+    
+    @NotEmpty(message = "At least one basket is required")
+    @Size(max = 500, message = "No more than 500 baskets per request")
+    private List<@Valid PriceCalculationRequest> baskets = new ArrayList<>();
+}
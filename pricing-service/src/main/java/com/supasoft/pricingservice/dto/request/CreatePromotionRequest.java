@@ -70,6 +70,8 @@ public class CreatePromotionRequest {
     
     private Boolean isCumulative;
     
+    private Boolean autoApply;
+    
     private Status status;
     
     private List<PromotionItemRequest> promotionItems = new ArrayList<>();
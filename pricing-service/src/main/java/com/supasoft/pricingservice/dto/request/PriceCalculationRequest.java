@@ -27,6 +27,12 @@ public class PriceCalculationRequest {
     
     private String promotionCode;
     
+    /**
+     * Set at checkout to hold one use of every applied discount and promotion; the returned
+     * tokens are committed or released through /api/v1/usage/reservations
+     */
+    private boolean reserveUsage;
+    
     @NotNull(message = "Items are required")
     private List<ItemCalculation> items = new ArrayList<>();
     
@@ -0,0 +1,25 @@
+package com.supasoft.pricingservice.dto.request;
+
+import com.supasoft.pricingservice.usage.UsageTarget;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for reserving one use of a promotion or discount during checkout
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageReservationRequest {
+    
+    @NotNull(message = "Target type is required")
+    private UsageTarget targetType;
+    
+    @NotBlank(message = "Code is required")
+    private String code;
+    
+    private Long customerId;
+}
@@ -38,6 +38,17 @@ public class PriceCalculationResponse {
     
     private List<AppliedPromotion> appliedPromotions = new ArrayList<>();
     
+    /**
+     * Uses held for the applied discounts and promotions when the request asked to reserve usage
+     */
+    private List<UsageReservationResponse> usageReservations;
+    
+    /**
+     * Why the basket could not be priced; only set in batch responses, where one bad basket
+     * does not fail the others
+     */
+    private String error;
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -60,6 +60,8 @@ public class PromotionResponse extends BaseResponse {
     
     private Boolean isCumulative;
     
+    private Boolean autoApply;
+    
     private Status status;
     
     private Boolean isActive;
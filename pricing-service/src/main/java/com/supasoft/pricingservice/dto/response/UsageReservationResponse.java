@@ -0,0 +1,31 @@
+package com.supasoft.pricingservice.dto.response;
+
+import com.supasoft.pricingservice.usage.UsageTarget;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a reserved promotion/discount use
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UsageReservationResponse {
+    
+    private String token;
+    
+    private UsageTarget targetType;
+    
+    private Long targetId;
+    
+    private String code;
+    
+    private Long customerId;
+    
+    private LocalDateTime expiresAt;
+}
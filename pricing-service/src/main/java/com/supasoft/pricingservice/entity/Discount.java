@@ -15,6 +15,8 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Entity for Discount Management
@@ -96,11 +98,15 @@ public class Discount extends AuditableEntity {
     @Column(name = "applies_to_categories")
     private Boolean appliesToCategories = false; // Applies to categories
     
-    @Column(name = "item_ids", length = 1000)
-    private String itemIds; // Comma-separated item IDs
+    @ElementCollection
+    @CollectionTable(name = "discount_items", joinColumns = @JoinColumn(name = "discount_id"))
+    @Column(name = "item_id", nullable = false)
+    private Set<Long> itemIds = new HashSet<>();
     
-    @Column(name = "category_ids", length = 1000)
-    private String categoryIds; // Comma-separated category IDs
+    @ElementCollection
+    @CollectionTable(name = "discount_categories", joinColumns = @JoinColumn(name = "discount_id"))
+    @Column(name = "category_id", nullable = false)
+    private Set<Long> categoryIds = new HashSet<>();
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
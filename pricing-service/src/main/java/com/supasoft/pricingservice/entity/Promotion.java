@@ -109,6 +109,9 @@ public class Promotion extends AuditableEntity {
     @Column(name = "is_cumulative")
     private Boolean isCumulative = false;
     
+    @Column(name = "auto_apply", nullable = false)
+    private Boolean autoApply = false; // Applied without the code being entered
+    
     @OneToMany(mappedBy = "promotion", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PromotionItem> promotionItems = new ArrayList<>();
     
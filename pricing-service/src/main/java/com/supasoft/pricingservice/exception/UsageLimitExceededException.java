@@ -0,0 +1,22 @@
+package com.supasoft.pricingservice.exception;
+
+import com.supasoft.common.exception.BusinessException;
+
+/**
+ * Exception thrown when a promotion or discount has no uses left, overall or for a customer
+ */
+public class UsageLimitExceededException extends BusinessException {
+    
+    public UsageLimitExceededException(String message) {
+        super(message);
+    }
+    
+    public static UsageLimitExceededException forTarget(String code) {
+        return new UsageLimitExceededException("Usage limit reached for '" + code + "'");
+    }
+    
+    public static UsageLimitExceededException forCustomer(String code, Long customerId) {
+        return new UsageLimitExceededException(
+                "Customer " + customerId + " has reached the usage limit for '" + code + "'");
+    }
+}
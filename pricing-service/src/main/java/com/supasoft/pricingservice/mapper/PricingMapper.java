@@ -10,10 +10,6 @@ import com.supasoft.pricingservice.entity.ItemPrice;
 import com.supasoft.pricingservice.entity.PriceType;
 import org.mapstruct.*;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * MapStruct mapper for Pricing entities
  */
@@ -65,33 +61,8 @@ public interface PricingMapper {
     @Mapping(target = "createdBy", ignore = true)
     @Mapping(target = "updatedBy", ignore = true)
     @Mapping(target = "usageCount", constant = "0")
-    @Mapping(target = "itemIds", expression = "java(listToString(request.getItemIds()))")
-    @Mapping(target = "categoryIds", expression = "java(listToString(request.getCategoryIds()))")
     Discount toEntity(CreateDiscountRequest request);
     
-    @Mapping(target = "itemIds", expression = "java(stringToList(discount.getItemIds()))")
-    @Mapping(target = "categoryIds", expression = "java(stringToList(discount.getCategoryIds()))")
     @Mapping(target = "isActive", expression = "java(discount.isActive())")
     DiscountResponse toResponse(Discount discount);
-    
-    default String listToString(List<Long> list) {
-        if (list == null || list.isEmpty()) {
-            return null;
-        }
-        return list.stream()
-                .map(String::valueOf)
-                .collect(Collectors.joining(","));
-    }
-    
-    default List<Long> stringToList(String str) {
-        if (str == null || str.trim().isEmpty()) {
-            return List.of();
-        }
-        return Arrays.stream(str.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .map(Long::parseLong)
-                .collect(Collectors.toList());
-    }
 }
-
@@ -20,6 +20,7 @@ public interface PromotionMapper {
     @Mapping(target = "createdBy", ignore = true)
     @Mapping(target = "updatedBy", ignore = true)
     @Mapping(target = "usageCount", constant = "0")
+    @Mapping(target = "autoApply", defaultValue = "false")
     @Mapping(target = "promotionItems", ignore = true)
     Promotion toEntity(CreatePromotionRequest request);
     
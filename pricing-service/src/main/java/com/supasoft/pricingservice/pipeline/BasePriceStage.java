@@ -0,0 +1,34 @@
+package com.supasoft.pricingservice.pipeline;
+
+import com.supasoft.pricingservice.entity.ItemPrice;
+import com.supasoft.pricingservice.util.PriceCalculator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prices each line at its price-type price
+ */
+@Component
+@Order(100)
+@RequiredArgsConstructor
+public class BasePriceStage implements PricingStage {
+    
+    private final PriceCalculator priceCalculator;
+    
+    @Override
+    public String name() {
+        return "base";
+    }
+    
+    @Override
+    public void apply(PricingContext context) {
+        Long priceTypeId = context.getRequest().getPriceTypeId();
+        for (PricingContext.Line line : context.getLines()) {
+            ItemPrice price = context.getPriceBook().typePrice(line.getItemId(), priceTypeId);
+            if (price != null) {
+                PriceStages.setPrice(line, price, "REGULAR", priceCalculator);
+            }
+        }
+    }
+}
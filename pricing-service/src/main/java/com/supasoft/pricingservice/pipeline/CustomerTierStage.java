@@ -0,0 +1,46 @@
+package com.supasoft.pricingservice.pipeline;
+
+import com.supasoft.pricingservice.entity.ItemPrice;
+import com.supasoft.pricingservice.exception.PriceNotFoundException;
+import com.supasoft.pricingservice.util.PriceCalculator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Overrides lines with the customer's special prices and fixes the subtotal.
+ * Every line must be priced by the end of this stage.
+ */
+@Component
+@Order(200)
+@RequiredArgsConstructor
+public class CustomerTierStage implements PricingStage {
+    
+    private final PriceCalculator priceCalculator;
+    
+    @Override
+    public String name() {
+        return "customer-tier";
+    }
+    
+    @Override
+    public void apply(PricingContext context) {
+        Long customerId = context.getRequest().getCustomerId();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        
+        for (PricingContext.Line line : context.getLines()) {
+            ItemPrice customerPrice = context.getPriceBook().customerPrice(line.getItemId(), customerId);
+            if (customerPrice != null) {
+                PriceStages.setPrice(line, customerPrice, "CUSTOMER_SPECIFIC", priceCalculator);
+            }
+            if (line.getUnitPrice() == null) {
+                throw new PriceNotFoundException(line.getItemId(), context.getRequest().getPriceTypeId());
+            }
+            subtotal = subtotal.add(line.getLineTotal());
+        }
+        
+        context.setSubtotal(subtotal);
+    }
+}
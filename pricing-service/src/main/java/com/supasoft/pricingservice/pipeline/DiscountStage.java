@@ -0,0 +1,48 @@
+package com.supasoft.pricingservice.pipeline;
+
+import com.supasoft.pricingservice.dto.response.PriceCalculationResponse;
+import com.supasoft.pricingservice.entity.Discount;
+import com.supasoft.pricingservice.exception.InvalidDiscountException;
+import com.supasoft.pricingservice.util.PriceCalculator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Applies the basket discount code against the subtotal
+ */
+@Component
+@Order(300)
+@RequiredArgsConstructor
+public class DiscountStage implements PricingStage {
+    
+    private final PriceCalculator priceCalculator;
+    
+    @Override
+    public String name() {
+        return "discount";
+    }
+    
+    @Override
+    public void apply(PricingContext context) {
+        if (!context.hasDiscountCode()) {
+            return;
+        }
+        
+        Discount discount = context.getDiscountLookup().apply(context.getDiscountCode());
+        if (!priceCalculator.isDiscountApplicable(discount, context.getSubtotal())) {
+            throw new InvalidDiscountException(context.getDiscountCode(), "Discount not applicable for this purchase amount");
+        }
+        
+        BigDecimal discountAmount = priceCalculator.calculateDiscountAmount(context.getSubtotal(), discount);
+        context.setDiscountAmount(discountAmount);
+        context.getAppliedDiscounts().add(PriceCalculationResponse.AppliedDiscount.builder()
+                .code(discount.getCode())
+                .name(discount.getName())
+                .amount(discountAmount)
+                .applicationType(discount.getDiscountType().name())
+                .build());
+    }
+}
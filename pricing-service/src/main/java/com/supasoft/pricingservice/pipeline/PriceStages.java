@@ -0,0 +1,23 @@
+package com.supasoft.pricingservice.pipeline;
+
+import com.supasoft.pricingservice.entity.ItemPrice;
+import com.supasoft.pricingservice.util.PriceCalculator;
+
+import java.math.BigDecimal;
+
+/**
+ * Helpers shared by the line pricing stages
+ */
+final class PriceStages {
+    
+    private PriceStages() {
+    }
+    
+    static void setPrice(PricingContext.Line line, ItemPrice price, String source, PriceCalculator priceCalculator) {
+        line.setUnitPrice(price.getSellingPrice());
+        line.setLineTotal(priceCalculator.calculateLineTotal(line.getQuantity(), price.getSellingPrice()));
+        line.setTaxable(Boolean.TRUE.equals(price.getIsTaxable()));
+        line.setTaxRate(price.getTaxRate() != null ? price.getTaxRate() : BigDecimal.ZERO);
+        line.setPriceSource(source);
+    }
+}
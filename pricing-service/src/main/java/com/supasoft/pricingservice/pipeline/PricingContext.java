@@ -0,0 +1,139 @@
+package com.supasoft.pricingservice.pipeline;
+
+import com.supasoft.pricingservice.dto.request.PriceCalculationRequest;
+import com.supasoft.pricingservice.dto.response.PriceCalculationResponse;
+import com.supasoft.pricingservice.entity.Discount;
+import com.supasoft.pricingservice.entity.Promotion;
+import com.supasoft.pricingservice.service.ItemPriceResolver;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Mutable state for one basket as it passes through the pricing stages.
+ * Lines are priced once; later stages only adjust amounts.
+ */
+@Data
+public class PricingContext {
+    
+    private final PriceCalculationRequest request;
+    
+    private final ItemPriceResolver.PriceBook priceBook;
+    
+    private final Function<String, Discount> discountLookup;
+    
+    private final Function<String, Promotion> promotionLookup;
+    
+    private final List<Line> lines = new ArrayList<>();
+    
+    private String discountCode;
+    
+    private String promotionCode;
+    
+    /**
+     * Apply every active promotion matching the basket, not only the one given by code
+     */
+    private boolean automaticPromotions = true;
+    
+    private BigDecimal subtotal = BigDecimal.ZERO;
+    
+    private BigDecimal discountAmount = BigDecimal.ZERO;
+    
+    private BigDecimal promotionAmount = BigDecimal.ZERO;
+    
+    private BigDecimal taxAmount = BigDecimal.ZERO;
+    
+    private final List<PriceCalculationResponse.AppliedDiscount> appliedDiscounts = new ArrayList<>();
+    
+    private final List<PriceCalculationResponse.AppliedPromotion> appliedPromotions = new ArrayList<>();
+    
+    /**
+     * Stage name -> elapsed nanoseconds, in execution order
+     */
+    private final Map<String, Long> stageTimings = new LinkedHashMap<>();
+    
+    public PricingContext(PriceCalculationRequest request,
+                          ItemPriceResolver.PriceBook priceBook,
+                          Function<String, Discount> discountLookup,
+                          Function<String, Promotion> promotionLookup) {
+        this.request = request;
+        this.priceBook = priceBook;
+        this.discountLookup = discountLookup;
+        this.promotionLookup = promotionLookup;
+        this.discountCode = request.getDiscountCode();
+        this.promotionCode = request.getPromotionCode();
+        for (PriceCalculationRequest.ItemCalculation item : request.getItems()) {
+            lines.add(new Line(item.getItemId(), item.getQuantity()));
+        }
+    }
+    
+    public boolean hasDiscountCode() {
+        return discountCode != null && !discountCode.isBlank();
+    }
+    
+    public boolean hasPromotionCode() {
+        return promotionCode != null && !promotionCode.isBlank();
+    }
+    
+    public PriceCalculationResponse toResponse() {
+        List<PriceCalculationResponse.ItemPriceDetail> items = new ArrayList<>(lines.size());
+        for (Line line : lines) {
+            items.add(PriceCalculationResponse.ItemPriceDetail.builder()
+                    .itemId(line.getItemId())
+                    .quantity(line.getQuantity())
+                    .unitPrice(line.getUnitPrice())
+                    .originalPrice(line.getUnitPrice())
+                    .discountedPrice(line.getUnitPrice())
+                    .lineTotal(line.getLineTotal())
+                    .taxAmount(line.getTaxAmount())
+                    .lineDiscount(line.getLineDiscount())
+                    .linePromotion(line.getLinePromotion())
+                    .priceSource(line.getPriceSource())
+                    .build());
+        }
+        
+        return PriceCalculationResponse.builder()
+                .subtotal(subtotal)
+                .discountAmount(discountAmount)
+                .promotionAmount(promotionAmount)
+                .taxAmount(taxAmount)
+                .totalAmount(subtotal.subtract(discountAmount).subtract(promotionAmount).add(taxAmount))
+                .discountCode(appliedDiscounts.isEmpty() ? null : discountCode)
+                .promotionCode(appliedPromotions.isEmpty() ? null : promotionCode)
+                .items(items)
+                .appliedDiscounts(appliedDiscounts)
+                .appliedPromotions(appliedPromotions)
+                .build();
+    }
+    
+    /**
+     * One basket line being priced
+     */
+    @Data
+    public static class Line {
+        private final Long itemId;
+        
+        private final BigDecimal quantity;
+        
+        private BigDecimal unitPrice;
+        
+        private BigDecimal lineTotal = BigDecimal.ZERO;
+        
+        private BigDecimal taxAmount = BigDecimal.ZERO;
+        
+        private BigDecimal lineDiscount = BigDecimal.ZERO;
+        
+        private BigDecimal linePromotion = BigDecimal.ZERO;
+        
+        private boolean taxable;
+        
+        private BigDecimal taxRate;
+        
+        private String priceSource; // REGULAR, CUSTOMER_SPECIFIC, PROMOTION
+    }
+}
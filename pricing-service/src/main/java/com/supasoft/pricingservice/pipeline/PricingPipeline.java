@@ -0,0 +1,49 @@
+package com.supasoft.pricingservice.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the ordered pricing stages over a basket context, timing each stage
+ */
+@Slf4j
+@Component
+public class PricingPipeline {
+    
+    private final List<PricingStage> stages;
+    private final List<Timer> timers;
+    
+    public PricingPipeline(List<PricingStage> stages, MeterRegistry meterRegistry) {
+        this.stages = List.copyOf(stages);
+        this.timers = this.stages.stream()
+                .map(stage -> Timer.builder("pricing.pipeline.stage")
+                        .tag("stage", stage.name())
+                        .register(meterRegistry))
+                .toList();
+        log.info("Pricing pipeline stages: {}", this.stages.stream().map(PricingStage::name).toList());
+    }
+    
+    public PricingContext run(PricingContext context) {
+        for (int i = 0; i < stages.size(); i++) {
+            PricingStage stage = stages.get(i);
+            long start = System.nanoTime();
+            try {
+                stage.apply(context);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                timers.get(i).record(elapsed, TimeUnit.NANOSECONDS);
+                context.getStageTimings().put(stage.name(), elapsed);
+            }
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Priced {} lines, stage timings (ns): {}", context.getLines().size(), context.getStageTimings());
+        }
+        return context;
+    }
+}
@@ -0,0 +1,14 @@
+package com.supasoft.pricingservice.pipeline;
+
+/**
+ * One step of basket pricing; stages run in {@link org.springframework.core.annotation.Order} order
+ */
+public interface PricingStage {
+    
+    /**
+     * Short name used for timings and logs
+     */
+    String name();
+    
+    void apply(PricingContext context);
+}
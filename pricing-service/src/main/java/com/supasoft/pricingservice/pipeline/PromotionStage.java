@@ -0,0 +1,75 @@
+package com.supasoft.pricingservice.pipeline;
+
+import com.supasoft.pricingservice.dto.response.PriceCalculationResponse;
+import com.supasoft.pricingservice.entity.Promotion;
+import com.supasoft.pricingservice.exception.PromotionExpiredException;
+import com.supasoft.pricingservice.promotion.CompiledPromotion;
+import com.supasoft.pricingservice.promotion.PromotionEngine;
+import com.supasoft.pricingservice.util.PriceCalculator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates the basket against the promotion engine: automatic promotions plus the entered code
+ */
+@Component
+@Order(400)
+@RequiredArgsConstructor
+public class PromotionStage implements PricingStage {
+    
+    private final PriceCalculator priceCalculator;
+    private final PromotionEngine promotionEngine;
+    
+    @Override
+    public String name() {
+        return "promotion";
+    }
+    
+    @Override
+    public void apply(PricingContext context) {
+        CompiledPromotion requested = null;
+        if (context.hasPromotionCode()) {
+            Promotion promotion = context.getPromotionLookup().apply(context.getPromotionCode());
+            if (!priceCalculator.isPromotionApplicable(promotion, context.getSubtotal())) {
+                throw new PromotionExpiredException("Promotion not applicable for this purchase amount");
+            }
+            requested = promotionEngine.get(promotion.getId());
+            if (requested == null) {
+                // Not indexed on this replica yet (a refresh is now queued), or no longer current
+                throw new PromotionExpiredException(
+                        "Promotion '" + context.getPromotionCode() + "' is not available for pricing yet");
+            }
+        }
+        if (requested == null && !context.isAutomaticPromotions()) {
+            return;
+        }
+        
+        List<PricingContext.Line> lines = context.getLines();
+        List<PromotionEngine.BasketLine> basket = new ArrayList<>(lines.size());
+        for (PricingContext.Line line : lines) {
+            basket.add(new PromotionEngine.BasketLine(line.getItemId(), line.getQuantity(), line.getUnitPrice()));
+        }
+        
+        PromotionEngine.PromotionResult result = promotionEngine.evaluate(
+                basket, context.getSubtotal(), LocalDateTime.now(), context.isAutomaticPromotions(), requested,
+                context.getRequest().getCustomerId());
+        
+        for (int i = 0; i < lines.size(); i++) {
+            lines.get(i).setLinePromotion(result.lineAmounts()[i]);
+        }
+        context.setPromotionAmount(result.total());
+        for (PromotionEngine.AppliedPromotion applied : result.applied()) {
+            context.getAppliedPromotions().add(PriceCalculationResponse.AppliedPromotion.builder()
+                    .code(applied.promotion().getCode())
+                    .name(applied.promotion().getName())
+                    .amount(applied.amount())
+                    .promotionType(applied.promotion().getPromotionType().name())
+                    .build());
+        }
+    }
+}
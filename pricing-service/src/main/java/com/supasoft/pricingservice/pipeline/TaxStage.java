@@ -0,0 +1,37 @@
+package com.supasoft.pricingservice.pipeline;
+
+import com.supasoft.pricingservice.util.PriceCalculator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Computes line and basket tax on the priced line totals
+ */
+@Component
+@Order(500)
+@RequiredArgsConstructor
+public class TaxStage implements PricingStage {
+    
+    private final PriceCalculator priceCalculator;
+    
+    @Override
+    public String name() {
+        return "tax";
+    }
+    
+    @Override
+    public void apply(PricingContext context) {
+        BigDecimal totalTax = BigDecimal.ZERO;
+        for (PricingContext.Line line : context.getLines()) {
+            BigDecimal lineTax = line.isTaxable()
+                    ? priceCalculator.calculateTaxAmount(line.getLineTotal(), line.getTaxRate())
+                    : BigDecimal.ZERO;
+            line.setTaxAmount(lineTax);
+            totalTax = totalTax.add(lineTax);
+        }
+        context.setTaxAmount(totalTax);
+    }
+}
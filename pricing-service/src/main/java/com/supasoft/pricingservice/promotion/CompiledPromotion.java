@@ -0,0 +1,136 @@
+package com.supasoft.pricingservice.promotion;
+
+import com.supasoft.pricingservice.entity.Promotion;
+import com.supasoft.pricingservice.entity.PromotionItem;
+import com.supasoft.pricingservice.enums.PromotionType;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable, evaluation-ready copy of a promotion and its item roles.
+ * Detached from JPA so it can be shared across request threads.
+ */
+@Value
+public class CompiledPromotion {
+
+    public static final String ROLE_BUY = "BUY";
+    public static final String ROLE_GET = "GET";
+    public static final String ROLE_BUNDLE = "BUNDLE";
+
+    Long id;
+    String code;
+    String name;
+    PromotionType promotionType;
+    int priority;
+    boolean cumulative;
+    /**
+     * false for promotions that only apply when their code is entered
+     */
+    boolean autoApply;
+    LocalDateTime startDate;
+    LocalDateTime endDate;
+    int buyQuantity;
+    int getQuantity;
+    BigDecimal getDiscountPercentage;
+    BigDecimal bundlePrice;
+    BigDecimal discountAmount;
+    BigDecimal discountPercentage;
+    BigDecimal minPurchaseAmount;
+    BigDecimal maxDiscountAmount;
+    Integer usageLimit;
+    Integer perCustomerLimit;
+    /**
+     * usage_count when compiled; only used until the usage counters hold a live count
+     */
+    int usageCount;
+
+    /**
+     * itemId -> role configuration; empty for basket-level promotions
+     */
+    Map<Long, ItemRule> itemRules;
+
+    public static CompiledPromotion compile(Promotion promotion) {
+        Map<Long, ItemRule> rules = new HashMap<>();
+        for (PromotionItem item : promotion.getPromotionItems()) {
+            rules.put(item.getItemId(), new ItemRule(
+                    item.getItemRole() != null ? item.getItemRole().toUpperCase() : ROLE_BUY,
+                    item.getRequiredQuantity() != null && item.getRequiredQuantity() > 0 ? item.getRequiredQuantity() : 1,
+                    item.getSpecialPrice(),
+                    item.getDiscountPercentage(),
+                    !Boolean.FALSE.equals(item.getIsRequired())));
+        }
+
+        return new CompiledPromotion(
+                promotion.getId(),
+                promotion.getCode(),
+                promotion.getName(),
+                promotion.getPromotionType(),
+                promotion.getPriority() != null ? promotion.getPriority() : 0,
+                Boolean.TRUE.equals(promotion.getIsCumulative()),
+                Boolean.TRUE.equals(promotion.getAutoApply()),
+                promotion.getStartDate(),
+                promotion.getEndDate(),
+                positiveOr(promotion.getBuyQuantity(), 1),
+                positiveOr(promotion.getGetQuantity(), 1),
+                promotion.getGetDiscountPercentage(),
+                promotion.getBundlePrice(),
+                promotion.getDiscountAmount(),
+                promotion.getDiscountPercentage(),
+                promotion.getMinPurchaseAmount(),
+                promotion.getMaxDiscountAmount(),
+                promotion.getUsageLimit(),
+                promotion.getPerCustomerLimit(),
+                promotion.getUsageCount() != null ? promotion.getUsageCount() : 0,
+                Collections.unmodifiableMap(rules));
+    }
+
+    /**
+     * Same validity window as {@link Promotion#isActive()}; usage is checked against the live counters
+     */
+    public boolean isActiveAt(LocalDateTime now) {
+        return now.isAfter(startDate) && now.isBefore(endDate);
+    }
+
+    public boolean isUsageLimited() {
+        return usageLimit != null || perCustomerLimit != null;
+    }
+
+    /**
+     * @param used live use count, null to fall back to the compiled usage_count
+     */
+    public boolean hasUsesLeft(Integer used) {
+        return usageLimit == null || (used != null ? used : usageCount) < usageLimit;
+    }
+
+    /**
+     * @param customerUsed the customer's live use count, null if unknown (enforced when the use is reserved)
+     */
+    public boolean hasCustomerUsesLeft(Integer customerUsed) {
+        return perCustomerLimit == null || customerUsed == null || customerUsed < perCustomerLimit;
+    }
+
+    public boolean isBasketLevel() {
+        return itemRules.isEmpty();
+    }
+
+    private static int positiveOr(Integer value, int fallback) {
+        return value != null && value > 0 ? value : fallback;
+    }
+
+    /**
+     * Role of one item within a promotion
+     */
+    @Value
+    public static class ItemRule {
+        String role; // BUY, GET, BUNDLE
+        int requiredQuantity;
+        BigDecimal specialPrice;
+        BigDecimal discountPercentage;
+        boolean required;
+    }
+}
@@ -0,0 +1,11 @@
+package com.supasoft.pricingservice.promotion;
+
+import lombok.Value;
+
+/**
+ * Published when a promotion (or its items or usage) changes, so the engine recompiles it
+ */
+@Value
+public class PromotionChangedEvent {
+    Long promotionId;
+}
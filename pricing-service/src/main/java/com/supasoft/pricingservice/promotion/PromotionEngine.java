@@ -0,0 +1,673 @@
+package com.supasoft.pricingservice.promotion;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.pricingservice.entity.Promotion;
+import com.supasoft.pricingservice.enums.PromotionType;
+import com.supasoft.pricingservice.exception.UsageLimitExceededException;
+import com.supasoft.pricingservice.repository.PromotionRepository;
+import com.supasoft.pricingservice.usage.UsageCounter;
+import com.supasoft.pricingservice.usage.UsageTarget;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory promotion engine.
+ *
+ * All current and upcoming promotions are compiled into an immutable index keyed
+ * by item id (plus a list of basket-level promotions). Only auto-apply promotions
+ * are posted there; the rest are found by id once their code is entered. A basket is evaluated in one
+ * pass over its lines: candidate promotions are gathered from the index, sorted by
+ * priority, and applied in order. Non-cumulative promotions consume the units they
+ * use so a unit earns at most one exclusive promotion; cumulative promotions stack.
+ *
+ * Changes are applied incrementally: only the changed promotion is re-read and its
+ * item postings swapped. Peers are told over Redis pub/sub.
+ *
+ * Usage limits are checked against the shared usage counters, not the usage_count
+ * compiled into the index, and only for promotions that would otherwise apply.
+ */
+@Slf4j
+@Component
+public class PromotionEngine implements MessageListener {
+
+    public static final String SYNC_CHANNEL = "supasoft:pricing:promotions";
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final int SCALE = 2;
+    private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
+
+    private static final Comparator<CompiledPromotion> PRIORITY = Comparator
+            .comparingInt(CompiledPromotion::getPriority)
+            .thenComparing(CompiledPromotion::getId);
+
+    private final PromotionRepository promotionRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final UsageCounter usageCounter;
+    private final TaskExecutor taskExecutor;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    /**
+     * Promotions with a background refresh queued after an index miss
+     */
+    private final Set<Long> loading = ConcurrentHashMap.newKeySet();
+
+    private volatile Index index = Index.EMPTY;
+
+    public PromotionEngine(PromotionRepository promotionRepository,
+                           StringRedisTemplate redisTemplate,
+                           UsageCounter usageCounter,
+                           @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.promotionRepository = promotionRepository;
+        this.redisTemplate = redisTemplate;
+        this.usageCounter = usageCounter;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Compile every current and upcoming promotion
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+        Map<Long, CompiledPromotion> byId = new HashMap<>();
+        for (Promotion promotion : promotionRepository.findCurrentAndUpcomingWithItems(Status.ACTIVE, LocalDateTime.now())) {
+            byId.put(promotion.getId(), CompiledPromotion.compile(promotion));
+        }
+        index = Index.build(byId);
+        log.info("Promotion engine loaded {} promotions in {} ms", byId.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-read one promotion and swap it into the index
+     */
+    public synchronized CompiledPromotion refresh(Long promotionId) {
+        CompiledPromotion compiled = promotionRepository.findWithItemsById(promotionId)
+                .filter(p -> p.getStatus() == Status.ACTIVE && p.getEndDate().isAfter(LocalDateTime.now()))
+                .map(CompiledPromotion::compile)
+                .orElse(null);
+        index = index.with(promotionId, compiled);
+        log.debug("Promotion engine refreshed promotion {} ({})", promotionId, compiled != null ? "indexed" : "removed");
+        return compiled;
+    }
+
+    /**
+     * Compiled promotion by id, or null if this replica has not indexed it. A miss queues
+     * a background refresh, so request threads never wait on the database.
+     */
+    public CompiledPromotion get(Long promotionId) {
+        CompiledPromotion compiled = index.byId.get(promotionId);
+        if (compiled == null && loading.add(promotionId)) {
+            try {
+                taskExecutor.execute(() -> {
+                    try {
+                        refresh(promotionId);
+                    } catch (RuntimeException e) {
+                        log.warn("Failed to load promotion {}: {}", promotionId, e.getMessage());
+                    } finally {
+                        loading.remove(promotionId);
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                loading.remove(promotionId);
+            }
+        }
+        return compiled;
+    }
+
+    public int size() {
+        return index.byId.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        refresh(event.getPromotionId());
+        try {
+            redisTemplate.convertAndSend(SYNC_CHANNEL, instanceId + "|" + event.getPromotionId());
+        } catch (Exception e) {
+            log.warn("Failed to broadcast promotion change {}: {}", event.getPromotionId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Apply a promotion change broadcast by another replica
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8).replace("\"", "");
+        String[] parts = body.split("\\|", 2);
+        if (parts.length < 2 || instanceId.equals(parts[0])) {
+            return;
+        }
+        try {
+            refresh(Long.valueOf(parts[1]));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed promotion sync message: {}", body);
+        }
+    }
+
+    /**
+     * Evaluate promotions against a basket.
+     *
+     * @param automatic  apply every active auto-apply promotion matching the basket
+     * @param requested  promotion that must be considered (e.g. entered by code), may be null
+     * @param customerId null for anonymous baskets; per-customer limits are then not applied
+     * @throws UsageLimitExceededException if the requested promotion has no uses left
+     */
+    public PromotionResult evaluate(List<BasketLine> lines,
+                                    BigDecimal subtotal,
+                                    LocalDateTime now,
+                                    boolean automatic,
+                                    CompiledPromotion requested,
+                                    Long customerId) {
+        Index current = index;
+        if (requested != null && requested.isUsageLimited()) {
+            checkUsage(requested, customerId);
+        }
+
+        // Merge repeated items so quantity thresholds see the whole basket
+        Map<Long, Slot> slots = new LinkedHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            BasketLine line = lines.get(i);
+            Slot slot = slots.get(line.itemId());
+            if (slot == null) {
+                slots.put(line.itemId(), new Slot(i, line.unitPrice(), line.quantity()));
+            } else {
+                slot.quantity = slot.quantity.add(line.quantity());
+                slot.available = slot.quantity;
+            }
+        }
+
+        Map<Long, CompiledPromotion> candidates = new HashMap<>();
+        if (automatic) {
+            for (Long itemId : slots.keySet()) {
+                for (CompiledPromotion promotion : current.byItem.getOrDefault(itemId, List.of())) {
+                    candidates.putIfAbsent(promotion.getId(), promotion);
+                }
+            }
+            for (CompiledPromotion promotion : current.basketLevel) {
+                candidates.putIfAbsent(promotion.getId(), promotion);
+            }
+        }
+        if (requested != null) {
+            candidates.put(requested.getId(), requested);
+        }
+
+        List<CompiledPromotion> ordered = new ArrayList<>(candidates.values());
+        ordered.sort(PRIORITY);
+
+        BigDecimal[] lineAmounts = new BigDecimal[lines.size()];
+        Arrays.fill(lineAmounts, BigDecimal.ZERO);
+        List<AppliedPromotion> applied = new ArrayList<>();
+        BigDecimal remaining = subtotal;
+        boolean exclusiveApplied = false;
+
+        for (CompiledPromotion promotion : ordered) {
+            if (remaining.signum() <= 0) {
+                break;
+            }
+            if (!promotion.isActiveAt(now)) {
+                continue;
+            }
+            if (promotion.getMinPurchaseAmount() != null && subtotal.compareTo(promotion.getMinPurchaseAmount()) < 0) {
+                continue;
+            }
+            // A basket-level exclusive promotion never stacks on another exclusive one
+            if (!promotion.isCumulative() && exclusiveApplied && promotion.isBasketLevel()) {
+                continue;
+            }
+
+            Attempt attempt = new Attempt(promotion, slots);
+            BigDecimal amount = switch (promotion.getPromotionType()) {
+                case BOGO, BUY_X_GET_Y, BUY_X_GET_Y_PERCENT_OFF -> buyGet(attempt);
+                case BUNDLE_PRICING -> bundle(attempt);
+                case FREE_SHIPPING -> BigDecimal.ZERO;
+                default -> promotion.isBasketLevel() ? basketAmount(promotion, remaining) : itemDiscount(attempt);
+            };
+            if (amount.signum() <= 0) {
+                continue;
+            }
+            if (promotion != requested && promotion.isUsageLimited() && !hasUsesLeft(promotion, customerId)) {
+                continue;
+            }
+
+            BigDecimal capped = amount;
+            if (promotion.getMaxDiscountAmount() != null && capped.compareTo(promotion.getMaxDiscountAmount()) > 0) {
+                capped = promotion.getMaxDiscountAmount();
+            }
+            if (capped.compareTo(remaining) > 0) {
+                capped = remaining;
+            }
+            capped = capped.setScale(SCALE, ROUNDING_MODE);
+            attempt.commit(lineAmounts, amount, capped);
+
+            applied.add(new AppliedPromotion(promotion, capped));
+            remaining = remaining.subtract(capped);
+            exclusiveApplied |= !promotion.isCumulative();
+        }
+
+        return new PromotionResult(lineAmounts, subtotal.subtract(remaining), applied);
+    }
+
+    private void checkUsage(CompiledPromotion promotion, Long customerId) {
+        UsageCounter.Usage usage = usage(promotion, customerId);
+        if (!promotion.hasUsesLeft(usage.used())) {
+            throw UsageLimitExceededException.forTarget(promotion.getCode());
+        }
+        if (!promotion.hasCustomerUsesLeft(usage.customerUsed())) {
+            throw UsageLimitExceededException.forCustomer(promotion.getCode(), customerId);
+        }
+    }
+
+    private boolean hasUsesLeft(CompiledPromotion promotion, Long customerId) {
+        UsageCounter.Usage usage = usage(promotion, customerId);
+        return promotion.hasUsesLeft(usage.used()) && promotion.hasCustomerUsesLeft(usage.customerUsed());
+    }
+
+    /**
+     * Live counts, or the compiled ones if Redis is unavailable; limits are still enforced
+     * when the use is reserved at checkout
+     */
+    private UsageCounter.Usage usage(CompiledPromotion promotion, Long customerId) {
+        try {
+            return usageCounter.usage(UsageTarget.PROMOTION, promotion.getId(), customerId);
+        } catch (DataAccessException e) {
+            log.warn("Failed to read usage of promotion {}: {}", promotion.getId(), e.getMessage());
+            return UsageCounter.Usage.UNKNOWN;
+        }
+    }
+
+    /**
+     * Percentage, fixed, flash, clearance and quantity-threshold promotions on listed items
+     */
+    private BigDecimal itemDiscount(Attempt attempt) {
+        CompiledPromotion promotion = attempt.promotion;
+        BigDecimal total = BigDecimal.ZERO;
+
+        for (Map.Entry<Long, CompiledPromotion.ItemRule> entry : promotion.getItemRules().entrySet()) {
+            Slot slot = attempt.slots.get(entry.getKey());
+            if (slot == null) {
+                continue;
+            }
+            CompiledPromotion.ItemRule rule = entry.getValue();
+            BigDecimal quantity = attempt.quantity(slot);
+            if (quantity.signum() <= 0) {
+                continue;
+            }
+            if (promotion.getPromotionType() == PromotionType.QUANTITY_DISCOUNT) {
+                int threshold = rule.getRequiredQuantity() > 1 ? rule.getRequiredQuantity() : promotion.getBuyQuantity();
+                if (quantity.compareTo(BigDecimal.valueOf(threshold)) < 0) {
+                    continue;
+                }
+            }
+
+            BigDecimal lineAmount = quantity.multiply(slot.unitPrice);
+            BigDecimal off = BigDecimal.ZERO;
+            BigDecimal percentage = rule.getDiscountPercentage() != null
+                    ? rule.getDiscountPercentage() : promotion.getDiscountPercentage();
+            if (rule.getSpecialPrice() != null) {
+                off = slot.unitPrice.subtract(rule.getSpecialPrice()).max(BigDecimal.ZERO).multiply(quantity);
+            } else if (percentage != null) {
+                off = lineAmount.multiply(percentage).divide(HUNDRED, SCALE, ROUNDING_MODE);
+            } else if (promotion.getDiscountAmount() != null) {
+                off = promotion.getDiscountAmount().multiply(quantity).min(lineAmount);
+            }
+            if (off.signum() > 0) {
+                attempt.allocate(slot, off.setScale(SCALE, ROUNDING_MODE), quantity);
+                total = total.add(off.setScale(SCALE, ROUNDING_MODE));
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Basket-level threshold promotion on what is left of the subtotal
+     */
+    private BigDecimal basketAmount(CompiledPromotion promotion, BigDecimal base) {
+        BigDecimal amount = BigDecimal.ZERO;
+        if (promotion.getDiscountPercentage() != null) {
+            amount = base.multiply(promotion.getDiscountPercentage()).divide(HUNDRED, SCALE, ROUNDING_MODE);
+        } else if (promotion.getDiscountAmount() != null) {
+            amount = promotion.getDiscountAmount();
+        }
+        return amount.min(base);
+    }
+
+    /**
+     * BOGO / buy X get Y. Without GET items the BUY items form one mix-and-match pool
+     * and the cheapest units are the free ones.
+     */
+    private BigDecimal buyGet(Attempt attempt) {
+        CompiledPromotion promotion = attempt.promotion;
+        int buy = promotion.getBuyQuantity();
+        int get = promotion.getGetQuantity();
+        BigDecimal percentage = promotion.getGetDiscountPercentage();
+        if (percentage == null) {
+            percentage = promotion.getPromotionType() == PromotionType.BUY_X_GET_Y_PERCENT_OFF
+                    && promotion.getDiscountPercentage() != null ? promotion.getDiscountPercentage() : HUNDRED;
+        }
+
+        List<Slot> buySlots = new ArrayList<>();
+        List<Slot> getSlots = new ArrayList<>();
+        for (Map.Entry<Long, CompiledPromotion.ItemRule> entry : promotion.getItemRules().entrySet()) {
+            Slot slot = attempt.slots.get(entry.getKey());
+            if (slot == null || attempt.units(slot) <= 0) {
+                continue;
+            }
+            if (CompiledPromotion.ROLE_GET.equals(entry.getValue().getRole())) {
+                getSlots.add(slot);
+            } else {
+                buySlots.add(slot);
+            }
+        }
+
+        int groups;
+        List<Slot> freePool;
+        if (getSlots.isEmpty()) {
+            groups = totalUnits(attempt, buySlots) / (buy + get);
+            freePool = buySlots;
+        } else {
+            groups = Math.min(totalUnits(attempt, buySlots) / buy, totalUnits(attempt, getSlots) / get);
+            freePool = getSlots;
+        }
+        if (groups <= 0) {
+            return BigDecimal.ZERO;
+        }
+
+        // Free units come from the cheapest lines, paid units from the dearest
+        freePool.sort(Comparator.comparing((Slot s) -> s.unitPrice));
+        int free = groups * get;
+        BigDecimal total = BigDecimal.ZERO;
+        for (Slot slot : freePool) {
+            int take = Math.min(free, attempt.units(slot));
+            if (take <= 0) {
+                continue;
+            }
+            BigDecimal off = slot.unitPrice.multiply(BigDecimal.valueOf(take))
+                    .multiply(percentage).divide(HUNDRED, SCALE, ROUNDING_MODE);
+            attempt.allocate(slot, off, BigDecimal.valueOf(take));
+            total = total.add(off);
+            free -= take;
+            if (free == 0) {
+                break;
+            }
+        }
+
+        buySlots.sort(Comparator.comparing((Slot s) -> s.unitPrice).reversed());
+        int paid = groups * buy;
+        for (Slot slot : buySlots) {
+            int take = Math.min(paid, attempt.units(slot));
+            if (take <= 0) {
+                continue;
+            }
+            attempt.allocate(slot, BigDecimal.ZERO, BigDecimal.valueOf(take));
+            paid -= take;
+            if (paid == 0) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Fixed bundle price for a set of required items
+     */
+    private BigDecimal bundle(Attempt attempt) {
+        CompiledPromotion promotion = attempt.promotion;
+        if (promotion.getBundlePrice() == null) {
+            return BigDecimal.ZERO;
+        }
+
+        boolean anyBundleRole = promotion.getItemRules().values().stream()
+                .anyMatch(rule -> CompiledPromotion.ROLE_BUNDLE.equals(rule.getRole()));
+
+        int bundles = Integer.MAX_VALUE;
+        BigDecimal regular = BigDecimal.ZERO;
+        Map<Slot, Integer> components = new LinkedHashMap<>();
+        for (Map.Entry<Long, CompiledPromotion.ItemRule> entry : promotion.getItemRules().entrySet()) {
+            CompiledPromotion.ItemRule rule = entry.getValue();
+            if (!rule.isRequired() || (anyBundleRole && !CompiledPromotion.ROLE_BUNDLE.equals(rule.getRole()))) {
+                continue;
+            }
+            Slot slot = attempt.slots.get(entry.getKey());
+            if (slot == null) {
+                return BigDecimal.ZERO;
+            }
+            bundles = Math.min(bundles, attempt.units(slot) / rule.getRequiredQuantity());
+            regular = regular.add(slot.unitPrice.multiply(BigDecimal.valueOf(rule.getRequiredQuantity())));
+            components.put(slot, rule.getRequiredQuantity());
+        }
+        if (components.isEmpty() || bundles <= 0) {
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal savings = regular.subtract(promotion.getBundlePrice());
+        if (savings.signum() <= 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal total = savings.multiply(BigDecimal.valueOf(bundles)).setScale(SCALE, ROUNDING_MODE);
+
+        // Spread the saving over components by their share of the regular bundle price
+        BigDecimal allocated = BigDecimal.ZERO;
+        int remainingComponents = components.size();
+        for (Map.Entry<Slot, Integer> component : components.entrySet()) {
+            Slot slot = component.getKey();
+            BigDecimal share = --remainingComponents == 0
+                    ? total.subtract(allocated)
+                    : total.multiply(slot.unitPrice.multiply(BigDecimal.valueOf(component.getValue())))
+                            .divide(regular, SCALE, ROUNDING_MODE);
+            allocated = allocated.add(share);
+            attempt.allocate(slot, share, BigDecimal.valueOf((long) bundles * component.getValue()));
+        }
+        return total;
+    }
+
+    private static int totalUnits(Attempt attempt, List<Slot> slots) {
+        int units = 0;
+        for (Slot slot : slots) {
+            units += attempt.units(slot);
+        }
+        return units;
+    }
+
+    /**
+     * One basket line as seen by the engine
+     */
+    public record BasketLine(Long itemId, BigDecimal quantity, BigDecimal unitPrice) {
+    }
+
+    /**
+     * Promotion granted to a basket and its amount after caps
+     */
+    public record AppliedPromotion(CompiledPromotion promotion, BigDecimal amount) {
+    }
+
+    /**
+     * Outcome of a basket evaluation; lineAmounts is aligned with the input lines
+     */
+    public record PromotionResult(BigDecimal[] lineAmounts, BigDecimal total, List<AppliedPromotion> applied) {
+    }
+
+    /**
+     * Distinct item in the basket with the quantity still free for exclusive promotions
+     */
+    private static final class Slot {
+        private final int lineIndex;
+        private final BigDecimal unitPrice;
+        private BigDecimal quantity;
+        private BigDecimal available;
+
+        private Slot(int lineIndex, BigDecimal unitPrice, BigDecimal quantity) {
+            this.lineIndex = lineIndex;
+            this.unitPrice = unitPrice;
+            this.quantity = quantity;
+            this.available = quantity;
+        }
+    }
+
+    /**
+     * Tentative allocation of one promotion; only committed if it yields a saving
+     */
+    private static final class Attempt {
+        private final CompiledPromotion promotion;
+        private final Map<Long, Slot> slots;
+        private final Map<Slot, BigDecimal> amounts = new LinkedHashMap<>();
+        private final Map<Slot, BigDecimal> consumed = new HashMap<>();
+
+        private Attempt(CompiledPromotion promotion, Map<Long, Slot> slots) {
+            this.promotion = promotion;
+            this.slots = slots;
+        }
+
+        /**
+         * Quantity this promotion may use: cumulative promotions see the full line
+         */
+        private BigDecimal quantity(Slot slot) {
+            BigDecimal base = promotion.isCumulative() ? slot.quantity : slot.available;
+            return base.subtract(consumed.getOrDefault(slot, BigDecimal.ZERO));
+        }
+
+        private int units(Slot slot) {
+            return quantity(slot).intValue();
+        }
+
+        private void allocate(Slot slot, BigDecimal amount, BigDecimal quantity) {
+            amounts.merge(slot, amount, BigDecimal::add);
+            consumed.merge(slot, quantity, BigDecimal::add);
+        }
+
+        /**
+         * Add the (possibly capped) saving to the lines and consume units for exclusive promotions
+         */
+        private void commit(BigDecimal[] lineAmounts, BigDecimal amount, BigDecimal capped) {
+            BigDecimal allocated = BigDecimal.ZERO;
+            Slot last = null;
+            for (Map.Entry<Slot, BigDecimal> entry : amounts.entrySet()) {
+                if (entry.getValue().signum() == 0) {
+                    continue;
+                }
+                BigDecimal share = capped.compareTo(amount) == 0
+                        ? entry.getValue()
+                        : entry.getValue().multiply(capped).divide(amount, SCALE, ROUNDING_MODE);
+                lineAmounts[entry.getKey().lineIndex] = lineAmounts[entry.getKey().lineIndex].add(share);
+                allocated = allocated.add(share);
+                last = entry.getKey();
+            }
+            // Keep line amounts summing exactly to the promotion amount
+            if (last != null && allocated.compareTo(capped) != 0) {
+                lineAmounts[last.lineIndex] = lineAmounts[last.lineIndex].add(capped.subtract(allocated));
+            }
+
+            if (!promotion.isCumulative()) {
+                consumed.forEach((slot, quantity) -> slot.available = slot.available.subtract(quantity));
+            }
+        }
+    }
+
+    /**
+     * Immutable promotion index; replaced wholesale on every change
+     */
+    private static final class Index {
+
+        private static final Index EMPTY = new Index(Map.of(), Map.of(), List.of());
+
+        private final Map<Long, CompiledPromotion> byId;
+        private final Map<Long, List<CompiledPromotion>> byItem;
+        private final List<CompiledPromotion> basketLevel;
+
+        private Index(Map<Long, CompiledPromotion> byId,
+                      Map<Long, List<CompiledPromotion>> byItem,
+                      List<CompiledPromotion> basketLevel) {
+            this.byId = byId;
+            this.byItem = byItem;
+            this.basketLevel = basketLevel;
+        }
+
+        private static Index build(Map<Long, CompiledPromotion> byId) {
+            Map<Long, List<CompiledPromotion>> byItem = new HashMap<>();
+            List<CompiledPromotion> basketLevel = new ArrayList<>();
+            for (CompiledPromotion promotion : byId.values()) {
+                if (!promotion.isAutoApply()) {
+                    continue;
+                }
+                if (promotion.isBasketLevel()) {
+                    basketLevel.add(promotion);
+                }
+                for (Long itemId : promotion.getItemRules().keySet()) {
+                    byItem.computeIfAbsent(itemId, k -> new ArrayList<>()).add(promotion);
+                }
+            }
+            byItem.replaceAll((itemId, promotions) -> {
+                promotions.sort(PRIORITY);
+                return List.copyOf(promotions);
+            });
+            basketLevel.sort(PRIORITY);
+            return new Index(Map.copyOf(byId), byItem, List.copyOf(basketLevel));
+        }
+
+        /**
+         * Copy with one promotion replaced (or removed when null); only its items' postings are rebuilt
+         */
+        private Index with(Long promotionId, CompiledPromotion replacement) {
+            Map<Long, CompiledPromotion> nextById = new HashMap<>(byId);
+            CompiledPromotion previous = replacement != null
+                    ? nextById.put(promotionId, replacement)
+                    : nextById.remove(promotionId);
+
+            Map<Long, List<CompiledPromotion>> nextByItem = new HashMap<>(byItem);
+            if (previous != null) {
+                for (Long itemId : previous.getItemRules().keySet()) {
+                    List<CompiledPromotion> postings = new ArrayList<>(nextByItem.getOrDefault(itemId, List.of()));
+                    postings.removeIf(p -> p.getId().equals(promotionId));
+                    if (postings.isEmpty()) {
+                        nextByItem.remove(itemId);
+                    } else {
+                        nextByItem.put(itemId, List.copyOf(postings));
+                    }
+                }
+            }
+            if (replacement != null && replacement.isAutoApply()) {
+                for (Long itemId : replacement.getItemRules().keySet()) {
+                    List<CompiledPromotion> postings = new ArrayList<>(nextByItem.getOrDefault(itemId, List.of()));
+                    postings.add(replacement);
+                    postings.sort(PRIORITY);
+                    nextByItem.put(itemId, List.copyOf(postings));
+                }
+            }
+
+            List<CompiledPromotion> nextBasketLevel = new ArrayList<>(basketLevel);
+            nextBasketLevel.removeIf(p -> p.getId().equals(promotionId));
+            if (replacement != null && replacement.isAutoApply() && replacement.isBasketLevel()) {
+                nextBasketLevel.add(replacement);
+                nextBasketLevel.sort(PRIORITY);
+            }
+
+            return new Index(Map.copyOf(nextById), nextByItem, List.copyOf(nextBasketLevel));
+        }
+    }
+}
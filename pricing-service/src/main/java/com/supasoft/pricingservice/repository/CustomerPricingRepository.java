@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,6 +45,35 @@ public interface CustomerPricingRepository extends JpaRepository<CustomerPricing
                                                         @Param("status") Status status,
                                                         @Param("date") LocalDateTime date);
     
+    /**
+     * Active special prices for the customers and items, latest effective first, so where
+     * several overlap the first row per customer and item is the one that applies
+     */
+    @Query("SELECT cp FROM CustomerPricing cp WHERE cp.customerId IN :customerIds " +
+           "AND cp.itemId IN :itemIds AND cp.status = :status " +
+           "AND (cp.effectiveDate IS NULL OR cp.effectiveDate <= :date) " +
+           "AND (cp.expiryDate IS NULL OR cp.expiryDate >= :date) " +
+           "ORDER BY cp.effectiveDate DESC, cp.id DESC")
+    List<CustomerPricing> findActiveCustomerPricingForItems(@Param("customerIds") Collection<Long> customerIds,
+                                                            @Param("itemIds") Collection<Long> itemIds,
+                                                            @Param("status") Status status,
+                                                            @Param("date") LocalDateTime date);
+    
+    /**
+     * Every customer price active at the instant, ordered as {@link #findActiveCustomerPricingForItems}
+     */
+    @Query("SELECT cp FROM CustomerPricing cp WHERE cp.status = :status " +
+           "AND (cp.effectiveDate IS NULL OR cp.effectiveDate <= :date) " +
+           "AND (cp.expiryDate IS NULL OR cp.expiryDate >= :date) " +
+           "ORDER BY cp.effectiveDate DESC, cp.id DESC")
+    List<CustomerPricing> findAllActiveAt(@Param("status") Status status, @Param("date") LocalDateTime date);
+    
+    @Query("SELECT MIN(cp.effectiveDate) FROM CustomerPricing cp WHERE cp.status = :status AND cp.effectiveDate > :date")
+    Optional<LocalDateTime> findNextEffectiveDate(@Param("status") Status status, @Param("date") LocalDateTime date);
+    
+    @Query("SELECT MIN(cp.expiryDate) FROM CustomerPricing cp WHERE cp.status = :status AND cp.expiryDate >= :date")
+    Optional<LocalDateTime> findNextExpiryDate(@Param("status") Status status, @Param("date") LocalDateTime date);
+    
     @Query("SELECT cp FROM CustomerPricing cp WHERE cp.expiryDate < :currentDate")
     List<CustomerPricing> findExpiredCustomerPricing(@Param("currentDate") LocalDateTime currentDate);
     
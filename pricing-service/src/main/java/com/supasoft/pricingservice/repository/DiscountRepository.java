@@ -3,12 +3,14 @@ package com.supasoft.pricingservice.repository;
 import com.supasoft.common.enums.Status;
 import com.supasoft.pricingservice.entity.Discount;
 import com.supasoft.pricingservice.enums.DiscountType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,11 +34,11 @@ public interface DiscountRepository extends JpaRepository<Discount, Long> {
     List<Discount> findActiveDiscounts(@Param("status") Status status, 
                                        @Param("currentDate") LocalDateTime currentDate);
     
-    @Query("SELECT d FROM Discount d WHERE d.status = :status " +
+    @Query("SELECT DISTINCT d FROM Discount d JOIN d.itemIds i WHERE d.status = :status " +
            "AND d.startDate <= :currentDate AND d.endDate >= :currentDate " +
            "AND (d.usageLimit IS NULL OR d.usageCount < d.usageLimit) " +
            "AND d.appliesToItems = true " +
-           "AND d.itemIds LIKE CONCAT('%', :itemId, '%')")
+           "AND i = :itemId")
     List<Discount> findActiveDiscountsForItem(@Param("itemId") Long itemId,
                                                @Param("status") Status status,
                                                @Param("currentDate") LocalDateTime currentDate);
@@ -48,6 +50,33 @@ public interface DiscountRepository extends JpaRepository<Discount, Long> {
     List<Discount> findCumulativeDiscounts(@Param("status") Status status,
                                            @Param("currentDate") LocalDateTime currentDate);
     
+    @Query("SELECT d FROM Discount d WHERE d.status = :status AND d.endDate >= :currentDate")
+    List<Discount> findCurrentAndUpcoming(@Param("status") Status status,
+                                          @Param("currentDate") LocalDateTime currentDate);
+    
+    /**
+     * (discountId, itemId) pairs for current and upcoming item-scoped discounts
+     */
+    @Query("SELECT d.id, i FROM Discount d JOIN d.itemIds i WHERE d.status = :status " +
+           "AND d.endDate >= :currentDate AND d.appliesToItems = true")
+    List<Object[]> findItemTargets(@Param("status") Status status,
+                                   @Param("currentDate") LocalDateTime currentDate);
+    
+    /**
+     * (discountId, categoryId) pairs for current and upcoming category-scoped discounts
+     */
+    @Query("SELECT d.id, c FROM Discount d JOIN d.categoryIds c WHERE d.status = :status " +
+           "AND d.endDate >= :currentDate AND d.appliesToCategories = true")
+    List<Object[]> findCategoryTargets(@Param("status") Status status,
+                                       @Param("currentDate") LocalDateTime currentDate);
+    
+    /**
+     * Discounts by id with their item and category targets loaded in the same query
+     */
+    @EntityGraph(attributePaths = {"itemIds", "categoryIds"})
+    @Query("SELECT d FROM Discount d WHERE d.id IN :ids")
+    List<Discount> findAllWithTargetsByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT d FROM Discount d WHERE d.endDate < :currentDate")
     List<Discount> findExpiredDiscounts(@Param("currentDate") LocalDateTime currentDate);
     
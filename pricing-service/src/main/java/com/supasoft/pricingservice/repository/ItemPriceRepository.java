@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,6 +45,35 @@ public interface ItemPriceRepository extends JpaRepository<ItemPrice, Long> {
                                                    @Param("status") Status status,
                                                    @Param("date") LocalDateTime date);
     
+    /**
+     * Active prices of the items under one price type, latest effective first, so where
+     * several overlap the first row per item is the one that applies
+     */
+    @Query("SELECT ip FROM ItemPrice ip WHERE ip.itemId IN :itemIds " +
+           "AND ip.priceType.id = :priceTypeId AND ip.status = :status " +
+           "AND (ip.effectiveDate IS NULL OR ip.effectiveDate <= :date) " +
+           "AND (ip.expiryDate IS NULL OR ip.expiryDate >= :date) " +
+           "ORDER BY ip.effectiveDate DESC, ip.id DESC")
+    List<ItemPrice> findActiveItemPricesByType(@Param("itemIds") Collection<Long> itemIds,
+                                               @Param("priceTypeId") Long priceTypeId,
+                                               @Param("status") Status status,
+                                               @Param("date") LocalDateTime date);
+    
+    /**
+     * Every price active at the instant, ordered as {@link #findActiveItemPricesByType}
+     */
+    @Query("SELECT ip FROM ItemPrice ip WHERE ip.status = :status " +
+           "AND (ip.effectiveDate IS NULL OR ip.effectiveDate <= :date) " +
+           "AND (ip.expiryDate IS NULL OR ip.expiryDate >= :date) " +
+           "ORDER BY ip.effectiveDate DESC, ip.id DESC")
+    List<ItemPrice> findAllActiveAt(@Param("status") Status status, @Param("date") LocalDateTime date);
+    
+    @Query("SELECT MIN(ip.effectiveDate) FROM ItemPrice ip WHERE ip.status = :status AND ip.effectiveDate > :date")
+    Optional<LocalDateTime> findNextEffectiveDate(@Param("status") Status status, @Param("date") LocalDateTime date);
+    
+    @Query("SELECT MIN(ip.expiryDate) FROM ItemPrice ip WHERE ip.status = :status AND ip.expiryDate >= :date")
+    Optional<LocalDateTime> findNextExpiryDate(@Param("status") Status status, @Param("date") LocalDateTime date);
+    
     @Query("SELECT ip FROM ItemPrice ip WHERE ip.profitMargin < :threshold AND ip.status = :status")
     List<ItemPrice> findLowMarginPrices(@Param("threshold") Double threshold, @Param("status") Status status);
     
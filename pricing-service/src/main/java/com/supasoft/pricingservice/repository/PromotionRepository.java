@@ -52,6 +52,14 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long> {
     List<Promotion> findCumulativePromotions(@Param("status") Status status,
                                              @Param("currentDate") LocalDateTime currentDate);
     
+    @Query("SELECT DISTINCT p FROM Promotion p LEFT JOIN FETCH p.promotionItems " +
+           "WHERE p.status = :status AND p.endDate >= :currentDate")
+    List<Promotion> findCurrentAndUpcomingWithItems(@Param("status") Status status,
+                                                    @Param("currentDate") LocalDateTime currentDate);
+    
+    @Query("SELECT p FROM Promotion p LEFT JOIN FETCH p.promotionItems WHERE p.id = :id")
+    Optional<Promotion> findWithItemsById(@Param("id") Long id);
+    
     @Query("SELECT p FROM Promotion p WHERE p.endDate < :currentDate")
     List<Promotion> findExpiredPromotions(@Param("currentDate") LocalDateTime currentDate);
     
@@ -24,6 +24,11 @@ public interface DiscountService {
     
     List<DiscountResponse> getActiveDiscountsForItem(Long itemId);
     
+    /**
+     * Active discounts applying to any of the given items or categories
+     */
+    List<DiscountResponse> getApplicableDiscounts(List<Long> itemIds, List<Long> categoryIds);
+    
     Page<DiscountResponse> getAllDiscounts(Pageable pageable);
     
     void deleteDiscount(Long id);
@@ -2,15 +2,20 @@ package com.supasoft.pricingservice.service;
 
 import com.supasoft.common.enums.Status;
 import com.supasoft.pricingservice.dto.request.CreateDiscountRequest;
+import com.supasoft.pricingservice.discount.DiscountChangedEvent;
+import com.supasoft.pricingservice.discount.DiscountIndex;
 import com.supasoft.pricingservice.dto.response.DiscountResponse;
 import com.supasoft.pricingservice.entity.Discount;
 import com.supasoft.pricingservice.exception.InvalidDiscountException;
 import com.supasoft.pricingservice.mapper.PricingMapper;
 import com.supasoft.pricingservice.repository.DiscountRepository;
+import com.supasoft.pricingservice.usage.UsageCounter;
+import com.supasoft.pricingservice.usage.UsageTarget;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -30,6 +35,9 @@ public class DiscountServiceImpl implements DiscountService {
     
     private final DiscountRepository discountRepository;
     private final PricingMapper pricingMapper;
+    private final DiscountIndex discountIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UsageCounter usageCounter;
     
     @Override
     @Transactional
@@ -47,6 +55,7 @@ public class DiscountServiceImpl implements DiscountService {
         }
         
         Discount savedDiscount = discountRepository.save(discount);
+        eventPublisher.publishEvent(new DiscountChangedEvent(savedDiscount.getId()));
         
         log.info("Discount created successfully with ID: {}", savedDiscount.getId());
         
@@ -83,14 +92,21 @@ public class DiscountServiceImpl implements DiscountService {
         discount.setIsCumulative(request.getIsCumulative());
         discount.setAppliesToItems(request.getAppliesToItems());
         discount.setAppliesToCategories(request.getAppliesToCategories());
-        discount.setItemIds(pricingMapper.listToString(request.getItemIds()));
-        discount.setCategoryIds(pricingMapper.listToString(request.getCategoryIds()));
+        discount.getItemIds().clear();
+        if (request.getItemIds() != null) {
+            discount.getItemIds().addAll(request.getItemIds());
+        }
+        discount.getCategoryIds().clear();
+        if (request.getCategoryIds() != null) {
+            discount.getCategoryIds().addAll(request.getCategoryIds());
+        }
         
         if (request.getStatus() != null) {
             discount.setStatus(request.getStatus());
         }
         
         Discount updatedDiscount = discountRepository.save(discount);
+        eventPublisher.publishEvent(new DiscountChangedEvent(id));
         
         log.info("Discount updated successfully with ID: {}", id);
         
@@ -135,11 +151,21 @@ public class DiscountServiceImpl implements DiscountService {
     public List<DiscountResponse> getActiveDiscountsForItem(Long itemId) {
         log.debug("Fetching active discounts for item ID: {}", itemId);
         
-        List<Discount> discounts = discountRepository.findActiveDiscountsForItem(
-                itemId, Status.ACTIVE, LocalDateTime.now()
-        );
+        return getApplicableDiscounts(List.of(itemId), List.of());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<DiscountResponse> getApplicableDiscounts(List<Long> itemIds, List<Long> categoryIds) {
+        log.debug("Fetching applicable discounts for {} items and {} categories",
+                itemIds != null ? itemIds.size() : 0, categoryIds != null ? categoryIds.size() : 0);
+        
+        List<Long> discountIds = discountIndex.findApplicable(itemIds, categoryIds, LocalDateTime.now());
+        if (discountIds.isEmpty()) {
+            return List.of();
+        }
         
-        return discounts.stream()
+        return discountRepository.findAllWithTargetsByIdIn(discountIds).stream()
                 .map(pricingMapper::toResponse)
                 .collect(Collectors.toList());
     }
@@ -164,12 +190,13 @@ public class DiscountServiceImpl implements DiscountService {
         
         discount.setStatus(Status.INACTIVE);
         discountRepository.save(discount);
+        eventPublisher.publishEvent(new DiscountChangedEvent(id));
         
         log.info("Discount deleted successfully with ID: {}", id);
     }
     
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     @CacheEvict(value = "discounts", key = "#discountCode")
     public void incrementUsageCount(String discountCode) {
         log.debug("Incrementing usage count for discount: {}", discountCode);
@@ -177,8 +204,11 @@ public class DiscountServiceImpl implements DiscountService {
         Discount discount = discountRepository.findByCode(discountCode)
                 .orElseThrow(() -> new InvalidDiscountException("Discount not found: " + discountCode));
         
-        discount.setUsageCount(discount.getUsageCount() + 1);
-        discountRepository.save(discount);
+        // Counted atomically in the shared usage counters; usage_count is written back in batches
+        // and the index is rebuilt by the write-back once the discount is exhausted
+        usageCounter.record(UsageTarget.DISCOUNT, discount.getId(), discount.getCode(), null,
+                discount.getUsageLimit(), discount.getPerCustomerLimit(),
+                discount.getUsageCount() != null ? discount.getUsageCount() : 0, discount.getEndDate());
     }
     
     @Override
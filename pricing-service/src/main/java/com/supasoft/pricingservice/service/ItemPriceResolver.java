@@ -0,0 +1,164 @@
+package com.supasoft.pricingservice.service;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.pricingservice.dto.request.PriceCalculationRequest;
+import com.supasoft.pricingservice.entity.CustomerPricing;
+import com.supasoft.pricingservice.entity.ItemPrice;
+import com.supasoft.pricingservice.repository.CustomerPricingRepository;
+import com.supasoft.pricingservice.repository.ItemPriceRepository;
+import com.supasoft.pricingservice.snapshot.PricingSnapshot;
+import com.supasoft.pricingservice.snapshot.PricingSnapshotManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Resolves effective unit prices for whole baskets.
+ * Served from the current pricing snapshot when it covers "now"; otherwise one
+ * query per distinct price type plus one for customer-specific prices,
+ * regardless of the number of lines or baskets. Where active prices overlap,
+ * the latest effective one wins (ties go to the newest row), as in the snapshot.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemPriceResolver {
+
+    /**
+     * Upper bound on IN-list size per statement
+     */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    private final ItemPriceRepository itemPriceRepository;
+    private final CustomerPricingRepository customerPricingRepository;
+    private final PricingSnapshotManager snapshotManager;
+
+    /**
+     * Resolve prices for a single basket
+     */
+    public PriceBook resolve(PriceCalculationRequest request) {
+        return resolve(List.of(request));
+    }
+
+    /**
+     * Resolve prices for every line of every basket
+     */
+    public PriceBook resolve(Collection<PriceCalculationRequest> requests) {
+        LocalDateTime now = LocalDateTime.now();
+
+        PricingSnapshot snapshot = snapshotManager.current(now);
+        if (snapshot != null) {
+            return snapshot.getPriceBook();
+        }
+
+        Map<Long, Set<Long>> itemsByPriceType = new HashMap<>();
+        Set<Long> customerIds = new HashSet<>();
+        Set<Long> customerItemIds = new HashSet<>();
+
+        for (PriceCalculationRequest request : requests) {
+            Set<Long> typeItems = itemsByPriceType.computeIfAbsent(request.getPriceTypeId(), k -> new HashSet<>());
+            for (PriceCalculationRequest.ItemCalculation item : request.getItems()) {
+                typeItems.add(item.getItemId());
+                if (request.getCustomerId() != null) {
+                    customerItemIds.add(item.getItemId());
+                }
+            }
+            if (request.getCustomerId() != null) {
+                customerIds.add(request.getCustomerId());
+            }
+        }
+
+        PriceBook book = new PriceBook();
+
+        itemsByPriceType.forEach((priceTypeId, itemIds) -> inChunks(itemIds, chunk ->
+                itemPriceRepository.findActiveItemPricesByType(chunk, priceTypeId, Status.ACTIVE, now)
+                        .forEach(price -> book.typePrices
+                                .computeIfAbsent(priceTypeId, k -> new HashMap<>())
+                                .putIfAbsent(price.getItemId(), price))));
+
+        if (!customerIds.isEmpty()) {
+            // Cross product of customers and items may over-fetch slightly; lookups are keyed exactly
+            inChunks(customerIds, customerChunk -> inChunks(customerItemIds, itemChunk ->
+                    customerPricingRepository.findActiveCustomerPricingForItems(
+                                    customerChunk, itemChunk, Status.ACTIVE, now)
+                            .forEach(pricing -> book.customerPrices
+                                    .computeIfAbsent(pricing.getCustomerId(), k -> new HashMap<>())
+                                    .putIfAbsent(pricing.getItemId(), pricing))));
+        }
+
+        log.debug("Resolved prices for {} baskets across {} price types", requests.size(), itemsByPriceType.size());
+        return book;
+    }
+
+    private static void inChunks(Collection<Long> ids, Consumer<List<Long>> action) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Long> all = new ArrayList<>(ids);
+        for (int from = 0; from < all.size(); from += IN_CLAUSE_CHUNK) {
+            action.accept(all.subList(from, Math.min(from + IN_CLAUSE_CHUNK, all.size())));
+        }
+    }
+
+    /**
+     * Prices resolved for a set of baskets, looked up without further queries
+     */
+    public static class PriceBook {
+
+        private final Map<Long, Map<Long, ItemPrice>> typePrices;
+        private final Map<Long, Map<Long, CustomerPricing>> customerPrices;
+
+        public PriceBook() {
+            this(new HashMap<>(), new HashMap<>());
+        }
+
+        /**
+         * Price book over pre-built maps (priceTypeId/customerId -> itemId -> price)
+         */
+        public PriceBook(Map<Long, Map<Long, ItemPrice>> typePrices,
+                         Map<Long, Map<Long, CustomerPricing>> customerPrices) {
+            this.typePrices = typePrices;
+            this.customerPrices = customerPrices;
+        }
+
+        /**
+         * Active price for the item under the price type, or null
+         */
+        public ItemPrice typePrice(Long itemId, Long priceTypeId) {
+            return typePrices.getOrDefault(priceTypeId, Map.of()).get(itemId);
+        }
+
+        /**
+         * Customer-specific special price as a temporary ItemPrice, or null
+         */
+        public ItemPrice customerPrice(Long itemId, Long customerId) {
+            if (customerId == null) {
+                return null;
+            }
+            CustomerPricing customerPricing = customerPrices.getOrDefault(customerId, Map.of()).get(itemId);
+            return customerPricing != null ? toItemPrice(customerPricing) : null;
+        }
+
+        private static ItemPrice toItemPrice(CustomerPricing customerPricing) {
+            // Create temporary ItemPrice from customer pricing
+            ItemPrice tempPrice = new ItemPrice();
+            tempPrice.setItemId(customerPricing.getItemId());
+            tempPrice.setSellingPrice(customerPricing.getSpecialPrice());
+            tempPrice.setCostPrice(BigDecimal.ZERO); // Not relevant for customer pricing
+            tempPrice.setIsTaxable(true);
+            tempPrice.setTaxRate(BigDecimal.ZERO);
+            return tempPrice;
+        }
+    }
+}
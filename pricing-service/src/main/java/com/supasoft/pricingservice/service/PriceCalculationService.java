@@ -3,6 +3,8 @@ package com.supasoft.pricingservice.service;
 import com.supasoft.pricingservice.dto.request.PriceCalculationRequest;
 import com.supasoft.pricingservice.dto.response.PriceCalculationResponse;
 
+import java.util.List;
+
 /**
  * Service interface for complex price calculations
  */
@@ -10,6 +12,11 @@ public interface PriceCalculationService {
     
     PriceCalculationResponse calculatePrice(PriceCalculationRequest request);
     
+    /**
+     * Price many baskets (with their discount and promotion codes) using one set of price lookups
+     */
+    List<PriceCalculationResponse> calculatePrices(List<PriceCalculationRequest> requests);
+    
     PriceCalculationResponse calculatePriceWithDiscounts(
             PriceCalculationRequest request, 
             String discountCode
@@ -1,25 +1,29 @@
 package com.supasoft.pricingservice.service;
 
 import com.supasoft.common.enums.Status;
+import com.supasoft.common.exception.BusinessException;
+import com.supasoft.common.exception.ResourceNotFoundException;
 import com.supasoft.pricingservice.dto.request.PriceCalculationRequest;
+import com.supasoft.pricingservice.dto.request.UsageReservationRequest;
 import com.supasoft.pricingservice.dto.response.PriceCalculationResponse;
-import com.supasoft.pricingservice.entity.CustomerPricing;
 import com.supasoft.pricingservice.entity.Discount;
-import com.supasoft.pricingservice.entity.ItemPrice;
 import com.supasoft.pricingservice.entity.Promotion;
 import com.supasoft.pricingservice.exception.InvalidDiscountException;
-import com.supasoft.pricingservice.exception.PriceNotFoundException;
 import com.supasoft.pricingservice.exception.PromotionExpiredException;
-import com.supasoft.pricingservice.repository.*;
-import com.supasoft.pricingservice.util.PriceCalculator;
+import com.supasoft.pricingservice.pipeline.PricingContext;
+import com.supasoft.pricingservice.pipeline.PricingPipeline;
+import com.supasoft.pricingservice.repository.DiscountRepository;
+import com.supasoft.pricingservice.repository.PromotionRepository;
+import com.supasoft.pricingservice.usage.UsageTarget;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Service implementation for complex price calculations
@@ -29,220 +33,143 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PriceCalculationServiceImpl implements PriceCalculationService {
     
-    private final ItemPriceRepository itemPriceRepository;
-    private final CustomerPricingRepository customerPricingRepository;
+    private final ItemPriceResolver itemPriceResolver;
     private final DiscountRepository discountRepository;
     private final PromotionRepository promotionRepository;
-    private final PriceTypeRepository priceTypeRepository;
-    private final PriceCalculator priceCalculator;
+    private final PricingPipeline pricingPipeline;
+    private final UsageService usageService;
     
     @Override
     public PriceCalculationResponse calculatePrice(PriceCalculationRequest request) {
         log.info("Calculating price for {} items", request.getItems().size());
-        
-        PriceCalculationResponse.PriceCalculationResponseBuilder responseBuilder = 
-                PriceCalculationResponse.builder();
-        
-        List<PriceCalculationResponse.ItemPriceDetail> itemDetails = new ArrayList<>();
-        BigDecimal subtotal = BigDecimal.ZERO;
-        BigDecimal totalTax = BigDecimal.ZERO;
-        
-        for (PriceCalculationRequest.ItemCalculation item : request.getItems()) {
-            ItemPrice price = getItemPrice(item.getItemId(), request.getPriceTypeId(), request.getCustomerId());
-            
-            BigDecimal unitPrice = price.getSellingPrice();
-            BigDecimal quantity = item.getQuantity();
-            BigDecimal lineTotal = priceCalculator.calculateLineTotal(quantity, unitPrice);
-            BigDecimal lineTax = BigDecimal.ZERO;
-            
-            if (price.getIsTaxable() && price.getTaxRate() != null) {
-                lineTax = priceCalculator.calculateTaxAmount(lineTotal, price.getTaxRate());
+        return price(request, null, null, false);
+    }
+    
+    @Override
+    public List<PriceCalculationResponse> calculatePrices(List<PriceCalculationRequest> requests) {
+        log.info("Calculating prices for {} baskets", requests.size());
+        
+        ItemPriceResolver.PriceBook priceBook = itemPriceResolver.resolve(requests);
+        // Unknown and expired codes are remembered too, so each is looked up once per batch
+        Map<String, Lookup<Discount>> discounts = new HashMap<>();
+        Map<String, Lookup<Promotion>> promotions = new HashMap<>();
+        
+        List<PriceCalculationResponse> responses = new ArrayList<>(requests.size());
+        for (PriceCalculationRequest request : requests) {
+            PricingContext context = new PricingContext(request, priceBook,
+                    code -> discounts.computeIfAbsent(code, c -> Lookup.of(c, this::findDiscount)).get(),
+                    code -> promotions.computeIfAbsent(code, c -> Lookup.of(c, this::findPromotion)).get());
+            try {
+                responses.add(reserveUsage(request, pricingPipeline.run(context).toResponse()));
+            } catch (BusinessException | ResourceNotFoundException e) {
+                log.debug("Basket {} not priced: {}", responses.size(), e.getMessage());
+                responses.add(rejected(request, e));
             }
-            
-            PriceCalculationResponse.ItemPriceDetail detail = PriceCalculationResponse.ItemPriceDetail.builder()
-                    .itemId(item.getItemId())
-                    .quantity(quantity)
-                    .unitPrice(unitPrice)
-                    .originalPrice(unitPrice)
-                    .discountedPrice(unitPrice)
-                    .lineTotal(lineTotal)
-                    .taxAmount(lineTax)
-                    .lineDiscount(BigDecimal.ZERO)
-                    .linePromotion(BigDecimal.ZERO)
-                    .priceSource("REGULAR")
-                    .build();
-            
-            itemDetails.add(detail);
-            subtotal = subtotal.add(lineTotal);
-            totalTax = totalTax.add(lineTax);
         }
-        
-        return responseBuilder
-                .subtotal(subtotal)
-                .discountAmount(BigDecimal.ZERO)
-                .promotionAmount(BigDecimal.ZERO)
-                .taxAmount(totalTax)
-                .totalAmount(subtotal.add(totalTax))
-                .items(itemDetails)
-                .appliedDiscounts(new ArrayList<>())
-                .appliedPromotions(new ArrayList<>())
-                .build();
+        return responses;
     }
     
     @Override
     public PriceCalculationResponse calculatePriceWithDiscounts(PriceCalculationRequest request, String discountCode) {
         log.info("Calculating price with discount: {}", discountCode);
-        
-        PriceCalculationResponse baseCalculation = calculatePrice(request);
-        
-        if (discountCode == null || discountCode.isBlank()) {
-            return baseCalculation;
-        }
-        
-        Discount discount = discountRepository.findByCodeAndStatus(discountCode, Status.ACTIVE)
-                .orElseThrow(() -> new InvalidDiscountException("Discount not found or inactive: " + discountCode));
-        
-        if (!discount.isActive()) {
-            throw new InvalidDiscountException(discountCode, "Discount is not active or has expired");
-        }
-        
-        if (!priceCalculator.isDiscountApplicable(discount, baseCalculation.getSubtotal())) {
-            throw new InvalidDiscountException(discountCode, "Discount not applicable for this purchase amount");
-        }
-        
-        BigDecimal discountAmount = priceCalculator.calculateDiscountAmount(baseCalculation.getSubtotal(), discount);
-        BigDecimal newSubtotal = baseCalculation.getSubtotal().subtract(discountAmount);
-        BigDecimal newTotal = newSubtotal.add(baseCalculation.getTaxAmount());
-        
-        List<PriceCalculationResponse.AppliedDiscount> appliedDiscounts = new ArrayList<>();
-        appliedDiscounts.add(PriceCalculationResponse.AppliedDiscount.builder()
-                .code(discount.getCode())
-                .name(discount.getName())
-                .amount(discountAmount)
-                .applicationType(discount.getDiscountType().name())
-                .build());
-        
-        return PriceCalculationResponse.builder()
-                .subtotal(baseCalculation.getSubtotal())
-                .discountAmount(discountAmount)
-                .promotionAmount(BigDecimal.ZERO)
-                .taxAmount(baseCalculation.getTaxAmount())
-                .totalAmount(newTotal)
-                .discountCode(discountCode)
-                .items(baseCalculation.getItems())
-                .appliedDiscounts(appliedDiscounts)
-                .appliedPromotions(new ArrayList<>())
-                .build();
+        return price(request, discountCode, null, false);
     }
     
     @Override
     public PriceCalculationResponse calculatePriceWithPromotions(PriceCalculationRequest request, String promotionCode) {
         log.info("Calculating price with promotion: {}", promotionCode);
-        
-        PriceCalculationResponse baseCalculation = calculatePrice(request);
-        
-        if (promotionCode == null || promotionCode.isBlank()) {
-            return baseCalculation;
+        return price(request, null, promotionCode, false);
+    }
+    
+    @Override
+    public PriceCalculationResponse calculatePriceWithAll(PriceCalculationRequest request) {
+        log.info("Calculating price with all applicable discounts and promotions");
+        return price(request, request.getDiscountCode(), request.getPromotionCode(), true);
+    }
+    
+    /**
+     * Resolve the basket once and run it through the pipeline with the given codes
+     */
+    private PriceCalculationResponse price(PriceCalculationRequest request,
+                                           String discountCode,
+                                           String promotionCode,
+                                           boolean automaticPromotions) {
+        PricingContext context = new PricingContext(
+                request, itemPriceResolver.resolve(request), this::findDiscount, this::findPromotion);
+        context.setDiscountCode(discountCode);
+        context.setPromotionCode(promotionCode);
+        context.setAutomaticPromotions(automaticPromotions);
+        return reserveUsage(request, pricingPipeline.run(context).toResponse());
+    }
+    
+    /**
+     * At checkout, hold a use of everything the basket was given so usage limits
+     * cannot be overrun between pricing and payment
+     */
+    private PriceCalculationResponse reserveUsage(PriceCalculationRequest request, PriceCalculationResponse response) {
+        if (!request.isReserveUsage()) {
+            return response;
         }
-        
-        Promotion promotion = promotionRepository.findByCodeAndStatus(promotionCode, Status.ACTIVE)
-                .orElseThrow(() -> new PromotionExpiredException("Promotion not found or inactive: " + promotionCode));
-        
-        if (!promotion.isActive()) {
-            throw new PromotionExpiredException(promotionCode);
+        List<UsageReservationRequest> uses = new ArrayList<>();
+        for (PriceCalculationResponse.AppliedDiscount discount : response.getAppliedDiscounts()) {
+            uses.add(new UsageReservationRequest(UsageTarget.DISCOUNT, discount.getCode(), request.getCustomerId()));
         }
-        
-        if (!priceCalculator.isPromotionApplicable(promotion, baseCalculation.getSubtotal())) {
-            throw new PromotionExpiredException("Promotion not applicable for this purchase amount");
+        for (PriceCalculationResponse.AppliedPromotion promotion : response.getAppliedPromotions()) {
+            uses.add(new UsageReservationRequest(UsageTarget.PROMOTION, promotion.getCode(), request.getCustomerId()));
         }
-        
-        BigDecimal promotionAmount = priceCalculator.calculatePromotionAmount(baseCalculation.getSubtotal(), promotion);
-        BigDecimal newSubtotal = baseCalculation.getSubtotal().subtract(promotionAmount);
-        BigDecimal newTotal = newSubtotal.add(baseCalculation.getTaxAmount());
-        
-        List<PriceCalculationResponse.AppliedPromotion> appliedPromotions = new ArrayList<>();
-        appliedPromotions.add(PriceCalculationResponse.AppliedPromotion.builder()
-                .code(promotion.getCode())
-                .name(promotion.getName())
-                .amount(promotionAmount)
-                .promotionType(promotion.getPromotionType().name())
-                .build());
-        
+        response.setUsageReservations(usageService.reserveAll(uses));
+        return response;
+    }
+    
+    private static PriceCalculationResponse rejected(PriceCalculationRequest request, RuntimeException e) {
         return PriceCalculationResponse.builder()
-                .subtotal(baseCalculation.getSubtotal())
-                .discountAmount(BigDecimal.ZERO)
-                .promotionAmount(promotionAmount)
-                .taxAmount(baseCalculation.getTaxAmount())
-                .totalAmount(newTotal)
-                .promotionCode(promotionCode)
-                .items(baseCalculation.getItems())
-                .appliedDiscounts(new ArrayList<>())
-                .appliedPromotions(appliedPromotions)
+                .discountCode(request.getDiscountCode())
+                .promotionCode(request.getPromotionCode())
+                .items(List.of())
+                .appliedDiscounts(List.of())
+                .appliedPromotions(List.of())
+                .error(e.getMessage())
                 .build();
     }
     
-    @Override
-    public PriceCalculationResponse calculatePriceWithAll(PriceCalculationRequest request) {
-        log.info("Calculating price with all applicable discounts and promotions");
-        
-        PriceCalculationResponse calculation = calculatePrice(request);
+    private Discount findDiscount(String discountCode) {
+        Discount discount = discountRepository.findByCodeAndStatus(discountCode, Status.ACTIVE)
+                .orElseThrow(() -> new InvalidDiscountException("Discount not found or inactive: " + discountCode));
         
-        // Apply discount if provided
-        if (request.getDiscountCode() != null && !request.getDiscountCode().isBlank()) {
-            calculation = calculatePriceWithDiscounts(request, request.getDiscountCode());
+        if (!discount.isActive()) {
+            throw new InvalidDiscountException(discountCode, "Discount is not active or has expired");
         }
+        return discount;
+    }
+    
+    private Promotion findPromotion(String promotionCode) {
+        Promotion promotion = promotionRepository.findByCodeAndStatus(promotionCode, Status.ACTIVE)
+                .orElseThrow(() -> new PromotionExpiredException("Promotion not found or inactive: " + promotionCode));
         
-        // Apply promotion if provided (cumulative if allowed)
-        if (request.getPromotionCode() != null && !request.getPromotionCode().isBlank()) {
-            PriceCalculationResponse promotionCalc = calculatePriceWithPromotions(request, request.getPromotionCode());
-            
-            // Combine discount and promotion
-            BigDecimal totalDiscount = calculation.getDiscountAmount().add(promotionCalc.getPromotionAmount());
-            BigDecimal newTotal = calculation.getSubtotal()
-                    .subtract(calculation.getDiscountAmount())
-                    .subtract(promotionCalc.getPromotionAmount())
-                    .add(calculation.getTaxAmount());
-            
-            return PriceCalculationResponse.builder()
-                    .subtotal(calculation.getSubtotal())
-                    .discountAmount(calculation.getDiscountAmount())
-                    .promotionAmount(promotionCalc.getPromotionAmount())
-                    .taxAmount(calculation.getTaxAmount())
-                    .totalAmount(newTotal)
-                    .discountCode(request.getDiscountCode())
-                    .promotionCode(request.getPromotionCode())
-                    .items(calculation.getItems())
-                    .appliedDiscounts(calculation.getAppliedDiscounts())
-                    .appliedPromotions(promotionCalc.getAppliedPromotions())
-                    .build();
+        if (!promotion.isActive()) {
+            throw new PromotionExpiredException(promotionCode);
         }
-        
-        return calculation;
+        return promotion;
     }
     
-    private ItemPrice getItemPrice(Long itemId, Long priceTypeId, Long customerId) {
-        // Check for customer-specific pricing first
-        if (customerId != null) {
-            CustomerPricing customerPricing = customerPricingRepository
-                    .findActiveCustomerPricing(customerId, itemId, Status.ACTIVE, LocalDateTime.now())
-                    .orElse(null);
-            
-            if (customerPricing != null) {
-                // Create temporary ItemPrice from customer pricing
-                ItemPrice tempPrice = new ItemPrice();
-                tempPrice.setItemId(itemId);
-                tempPrice.setSellingPrice(customerPricing.getSpecialPrice());
-                tempPrice.setCostPrice(BigDecimal.ZERO); // Not relevant for customer pricing
-                tempPrice.setIsTaxable(true);
-                tempPrice.setTaxRate(BigDecimal.ZERO);
-                return tempPrice;
+    /**
+     * Outcome of looking up one code: the entity, or the business error to raise for every basket using it
+     */
+    private record Lookup<T>(T value, BusinessException error) {
+        
+        static <T> Lookup<T> of(String code, Function<String, T> finder) {
+            try {
+                return new Lookup<>(finder.apply(code), null);
+            } catch (BusinessException e) {
+                return new Lookup<>(null, e);
             }
         }
         
-        // Fall back to regular item pricing
-        return itemPriceRepository.findActiveItemPriceByType(
-                itemId, priceTypeId, Status.ACTIVE, LocalDateTime.now()
-        ).orElseThrow(() -> new PriceNotFoundException(itemId, priceTypeId));
+        T get() {
+            if (error != null) {
+                throw error;
+            }
+            return value;
+        }
     }
 }
-
@@ -12,10 +12,12 @@ import com.supasoft.pricingservice.mapper.PricingMapper;
 import com.supasoft.pricingservice.repository.ItemPriceRepository;
 import com.supasoft.pricingservice.repository.PriceHistoryRepository;
 import com.supasoft.pricingservice.repository.PriceTypeRepository;
+import com.supasoft.pricingservice.snapshot.PriceDataChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -37,6 +39,7 @@ public class PricingServiceImpl implements PricingService {
     private final PriceTypeRepository priceTypeRepository;
     private final PriceHistoryRepository priceHistoryRepository;
     private final PricingMapper pricingMapper;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Override
     @Transactional
@@ -61,6 +64,7 @@ public class PricingServiceImpl implements PricingService {
         }
         
         ItemPrice savedPrice = itemPriceRepository.save(itemPrice);
+        eventPublisher.publishEvent(new PriceDataChangedEvent(savedPrice.getItemId()));
         
         log.info("Price created successfully with ID: {}", savedPrice.getId());
         
@@ -84,6 +88,7 @@ public class PricingServiceImpl implements PricingService {
         pricingMapper.updateEntity(request, itemPrice);
         
         ItemPrice updatedPrice = itemPriceRepository.save(itemPrice);
+        eventPublisher.publishEvent(new PriceDataChangedEvent(updatedPrice.getItemId()));
         
         log.info("Price updated successfully with ID: {}", id);
         
@@ -145,6 +150,7 @@ public class PricingServiceImpl implements PricingService {
         
         itemPrice.setStatus(Status.INACTIVE);
         itemPriceRepository.save(itemPrice);
+        eventPublisher.publishEvent(new PriceDataChangedEvent(itemPrice.getItemId()));
         
         log.info("Price deleted successfully with ID: {}", id);
     }
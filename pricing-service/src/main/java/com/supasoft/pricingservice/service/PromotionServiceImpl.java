@@ -7,10 +7,14 @@ import com.supasoft.pricingservice.entity.Promotion;
 import com.supasoft.pricingservice.entity.PromotionItem;
 import com.supasoft.pricingservice.exception.PromotionExpiredException;
 import com.supasoft.pricingservice.mapper.PromotionMapper;
+import com.supasoft.pricingservice.promotion.PromotionChangedEvent;
 import com.supasoft.pricingservice.repository.PromotionRepository;
+import com.supasoft.pricingservice.usage.UsageCounter;
+import com.supasoft.pricingservice.usage.UsageTarget;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -31,6 +35,8 @@ public class PromotionServiceImpl implements PromotionService {
     
     private final PromotionRepository promotionRepository;
     private final PromotionMapper promotionMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UsageCounter usageCounter;
     
     @Override
     @Transactional
@@ -54,6 +60,7 @@ public class PromotionServiceImpl implements PromotionService {
         }
         
         Promotion savedPromotion = promotionRepository.save(promotion);
+        eventPublisher.publishEvent(new PromotionChangedEvent(savedPromotion.getId()));
         
         log.info("Promotion created successfully with ID: {}", savedPromotion.getId());
         
@@ -93,6 +100,7 @@ public class PromotionServiceImpl implements PromotionService {
         promotion.setPerCustomerLimit(request.getPerCustomerLimit());
         promotion.setPriority(request.getPriority());
         promotion.setIsCumulative(request.getIsCumulative());
+        promotion.setAutoApply(Boolean.TRUE.equals(request.getAutoApply()));
         
         if (request.getStatus() != null) {
             promotion.setStatus(request.getStatus());
@@ -106,6 +114,7 @@ public class PromotionServiceImpl implements PromotionService {
         }
         
         Promotion updatedPromotion = promotionRepository.save(promotion);
+        eventPublisher.publishEvent(new PromotionChangedEvent(id));
         
         log.info("Promotion updated successfully with ID: {}", id);
         
@@ -179,12 +188,13 @@ public class PromotionServiceImpl implements PromotionService {
         
         promotion.setStatus(Status.INACTIVE);
         promotionRepository.save(promotion);
+        eventPublisher.publishEvent(new PromotionChangedEvent(id));
         
         log.info("Promotion deleted successfully with ID: {}", id);
     }
     
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     @CacheEvict(value = "promotions", key = "#promotionCode")
     public void incrementUsageCount(String promotionCode) {
         log.debug("Incrementing usage count for promotion: {}", promotionCode);
@@ -192,8 +202,10 @@ public class PromotionServiceImpl implements PromotionService {
         Promotion promotion = promotionRepository.findByCode(promotionCode)
                 .orElseThrow(() -> new PromotionExpiredException("Promotion not found: " + promotionCode));
         
-        promotion.setUsageCount(promotion.getUsageCount() + 1);
-        promotionRepository.save(promotion);
+        // Counted atomically in the shared usage counters; usage_count is written back in batches
+        usageCounter.record(UsageTarget.PROMOTION, promotion.getId(), promotion.getCode(), null,
+                promotion.getUsageLimit(), promotion.getPerCustomerLimit(),
+                promotion.getUsageCount() != null ? promotion.getUsageCount() : 0, promotion.getEndDate());
     }
     
     @Override
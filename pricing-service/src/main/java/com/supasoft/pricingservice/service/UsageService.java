@@ -0,0 +1,26 @@
+package com.supasoft.pricingservice.service;
+
+import com.supasoft.pricingservice.dto.request.UsageReservationRequest;
+import com.supasoft.pricingservice.dto.response.UsageReservationResponse;
+
+import java.util.List;
+
+/**
+ * Service interface for promotion and discount usage reservations
+ */
+public interface UsageService {
+    
+    /**
+     * Hold one use against the usage and per-customer limits until committed or released
+     */
+    UsageReservationResponse reserve(UsageReservationRequest request);
+    
+    /**
+     * Hold one use of each target, or none of them if any limit has been reached
+     */
+    List<UsageReservationResponse> reserveAll(List<UsageReservationRequest> requests);
+    
+    void commit(String token);
+    
+    void release(String token);
+}
@@ -0,0 +1,104 @@
+package com.supasoft.pricingservice.service;
+
+import com.supasoft.common.exception.BusinessException;
+import com.supasoft.pricingservice.dto.request.UsageReservationRequest;
+import com.supasoft.pricingservice.dto.response.UsageReservationResponse;
+import com.supasoft.pricingservice.entity.Discount;
+import com.supasoft.pricingservice.entity.Promotion;
+import com.supasoft.pricingservice.exception.InvalidDiscountException;
+import com.supasoft.pricingservice.exception.PromotionExpiredException;
+import com.supasoft.pricingservice.repository.DiscountRepository;
+import com.supasoft.pricingservice.repository.PromotionRepository;
+import com.supasoft.pricingservice.usage.UsageCounter;
+import com.supasoft.pricingservice.usage.UsageReservation;
+import com.supasoft.pricingservice.usage.UsageTarget;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service implementation for usage reservations, backed by the shared usage counters
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UsageServiceImpl implements UsageService {
+    
+    private final PromotionRepository promotionRepository;
+    private final DiscountRepository discountRepository;
+    private final UsageCounter usageCounter;
+    
+    @Override
+    @Transactional(readOnly = true)
+    public UsageReservationResponse reserve(UsageReservationRequest request) {
+        log.debug("Reserving {} use of {} for customer {}",
+                request.getTargetType(), request.getCode(), request.getCustomerId());
+        
+        UsageReservation reservation;
+        if (request.getTargetType() == UsageTarget.PROMOTION) {
+            Promotion promotion = promotionRepository.findByCode(request.getCode())
+                    .orElseThrow(() -> new PromotionExpiredException("Promotion not found: " + request.getCode()));
+            if (!promotion.isActive()) {
+                throw PromotionExpiredException.forCode(request.getCode());
+            }
+            reservation = usageCounter.reserve(UsageTarget.PROMOTION, promotion.getId(), promotion.getCode(),
+                    request.getCustomerId(), promotion.getUsageLimit(), promotion.getPerCustomerLimit(),
+                    usageCount(promotion.getUsageCount()), promotion.getEndDate());
+        } else {
+            Discount discount = discountRepository.findByCode(request.getCode())
+                    .orElseThrow(() -> new InvalidDiscountException("Discount not found: " + request.getCode()));
+            if (!discount.isActive()) {
+                throw new InvalidDiscountException(request.getCode(), "discount is not active");
+            }
+            reservation = usageCounter.reserve(UsageTarget.DISCOUNT, discount.getId(), discount.getCode(),
+                    request.getCustomerId(), discount.getUsageLimit(), discount.getPerCustomerLimit(),
+                    usageCount(discount.getUsageCount()), discount.getEndDate());
+        }
+        
+        return UsageReservationResponse.builder()
+                .token(reservation.getToken())
+                .targetType(reservation.getTarget())
+                .targetId(reservation.getTargetId())
+                .code(request.getCode())
+                .customerId(reservation.getCustomerId())
+                .expiresAt(reservation.getExpiresAt())
+                .build();
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<UsageReservationResponse> reserveAll(List<UsageReservationRequest> requests) {
+        List<UsageReservationResponse> reserved = new ArrayList<>(requests.size());
+        try {
+            for (UsageReservationRequest request : requests) {
+                reserved.add(reserve(request));
+            }
+        } catch (RuntimeException e) {
+            reserved.forEach(reservation -> release(reservation.getToken()));
+            throw e;
+        }
+        return reserved;
+    }
+    
+    @Override
+    public void commit(String token) {
+        if (!usageCounter.commit(token)) {
+            throw new BusinessException("Usage reservation has expired or was released: " + token);
+        }
+    }
+    
+    @Override
+    public void release(String token) {
+        if (!usageCounter.release(token)) {
+            log.debug("Usage reservation {} was already committed, released or expired", token);
+        }
+    }
+    
+    private static int usageCount(Integer usageCount) {
+        return usageCount != null ? usageCount : 0;
+    }
+}
@@ -0,0 +1,11 @@
+package com.supasoft.pricingservice.snapshot;
+
+import lombok.Value;
+
+/**
+ * Published when an item price changes, so the pricing snapshot is rebuilt
+ */
+@Value
+public class PriceDataChangedEvent {
+    Long itemId;
+}
@@ -0,0 +1,29 @@
+package com.supasoft.pricingservice.snapshot;
+
+import com.supasoft.pricingservice.service.ItemPriceResolver;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable view of every price and customer price valid in [validFrom, validUntil).
+ * No price starts or expires inside the window, so lookups need no date checks.
+ * Entities inside are detached and shared; treat them as read-only.
+ */
+@Value
+public class PricingSnapshot {
+
+    LocalDateTime validFrom;
+
+    LocalDateTime validUntil;
+
+    ItemPriceResolver.PriceBook priceBook;
+
+    int priceCount;
+
+    int customerPriceCount;
+
+    public boolean covers(LocalDateTime instant) {
+        return !instant.isBefore(validFrom) && instant.isBefore(validUntil);
+    }
+}
@@ -0,0 +1,244 @@
+package com.supasoft.pricingservice.snapshot;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.pricingservice.entity.CustomerPricing;
+import com.supasoft.pricingservice.entity.ItemPrice;
+import com.supasoft.pricingservice.repository.CustomerPricingRepository;
+import com.supasoft.pricingservice.repository.ItemPriceRepository;
+import com.supasoft.pricingservice.service.ItemPriceResolver;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the current {@link PricingSnapshot} and rolls it over at the next
+ * effective/expiry boundary.
+ *
+ * After each swap the next boundary is computed, the following snapshot is built
+ * {@code prebuild-lead} ahead of it and swapped in at the boundary itself, so readers
+ * never wait on a rebuild. Snapshots are also capped at {@code max-age} to pick up
+ * changes made outside this service, and are rebuilt (debounced) after price edits.
+ * Builds and swaps run as one-off tasks on the shared task scheduler.
+ */
+@Slf4j
+@Component
+public class PricingSnapshotManager implements MessageListener {
+
+    public static final String SYNC_CHANNEL = "supasoft:pricing:prices";
+
+    /**
+     * Expiry dates are inclusive; a price disappears just after its expiry instant
+     */
+    private static final Duration EXPIRY_RESOLUTION = Duration.ofNanos(1_000);
+
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final ItemPriceRepository itemPriceRepository;
+    private final CustomerPricingRepository customerPricingRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final TaskScheduler taskScheduler;
+
+    private final Duration prebuildLead;
+    private final Duration maxAge;
+    private final Duration rebuildDebounce;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private volatile PricingSnapshot current;
+
+    // Guarded by this
+    private ScheduledFuture<?> pendingRollover;
+    private ScheduledFuture<?> pendingRebuild;
+
+    public PricingSnapshotManager(ItemPriceRepository itemPriceRepository,
+                                  CustomerPricingRepository customerPricingRepository,
+                                  StringRedisTemplate redisTemplate,
+                                  TaskScheduler taskScheduler,
+                                  @Value("${pricing.snapshot.prebuild-lead:30s}") Duration prebuildLead,
+                                  @Value("${pricing.snapshot.max-age:15m}") Duration maxAge,
+                                  @Value("${pricing.snapshot.rebuild-debounce:2s}") Duration rebuildDebounce) {
+        this.itemPriceRepository = itemPriceRepository;
+        this.customerPricingRepository = customerPricingRepository;
+        this.redisTemplate = redisTemplate;
+        this.taskScheduler = taskScheduler;
+        this.prebuildLead = prebuildLead;
+        this.maxAge = maxAge;
+        this.rebuildDebounce = rebuildDebounce;
+    }
+
+    /**
+     * Snapshot valid at the given instant, or null if none is (caller falls back to the database)
+     */
+    public PricingSnapshot current(LocalDateTime instant) {
+        PricingSnapshot snapshot = current;
+        return snapshot != null && snapshot.covers(instant) ? snapshot : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        schedule(this::rebuild, 0);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        cancel(pendingRollover);
+        cancel(pendingRebuild);
+    }
+
+    /**
+     * Build a snapshot for now, swap it in and schedule the next rollover
+     */
+    public synchronized void rebuild() {
+        cancel(pendingRollover);
+        pendingRebuild = null;
+        try {
+            current = build(LocalDateTime.now());
+            scheduleRollover(current);
+        } catch (Exception e) {
+            log.error("Failed to build pricing snapshot, retrying in {}", RETRY_DELAY, e);
+            pendingRollover = schedule(this::rebuild, RETRY_DELAY.toMillis());
+        }
+    }
+
+    /**
+     * Coalesce bursts of price edits into one rebuild
+     */
+    public synchronized void requestRebuild() {
+        if (pendingRebuild == null || pendingRebuild.isDone()) {
+            pendingRebuild = schedule(this::rebuild, rebuildDebounce.toMillis());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceDataChanged(PriceDataChangedEvent event) {
+        requestRebuild();
+        try {
+            redisTemplate.convertAndSend(SYNC_CHANNEL, instanceId + "|" + event.getItemId());
+        } catch (Exception e) {
+            log.warn("Failed to broadcast price change for item {}: {}", event.getItemId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild after another replica changed a price
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8).replace("\"", "");
+        if (!body.startsWith(instanceId + "|")) {
+            requestRebuild();
+        }
+    }
+
+    private void scheduleRollover(PricingSnapshot snapshot) {
+        long untilBoundary = millisUntil(snapshot.getValidUntil());
+        long delay = Math.max(0, untilBoundary - prebuildLead.toMillis());
+        pendingRollover = schedule(() -> prebuild(snapshot), delay);
+        log.debug("Next pricing snapshot at {} (prebuild in {} ms)", snapshot.getValidUntil(), delay);
+    }
+
+    /**
+     * Build the snapshot that starts at the current one's boundary, then swap at the boundary
+     */
+    private void prebuild(PricingSnapshot expected) {
+        PricingSnapshot next;
+        try {
+            next = build(expected.getValidUntil());
+        } catch (Exception e) {
+            log.error("Failed to pre-build pricing snapshot for {}", expected.getValidUntil(), e);
+            synchronized (this) {
+                if (current == expected) {
+                    pendingRollover = schedule(this::rebuild, RETRY_DELAY.toMillis());
+                }
+            }
+            return;
+        }
+
+        synchronized (this) {
+            // A rebuild replaced the snapshot while we were building; its own rollover is scheduled
+            if (current != expected) {
+                return;
+            }
+            pendingRollover = schedule(() -> swap(expected, next), millisUntil(expected.getValidUntil()));
+        }
+    }
+
+    private synchronized void swap(PricingSnapshot expected, PricingSnapshot next) {
+        if (current != expected) {
+            return;
+        }
+        current = next;
+        log.info("Pricing snapshot rolled over at {}: {} prices, {} customer prices, valid until {}",
+                next.getValidFrom(), next.getPriceCount(), next.getCustomerPriceCount(), next.getValidUntil());
+        scheduleRollover(next);
+    }
+
+    private PricingSnapshot build(LocalDateTime at) {
+        long start = System.currentTimeMillis();
+
+        Map<Long, Map<Long, ItemPrice>> typePrices = new HashMap<>();
+        int priceCount = 0;
+        for (ItemPrice price : itemPriceRepository.findAllActiveAt(Status.ACTIVE, at)) {
+            typePrices.computeIfAbsent(price.getPriceType().getId(), k -> new HashMap<>())
+                    .putIfAbsent(price.getItemId(), price);
+            priceCount++;
+        }
+
+        Map<Long, Map<Long, CustomerPricing>> customerPrices = new HashMap<>();
+        int customerPriceCount = 0;
+        for (CustomerPricing pricing : customerPricingRepository.findAllActiveAt(Status.ACTIVE, at)) {
+            customerPrices.computeIfAbsent(pricing.getCustomerId(), k -> new HashMap<>())
+                    .putIfAbsent(pricing.getItemId(), pricing);
+            customerPriceCount++;
+        }
+
+        LocalDateTime cap = at.plus(maxAge);
+        LocalDateTime validUntil = Stream.of(
+                        itemPriceRepository.findNextEffectiveDate(Status.ACTIVE, at),
+                        itemPriceRepository.findNextExpiryDate(Status.ACTIVE, at).map(d -> d.plus(EXPIRY_RESOLUTION)),
+                        customerPricingRepository.findNextEffectiveDate(Status.ACTIVE, at),
+                        customerPricingRepository.findNextExpiryDate(Status.ACTIVE, at).map(d -> d.plus(EXPIRY_RESOLUTION)))
+                .flatMap(Optional::stream)
+                .filter(boundary -> boundary.isAfter(at))
+                .min(LocalDateTime::compareTo)
+                .filter(boundary -> boundary.isBefore(cap))
+                .orElse(cap);
+
+        log.debug("Built pricing snapshot for {} in {} ms", at, System.currentTimeMillis() - start);
+        return new PricingSnapshot(at, validUntil,
+                new ItemPriceResolver.PriceBook(typePrices, customerPrices), priceCount, customerPriceCount);
+    }
+
+    private static long millisUntil(LocalDateTime instant) {
+        return Math.max(0, Duration.between(LocalDateTime.now(), instant).toMillis());
+    }
+
+    private ScheduledFuture<?> schedule(Runnable task, long delayMillis) {
+        return taskScheduler.schedule(task, Instant.now().plusMillis(delayMillis));
+    }
+
+    private static void cancel(ScheduledFuture<?> future) {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+}
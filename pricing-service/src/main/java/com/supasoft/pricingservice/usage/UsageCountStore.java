@@ -0,0 +1,76 @@
+package com.supasoft.pricingservice.usage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Durable side of the usage counters: set-based increments of usage_count and
+ * per-customer counts, applied in batches by the write-back.
+ *
+ * Rows are always updated in ascending key order so concurrent flushes from
+ * different replicas cannot deadlock.
+ */
+@Component
+@RequiredArgsConstructor
+public class UsageCountStore {
+
+    private static final String UPSERT_CUSTOMER_USAGE =
+            "INSERT INTO customer_usage_counts (target_type, target_id, customer_id, usage_count) "
+                    + "VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE usage_count = usage_count + VALUES(usage_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Transactional(readOnly = true)
+    public int findCustomerUsage(UsageTarget target, Long targetId, Long customerId) {
+        List<Integer> counts = jdbcTemplate.queryForList(
+                "SELECT usage_count FROM customer_usage_counts "
+                        + "WHERE target_type = ? AND target_id = ? AND customer_id = ?",
+                Integer.class, target.name(), targetId, customerId);
+        return counts.isEmpty() ? 0 : counts.get(0);
+    }
+
+    /**
+     * Add the given deltas and return the ids that have now reached their usage limit
+     *
+     * @param totals         targetId -> uses to add to usage_count
+     * @param customerDeltas targetId -> (customerId -> uses), both levels sorted
+     */
+    @Transactional
+    public Set<Long> apply(UsageTarget target,
+                           SortedMap<Long, Integer> totals,
+                           SortedMap<Long, SortedMap<Long, Integer>> customerDeltas) {
+        if (!totals.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(totals.size());
+            totals.forEach((id, delta) -> args.add(new Object[]{delta, id}));
+            jdbcTemplate.batchUpdate(
+                    "UPDATE " + target.getTable() + " SET usage_count = usage_count + ? WHERE id = ?", args);
+        }
+
+        if (!customerDeltas.isEmpty()) {
+            List<Object[]> args = new ArrayList<>();
+            customerDeltas.forEach((id, byCustomer) -> byCustomer.forEach((customerId, delta) ->
+                    args.add(new Object[]{target.name(), id, customerId, delta})));
+            jdbcTemplate.batchUpdate(UPSERT_CUSTOMER_USAGE, args);
+        }
+
+        if (totals.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "SELECT id FROM " + target.getTable()
+                        + " WHERE id IN (:ids) AND usage_limit IS NOT NULL AND usage_count >= usage_limit",
+                new MapSqlParameterSource("ids", totals.keySet()), Long.class));
+    }
+}
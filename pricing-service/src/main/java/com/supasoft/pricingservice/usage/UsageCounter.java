@@ -0,0 +1,363 @@
+package com.supasoft.pricingservice.usage;
+
+import com.supasoft.common.exception.BusinessException;
+import com.supasoft.pricingservice.discount.DiscountChangedEvent;
+import com.supasoft.pricingservice.exception.UsageLimitExceededException;
+import com.supasoft.pricingservice.promotion.PromotionChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Usage counters for promotions and discounts, shared by all replicas through Redis.
+ *
+ * Limits are enforced by Lua scripts that check and increment atomically, so
+ * concurrent checkouts never read-modify-write the database row. A use is first
+ * reserved (counted against the limits, expiring after {@code reservation-ttl}),
+ * then committed or released. Committed uses are queued per target and written
+ * back to MySQL every {@code flush-interval} as batched increments.
+ *
+ * Key layout per target, hash-tagged so one target's keys share a cluster slot:
+ * {@code usage:{PROMOTION:12}:used}, {@code :reservations}, {@code :customers}
+ * (customer id -> uses) and {@code :pending}; targets with pending uses are listed
+ * in {@code usage:dirty}. Scripts only touch keys passed to them, as Redis Cluster requires.
+ */
+@Slf4j
+@Component
+public class UsageCounter {
+
+    private static final String DIRTY_KEY = "usage:dirty";
+    private static final String ANONYMOUS = "-";
+    private static final String TOTAL_FIELD = "total";
+    private static final String CUSTOMER_FIELD_PREFIX = "customer:";
+
+    private static final long RESERVED = 1;
+    private static final long LIMIT_REACHED = 0;
+    private static final long CUSTOMER_LIMIT_REACHED = -1;
+    private static final long CUSTOMER_SEED_REQUIRED = -2;
+
+    /**
+     * Counters outlive the rule a little so late commits and releases still find them
+     */
+    private static final Duration KEY_GRACE = Duration.ofDays(1);
+
+    private static final RedisScript<Long> RESERVE = script("reserve", Long.class);
+    private static final RedisScript<Long> COMMIT = script("commit", Long.class);
+    private static final RedisScript<Long> RELEASE = script("release", Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> DRAIN = script("drain", List.class);
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> PEEK = script("peek", List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final UsageCountStore usageCountStore;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Duration reservationTtl;
+    private final int flushBatchSize;
+
+    public UsageCounter(StringRedisTemplate redisTemplate,
+                        UsageCountStore usageCountStore,
+                        ApplicationEventPublisher eventPublisher,
+                        @Value("${pricing.usage.reservation-ttl:15m}") Duration reservationTtl,
+                        @Value("${pricing.usage.flush-batch-size:500}") int flushBatchSize) {
+        this.redisTemplate = redisTemplate;
+        this.usageCountStore = usageCountStore;
+        this.eventPublisher = eventPublisher;
+        this.reservationTtl = reservationTtl;
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /**
+     * Last write-back on shutdown, after the scheduled ones have stopped
+     */
+    @PreDestroy
+    public void stop() {
+        flushQuietly();
+    }
+
+    /**
+     * Reserve one use, counting it against both limits until committed, released or expired
+     *
+     * @param code              promotion/discount code, for error messages
+     * @param customerId        null for anonymous use; per-customer limit is then not applied
+     * @param usageLimit        null for unlimited
+     * @param perCustomerLimit  null for unlimited
+     * @param recordedUsage     usage_count from the database, used to seed a missing counter
+     * @param endDate           end of the rule's validity; counters expire a day after it
+     * @throws UsageLimitExceededException if either limit has been reached
+     */
+    public UsageReservation reserve(UsageTarget target, Long targetId, String code, Long customerId,
+                                    Integer usageLimit, Integer perCustomerLimit,
+                                    int recordedUsage, LocalDateTime endDate) {
+        String prefix = prefix(target, targetId);
+        String reservationId = UUID.randomUUID().toString();
+        String customer = customerId != null ? customerId.toString() : ANONYMOUS;
+        long now = System.currentTimeMillis();
+        long expiresAt = now + reservationTtl.toMillis();
+        long keyExpiresAt = Math.max(epochMillis(endDate), now) + KEY_GRACE.toMillis();
+
+        List<String> keys = List.of(prefix + ":used", prefix + ":reservations", prefix + ":customers");
+
+        String customerSeed = "";
+        long result = execute(RESERVE, keys, now, expiresAt, reservationId + ":" + customer,
+                limit(usageLimit), limit(perCustomerLimit), recordedUsage, customer, customerSeed, keyExpiresAt);
+        if (result == CUSTOMER_SEED_REQUIRED) {
+            customerSeed = Integer.toString(usageCountStore.findCustomerUsage(target, targetId, customerId));
+            result = execute(RESERVE, keys, now, expiresAt, reservationId + ":" + customer,
+                    limit(usageLimit), limit(perCustomerLimit), recordedUsage, customer, customerSeed, keyExpiresAt);
+        }
+
+        if (result == LIMIT_REACHED) {
+            throw UsageLimitExceededException.forTarget(code);
+        }
+        if (result == CUSTOMER_LIMIT_REACHED) {
+            throw UsageLimitExceededException.forCustomer(code, customerId);
+        }
+        if (result != RESERVED) {
+            throw new IllegalStateException("Unexpected reservation result " + result + " for " + prefix);
+        }
+
+        String token = target.name() + ":" + targetId + ":" + reservationId + ":" + customer;
+        return new UsageReservation(token, target, targetId, customerId,
+                LocalDateTime.now().plus(reservationTtl));
+    }
+
+    /**
+     * Current uses of one target, counting held reservations but not expired ones
+     *
+     * @param customerId null to skip the per-customer count
+     */
+    public Usage usage(UsageTarget target, Long targetId, Long customerId) {
+        String prefix = prefix(target, targetId);
+        List<?> counts = redisTemplate.execute(PEEK,
+                List.of(prefix + ":used", prefix + ":reservations", prefix + ":customers"),
+                Long.toString(System.currentTimeMillis()), customerId != null ? customerId.toString() : ANONYMOUS);
+        if (counts == null || counts.size() < 2) {
+            return Usage.UNKNOWN;
+        }
+        return new Usage(count(counts.get(0)), count(counts.get(1)));
+    }
+
+    /**
+     * Record a reserved use; false if the reservation was already released or reclaimed after expiry
+     */
+    public boolean commit(String token) {
+        Token parsed = Token.parse(token);
+        String prefix = prefix(parsed.target, parsed.targetId);
+        long result = execute(COMMIT, List.of(prefix + ":reservations", prefix + ":pending"),
+                parsed.member(), parsed.customer);
+        if (result == 1) {
+            redisTemplate.opsForSet().add(DIRTY_KEY, parsed.target.name() + ":" + parsed.targetId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Give back a reserved use; false if it was already committed, released or reclaimed
+     */
+    public boolean release(String token) {
+        Token parsed = Token.parse(token);
+        String prefix = prefix(parsed.target, parsed.targetId);
+        List<String> keys = List.of(prefix + ":reservations", prefix + ":used", prefix + ":customers");
+        return execute(RELEASE, keys, parsed.member(), parsed.customer) == 1;
+    }
+
+    /**
+     * Reserve and immediately commit one use
+     */
+    public void record(UsageTarget target, Long targetId, String code, Long customerId,
+                       Integer usageLimit, Integer perCustomerLimit,
+                       int recordedUsage, LocalDateTime endDate) {
+        UsageReservation reservation = reserve(target, targetId, code, customerId,
+                usageLimit, perCustomerLimit, recordedUsage, endDate);
+        commit(reservation.getToken());
+    }
+
+    /**
+     * Write committed uses back to the database.
+     *
+     * Dirty targets are popped atomically, so each pending use is drained by exactly
+     * one replica; if the database write fails the drained deltas are put back.
+     */
+    public void flush() {
+        List<String> dirty;
+        while ((dirty = redisTemplate.opsForSet().pop(DIRTY_KEY, flushBatchSize)) != null && !dirty.isEmpty()) {
+            Map<UsageTarget, Batch> batches = new TreeMap<>();
+            for (String member : dirty) {
+                int separator = member.indexOf(':');
+                UsageTarget target = UsageTarget.valueOf(member.substring(0, separator));
+                Long targetId = Long.valueOf(member.substring(separator + 1));
+                List<?> pending = redisTemplate.execute(DRAIN, List.of(prefix(target, targetId) + ":pending"));
+                if (pending != null && !pending.isEmpty()) {
+                    batches.computeIfAbsent(target, t -> new Batch()).add(targetId, pending);
+                }
+            }
+
+            for (Map.Entry<UsageTarget, Batch> entry : batches.entrySet()) {
+                UsageTarget target = entry.getKey();
+                Batch batch = entry.getValue();
+                Set<Long> exhausted;
+                try {
+                    exhausted = usageCountStore.apply(target, batch.totals, batch.customers);
+                } catch (RuntimeException e) {
+                    log.error("Failed to write back {} usage for {} targets, re-queueing",
+                            target, batch.totals.size(), e);
+                    requeue(target, batch);
+                    continue;
+                }
+                log.debug("Wrote back {} usage for {} targets", target, batch.totals.size());
+                publishExhausted(target, exhausted);
+            }
+
+            if (dirty.size() < flushBatchSize) {
+                return;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pricing.usage.flush-interval:5s}",
+            initialDelayString = "${pricing.usage.flush-interval:5s}")
+    public void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Usage write-back failed", e);
+        }
+    }
+
+    /**
+     * Exhaustion is the only usage change the promotion engine and discount index care about
+     */
+    private void publishExhausted(UsageTarget target, Set<Long> exhausted) {
+        if (exhausted.isEmpty()) {
+            return;
+        }
+        if (target == UsageTarget.PROMOTION) {
+            exhausted.forEach(id -> eventPublisher.publishEvent(new PromotionChangedEvent(id)));
+        } else {
+            // The discount index reloads in full, so one event covers the batch
+            eventPublisher.publishEvent(new DiscountChangedEvent(exhausted.iterator().next()));
+        }
+    }
+
+    private void requeue(UsageTarget target, Batch batch) {
+        batch.totals.forEach((targetId, delta) -> {
+            String pendingKey = prefix(target, targetId) + ":pending";
+            redisTemplate.opsForHash().increment(pendingKey, TOTAL_FIELD, delta);
+            SortedMap<Long, Integer> byCustomer = batch.customers.get(targetId);
+            if (byCustomer != null) {
+                byCustomer.forEach((customerId, customerDelta) -> redisTemplate.opsForHash()
+                        .increment(pendingKey, CUSTOMER_FIELD_PREFIX + customerId, customerDelta));
+            }
+            redisTemplate.opsForSet().add(DIRTY_KEY, target.name() + ":" + targetId);
+        });
+    }
+
+    private long execute(RedisScript<Long> script, List<String> keys, Object... args) {
+        String[] values = new String[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = String.valueOf(args[i]);
+        }
+        Long result = redisTemplate.execute(script, keys, (Object[]) values);
+        return result != null ? result : 0;
+    }
+
+    private static String prefix(UsageTarget target, Long targetId) {
+        return "usage:{" + target.name() + ":" + targetId + "}";
+    }
+
+    private static Integer count(Object reply) {
+        long count = Long.parseLong(String.valueOf(reply));
+        return count >= 0 ? (int) count : null;
+    }
+
+    private static int limit(Integer limit) {
+        return limit != null ? limit : -1;
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static <T> RedisScript<T> script(String name, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("scripts/usage/" + name + ".lua"));
+        script.setResultType(resultType);
+        return script;
+    }
+
+    /**
+     * Live use counts of one target; a count is null where its counter has not been seeded yet,
+     * in which case the database usage_count still applies
+     */
+    public record Usage(Integer used, Integer customerUsed) {
+
+        public static final Usage UNKNOWN = new Usage(null, null);
+    }
+
+    /**
+     * Drained deltas for one target type, sorted by id for deadlock-free updates
+     */
+    private static final class Batch {
+
+        private final SortedMap<Long, Integer> totals = new TreeMap<>();
+        private final SortedMap<Long, SortedMap<Long, Integer>> customers = new TreeMap<>();
+
+        /**
+         * @param pending flattened HGETALL reply: field, value, field, value...
+         */
+        private void add(Long targetId, List<?> pending) {
+            for (int i = 0; i + 1 < pending.size(); i += 2) {
+                String field = String.valueOf(pending.get(i));
+                int delta = Integer.parseInt(String.valueOf(pending.get(i + 1)));
+                if (TOTAL_FIELD.equals(field)) {
+                    totals.merge(targetId, delta, Integer::sum);
+                } else if (field.startsWith(CUSTOMER_FIELD_PREFIX)) {
+                    Long customerId = Long.valueOf(field.substring(CUSTOMER_FIELD_PREFIX.length()));
+                    customers.computeIfAbsent(targetId, id -> new TreeMap<>()).merge(customerId, delta, Integer::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parsed reservation token: {@code TARGET:targetId:reservationId:customerId|-}
+     */
+    private record Token(UsageTarget target, Long targetId, String reservationId, String customer) {
+
+        private static Token parse(String token) {
+            String[] parts = token != null ? token.split(":") : new String[0];
+            try {
+                if (parts.length == 4) {
+                    return new Token(UsageTarget.valueOf(parts[0]), Long.valueOf(parts[1]), parts[2], parts[3]);
+                }
+            } catch (IllegalArgumentException e) {
+                // fall through
+            }
+            throw new BusinessException("Invalid usage reservation token: " + token);
+        }
+
+        private String member() {
+            return reservationId + ":" + customer;
+        }
+    }
+}
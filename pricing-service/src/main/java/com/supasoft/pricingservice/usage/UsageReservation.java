@@ -0,0 +1,23 @@
+package com.supasoft.pricingservice.usage;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * One reserved use of a promotion or discount, held until committed, released or expired.
+ * The token is opaque to callers and carries everything needed to commit or release it.
+ */
+@Value
+public class UsageReservation {
+
+    String token;
+
+    UsageTarget target;
+
+    Long targetId;
+
+    Long customerId;
+
+    LocalDateTime expiresAt;
+}
@@ -0,0 +1,19 @@
+package com.supasoft.pricingservice.usage;
+
+/**
+ * Kinds of usage-limited pricing rules, with the table holding their usage_count
+ */
+public enum UsageTarget {
+    PROMOTION("promotions"),
+    DISCOUNT("discounts");
+
+    private final String table;
+
+    UsageTarget(String table) {
+        this.table = table;
+    }
+
+    public String getTable() {
+        return table;
+    }
+}
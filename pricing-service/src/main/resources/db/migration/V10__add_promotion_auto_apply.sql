@@ -0,0 +1,3 @@
+-- Promotions are redeemed by code unless flagged to apply to matching baskets automatically
+ALTER TABLE promotions
+    ADD COLUMN auto_apply BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,35 @@
+-- Normalize discount applicability into item and category mapping tables
+CREATE TABLE discount_items (
+    discount_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    PRIMARY KEY (discount_id, item_id),
+    INDEX idx_discount_item_item (item_id),
+    FOREIGN KEY (discount_id) REFERENCES discounts(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE discount_categories (
+    discount_id BIGINT NOT NULL,
+    category_id BIGINT NOT NULL,
+    PRIMARY KEY (discount_id, category_id),
+    INDEX idx_discount_category_category (category_id),
+    FOREIGN KEY (discount_id) REFERENCES discounts(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Move existing comma-separated ids into the mapping tables
+INSERT IGNORE INTO discount_items (discount_id, item_id)
+SELECT d.id, jt.item_id
+FROM discounts d,
+     JSON_TABLE(CONCAT('[', TRIM(BOTH ',' FROM REPLACE(d.item_ids, ' ', '')), ']'),
+                '$[*]' COLUMNS (item_id BIGINT PATH '$')) jt
+WHERE d.item_ids IS NOT NULL AND TRIM(BOTH ',' FROM REPLACE(d.item_ids, ' ', '')) <> '';
+
+INSERT IGNORE INTO discount_categories (discount_id, category_id)
+SELECT d.id, jt.category_id
+FROM discounts d,
+     JSON_TABLE(CONCAT('[', TRIM(BOTH ',' FROM REPLACE(d.category_ids, ' ', '')), ']'),
+                '$[*]' COLUMNS (category_id BIGINT PATH '$')) jt
+WHERE d.category_ids IS NOT NULL AND TRIM(BOTH ',' FROM REPLACE(d.category_ids, ' ', '')) <> '';
+
+ALTER TABLE discounts
+    DROP COLUMN item_ids,
+    DROP COLUMN category_ids;
@@ -0,0 +1,10 @@
+-- Per-customer usage of promotions and discounts, written back in batches from the usage counters
+CREATE TABLE customer_usage_counts (
+    target_type VARCHAR(20) NOT NULL,
+    target_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    usage_count INT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (target_type, target_id, customer_id),
+    INDEX idx_customer_usage_customer (customer_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
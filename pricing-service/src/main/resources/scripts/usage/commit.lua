@@ -0,0 +1,12 @@
+-- Turn a reservation into a recorded use, queued for write-back.
+-- KEYS[1] reservations, KEYS[2] pending write-back hash
+-- ARGV[1] member, ARGV[2] customer id ('-' = anonymous)
+-- Returns 1 committed, 0 reservation unknown (released or expired and reclaimed)
+if redis.call('ZREM', KEYS[1], ARGV[1]) == 0 then
+    return 0
+end
+redis.call('HINCRBY', KEYS[2], 'total', 1)
+if ARGV[2] ~= '-' then
+    redis.call('HINCRBY', KEYS[2], 'customer:' .. ARGV[2], 1)
+end
+return 1
@@ -0,0 +1,5 @@
+-- Take and clear the pending write-back deltas for one target.
+-- KEYS[1] pending write-back hash
+local pending = redis.call('HGETALL', KEYS[1])
+redis.call('DEL', KEYS[1])
+return pending
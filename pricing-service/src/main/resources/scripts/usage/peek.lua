@@ -0,0 +1,26 @@
+-- Read the current uses of one target, leaving out reservations that expired unclaimed.
+-- KEYS[1] used count, KEYS[2] reservations, KEYS[3] customer used counts (hash)
+-- ARGV[1] now ms, ARGV[2] customer id ('-' = anonymous)
+-- Returns {used, customer used}, -1 where the counter has not been seeded yet
+local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1])
+
+local used = redis.call('GET', KEYS[1])
+if used then
+    used = tonumber(used) - #expired
+else
+    used = -1
+end
+
+local customerUsed = -1
+if ARGV[2] ~= '-' then
+    local count = redis.call('HGET', KEYS[3], ARGV[2])
+    if count then
+        customerUsed = tonumber(count)
+        for _, member in ipairs(expired) do
+            if string.match(member, ':([^:]+)$') == ARGV[2] then
+                customerUsed = customerUsed - 1
+            end
+        end
+    end
+end
+return {used, customerUsed}
@@ -0,0 +1,12 @@
+-- Give back a reserved use.
+-- KEYS[1] reservations, KEYS[2] used count, KEYS[3] customer used counts (hash)
+-- ARGV[1] member, ARGV[2] customer id ('-' = anonymous)
+-- Returns 1 released, 0 reservation unknown
+if redis.call('ZREM', KEYS[1], ARGV[1]) == 0 then
+    return 0
+end
+redis.call('DECR', KEYS[2])
+if ARGV[2] ~= '-' and redis.call('HEXISTS', KEYS[3], ARGV[2]) == 1 then
+    redis.call('HINCRBY', KEYS[3], ARGV[2], -1)
+end
+return 1
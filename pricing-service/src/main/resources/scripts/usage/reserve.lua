@@ -0,0 +1,48 @@
+-- Reserve one use of a promotion/discount.
+-- KEYS[1] used count, KEYS[2] reservations (zset member -> expiry ms), KEYS[3] customer used counts (hash)
+-- ARGV[1] now ms, ARGV[2] reservation expiry ms, ARGV[3] member, ARGV[4] usage limit (-1 = none),
+-- ARGV[5] per-customer limit (-1 = none), ARGV[6] used seed, ARGV[7] customer id ('-' = anonymous),
+-- ARGV[8] customer seed ('' = unknown), ARGV[9] key expiry ms
+-- Returns 1 reserved, 0 usage limit reached, -1 customer limit reached, -2 customer seed required
+
+-- Give back uses held by reservations that were never committed or released
+local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1])
+for _, member in ipairs(expired) do
+    redis.call('DECR', KEYS[1])
+    local holder = string.match(member, ':([^:]+)$')
+    if holder ~= '-' and redis.call('HEXISTS', KEYS[3], holder) == 1 then
+        redis.call('HINCRBY', KEYS[3], holder, -1)
+    end
+end
+if #expired > 0 then
+    redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[1])
+end
+
+local customer = ARGV[7]
+redis.call('SET', KEYS[1], ARGV[6], 'NX')
+if customer ~= '-' and redis.call('HEXISTS', KEYS[3], customer) == 0 then
+    if ARGV[8] == '' then
+        return -2
+    end
+    redis.call('HSET', KEYS[3], customer, ARGV[8])
+end
+
+local limit = tonumber(ARGV[4])
+if limit >= 0 and tonumber(redis.call('GET', KEYS[1])) >= limit then
+    return 0
+end
+local customerLimit = tonumber(ARGV[5])
+if customer ~= '-' and customerLimit >= 0
+        and tonumber(redis.call('HGET', KEYS[3], customer)) >= customerLimit then
+    return -1
+end
+
+redis.call('INCR', KEYS[1])
+redis.call('ZADD', KEYS[2], ARGV[2], ARGV[3])
+redis.call('PEXPIREAT', KEYS[1], ARGV[9])
+redis.call('PEXPIREAT', KEYS[2], ARGV[9])
+if customer ~= '-' then
+    redis.call('HINCRBY', KEYS[3], customer, 1)
+    redis.call('PEXPIREAT', KEYS[3], ARGV[9])
+end
+return 1
@@ -0,0 +1,88 @@
+package com.supasoft.pricingservice.discount;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.supasoft.pricingservice.entity.Discount;
+import com.supasoft.pricingservice.repository.DiscountRepository;
+
+public class DiscountIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private DiscountRepository discountRepository;
+    private DiscountIndex index;
+    private List<Discount> discounts;
+    private List<Object[]> itemTargets;
+    private List<Object[]> categoryTargets;
+
+    @BeforeEach
+    public void setUp() {
+        discountRepository = mock(DiscountRepository.class);
+        discounts = new ArrayList<>();
+        itemTargets = new ArrayList<>();
+        categoryTargets = new ArrayList<>();
+        when(discountRepository.findCurrentAndUpcoming(any(), any())).thenReturn(discounts);
+        when(discountRepository.findItemTargets(any(), any())).thenReturn(itemTargets);
+        when(discountRepository.findCategoryTargets(any(), any())).thenReturn(categoryTargets);
+        index = new DiscountIndex(discountRepository, mock(StringRedisTemplate.class));
+    }
+
+    @Test
+    public void testItemAndCategoryTargetsAreUnioned() {
+        discounts.addAll(List.of(discount(1L, null, 0), discount(2L, null, 0), discount(3L, null, 0)));
+        itemTargets.add(new Object[]{1L, 10L});
+        itemTargets.add(new Object[]{2L, 11L});
+        categoryTargets.add(new Object[]{3L, 5L});
+        index.load();
+
+        assertEquals(Set.of(1L, 3L), Set.copyOf(index.findApplicable(List.of(10L), List.of(5L), NOW)));
+        assertEquals(List.of(), index.findApplicable(List.of(12L), List.of(6L), NOW));
+    }
+
+    @Test
+    public void testWindowAndUsageLimitAreChecked() {
+        Discount upcoming = discount(2L, null, 0);
+        upcoming.setStartDate(NOW.plusDays(1));
+        discounts.addAll(List.of(discount(1L, 5, 5), upcoming, discount(3L, 5, 4)));
+        // Long target ids come back as other numeric types from native queries
+        itemTargets.add(new Object[]{1, 10});
+        itemTargets.add(new Object[]{2L, 10L});
+        itemTargets.add(new Object[]{3L, 10L});
+        index.load();
+
+        assertEquals(List.of(3L), index.findApplicable(List.of(10L), null, NOW));
+        assertEquals(List.of(2L, 3L), index.findApplicable(List.of(10L), null, NOW.plusDays(2)));
+    }
+
+    @Test
+    public void testTargetsOfUnknownDiscountsAreIgnored() {
+        discounts.add(discount(1L, null, 0));
+        itemTargets.add(new Object[]{99L, 10L});
+        index.load();
+
+        assertEquals(List.of(), index.findApplicable(List.of(10L), null, NOW));
+        assertEquals(1, index.size());
+    }
+
+    private static Discount discount(Long id, Integer usageLimit, int usageCount) {
+        Discount discount = new Discount();
+        discount.setId(id);
+        discount.setCode("DISC-" + id);
+        discount.setStartDate(NOW.minusDays(1));
+        discount.setEndDate(NOW.plusDays(7));
+        discount.setUsageLimit(usageLimit);
+        discount.setUsageCount(usageCount);
+        return discount;
+    }
+}
@@ -0,0 +1,244 @@
+package com.supasoft.pricingservice.promotion;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.pricingservice.entity.Promotion;
+import com.supasoft.pricingservice.entity.PromotionItem;
+import com.supasoft.pricingservice.enums.PromotionType;
+import com.supasoft.pricingservice.exception.UsageLimitExceededException;
+import com.supasoft.pricingservice.promotion.PromotionEngine.BasketLine;
+import com.supasoft.pricingservice.promotion.PromotionEngine.PromotionResult;
+import com.supasoft.pricingservice.repository.PromotionRepository;
+import com.supasoft.pricingservice.usage.UsageCounter;
+import com.supasoft.pricingservice.usage.UsageTarget;
+
+public class PromotionEngineTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private PromotionRepository promotionRepository;
+    private UsageCounter usageCounter;
+    private List<Runnable> queuedTasks;
+    private PromotionEngine engine;
+    private List<Promotion> promotions;
+
+    @BeforeEach
+    public void setUp() {
+        promotionRepository = mock(PromotionRepository.class);
+        promotions = new ArrayList<>();
+        when(promotionRepository.findCurrentAndUpcomingWithItems(any(), any())).thenReturn(promotions);
+        usageCounter = mock(UsageCounter.class);
+        queuedTasks = new ArrayList<>();
+        engine = new PromotionEngine(promotionRepository, mock(StringRedisTemplate.class), usageCounter,
+                queuedTasks::add);
+    }
+
+    @Test
+    public void testBogoFreesTheCheapestUnits() {
+        Promotion bogo = promotion(1L, PromotionType.BOGO, 0, false);
+        bogo.addPromotionItem(item(10L, "BUY"));
+        bogo.addPromotionItem(item(11L, "BUY"));
+        promotions.add(bogo);
+        engine.load();
+
+        PromotionResult result = evaluate(line(10L, "1", "30.00"), line(11L, "1", "20.00"));
+
+        assertEquals(new BigDecimal("20.00"), result.total());
+        assertArrayEquals(new BigDecimal[]{BigDecimal.ZERO, new BigDecimal("20.00")}, result.lineAmounts());
+    }
+
+    @Test
+    public void testExclusivePromotionsDoNotShareUnitsButCumulativeOnesStack() {
+        Promotion first = promotion(1L, PromotionType.PERCENTAGE_OFF, 0, false);
+        first.setDiscountPercentage(new BigDecimal("10"));
+        first.addPromotionItem(item(10L, "BUY"));
+        Promotion second = promotion(2L, PromotionType.PERCENTAGE_OFF, 1, false);
+        second.setDiscountPercentage(new BigDecimal("50"));
+        second.addPromotionItem(item(10L, "BUY"));
+        Promotion stacking = promotion(3L, PromotionType.FIXED_AMOUNT_OFF, 2, true);
+        stacking.setDiscountAmount(new BigDecimal("1.00"));
+        stacking.addPromotionItem(item(10L, "BUY"));
+        promotions.addAll(List.of(first, second, stacking));
+        engine.load();
+
+        PromotionResult result = evaluate(line(10L, "2", "100.00"));
+
+        // 10% of 200 from the higher-priority exclusive promotion, then 1.00 per unit on top
+        assertEquals(new BigDecimal("22.00"), result.total());
+        assertEquals(List.of(1L, 3L), result.applied().stream().map(a -> a.promotion().getId()).toList());
+    }
+
+    @Test
+    public void testCapAndExpiry() {
+        Promotion capped = promotion(1L, PromotionType.PERCENTAGE_OFF, 0, false);
+        capped.setDiscountPercentage(new BigDecimal("50"));
+        capped.setMaxDiscountAmount(new BigDecimal("15.00"));
+        capped.addPromotionItem(item(10L, "BUY"));
+        Promotion upcoming = promotion(2L, PromotionType.PERCENTAGE_OFF, 0, true);
+        upcoming.setDiscountPercentage(new BigDecimal("50"));
+        upcoming.setStartDate(NOW.plusDays(1));
+        upcoming.addPromotionItem(item(10L, "BUY"));
+        promotions.addAll(List.of(capped, upcoming));
+        engine.load();
+
+        PromotionResult result = evaluate(line(10L, "1", "100.00"));
+
+        assertEquals(new BigDecimal("15.00"), result.total());
+        assertEquals(1, result.applied().size());
+    }
+
+    @Test
+    public void testBundleSavingIsSpreadOverItsComponents() {
+        Promotion bundle = promotion(1L, PromotionType.BUNDLE_PRICING, 0, false);
+        bundle.setBundlePrice(new BigDecimal("120.00"));
+        bundle.addPromotionItem(item(10L, "BUNDLE"));
+        bundle.addPromotionItem(item(11L, "BUNDLE"));
+        promotions.add(bundle);
+        engine.load();
+
+        PromotionResult result = evaluate(line(10L, "1", "100.00"), line(11L, "1", "50.00"));
+
+        assertEquals(new BigDecimal("30.00"), result.total());
+        assertArrayEquals(new BigDecimal[]{new BigDecimal("20.00"), new BigDecimal("10.00")}, result.lineAmounts());
+    }
+
+    @Test
+    public void testRefreshDropsEndedPromotion() {
+        Promotion promotion = promotion(1L, PromotionType.FIXED_AMOUNT_OFF, 0, false);
+        promotion.setDiscountAmount(new BigDecimal("5.00"));
+        promotion.addPromotionItem(item(10L, "BUY"));
+        promotions.add(promotion);
+        engine.load();
+        assertEquals(new BigDecimal("5.00"), evaluate(line(10L, "1", "100.00")).total());
+
+        promotion.setEndDate(NOW.minusMinutes(1));
+        when(promotionRepository.findWithItemsById(1L)).thenReturn(Optional.of(promotion));
+        engine.refresh(1L);
+
+        assertEquals(0, engine.size());
+        assertEquals(0, evaluate(line(10L, "1", "100.00")).total().signum());
+    }
+
+    @Test
+    public void testExhaustedAutomaticPromotionIsSkipped() {
+        Promotion limited = promotion(1L, PromotionType.FIXED_AMOUNT_OFF, 0, true);
+        limited.setDiscountAmount(new BigDecimal("5.00"));
+        limited.setUsageLimit(10);
+        limited.addPromotionItem(item(10L, "BUY"));
+        Promotion unlimited = promotion(2L, PromotionType.FIXED_AMOUNT_OFF, 1, true);
+        unlimited.setDiscountAmount(new BigDecimal("1.00"));
+        unlimited.addPromotionItem(item(10L, "BUY"));
+        promotions.addAll(List.of(limited, unlimited));
+        engine.load();
+        // The compiled usage_count is 0, but the shared counter has reached the limit
+        when(usageCounter.usage(UsageTarget.PROMOTION, 1L, null)).thenReturn(new UsageCounter.Usage(10, null));
+
+        PromotionResult result = evaluate(line(10L, "1", "100.00"));
+
+        assertEquals(new BigDecimal("1.00"), result.total());
+        assertEquals(List.of(2L), result.applied().stream().map(a -> a.promotion().getId()).toList());
+    }
+
+    @Test
+    public void testExhaustedRequestedPromotionIsRejected() {
+        Promotion limited = promotion(1L, PromotionType.FIXED_AMOUNT_OFF, 0, false);
+        limited.setDiscountAmount(new BigDecimal("5.00"));
+        limited.setPerCustomerLimit(1);
+        limited.addPromotionItem(item(10L, "BUY"));
+        promotions.add(limited);
+        engine.load();
+        when(usageCounter.usage(UsageTarget.PROMOTION, 1L, 7L)).thenReturn(new UsageCounter.Usage(3, 1));
+
+        assertThrows(UsageLimitExceededException.class, () -> engine.evaluate(List.of(line(10L, "1", "100.00")),
+                new BigDecimal("100.00"), NOW, false, engine.get(1L), 7L));
+    }
+
+    @Test
+    public void testCodeOnlyPromotionIsSkippedUnlessRequested() {
+        Promotion byCode = promotion(1L, PromotionType.FIXED_AMOUNT_OFF, 0, false);
+        byCode.setDiscountAmount(new BigDecimal("5.00"));
+        byCode.setUsageLimit(10);
+        byCode.setAutoApply(false);
+        byCode.addPromotionItem(item(10L, "BUY"));
+        promotions.add(byCode);
+        engine.load();
+
+        assertEquals(0, evaluate(line(10L, "1", "100.00")).total().signum());
+        // Never a candidate, so its usage is not even looked up
+        verify(usageCounter, never()).usage(any(), any(), any());
+
+        when(usageCounter.usage(UsageTarget.PROMOTION, 1L, null)).thenReturn(new UsageCounter.Usage(0, null));
+        PromotionResult result = engine.evaluate(List.of(line(10L, "1", "100.00")), new BigDecimal("100.00"), NOW,
+                true, engine.get(1L), null);
+        assertEquals(new BigDecimal("5.00"), result.total());
+    }
+
+    @Test
+    public void testIndexMissQueuesOneRefreshInsteadOfLoading() {
+        Promotion promotion = promotion(1L, PromotionType.FIXED_AMOUNT_OFF, 0, false);
+        promotion.setDiscountAmount(new BigDecimal("5.00"));
+        when(promotionRepository.findWithItemsById(1L)).thenReturn(Optional.of(promotion));
+
+        assertNull(engine.get(1L));
+        assertNull(engine.get(1L));
+        verify(promotionRepository, never()).findWithItemsById(1L);
+        assertEquals(1, queuedTasks.size());
+
+        queuedTasks.get(0).run();
+
+        assertEquals(1L, engine.get(1L).getId());
+    }
+
+    private PromotionResult evaluate(BasketLine... lines) {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (BasketLine line : lines) {
+            subtotal = subtotal.add(line.quantity().multiply(line.unitPrice()));
+        }
+        return engine.evaluate(List.of(lines), subtotal, NOW, true, null, null);
+    }
+
+    private static BasketLine line(Long itemId, String quantity, String unitPrice) {
+        return new BasketLine(itemId, new BigDecimal(quantity), new BigDecimal(unitPrice));
+    }
+
+    private static Promotion promotion(Long id, PromotionType type, int priority, boolean cumulative) {
+        Promotion promotion = new Promotion();
+        promotion.setId(id);
+        promotion.setCode("PROMO-" + id);
+        promotion.setName("Promotion " + id);
+        promotion.setPromotionType(type);
+        promotion.setPriority(priority);
+        promotion.setIsCumulative(cumulative);
+        promotion.setAutoApply(true);
+        promotion.setStartDate(NOW.minusDays(1));
+        promotion.setEndDate(NOW.plusDays(1));
+        promotion.setStatus(Status.ACTIVE);
+        return promotion;
+    }
+
+    private static PromotionItem item(Long itemId, String role) {
+        PromotionItem item = new PromotionItem();
+        item.setItemId(itemId);
+        item.setItemRole(role);
+        item.setRequiredQuantity(1);
+        return item;
+    }
+}
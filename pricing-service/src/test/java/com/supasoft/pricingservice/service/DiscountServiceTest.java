@@ -0,0 +1,66 @@
+package com.supasoft.pricingservice.service;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.supasoft.pricingservice.discount.DiscountIndex;
+import com.supasoft.pricingservice.dto.response.DiscountResponse;
+import com.supasoft.pricingservice.entity.Discount;
+import com.supasoft.pricingservice.mapper.PricingMapper;
+import com.supasoft.pricingservice.repository.DiscountRepository;
+import com.supasoft.pricingservice.usage.UsageCounter;
+
+public class DiscountServiceTest {
+
+    private DiscountRepository discountRepository;
+    private PricingMapper pricingMapper;
+    private DiscountIndex discountIndex;
+    private DiscountService discountService;
+
+    @BeforeEach
+    public void setUp() {
+        discountRepository = mock(DiscountRepository.class);
+        pricingMapper = mock(PricingMapper.class);
+        discountIndex = mock(DiscountIndex.class);
+        discountService = new DiscountServiceImpl(discountRepository, pricingMapper, discountIndex,
+                mock(ApplicationEventPublisher.class), mock(UsageCounter.class));
+    }
+
+    @Test
+    public void testApplicableDiscountsAreLoadedWithTheirTargets() {
+        Discount discount = new Discount();
+        discount.setItemIds(Set.of(10L));
+        discount.setCategoryIds(Set.of(100L));
+        DiscountResponse response = new DiscountResponse();
+        when(discountIndex.findApplicable(eq(List.of(10L)), eq(List.of(100L)), any())).thenReturn(List.of(1L));
+        when(discountRepository.findAllWithTargetsByIdIn(List.of(1L))).thenReturn(List.of(discount));
+        when(pricingMapper.toResponse(discount)).thenReturn(response);
+
+        assertEquals(List.of(response), discountService.getApplicableDiscounts(List.of(10L), List.of(100L)));
+
+        verify(discountRepository, never()).findAllById(any());
+    }
+
+    @Test
+    public void testNoApplicableDiscountsSkipsTheQuery() {
+        when(discountIndex.findApplicable(anyCollection(), anyCollection(), any())).thenReturn(List.of());
+
+        assertTrue(discountService.getApplicableDiscounts(List.of(10L), List.of()).isEmpty());
+
+        verify(discountRepository, never()).findAllWithTargetsByIdIn(anyCollection());
+    }
+}
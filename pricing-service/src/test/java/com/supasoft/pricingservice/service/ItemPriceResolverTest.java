@@ -0,0 +1,148 @@
+package com.supasoft.pricingservice.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.data.jpa.repository.Query;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.pricingservice.dto.request.PriceCalculationRequest;
+import com.supasoft.pricingservice.entity.CustomerPricing;
+import com.supasoft.pricingservice.entity.ItemPrice;
+import com.supasoft.pricingservice.repository.CustomerPricingRepository;
+import com.supasoft.pricingservice.repository.ItemPriceRepository;
+import com.supasoft.pricingservice.service.ItemPriceResolver.PriceBook;
+import com.supasoft.pricingservice.snapshot.PricingSnapshotManager;
+
+public class ItemPriceResolverTest {
+
+    private static final Long RETAIL = 1L;
+    private static final Long WHOLESALE = 2L;
+
+    private ItemPriceRepository itemPriceRepository;
+    private CustomerPricingRepository customerPricingRepository;
+    private ItemPriceResolver resolver;
+
+    @BeforeEach
+    public void setUp() {
+        itemPriceRepository = mock(ItemPriceRepository.class);
+        customerPricingRepository = mock(CustomerPricingRepository.class);
+        resolver = new ItemPriceResolver(itemPriceRepository, customerPricingRepository, mock(PricingSnapshotManager.class));
+    }
+
+    @Test
+    public void testOneQueryPerPriceTypeAcrossBaskets() {
+        when(itemPriceRepository.findActiveItemPricesByType(anyCollection(), eq(RETAIL), eq(Status.ACTIVE), any()))
+                .thenReturn(List.of(price(10L, "100.00"), price(11L, "50.00")));
+        when(itemPriceRepository.findActiveItemPricesByType(anyCollection(), eq(WHOLESALE), eq(Status.ACTIVE), any()))
+                .thenReturn(List.of(price(10L, "90.00")));
+
+        PriceBook book = resolver.resolve(List.of(basket(RETAIL, null, 10L), basket(RETAIL, null, 11L),
+                basket(WHOLESALE, null, 10L)));
+
+        assertEquals(new BigDecimal("100.00"), book.typePrice(10L, RETAIL).getSellingPrice());
+        assertEquals(new BigDecimal("50.00"), book.typePrice(11L, RETAIL).getSellingPrice());
+        assertEquals(new BigDecimal("90.00"), book.typePrice(10L, WHOLESALE).getSellingPrice());
+        verify(itemPriceRepository).findActiveItemPricesByType(anyCollection(), eq(RETAIL), any(), any());
+        verify(itemPriceRepository).findActiveItemPricesByType(anyCollection(), eq(WHOLESALE), any(), any());
+    }
+
+    @Test
+    public void testLargeBasketIsQueriedInChunks() {
+        Long[] itemIds = LongStream.rangeClosed(1, 2_500).boxed().toArray(Long[]::new);
+
+        resolver.resolve(basket(RETAIL, null, itemIds));
+
+        verify(itemPriceRepository, times(3)).findActiveItemPricesByType(anyCollection(), eq(RETAIL), any(), any());
+    }
+
+    @Test
+    public void testCustomerPriceIsKeptPerCustomer() {
+        when(itemPriceRepository.findActiveItemPricesByType(anyCollection(), eq(RETAIL), any(), any()))
+                .thenReturn(List.of(price(10L, "100.00")));
+        CustomerPricing special = new CustomerPricing();
+        special.setCustomerId(7L);
+        special.setItemId(10L);
+        special.setSpecialPrice(new BigDecimal("80.00"));
+        when(customerPricingRepository.findActiveCustomerPricingForItems(anyCollection(), anyCollection(), any(), any()))
+                .thenReturn(List.of(special));
+
+        PriceBook book = resolver.resolve(List.of(basket(RETAIL, 7L, 10L), basket(RETAIL, 8L, 10L)));
+
+        assertEquals(new BigDecimal("80.00"), book.customerPrice(10L, 7L).getSellingPrice());
+        assertNull(book.customerPrice(10L, 8L));
+        assertNull(book.customerPrice(10L, null));
+        verify(customerPricingRepository).findActiveCustomerPricingForItems(
+                argThat(ids -> ids.size() == 2 && ids.containsAll(List.of(7L, 8L))), anyCollection(), any(), any());
+    }
+
+    @Test
+    public void testOverlappingPricesResolveToTheLatestEffective() {
+        // Rows in query order: latest effective first, newest row first on a tie
+        ItemPrice promotional = price(10L, "85.00");
+        promotional.setId(5L);
+        promotional.setEffectiveDate(LocalDateTime.now().minusDays(1));
+        ItemPrice regular = price(10L, "100.00");
+        regular.setId(3L);
+        regular.setEffectiveDate(LocalDateTime.now().minusMonths(1));
+        when(itemPriceRepository.findActiveItemPricesByType(anyCollection(), eq(RETAIL), any(), any()))
+                .thenReturn(List.of(promotional, regular));
+
+        PriceBook book = resolver.resolve(basket(RETAIL, null, 10L));
+
+        assertEquals(new BigDecimal("85.00"), book.typePrice(10L, RETAIL).getSellingPrice());
+        assertTrue(query(ItemPriceRepository.class, "findActiveItemPricesByType")
+                .endsWith("ORDER BY ip.effectiveDate DESC, ip.id DESC"));
+        assertTrue(query(CustomerPricingRepository.class, "findActiveCustomerPricingForItems")
+                .endsWith("ORDER BY cp.effectiveDate DESC, cp.id DESC"));
+    }
+
+    @Test
+    public void testMissingPriceIsNull() {
+        PriceBook book = resolver.resolve(basket(RETAIL, null, 10L));
+
+        assertNull(book.typePrice(10L, RETAIL));
+    }
+
+    private static PriceCalculationRequest basket(Long priceTypeId, Long customerId, Long... itemIds) {
+        PriceCalculationRequest request = new PriceCalculationRequest();
+        request.setPriceTypeId(priceTypeId);
+        request.setCustomerId(customerId);
+        for (Long itemId : itemIds) {
+            request.getItems().add(new PriceCalculationRequest.ItemCalculation(itemId, BigDecimal.ONE, null));
+        }
+        return request;
+    }
+
+    private static String query(Class<?> repository, String method) {
+        return Arrays.stream(repository.getMethods())
+                .filter(m -> m.getName().equals(method))
+                .findFirst()
+                .orElseThrow()
+                .getAnnotation(Query.class)
+                .value();
+    }
+
+    private static ItemPrice price(Long itemId, String sellingPrice) {
+        ItemPrice price = new ItemPrice();
+        price.setItemId(itemId);
+        price.setSellingPrice(new BigDecimal(sellingPrice));
+        return price;
+    }
+}
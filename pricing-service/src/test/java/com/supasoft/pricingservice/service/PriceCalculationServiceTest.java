@@ -0,0 +1,257 @@
+package com.supasoft.pricingservice.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.pricingservice.dto.request.PriceCalculationRequest;
+import com.supasoft.pricingservice.dto.request.UsageReservationRequest;
+import com.supasoft.pricingservice.dto.response.PriceCalculationResponse;
+import com.supasoft.pricingservice.dto.response.UsageReservationResponse;
+import com.supasoft.pricingservice.entity.CustomerPricing;
+import com.supasoft.pricingservice.entity.Discount;
+import com.supasoft.pricingservice.entity.ItemPrice;
+import com.supasoft.pricingservice.entity.Promotion;
+import com.supasoft.pricingservice.entity.PromotionItem;
+import com.supasoft.pricingservice.enums.DiscountType;
+import com.supasoft.pricingservice.enums.PromotionType;
+import com.supasoft.pricingservice.exception.PriceNotFoundException;
+import com.supasoft.pricingservice.exception.UsageLimitExceededException;
+import com.supasoft.pricingservice.pipeline.BasePriceStage;
+import com.supasoft.pricingservice.pipeline.CustomerTierStage;
+import com.supasoft.pricingservice.pipeline.DiscountStage;
+import com.supasoft.pricingservice.pipeline.PricingPipeline;
+import com.supasoft.pricingservice.pipeline.PromotionStage;
+import com.supasoft.pricingservice.pipeline.TaxStage;
+import com.supasoft.pricingservice.promotion.PromotionEngine;
+import com.supasoft.pricingservice.repository.CustomerPricingRepository;
+import com.supasoft.pricingservice.repository.DiscountRepository;
+import com.supasoft.pricingservice.repository.ItemPriceRepository;
+import com.supasoft.pricingservice.repository.PromotionRepository;
+import com.supasoft.pricingservice.snapshot.PricingSnapshotManager;
+import com.supasoft.pricingservice.usage.UsageCounter;
+import com.supasoft.pricingservice.usage.UsageTarget;
+import com.supasoft.pricingservice.util.PriceCalculator;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PriceCalculationServiceTest {
+
+    private static final Long RETAIL = 1L;
+
+    private ItemPriceRepository itemPriceRepository;
+    private CustomerPricingRepository customerPricingRepository;
+    private DiscountRepository discountRepository;
+    private UsageService usageService;
+    private PromotionRepository promotionRepository;
+    private PromotionEngine promotionEngine;
+    private PriceCalculationService service;
+
+    @BeforeEach
+    public void setUp() {
+        itemPriceRepository = mock(ItemPriceRepository.class);
+        customerPricingRepository = mock(CustomerPricingRepository.class);
+        discountRepository = mock(DiscountRepository.class);
+        usageService = mock(UsageService.class);
+        PriceCalculator calculator = new PriceCalculator();
+        promotionRepository = mock(PromotionRepository.class);
+        promotionEngine = new PromotionEngine(promotionRepository, mock(StringRedisTemplate.class),
+                mock(UsageCounter.class), new SyncTaskExecutor());
+        PricingPipeline pipeline = new PricingPipeline(List.of(new BasePriceStage(calculator),
+                new CustomerTierStage(calculator), new DiscountStage(calculator),
+                new PromotionStage(calculator, promotionEngine), new TaxStage(calculator)), new SimpleMeterRegistry());
+        service = new PriceCalculationServiceImpl(
+                new ItemPriceResolver(itemPriceRepository, customerPricingRepository, mock(PricingSnapshotManager.class)),
+                discountRepository, promotionRepository, pipeline, usageService);
+
+        when(itemPriceRepository.findActiveItemPricesByType(anyCollection(), eq(RETAIL), any(), any()))
+                .thenReturn(List.of(price(10L, "100.00", true), price(11L, "50.00", false)));
+        when(discountRepository.findByCodeAndStatus("TENOFF", Status.ACTIVE)).thenReturn(Optional.of(tenPercentOff()));
+    }
+
+    @Test
+    public void testBasketIsResolvedOnceAndDiscountAppliesToTheSubtotal() {
+        PriceCalculationRequest request = basket(null, 10L, "2", 11L, "1");
+        request.setDiscountCode("TENOFF");
+
+        PriceCalculationResponse response = service.calculatePriceWithAll(request);
+
+        assertEquals(new BigDecimal("250.00"), response.getSubtotal());
+        assertEquals(new BigDecimal("25.00"), response.getDiscountAmount());
+        // Only the taxable line carries VAT
+        assertEquals(new BigDecimal("32.00"), response.getTaxAmount());
+        assertEquals(new BigDecimal("257.00"), response.getTotalAmount());
+        assertEquals("TENOFF", response.getDiscountCode());
+        verify(itemPriceRepository, times(1)).findActiveItemPricesByType(anyCollection(), any(), any(), any());
+    }
+
+    @Test
+    public void testCustomerPriceReplacesTheRegularPrice() {
+        CustomerPricing special = new CustomerPricing();
+        special.setCustomerId(7L);
+        special.setItemId(10L);
+        special.setSpecialPrice(new BigDecimal("80.00"));
+        when(customerPricingRepository.findActiveCustomerPricingForItems(anyCollection(), anyCollection(), any(), any()))
+                .thenReturn(List.of(special));
+
+        PriceCalculationResponse response = service.calculatePrice(basket(7L, 10L, "1", 11L, "1"));
+
+        assertEquals(new BigDecimal("130.00"), response.getSubtotal());
+        assertEquals("CUSTOMER_SPECIFIC", response.getItems().get(0).getPriceSource());
+        assertEquals("REGULAR", response.getItems().get(1).getPriceSource());
+    }
+
+    @Test
+    public void testPromotionCodeEndpointAppliesOnlyTheEnteredCode() {
+        Promotion automatic = fiveOff(1L, "AUTO", true);
+        Promotion byCode = fiveOff(2L, "CODE", false);
+        when(promotionRepository.findCurrentAndUpcomingWithItems(any(), any())).thenReturn(List.of(automatic, byCode));
+        when(promotionRepository.findByCodeAndStatus("CODE", Status.ACTIVE)).thenReturn(Optional.of(byCode));
+        promotionEngine.load();
+
+        assertEquals(0, service.calculatePriceWithPromotions(basket(null, 10L, "1"), " ").getPromotionAmount().signum());
+
+        PriceCalculationResponse response = service.calculatePriceWithPromotions(basket(null, 10L, "1"), "CODE");
+        assertEquals(List.of("CODE"), response.getAppliedPromotions().stream().map(p -> p.getCode()).toList());
+
+        // Checkout pricing adds the auto-apply promotion, but never the code-only one unless entered
+        response = service.calculatePriceWithAll(basket(null, 10L, "1"));
+        assertEquals(List.of("AUTO"), response.getAppliedPromotions().stream().map(p -> p.getCode()).toList());
+    }
+
+    @Test
+    public void testUnpricedItemFailsTheBasket() {
+        assertThrows(PriceNotFoundException.class, () -> service.calculatePrice(basket(null, 12L, "1")));
+    }
+
+    @Test
+    public void testBatchResolvesPricesAndDiscountsOnce() {
+        PriceCalculationRequest first = basket(null, 10L, "1");
+        first.setDiscountCode("TENOFF");
+        PriceCalculationRequest second = basket(null, 11L, "4");
+        second.setDiscountCode("TENOFF");
+
+        List<PriceCalculationResponse> responses = service.calculatePrices(List.of(first, second));
+
+        assertEquals(new BigDecimal("90.00"), responses.get(0).getSubtotal().subtract(responses.get(0).getDiscountAmount()));
+        assertEquals(new BigDecimal("180.00"), responses.get(1).getSubtotal().subtract(responses.get(1).getDiscountAmount()));
+        verify(itemPriceRepository, times(1)).findActiveItemPricesByType(anyCollection(), any(), any(), any());
+        verify(discountRepository, times(1)).findByCodeAndStatus("TENOFF", Status.ACTIVE);
+    }
+
+    @Test
+    public void testBadCodeRejectsOnlyItsBaskets() {
+        when(discountRepository.findByCodeAndStatus("EXPIRED", Status.ACTIVE)).thenReturn(Optional.empty());
+        PriceCalculationRequest first = basket(null, 10L, "1");
+        first.setDiscountCode("EXPIRED");
+        PriceCalculationRequest second = basket(null, 11L, "1");
+        PriceCalculationRequest third = basket(null, 11L, "2");
+        third.setDiscountCode("EXPIRED");
+
+        List<PriceCalculationResponse> responses = service.calculatePrices(List.of(first, second, third));
+
+        assertEquals(3, responses.size());
+        assertEquals("Discount not found or inactive: EXPIRED", responses.get(0).getError());
+        assertNull(responses.get(0).getTotalAmount());
+        assertNull(responses.get(1).getError());
+        assertEquals(new BigDecimal("50.00"), responses.get(1).getTotalAmount());
+        assertEquals("Discount not found or inactive: EXPIRED", responses.get(2).getError());
+        verify(discountRepository, times(1)).findByCodeAndStatus("EXPIRED", Status.ACTIVE);
+    }
+
+    @Test
+    public void testCheckoutReservesAUseOfEveryAppliedDiscount() {
+        UsageReservationResponse reservation = UsageReservationResponse.builder().token("DISCOUNT:1:r1:7").build();
+        when(usageService.reserveAll(List.of(new UsageReservationRequest(UsageTarget.DISCOUNT, "TENOFF", 7L))))
+                .thenReturn(List.of(reservation));
+        PriceCalculationRequest request = basket(7L, 10L, "1");
+        request.setDiscountCode("TENOFF");
+        request.setReserveUsage(true);
+
+        PriceCalculationResponse response = service.calculatePriceWithAll(request);
+
+        assertEquals(List.of(reservation), response.getUsageReservations());
+    }
+
+    @Test
+    public void testExhaustedLimitAtCheckoutRejectsOnlyThatBasket() {
+        when(usageService.reserveAll(anyList())).thenThrow(new UsageLimitExceededException("Usage limit reached"));
+        PriceCalculationRequest first = basket(7L, 10L, "1");
+        first.setDiscountCode("TENOFF");
+        first.setReserveUsage(true);
+        PriceCalculationRequest second = basket(7L, 11L, "1");
+
+        List<PriceCalculationResponse> responses = service.calculatePrices(List.of(first, second));
+
+        assertEquals("Usage limit reached", responses.get(0).getError());
+        assertNull(responses.get(1).getError());
+        verify(usageService, times(1)).reserveAll(anyList());
+    }
+
+    private static PriceCalculationRequest basket(Long customerId, Object... lines) {
+        PriceCalculationRequest request = new PriceCalculationRequest();
+        request.setPriceTypeId(RETAIL);
+        request.setCustomerId(customerId);
+        for (int i = 0; i < lines.length; i += 2) {
+            request.getItems().add(new PriceCalculationRequest.ItemCalculation(
+                    (Long) lines[i], new BigDecimal((String) lines[i + 1]), null));
+        }
+        return request;
+    }
+
+    private static ItemPrice price(Long itemId, String sellingPrice, boolean taxable) {
+        ItemPrice price = new ItemPrice();
+        price.setItemId(itemId);
+        price.setSellingPrice(new BigDecimal(sellingPrice));
+        price.setIsTaxable(taxable);
+        price.setTaxRate(new BigDecimal("16.00"));
+        return price;
+    }
+
+    private static Promotion fiveOff(Long id, String code, boolean autoApply) {
+        Promotion promotion = new Promotion();
+        promotion.setId(id);
+        promotion.setCode(code);
+        promotion.setName(code);
+        promotion.setPromotionType(PromotionType.FIXED_AMOUNT_OFF);
+        promotion.setDiscountAmount(new BigDecimal("5.00"));
+        promotion.setAutoApply(autoApply);
+        promotion.setStartDate(LocalDateTime.now().minusDays(1));
+        promotion.setEndDate(LocalDateTime.now().plusDays(1));
+        promotion.setStatus(Status.ACTIVE);
+        PromotionItem item = new PromotionItem();
+        item.setItemId(10L);
+        item.setItemRole("BUY");
+        promotion.addPromotionItem(item);
+        return promotion;
+    }
+
+    private static Discount tenPercentOff() {
+        Discount discount = new Discount();
+        discount.setCode("TENOFF");
+        discount.setName("Ten percent off");
+        discount.setDiscountType(DiscountType.PERCENTAGE);
+        discount.setDiscountValue(BigDecimal.TEN);
+        discount.setStartDate(LocalDateTime.now().minusDays(1));
+        discount.setEndDate(LocalDateTime.now().plusDays(1));
+        return discount;
+    }
+}
@@ -0,0 +1,82 @@
+package com.supasoft.pricingservice.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.supasoft.common.enums.Status;
+import com.supasoft.pricingservice.dto.request.UsageReservationRequest;
+import com.supasoft.pricingservice.dto.response.UsageReservationResponse;
+import com.supasoft.pricingservice.entity.Discount;
+import com.supasoft.pricingservice.enums.DiscountType;
+import com.supasoft.pricingservice.exception.PromotionExpiredException;
+import com.supasoft.pricingservice.repository.DiscountRepository;
+import com.supasoft.pricingservice.repository.PromotionRepository;
+import com.supasoft.pricingservice.usage.UsageCounter;
+import com.supasoft.pricingservice.usage.UsageReservation;
+import com.supasoft.pricingservice.usage.UsageTarget;
+
+public class UsageServiceTest {
+
+    private static final String TOKEN = "DISCOUNT:1:r1:7";
+
+    private PromotionRepository promotionRepository;
+    private UsageCounter usageCounter;
+    private UsageService usageService;
+
+    @BeforeEach
+    public void setUp() {
+        promotionRepository = mock(PromotionRepository.class);
+        DiscountRepository discountRepository = mock(DiscountRepository.class);
+        usageCounter = mock(UsageCounter.class);
+        usageService = new UsageServiceImpl(promotionRepository, discountRepository, usageCounter);
+
+        when(discountRepository.findByCode("TENOFF")).thenReturn(Optional.of(tenPercentOff()));
+        when(usageCounter.reserve(eq(UsageTarget.DISCOUNT), eq(1L), eq("TENOFF"), eq(7L), any(), any(), anyInt(),
+                any())).thenReturn(new UsageReservation(TOKEN, UsageTarget.DISCOUNT, 1L, 7L, LocalDateTime.now()));
+    }
+
+    @Test
+    public void testEveryUseIsReserved() {
+        List<UsageReservationResponse> reserved = usageService.reserveAll(
+                List.of(new UsageReservationRequest(UsageTarget.DISCOUNT, "TENOFF", 7L)));
+
+        assertEquals(1, reserved.size());
+        assertEquals(TOKEN, reserved.get(0).getToken());
+    }
+
+    @Test
+    public void testUsesAlreadyTakenAreReleasedWhenOneFails() {
+        when(promotionRepository.findByCode("GONE")).thenReturn(Optional.empty());
+
+        assertThrows(PromotionExpiredException.class, () -> usageService.reserveAll(List.of(
+                new UsageReservationRequest(UsageTarget.DISCOUNT, "TENOFF", 7L),
+                new UsageReservationRequest(UsageTarget.PROMOTION, "GONE", 7L))));
+
+        verify(usageCounter).release(TOKEN);
+    }
+
+    private static Discount tenPercentOff() {
+        Discount discount = new Discount();
+        discount.setId(1L);
+        discount.setCode("TENOFF");
+        discount.setDiscountType(DiscountType.PERCENTAGE);
+        discount.setDiscountValue(BigDecimal.TEN);
+        discount.setStatus(Status.ACTIVE);
+        discount.setStartDate(LocalDateTime.now().minusDays(1));
+        discount.setEndDate(LocalDateTime.now().plusDays(1));
+        return discount;
+    }
+}
@@ -0,0 +1,171 @@
+package com.supasoft.pricingservice.snapshot;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.supasoft.pricingservice.entity.ItemPrice;
+import com.supasoft.pricingservice.entity.PriceType;
+import com.supasoft.pricingservice.repository.CustomerPricingRepository;
+import com.supasoft.pricingservice.repository.ItemPriceRepository;
+
+public class PricingSnapshotManagerTest {
+
+    private static final Duration MAX_AGE = Duration.ofMinutes(15);
+
+    private ItemPriceRepository itemPriceRepository;
+    private CustomerPricingRepository customerPricingRepository;
+    private TaskScheduler taskScheduler;
+    private List<Runnable> scheduled;
+    private PricingSnapshotManager manager;
+
+    @BeforeEach
+    public void setUp() {
+        itemPriceRepository = mock(ItemPriceRepository.class);
+        customerPricingRepository = mock(CustomerPricingRepository.class);
+        taskScheduler = mock(TaskScheduler.class);
+        scheduled = new ArrayList<>();
+        when(taskScheduler.schedule(any(Runnable.class), any(Instant.class))).thenAnswer(invocation -> {
+            scheduled.add(invocation.getArgument(0));
+            return mock(ScheduledFuture.class);
+        });
+        manager = new PricingSnapshotManager(itemPriceRepository, customerPricingRepository,
+                mock(StringRedisTemplate.class), taskScheduler,
+                Duration.ofSeconds(30), MAX_AGE, Duration.ofSeconds(2));
+    }
+
+    @Test
+    public void testSnapshotEndsAtTheEarliestBoundary() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiry = now.plusMinutes(3);
+        when(itemPriceRepository.findNextEffectiveDate(any(), any())).thenReturn(Optional.of(now.plusMinutes(5)));
+        when(customerPricingRepository.findNextExpiryDate(any(), any())).thenReturn(Optional.of(expiry));
+
+        manager.rebuild();
+
+        PricingSnapshot snapshot = manager.current(LocalDateTime.now());
+        assertNotNull(snapshot);
+        // Expiry is inclusive, so the price is still valid at its expiry instant
+        assertEquals(expiry.plusNanos(1_000), snapshot.getValidUntil());
+        assertNotNull(manager.current(expiry));
+        assertNull(manager.current(snapshot.getValidUntil()));
+    }
+
+    @Test
+    public void testSnapshotIsCappedAtMaxAge() {
+        when(itemPriceRepository.findNextEffectiveDate(any(), any()))
+                .thenReturn(Optional.of(LocalDateTime.now().plusDays(1)));
+
+        manager.rebuild();
+
+        PricingSnapshot snapshot = manager.current(LocalDateTime.now());
+        assertEquals(snapshot.getValidFrom().plus(MAX_AGE), snapshot.getValidUntil());
+        assertNull(manager.current(snapshot.getValidFrom().minusSeconds(1)));
+    }
+
+    @Test
+    public void testRolloverSwapsInThePrebuiltSnapshotAtTheBoundary() {
+        LocalDateTime boundary = LocalDateTime.now().plusMinutes(1);
+        when(itemPriceRepository.findNextEffectiveDate(any(), any())).thenReturn(Optional.of(boundary));
+        when(itemPriceRepository.findAllActiveAt(any(), any()))
+                .thenReturn(List.of(price(10L, "100.00")))
+                .thenReturn(List.of(price(10L, "90.00")));
+
+        manager.rebuild();
+        PricingSnapshot first = manager.current(LocalDateTime.now());
+        assertEquals(new BigDecimal("100.00"), first.getPriceBook().typePrice(10L, 1L).getSellingPrice());
+
+        // Pre-build for the boundary, then swap at the boundary
+        scheduled.remove(0).run();
+        assertEquals(first, manager.current(LocalDateTime.now()));
+        scheduled.remove(0).run();
+
+        PricingSnapshot next = manager.current(boundary);
+        assertNotNull(next);
+        assertEquals(boundary, next.getValidFrom());
+        assertEquals(new BigDecimal("90.00"), next.getPriceBook().typePrice(10L, 1L).getSellingPrice());
+        // The following rollover is already scheduled
+        assertEquals(1, scheduled.size());
+    }
+
+    @Test
+    public void testOverlappingPricesResolveToTheLatestEffective() {
+        // Rows in query order: latest effective first, newest row first on a tie
+        ItemPrice promotional = price(10L, "85.00");
+        promotional.setId(5L);
+        promotional.setEffectiveDate(LocalDateTime.now().minusDays(1));
+        ItemPrice regular = price(10L, "100.00");
+        regular.setId(3L);
+        regular.setEffectiveDate(LocalDateTime.now().minusMonths(1));
+        when(itemPriceRepository.findAllActiveAt(any(), any())).thenReturn(List.of(promotional, regular));
+
+        manager.rebuild();
+
+        PricingSnapshot snapshot = manager.current(LocalDateTime.now());
+        assertEquals(new BigDecimal("85.00"), snapshot.getPriceBook().typePrice(10L, 1L).getSellingPrice());
+        assertTrue(query(ItemPriceRepository.class, "findAllActiveAt")
+                .endsWith("ORDER BY ip.effectiveDate DESC, ip.id DESC"));
+        assertTrue(query(CustomerPricingRepository.class, "findAllActiveAt")
+                .endsWith("ORDER BY cp.effectiveDate DESC, cp.id DESC"));
+    }
+
+    @Test
+    public void testRebuildRequestsAreDebounced() {
+        manager.requestRebuild();
+        manager.requestRebuild();
+        manager.requestRebuild();
+
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    public void testFailedBuildKeepsNoSnapshotAndRetries() {
+        when(itemPriceRepository.findAllActiveAt(any(), any())).thenThrow(new IllegalStateException("db down"));
+
+        manager.rebuild();
+
+        assertNull(manager.current(LocalDateTime.now()));
+        assertEquals(1, scheduled.size());
+    }
+
+    private static String query(Class<?> repository, String method) {
+        return Arrays.stream(repository.getMethods())
+                .filter(m -> m.getName().equals(method))
+                .findFirst()
+                .orElseThrow()
+                .getAnnotation(Query.class)
+                .value();
+    }
+
+    private static ItemPrice price(Long itemId, String sellingPrice) {
+        PriceType retail = new PriceType();
+        retail.setId(1L);
+        ItemPrice price = new ItemPrice();
+        price.setItemId(itemId);
+        price.setPriceType(retail);
+        price.setSellingPrice(new BigDecimal(sellingPrice));
+        return price;
+    }
+}
@@ -0,0 +1,171 @@
+package com.supasoft.pricingservice.usage;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import com.supasoft.common.exception.BusinessException;
+import com.supasoft.pricingservice.exception.UsageLimitExceededException;
+import com.supasoft.pricingservice.promotion.PromotionChangedEvent;
+
+public class UsageCounterTest {
+
+    private static final LocalDateTime END = LocalDateTime.now().plusDays(7);
+
+    private StringRedisTemplate redisTemplate;
+    private SetOperations<String, String> setOperations;
+    private HashOperations<String, Object, Object> hashOperations;
+    private UsageCountStore usageCountStore;
+    private ApplicationEventPublisher eventPublisher;
+    private UsageCounter counter;
+
+    /**
+     * Script replies by the first key's suffix (":used" reserve, ":reservations" commit/release, ":pending" drain)
+     */
+    private final Map<String, List<Object>> replies = new TreeMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        setOperations = mock(SetOperations.class);
+        hashOperations = mock(HashOperations.class);
+        usageCountStore = mock(UsageCountStore.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            List<String> keys = invocation.getArgument(1);
+            String first = keys.get(0);
+            List<Object> queue = replies.get(first.substring(first.lastIndexOf(':')));
+            return queue == null || queue.isEmpty() ? null : queue.remove(0);
+        });
+        counter = new UsageCounter(redisTemplate, usageCountStore, eventPublisher, Duration.ofMinutes(15), 500);
+    }
+
+    @Test
+    public void testReserveThrowsWhenEitherLimitIsReached() {
+        reply(":used", 0L, -1L);
+
+        assertThrows(UsageLimitExceededException.class, () -> counter.reserve(UsageTarget.PROMOTION, 12L,
+                "SUMMER", null, 100, null, 100, END));
+        assertThrows(UsageLimitExceededException.class, () -> counter.reserve(UsageTarget.PROMOTION, 12L,
+                "SUMMER", 7L, 100, 1, 3, END));
+    }
+
+    @Test
+    public void testMissingCustomerCounterIsSeededFromTheDatabase() {
+        reply(":used", -2L, 1L);
+        when(usageCountStore.findCustomerUsage(UsageTarget.DISCOUNT, 3L, 7L)).thenReturn(2);
+
+        UsageReservation reservation = counter.reserve(UsageTarget.DISCOUNT, 3L, "TENOFF", 7L, null, 5, 10, END);
+
+        assertTrue(reservation.getToken().startsWith("DISCOUNT:3:"));
+        assertTrue(reservation.getToken().endsWith(":7"));
+        verify(usageCountStore).findCustomerUsage(UsageTarget.DISCOUNT, 3L, 7L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testScriptsAreGivenEveryKeyTheyTouch() {
+        reply(":used", 1L, 1L);
+        reply(":reservations", 1L);
+
+        counter.reserve(UsageTarget.PROMOTION, 12L, "SUMMER", 7L, 100, 2, 0, END);
+        counter.reserve(UsageTarget.PROMOTION, 12L, "SUMMER", null, 100, 2, 0, END);
+        counter.release("PROMOTION:12:r1:7");
+
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        verify(redisTemplate, times(3)).execute(any(RedisScript.class), keys.capture(), any(Object[].class));
+        List<String> expected = List.of("usage:{PROMOTION:12}:used", "usage:{PROMOTION:12}:reservations",
+                "usage:{PROMOTION:12}:customers");
+        assertEquals(expected, keys.getAllValues().get(0));
+        assertEquals(expected, keys.getAllValues().get(1));
+        assertEquals(List.of("usage:{PROMOTION:12}:reservations", "usage:{PROMOTION:12}:used",
+                "usage:{PROMOTION:12}:customers"), keys.getAllValues().get(2));
+    }
+
+    @Test
+    public void testCommitMarksTheTargetDirty() {
+        reply(":reservations", 1L, 0L);
+
+        assertTrue(counter.commit("PROMOTION:12:r1:7"));
+        assertEquals(false, counter.commit("PROMOTION:12:r1:7"));
+
+        verify(setOperations).add("usage:dirty", "PROMOTION:12");
+    }
+
+    @Test
+    public void testInvalidTokenIsRejected() {
+        assertThrows(BusinessException.class, () -> counter.commit("PROMOTION:12"));
+        assertThrows(BusinessException.class, () -> counter.release("COUPON:1:r1:-"));
+    }
+
+    @Test
+    public void testFlushWritesBatchedDeltasAndPublishesExhaustedTargets() {
+        when(setOperations.pop("usage:dirty", 500)).thenReturn(List.of("PROMOTION:12"), List.of());
+        reply(":pending", List.of("total", "3", "customer:7", "2"));
+        when(usageCountStore.apply(eq(UsageTarget.PROMOTION), any(), any())).thenReturn(Set.of(12L));
+
+        counter.flush();
+
+        SortedMap<Long, Integer> totals = new TreeMap<>(Map.of(12L, 3));
+        SortedMap<Long, SortedMap<Long, Integer>> customers = new TreeMap<>(Map.of(12L, new TreeMap<>(Map.of(7L, 2))));
+        verify(usageCountStore).apply(UsageTarget.PROMOTION, totals, customers);
+        verify(eventPublisher).publishEvent(new PromotionChangedEvent(12L));
+    }
+
+    @Test
+    public void testFailedWriteBackPutsTheDeltasBack() {
+        when(setOperations.pop("usage:dirty", 500)).thenReturn(List.of("DISCOUNT:3"), List.of());
+        reply(":pending", List.of("total", "4", "customer:7", "1"));
+        when(usageCountStore.apply(eq(UsageTarget.DISCOUNT), any(), any())).thenThrow(new IllegalStateException("db down"));
+
+        counter.flush();
+
+        verify(hashOperations).increment("usage:{DISCOUNT:3}:pending", "total", 4L);
+        verify(hashOperations).increment("usage:{DISCOUNT:3}:pending", "customer:7", 1L);
+        verify(setOperations).add("usage:dirty", "DISCOUNT:3");
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testScheduledFlushSurvivesRedisFailures() {
+        when(setOperations.pop(any(), anyLong())).thenThrow(new IllegalStateException("redis down"));
+
+        counter.flushQuietly();
+
+        verify(usageCountStore, never()).apply(any(), any(), any());
+    }
+
+    private void reply(String keySuffix, Object... values) {
+        replies.computeIfAbsent(keySuffix, k -> new ArrayList<>()).addAll(List.of(values));
+    }
+}
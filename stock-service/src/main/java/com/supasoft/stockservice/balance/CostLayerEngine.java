@@ -0,0 +1,358 @@
+package com.supasoft.stockservice.balance;
+
+import com.supasoft.common.exception.BusinessException;
+import com.supasoft.common.util.LongObjectHashMap;
+import com.supasoft.stockservice.enums.MovementType;
+import com.supasoft.stockservice.exception.BatchExpiredException;
+import com.supasoft.stockservice.exception.InsufficientStockException;
+import com.supasoft.stockservice.exception.StockBalanceBusyException;
+import com.supasoft.stockservice.util.FifoCalculator;
+import com.supasoft.stockservice.util.WeightedAverageCostCalculator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory FIFO/FEFO cost layers of batch-tracked items, written through to the batches table.
+ *
+ * Each item/branch has a {@link FifoCalculator} loaded from its batches with stock remaining.
+ * An item counts as batch-tracked once any batch of it has been received; movements of other
+ * items pass straight through. Issues draw from the head layers, skipping expired batches for
+ * sales and transfers out, and receipts that name a batch number add a layer.
+ *
+ * Every change is committed to the batches table before it is made visible in memory: draws
+ * are conditional on the batch still holding the quantity, so a layer drawn by another replica
+ * shows up as a conflict, and the affected item/branch is reloaded and the request tried once
+ * more. A failed request reloads its layers from the table, so after a crash or a rollback the
+ * table is the only state there is. Layers are also reloaded when older than {@code reload-after}
+ * to pick up batches received through other replicas.
+ */
+@Slf4j
+@Component
+public class CostLayerEngine {
+
+    private static final String SELECT_LAYERS =
+            "SELECT id, unit_cost, quantity_remaining, expiry_date FROM batches " +
+            "WHERE item_id = ? AND branch_id = ? AND quantity_remaining > 0 " +
+            "ORDER BY expiry_date IS NULL, expiry_date, id";
+
+    private static final String SELECT_TRACKED = "SELECT EXISTS (SELECT 1 FROM batches WHERE item_id = ?)";
+
+    private static final String INSERT_BATCH =
+            "INSERT INTO batches (item_id, branch_id, batch_number, expiry_date, unit_cost, quantity_received, " +
+            "quantity_remaining, reference_type, reference_number, created_by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DRAW_BATCH =
+            "UPDATE batches SET quantity_remaining = quantity_remaining - ? WHERE id = ? AND quantity_remaining >= ?";
+
+    private static final String REVERT_BATCH =
+            "UPDATE batches SET quantity_remaining = quantity_remaining - ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long reloadAfterMillis;
+
+    private final LongObjectHashMap<Layers> layers = new LongObjectHashMap<>(1 << 12);
+    private final Object loadLock = new Object();
+
+    public CostLayerEngine(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${stock.batch.reload-after:30s}") Duration reloadAfter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.reloadAfterMillis = reloadAfter.toMillis();
+    }
+
+    /**
+     * Draw issues from and add receipts to the layers of batch-tracked items, all or none
+     *
+     * @return the batches drawn (negative quantity) and received (positive), each tagged with
+     *         the index of its line; empty when no line is for a batch-tracked item
+     * @throws InsufficientStockException if the batches of an item cannot cover an issue
+     * @throws BatchExpiredException      if they can, but only by including expired batches
+     */
+    public List<BatchMovement> apply(List<Line> lines, LocalDate today) {
+        Map<Long, Layers> locked = new TreeMap<>();
+        for (Line line : lines) {
+            locked.computeIfAbsent(StockKey.of(line.itemId(), line.branchId(), 0), this::holder);
+        }
+
+        // Locks in key order, so requests sharing items cannot deadlock
+        List<Layers> acquired = new ArrayList<>(locked.size());
+        try {
+            for (Layers held : locked.values()) {
+                held.lock.lock();
+                acquired.add(held);
+            }
+            long now = System.currentTimeMillis();
+            for (Layers held : acquired) {
+                if (now - held.loadedAt > reloadAfterMillis) {
+                    load(held);
+                }
+            }
+
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return applyLocked(lines, locked, today.toEpochDay());
+                } catch (LayerConflictException | InsufficientStockException | BatchExpiredException e) {
+                    // Layers may be behind another replica's receipts or draws: reload and try once more
+                    acquired.forEach(this::load);
+                    log.debug("Batch layers reloaded after attempt {}: {}", attempt, e.getMessage());
+                    if (attempt == 2) {
+                        if (e instanceof LayerConflictException) {
+                            throw new StockBalanceBusyException("Batches changed while the movement was "
+                                    + "being applied, please retry");
+                        }
+                        throw e;
+                    }
+                } catch (RuntimeException e) {
+                    acquired.forEach(this::load);
+                    throw e;
+                }
+            }
+        } finally {
+            acquired.forEach(held -> held.lock.unlock());
+        }
+    }
+
+    /**
+     * Undo batch movements returned by {@link #apply}, e.g. when the stock movement they belong to fails
+     */
+    public void revert(List<BatchMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = movements.stream()
+                .sorted(Comparator.comparingLong(BatchMovement::batchId))
+                .map(movement -> new Object[]{WeightedAverageCostCalculator.fromQuantity(movement.quantity()),
+                        movement.batchId()})
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(REVERT_BATCH, args));
+
+        movements.stream()
+                .map(movement -> StockKey.of(movement.itemId(), movement.branchId(), 0))
+                .distinct()
+                .forEach(key -> {
+                    Layers held = layers.get(key);
+                    if (held != null) {
+                        held.lock.lock();
+                        try {
+                            load(held);
+                        } finally {
+                            held.lock.unlock();
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Plan every line against memory, commit the batch changes, then add the received layers
+     */
+    private List<BatchMovement> applyLocked(List<Line> lines, Map<Long, Layers> locked, long today) {
+        List<BatchMovement> drawn = new ArrayList<>();
+        List<Integer> receipts = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            Line line = lines.get(i);
+            Layers held = locked.get(StockKey.of(line.itemId(), line.branchId(), 0));
+            if (line.quantity() < 0) {
+                if (held.fifo != null) {
+                    draw(line, i, held.fifo, today, drawn);
+                }
+            } else if (line.batchNumber() != null) {
+                receipts.add(i);
+            } else if (held.fifo != null) {
+                throw new BusinessException("Batch number is required for batch-tracked item " + line.itemId());
+            }
+        }
+        if (drawn.isEmpty() && receipts.isEmpty()) {
+            return drawn;
+        }
+
+        List<Object[]> drawArgs = drawn.stream()
+                .sorted(Comparator.comparingLong(BatchMovement::batchId))
+                .map(movement -> {
+                    BigDecimal quantity = WeightedAverageCostCalculator.fromQuantity(-movement.quantity());
+                    return new Object[]{quantity, movement.batchId(), quantity};
+                })
+                .toList();
+        List<BatchMovement> received = new ArrayList<>(receipts.size());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int count : jdbcTemplate.batchUpdate(DRAW_BATCH, drawArgs)) {
+                if (count == 0) {
+                    throw new LayerConflictException();
+                }
+            }
+            for (int i : receipts) {
+                Line line = lines.get(i);
+                long unitCost = receiptCost(line, locked.get(StockKey.of(line.itemId(), line.branchId(), 0)));
+                received.add(new BatchMovement(i, line.itemId(), line.branchId(), insert(line, unitCost),
+                        line.quantity(), unitCost));
+            }
+        });
+
+        for (BatchMovement movement : received) {
+            Line line = lines.get(movement.line());
+            Layers held = locked.get(StockKey.of(line.itemId(), line.branchId(), 0));
+            if (held.fifo == null) {
+                held.fifo = new FifoCalculator();
+            }
+            held.fifo.add(movement.batchId(), movement.quantity(), movement.unitCost(),
+                    line.expiryDate() != null ? line.expiryDate().toEpochDay() : FifoCalculator.NO_EXPIRY);
+        }
+        drawn.addAll(received);
+        return drawn;
+    }
+
+    private void draw(Line line, int index, FifoCalculator fifo, long today, List<BatchMovement> drawn) {
+        long required = -line.quantity();
+        boolean skipExpired = line.type().skipsExpiredBatches();
+        long eligible = skipExpired ? fifo.getAvailable(today) : fifo.getQuantity();
+        if (eligible < required) {
+            if (fifo.getQuantity() >= required) {
+                throw new BatchExpiredException(line.itemId(), line.branchId(),
+                        WeightedAverageCostCalculator.fromQuantity(required),
+                        WeightedAverageCostCalculator.fromQuantity(eligible));
+            }
+            throw new InsufficientStockException(line.itemId(), line.branchId(),
+                    WeightedAverageCostCalculator.fromQuantity(required),
+                    WeightedAverageCostCalculator.fromQuantity(fifo.getQuantity()));
+        }
+
+        FifoCalculator.Allocation allocation = fifo.consume(required, today, skipExpired);
+        for (int layer = 0; layer < allocation.size(); layer++) {
+            drawn.add(new BatchMovement(index, line.itemId(), line.branchId(), allocation.batchId(layer),
+                    -allocation.quantity(layer), allocation.unitCost(layer)));
+        }
+    }
+
+    /**
+     * The line's unit cost, or for uncosted receipts such as returns the cost of the layers on hand
+     */
+    private long receiptCost(Line line, Layers held) {
+        if (line.unitCost() != null) {
+            return WeightedAverageCostCalculator.toCost(line.unitCost());
+        }
+        if (held.fifo == null || held.fifo.isEmpty()) {
+            throw new BusinessException("Unit cost is required for batch " + line.batchNumber()
+                    + " of item " + line.itemId());
+        }
+        return held.fifo.getAverageCost();
+    }
+
+    private long insert(Line line, long unitCost) {
+        BigDecimal quantity = WeightedAverageCostCalculator.fromQuantity(line.quantity());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_BATCH, Statement.RETURN_GENERATED_KEYS);
+            statement.setLong(1, line.itemId());
+            statement.setLong(2, line.branchId());
+            statement.setString(3, line.batchNumber());
+            statement.setDate(4, line.expiryDate() != null ? Date.valueOf(line.expiryDate()) : null);
+            statement.setBigDecimal(5, WeightedAverageCostCalculator.fromCost(unitCost));
+            statement.setBigDecimal(6, quantity);
+            statement.setBigDecimal(7, quantity);
+            statement.setString(8, line.referenceType());
+            statement.setString(9, line.referenceNumber());
+            statement.setString(10, line.createdBy());
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    /**
+     * The layers holder for a key, created empty and loaded by the first caller to lock it
+     */
+    private Layers holder(long key) {
+        Layers held = layers.get(key);
+        if (held != null) {
+            return held;
+        }
+        synchronized (loadLock) {
+            held = layers.get(key);
+            if (held == null) {
+                held = new Layers(StockKey.itemId(key), StockKey.branchId(key));
+                layers.put(key, held);
+            }
+            return held;
+        }
+    }
+
+    /**
+     * Replace a holder's layers with the batches table's; caller holds its lock
+     */
+    private void load(Layers held) {
+        FifoCalculator fifo = new FifoCalculator();
+        jdbcTemplate.query(SELECT_LAYERS, rs -> {
+            Date expiry = rs.getDate(4);
+            fifo.add(rs.getLong(1), WeightedAverageCostCalculator.toQuantity(rs.getBigDecimal(3)),
+                    WeightedAverageCostCalculator.toCost(rs.getBigDecimal(2)),
+                    expiry != null ? expiry.toLocalDate().toEpochDay() : FifoCalculator.NO_EXPIRY);
+        }, held.itemId, held.branchId);
+        boolean tracked = !fifo.isEmpty()
+                || Boolean.TRUE.equals(jdbcTemplate.queryForObject(SELECT_TRACKED, Boolean.class, held.itemId));
+        held.fifo = tracked ? fifo : null;
+        held.loadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * One stock movement line as the layers see it; quantity is signed, in thousandths
+     */
+    public record Line(long itemId, long branchId, MovementType type, long quantity, String batchNumber,
+                       LocalDate expiryDate, BigDecimal unitCost, String referenceType, String referenceNumber,
+                       String createdBy) {
+    }
+
+    /**
+     * Quantity taken from (negative) or added to (positive) one batch for the line at index {@code line}
+     *
+     * @param unitCost the batch's unit cost in ten-thousandths
+     */
+    public record BatchMovement(int line, long itemId, long branchId, long batchId, long quantity, long unitCost) {
+    }
+
+    /**
+     * Layers of one item at one branch; {@code fifo} is null while the item is not batch-tracked
+     */
+    private static final class Layers {
+
+        private final long itemId;
+        private final long branchId;
+        private final ReentrantLock lock = new ReentrantLock();
+        private FifoCalculator fifo;
+        private long loadedAt;
+
+        private Layers(long itemId, long branchId) {
+            this.itemId = itemId;
+            this.branchId = branchId;
+        }
+    }
+
+    /**
+     * A conditional draw found the batch already drawn down by someone else
+     */
+    private static final class LayerConflictException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private LayerConflictException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.supasoft.stockservice.balance;
+
+import com.supasoft.common.util.LongObjectHashMap;
+import com.supasoft.stockservice.enums.MovementType;
+import com.supasoft.stockservice.exception.InsufficientStockException;
+import com.supasoft.stockservice.exception.StockBalanceBusyException;
+import com.supasoft.stockservice.journal.StockMovementJournal;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory stock balances with journalled group commit to MySQL.
+ *
+ * Each item/branch/location has a cell in a primitive-keyed map holding the persisted
+ * quantity and the quantity accepted but not yet written, both in thousandths. Movements
+ * are applied to the cells with compare-and-set, so reads and decrements never take a
+ * lock, and the non-negative check sees every movement accepted before it.
+ *
+ * Accepted movements are queued for the writer thread, which every {@code flush-interval}
+ * appends them to the {@link StockMovementJournal} and adds their summed deltas to stock_balances in a
+ * single transaction. The future returned by {@link #apply} completes only after that
+ * commit, so an acknowledged movement is always in the journal and a crash loses nothing
+ * that was confirmed. A failed flush takes its movements back out of the cells.
+ *
+ * Balance rows changed by other replicas are picked up by polling updated_at every
+ * {@code refresh-interval}; the non-negative check is against this instance's view.
+ */
+@Slf4j
+@Component
+public class StockBalanceEngine {
+
+    private static final int SCALE = 3;
+
+    private static final String UPSERT_BALANCE =
+            "INSERT INTO stock_balances (item_id, branch_id, location_id, quantity_on_hand, last_movement_at) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantity_on_hand = quantity_on_hand + VALUES(quantity_on_hand), " +
+            "last_movement_at = GREATEST(COALESCE(last_movement_at, VALUES(last_movement_at)), " +
+            "VALUES(last_movement_at))";
+
+    private static final String SELECT_QUANTITY =
+            "SELECT quantity_on_hand FROM stock_balances WHERE item_id = ? AND branch_id = ? AND location_id = ?";
+
+    private static final String SELECT_CHUNK =
+            "SELECT id, item_id, branch_id, location_id, quantity_on_hand FROM stock_balances " +
+            "WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String SELECT_CHANGED =
+            "SELECT item_id, branch_id, location_id, quantity_on_hand FROM stock_balances WHERE updated_at >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockMovementJournal journal;
+
+    private final boolean allowNegative;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final int maxPending;
+    private final Duration refreshInterval;
+    private final Duration refreshSlack;
+    private final int loadChunkSize;
+
+    private final LongObjectHashMap<Cell> cells = new LongObjectHashMap<>(1 << 16);
+    private final Object loadLock = new Object();
+
+    private final ConcurrentLinkedQueue<Batch> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // Writer thread only
+    private Timestamp watermark;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-balance-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public StockBalanceEngine(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              StockMovementJournal journal,
+                              @Value("${stock.balance.allow-negative:false}") boolean allowNegative,
+                              @Value("${stock.balance.flush-interval:5ms}") Duration flushInterval,
+                              @Value("${stock.balance.batch-size:1000}") int batchSize,
+                              @Value("${stock.balance.max-pending:50000}") int maxPending,
+                              @Value("${stock.balance.refresh-interval:2s}") Duration refreshInterval,
+                              @Value("${stock.balance.refresh-slack:5s}") Duration refreshSlack,
+                              @Value("${stock.balance.load-chunk-size:10000}") int loadChunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.journal = journal;
+        this.allowNegative = allowNegative;
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.refreshInterval = refreshInterval;
+        this.refreshSlack = refreshSlack;
+        this.loadChunkSize = loadChunkSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        writer.execute(this::preload);
+        writer.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        writer.scheduleWithFixedDelay(this::refreshQuietly,
+                refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(5, TimeUnit.SECONDS);
+        while (!queue.isEmpty() && flushQuietly() > 0) {
+            // drain whatever was accepted before shutdown
+        }
+    }
+
+    /**
+     * Apply movements to the in-memory balances, all or none, and queue them for the journal
+     *
+     * @return completes once the movements are committed to MySQL; pass it to {@link #withdraw}
+     *         to take them back while they are still queued
+     * @throws InsufficientStockException if a movement would take a balance below zero
+     * @throws StockBalanceBusyException  if too many movements are already waiting to be written
+     */
+    public CompletableFuture<Void> apply(List<Movement> movements) {
+        if (pending.get() + movements.size() > maxPending) {
+            throw new StockBalanceBusyException("Stock movements are backed up, please retry shortly");
+        }
+
+        Cell[] touched = new Cell[movements.size()];
+        for (int i = 0; i < touched.length; i++) {
+            Movement movement = movements.get(i);
+            Cell cell = cell(movement.key(), true);
+            if (!cell.add(movement.quantity(), allowNegative)) {
+                for (int j = 0; j < i; j++) {
+                    touched[j].revert(movements.get(j).quantity());
+                }
+                throw new InsufficientStockException(movement.itemId(), movement.branchId(),
+                        fromMilli(-movement.quantity()), fromMilli(cell.onHand()));
+            }
+            touched[i] = cell;
+        }
+
+        Batch batch = new Batch(movements, touched, LocalDateTime.now());
+        pending.addAndGet(movements.size());
+        queue.add(batch);
+        return batch.future;
+    }
+
+    /**
+     * Take back movements accepted by {@link #apply} that no flush has picked up yet
+     *
+     * @return true if they were removed from the queue and out of the balances, so they will never
+     *         be written; false if a flush already holds them and they may still commit
+     */
+    public boolean withdraw(CompletableFuture<Void> accepted) {
+        for (Batch batch : queue) {
+            if (batch.future == accepted) {
+                // Removal and the writer's poll race on the same node; exactly one of them gets it
+                if (!queue.remove(batch)) {
+                    return false;
+                }
+                batch.revert();
+                pending.addAndGet(-batch.movements.size());
+                batch.future.cancel(false);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Quantity on hand including accepted movements; zero if the item has never been stocked here
+     */
+    public BigDecimal getQuantityOnHand(long itemId, long branchId, long locationId) {
+        Cell cell = cell(StockKey.of(itemId, branchId, locationId), false);
+        return cell != null ? fromMilli(cell.onHand()) : BigDecimal.ZERO.setScale(SCALE);
+    }
+
+    /**
+     * Quantity on hand if the balance is already in memory, otherwise null
+     */
+    public BigDecimal peekQuantityOnHand(long itemId, long branchId, long locationId) {
+        Cell cell = cells.get(StockKey.of(itemId, branchId, locationId));
+        return cell != null ? fromMilli(cell.onHand()) : null;
+    }
+
+    /**
+     * Number of accepted movements not yet committed
+     */
+    public int getPendingMovements() {
+        return pending.get();
+    }
+
+    /**
+     * Write up to {@code batch-size} queued movements and their balance deltas in one transaction
+     *
+     * @return number of movements committed
+     */
+    public int flush() {
+        List<Batch> batches = new ArrayList<>();
+        int movements = 0;
+        Batch next;
+        while (movements < batchSize && (next = queue.poll()) != null) {
+            batches.add(next);
+            movements += next.movements.size();
+        }
+        if (batches.isEmpty()) {
+            return 0;
+        }
+
+        // Sorted by key so concurrent flushes from different replicas lock rows in the same order
+        Map<Long, Delta> deltas = new TreeMap<>();
+        List<StockMovementJournal.Entry> entries = new ArrayList<>(movements);
+        for (Batch batch : batches) {
+            Timestamp acceptedAt = Timestamp.valueOf(batch.acceptedAt);
+            for (int i = 0; i < batch.cells.length; i++) {
+                Movement movement = batch.movements.get(i);
+                entries.add(new StockMovementJournal.Entry(movement.itemId(), movement.branchId(),
+                        movement.locationId(), movement.type(), fromMilli(movement.quantity()), movement.unitCost(),
+                        movement.referenceType(), movement.referenceNumber(), movement.notes(), batch.acceptedAt,
+                        movement.createdBy()));
+                Cell cell = batch.cells[i];
+                Delta delta = deltas.computeIfAbsent(movement.key(), key -> new Delta(cell));
+                delta.quantity += movement.quantity();
+                delta.lastMovementAt = acceptedAt;
+            }
+        }
+
+        List<Object[]> balanceArgs = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> balanceArgs.add(new Object[]{StockKey.itemId(key), StockKey.branchId(key),
+                StockKey.locationId(key), fromMilli(delta.quantity), delta.lastMovementAt}));
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                journal.append(entries);
+                jdbcTemplate.batchUpdate(UPSERT_BALANCE, balanceArgs);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} stock movements, rejecting them", movements, e);
+            deltas.values().forEach(delta -> delta.cell.revert(delta.quantity));
+            pending.addAndGet(-movements);
+            batches.forEach(batch -> batch.future.completeExceptionally(e));
+            return 0;
+        }
+
+        deltas.values().forEach(delta -> delta.cell.persist(delta.quantity));
+        pending.addAndGet(-movements);
+        batches.forEach(batch -> batch.future.complete(null));
+        return movements;
+    }
+
+    /**
+     * Reload balances changed since the last refresh, which includes other replicas' writes
+     */
+    public void refresh() {
+        Timestamp now = jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP(3)", Timestamp.class);
+        if (watermark != null) {
+            Timestamp since = new Timestamp(watermark.getTime() - refreshSlack.toMillis());
+            jdbcTemplate.query(SELECT_CHANGED, rs -> {
+                Cell cell = cells.get(StockKey.of(rs.getLong(1), rs.getLong(2), rs.getLong(3)));
+                if (cell != null) {
+                    cell.reload(toMilli(rs.getBigDecimal(4)));
+                }
+            }, since);
+        }
+        watermark = now;
+    }
+
+    /**
+     * Load every balance row in id order, {@code load-chunk-size} rows at a time
+     */
+    private void preload() {
+        try {
+            watermark = jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP(3)", Timestamp.class);
+            long lastId = 0;
+            while (true) {
+                long[] last = {-1};
+                jdbcTemplate.query(SELECT_CHUNK, rs -> {
+                    last[0] = rs.getLong(1);
+                    long key = StockKey.of(rs.getLong(2), rs.getLong(3), rs.getLong(4));
+                    long quantity = toMilli(rs.getBigDecimal(5));
+                    synchronized (loadLock) {
+                        if (cells.get(key) == null) {
+                            cells.put(key, new Cell(quantity));
+                        }
+                    }
+                }, lastId, loadChunkSize);
+                if (last[0] < 0) {
+                    break;
+                }
+                lastId = last[0];
+            }
+            log.info("Loaded stock balances, {} cells in memory", cells.size());
+        } catch (Exception e) {
+            log.error("Stock balance preload failed; balances will be loaded on first use", e);
+        }
+    }
+
+    /**
+     * The cell for a key, loading it from stock_balances on first use
+     *
+     * @param create create an empty cell when there is no row, otherwise return null
+     */
+    private Cell cell(long key, boolean create) {
+        Cell cell = cells.get(key);
+        if (cell != null) {
+            return cell;
+        }
+
+        List<BigDecimal> rows = jdbcTemplate.queryForList(SELECT_QUANTITY, BigDecimal.class,
+                StockKey.itemId(key), StockKey.branchId(key), StockKey.locationId(key));
+        if (rows.isEmpty() && !create) {
+            return null;
+        }
+        long persisted = rows.isEmpty() ? 0 : toMilli(rows.get(0));
+
+        synchronized (loadLock) {
+            cell = cells.get(key);
+            if (cell == null) {
+                cell = new Cell(persisted);
+                cells.put(key, cell);
+            }
+            return cell;
+        }
+    }
+
+    private int flushQuietly() {
+        try {
+            return flush();
+        } catch (Exception e) {
+            log.error("Stock balance flush failed", e);
+            return 0;
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Stock balance refresh failed", e);
+        }
+    }
+
+    /**
+     * Quantity in thousandths, the scale of stock_balances.quantity_on_hand
+     */
+    public static long toMilli(BigDecimal quantity) {
+        return quantity.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromMilli(long quantity) {
+        return BigDecimal.valueOf(quantity, SCALE);
+    }
+
+    /**
+     * One quantity change; quantity is signed, in thousandths
+     */
+    public record Movement(long itemId, long branchId, long locationId, MovementType type, long quantity,
+                           BigDecimal unitCost, String referenceType, String referenceNumber, String notes,
+                           String createdBy) {
+
+        long key() {
+            return StockKey.of(itemId, branchId, locationId);
+        }
+    }
+
+    /**
+     * Balance of one item at one location: persisted quantity plus accepted, unwritten quantity
+     */
+    private static final class Cell {
+
+        private final AtomicReference<State> state;
+
+        private Cell(long persisted) {
+            this.state = new AtomicReference<>(new State(persisted, 0));
+        }
+
+        private long onHand() {
+            State current = state.get();
+            return current.persisted + current.pending;
+        }
+
+        /**
+         * Add a delta unless it is a decrement that would leave the balance negative
+         */
+        private boolean add(long delta, boolean allowNegative) {
+            while (true) {
+                State current = state.get();
+                long next = current.pending + delta;
+                if (delta < 0 && !allowNegative && current.persisted + next < 0) {
+                    return false;
+                }
+                if (state.compareAndSet(current, new State(current.persisted, next))) {
+                    return true;
+                }
+            }
+        }
+
+        private void revert(long delta) {
+            state.updateAndGet(current -> new State(current.persisted, current.pending - delta));
+        }
+
+        /**
+         * Written to stock_balances: move the delta from pending to persisted
+         */
+        private void persist(long delta) {
+            state.updateAndGet(current -> new State(current.persisted + delta, current.pending - delta));
+        }
+
+        private void reload(long persisted) {
+            state.updateAndGet(current -> new State(persisted, current.pending));
+        }
+    }
+
+    private record State(long persisted, long pending) {
+    }
+
+    /**
+     * Movements accepted by one {@link #apply} call, and the cells they were applied to
+     */
+    private static final class Batch {
+
+        private final List<Movement> movements;
+        private final Cell[] cells;
+        private final LocalDateTime acceptedAt;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Batch(List<Movement> movements, Cell[] cells, LocalDateTime acceptedAt) {
+            this.movements = movements;
+            this.cells = cells;
+            this.acceptedAt = acceptedAt;
+        }
+
+        private void revert() {
+            for (int i = 0; i < cells.length; i++) {
+                cells[i].revert(movements.get(i).quantity());
+            }
+        }
+    }
+
+    /**
+     * Summed quantity change for one key within a flush
+     */
+    private static final class Delta {
+
+        private final Cell cell;
+        private long quantity;
+        private Timestamp lastMovementAt;
+
+        private Delta(Cell cell) {
+            this.cell = cell;
+        }
+    }
+}
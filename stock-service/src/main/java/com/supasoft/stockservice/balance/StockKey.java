@@ -0,0 +1,39 @@
+package com.supasoft.stockservice.balance;
+
+import com.supasoft.common.exception.BusinessException;
+
+/**
+ * Packs item, branch and location ids into one long for primitive-keyed maps
+ *
+ * Item ids take the top 32 bits and branch and location ids 16 bits each; ids outside
+ * those ranges are rejected rather than silently colliding.
+ */
+public final class StockKey {
+
+    private static final long MAX_ITEM_ID = 0xFFFF_FFFFL;
+    private static final long MAX_SMALL_ID = 0xFFFFL;
+
+    private StockKey() {
+    }
+
+    public static long of(long itemId, long branchId, long locationId) {
+        if (itemId < 0 || itemId > MAX_ITEM_ID || branchId < 0 || branchId > MAX_SMALL_ID
+                || locationId < 0 || locationId > MAX_SMALL_ID) {
+            throw new BusinessException(String.format("Stock key out of range: item %d, branch %d, location %d",
+                    itemId, branchId, locationId));
+        }
+        return itemId << 32 | branchId << 16 | locationId;
+    }
+
+    public static long itemId(long key) {
+        return key >>> 32;
+    }
+
+    public static long branchId(long key) {
+        return (key >>> 16) & MAX_SMALL_ID;
+    }
+
+    public static long locationId(long key) {
+        return key & MAX_SMALL_ID;
+    }
+}
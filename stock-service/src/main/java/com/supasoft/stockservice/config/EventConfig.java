@@ -0,0 +1,63 @@
+package com.supasoft.stockservice.config;
+
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQ Event Configuration
+ * Item events from item-service keep the item classifications used by valuations current.
+ */
+@Configuration
+public class EventConfig {
+    
+    @Value("${rabbitmq.exchange.item:item.exchange}")
+    private String itemExchange;
+    
+    @Value("${rabbitmq.queue.stock.item-classification:stock.item.classification.queue}")
+    private String itemClassificationQueue;
+    
+    @Value("${rabbitmq.routingkey.item.created:item.created}")
+    private String itemCreatedRoutingKey;
+    
+    @Value("${rabbitmq.routingkey.item.updated:item.updated}")
+    private String itemUpdatedRoutingKey;
+    
+    @Bean
+    public DirectExchange itemExchange() {
+        return new DirectExchange(itemExchange);
+    }
+    
+    /**
+     * Shared by all replicas: each event only needs applying once
+     */
+    @Bean
+    public Queue itemClassificationQueue() {
+        return new Queue(itemClassificationQueue, true);
+    }
+    
+    @Bean
+    public Binding itemClassificationCreatedBinding() {
+        return BindingBuilder.bind(itemClassificationQueue())
+                .to(itemExchange())
+                .with(itemCreatedRoutingKey);
+    }
+    
+    @Bean
+    public Binding itemClassificationUpdatedBinding() {
+        return BindingBuilder.bind(itemClassificationQueue())
+                .to(itemExchange())
+                .with(itemUpdatedRoutingKey);
+    }
+    
+    @Bean
+    public MessageConverter jsonMessageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
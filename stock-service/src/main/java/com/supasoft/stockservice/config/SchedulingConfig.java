@@ -0,0 +1,13 @@
+package com.supasoft.stockservice.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Background jobs run as @Scheduled methods on Spring Boot's shared task scheduler
+ * (spring.task.scheduling.*)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,51 @@
+package com.supasoft.stockservice.controller;
+
+import com.supasoft.common.dto.ApiResponse;
+import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.stockservice.dto.response.BatchResponse;
+import com.supasoft.stockservice.service.BatchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST Controller for batches of batch-tracked items
+ */
+@RestController
+@RequestMapping("/api/v1/stock/batches")
+@RequiredArgsConstructor
+@Tag(name = "Batch", description = "Batch and expiry APIs")
+public class BatchController {
+    
+    private final BatchService batchService;
+    
+    @GetMapping("/item/{itemId}/branch/{branchId}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Get an item's batches with stock at a branch, in picking order")
+    public ResponseEntity<ApiResponse<List<BatchResponse>>> getOpenBatches(
+            @PathVariable Long itemId,
+            @PathVariable Long branchId) {
+        List<BatchResponse> response = batchService.getOpenBatches(itemId, branchId);
+        return ResponseEntity.ok(ApiResponse.success("Batches retrieved successfully", response));
+    }
+    
+    @GetMapping("/branch/{branchId}/expiring")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Get a branch's batches with stock that expire on or before a date")
+    public ResponseEntity<ApiResponse<PagedResponse<BatchResponse>>> getExpiringBatches(
+            @PathVariable Long branchId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate before,
+            @PageableDefault(size = 50) Pageable pageable) {
+        PagedResponse<BatchResponse> response = batchService.getExpiringBatches(branchId, before, pageable);
+        return ResponseEntity.ok(ApiResponse.success("Expiring batches retrieved successfully", response));
+    }
+}
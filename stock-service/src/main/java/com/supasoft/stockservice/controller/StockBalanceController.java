@@ -0,0 +1,65 @@
+package com.supasoft.stockservice.controller;
+
+import com.supasoft.common.dto.ApiResponse;
+import com.supasoft.stockservice.dto.request.StockMovementRequest;
+import com.supasoft.stockservice.dto.response.StockBalanceResponse;
+import com.supasoft.stockservice.service.StockBalanceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller for stock balances
+ */
+@RestController
+@RequestMapping("/api/v1/stock/balances")
+@RequiredArgsConstructor
+@Tag(name = "Stock Balance", description = "Stock on hand APIs")
+public class StockBalanceController {
+    
+    private final StockBalanceService stockBalanceService;
+    
+    @GetMapping("/item/{itemId}/branch/{branchId}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Get quantity on hand for an item at a branch location")
+    public ResponseEntity<ApiResponse<StockBalanceResponse>> getBalance(
+            @PathVariable Long itemId,
+            @PathVariable Long branchId,
+            @RequestParam(required = false) Long locationId) {
+        StockBalanceResponse response = stockBalanceService.getBalance(itemId, branchId, locationId);
+        return ResponseEntity.ok(ApiResponse.success("Stock balance retrieved successfully", response));
+    }
+    
+    @GetMapping("/item/{itemId}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Get an item's balances at every branch location")
+    public ResponseEntity<ApiResponse<List<StockBalanceResponse>>> getItemBalances(@PathVariable Long itemId) {
+        List<StockBalanceResponse> response = stockBalanceService.getItemBalances(itemId);
+        return ResponseEntity.ok(ApiResponse.success("Stock balances retrieved successfully", response));
+    }
+    
+    @GetMapping("/item/{itemId}/branch/{branchId}/locations")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Get an item's balances at every location of a branch")
+    public ResponseEntity<ApiResponse<List<StockBalanceResponse>>> getItemBranchBalances(
+            @PathVariable Long itemId,
+            @PathVariable Long branchId) {
+        List<StockBalanceResponse> response = stockBalanceService.getItemBranchBalances(itemId, branchId);
+        return ResponseEntity.ok(ApiResponse.success("Stock balances retrieved successfully", response));
+    }
+    
+    @PostMapping("/movements")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Apply stock movements, e.g. the lines of a sale")
+    public ResponseEntity<ApiResponse<List<StockBalanceResponse>>> applyMovements(
+            @Valid @RequestBody StockMovementRequest request) {
+        List<StockBalanceResponse> response = stockBalanceService.applyMovements(request);
+        return ResponseEntity.ok(ApiResponse.success("Stock movements applied successfully", response));
+    }
+}
@@ -0,0 +1,94 @@
+package com.supasoft.stockservice.controller;
+
+import com.supasoft.common.dto.ApiResponse;
+import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.stockservice.dto.response.StockBalanceResponse;
+import com.supasoft.stockservice.dto.response.StockMovementResponse;
+import com.supasoft.stockservice.dto.response.StockMovementSummaryResponse;
+import com.supasoft.stockservice.journal.StockJournalMaintenance;
+import com.supasoft.stockservice.service.StockMovementService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST Controller for the stock movement journal
+ */
+@RestController
+@RequestMapping("/api/v1/stock/movements")
+@RequiredArgsConstructor
+@Tag(name = "Stock Movement", description = "Stock movement history APIs")
+public class StockMovementController {
+    
+    private final StockMovementService stockMovementService;
+    private final StockJournalMaintenance stockJournalMaintenance;
+    
+    @GetMapping("/item/{itemId}/branch/{branchId}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Get an item's movements at a branch between two dates")
+    public ResponseEntity<ApiResponse<PagedResponse<StockMovementResponse>>> getItemMovements(
+            @PathVariable Long itemId,
+            @PathVariable Long branchId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @PageableDefault(size = 50) Pageable pageable) {
+        PagedResponse<StockMovementResponse> response =
+                stockMovementService.getItemMovements(itemId, branchId, from, to, pageable);
+        return ResponseEntity.ok(ApiResponse.success("Stock movements retrieved successfully", response));
+    }
+    
+    @GetMapping("/branch/{branchId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Get a branch's movements between two dates")
+    public ResponseEntity<ApiResponse<PagedResponse<StockMovementResponse>>> getBranchMovements(
+            @PathVariable Long branchId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @PageableDefault(size = 50) Pageable pageable) {
+        PagedResponse<StockMovementResponse> response =
+                stockMovementService.getBranchMovements(branchId, from, to, pageable);
+        return ResponseEntity.ok(ApiResponse.success("Stock movements retrieved successfully", response));
+    }
+    
+    @GetMapping("/item/{itemId}/branch/{branchId}/daily")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN', 'MANAGER')")
+    @Operation(summary = "Get an item's daily movement totals at a branch")
+    public ResponseEntity<ApiResponse<List<StockMovementSummaryResponse>>> getDailyHistory(
+            @PathVariable Long itemId,
+            @PathVariable Long branchId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        List<StockMovementSummaryResponse> response =
+                stockMovementService.getDailyHistory(itemId, branchId, from, to);
+        return ResponseEntity.ok(ApiResponse.success("Stock movement history retrieved successfully", response));
+    }
+    
+    @GetMapping("/item/{itemId}/branch/{branchId}/balance")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Rebuild an item's quantity on hand at the end of a day from the journal")
+    public ResponseEntity<ApiResponse<StockBalanceResponse>> getBalanceAsOf(
+            @PathVariable Long itemId,
+            @PathVariable Long branchId,
+            @RequestParam(required = false) Long locationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
+        StockBalanceResponse response = stockMovementService.getBalanceAsOf(itemId, branchId, locationId, asOf);
+        return ResponseEntity.ok(ApiResponse.success("Stock balance rebuilt successfully", response));
+    }
+    
+    @PostMapping("/maintenance")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Add upcoming journal partitions and compact old months now")
+    public ResponseEntity<ApiResponse<StockJournalMaintenance.MaintenanceResult>> runMaintenance() {
+        StockJournalMaintenance.MaintenanceResult result = stockJournalMaintenance.run();
+        return ResponseEntity.ok(ApiResponse.success("Stock journal maintenance completed", result));
+    }
+}
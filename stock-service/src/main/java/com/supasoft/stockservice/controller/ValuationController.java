@@ -0,0 +1,39 @@
+package com.supasoft.stockservice.controller;
+
+import com.supasoft.common.dto.ApiResponse;
+import com.supasoft.stockservice.dto.response.StockValuationResponse;
+import com.supasoft.stockservice.service.ValuationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST Controller for stock valuation
+ */
+@RestController
+@RequestMapping("/api/v1/stock/valuation")
+@RequiredArgsConstructor
+@Tag(name = "Stock Valuation", description = "Stock valuation APIs")
+public class ValuationController {
+    
+    private final ValuationService valuationService;
+    
+    @GetMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    @Operation(summary = "Value stock now, or at the end of a past day, by branch, category and department")
+    public ResponseEntity<ApiResponse<StockValuationResponse>> getValuation(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf,
+            @RequestParam(required = false) List<Long> branchId) {
+        StockValuationResponse response = asOf != null
+                ? valuationService.valueAsOf(asOf, branchId)
+                : valuationService.valueCurrent(branchId);
+        return ResponseEntity.ok(ApiResponse.success("Stock valuation completed successfully", response));
+    }
+}
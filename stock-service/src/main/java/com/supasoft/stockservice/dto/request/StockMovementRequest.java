@@ -0,0 +1,76 @@
+package com.supasoft.stockservice.dto.request;
+
+import com.supasoft.stockservice.enums.MovementType;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Request DTO for posting stock movements at one branch, e.g. the lines of a sale
+ * All lines are applied together or not at all.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementRequest {
+    
+    @NotNull(message = "Branch is required")
+    @PositiveOrZero(message = "Branch must not be negative")
+    private Long branchId;
+    
+    @NotNull(message = "Movement type is required")
+    private MovementType movementType;
+    
+    @Size(max = 50, message = "Reference type must not exceed 50 characters")
+    private String referenceType;
+    
+    @Size(max = 100, message = "Reference number must not exceed 100 characters")
+    private String referenceNumber;
+    
+    @Size(max = 255, message = "Notes must not exceed 255 characters")
+    private String notes;
+    
+    @NotEmpty(message = "At least one line is required")
+    @Size(max = 500, message = "A request must not exceed 500 lines")
+    private List<@Valid Line> lines;
+    
+    /**
+     * One item quantity; for adjustments and repackaging the sign of the quantity is the direction
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Line {
+        
+        @NotNull(message = "Item is required")
+        @PositiveOrZero(message = "Item must not be negative")
+        private Long itemId;
+        
+        @PositiveOrZero(message = "Location must not be negative")
+        private Long locationId;
+        
+        @NotNull(message = "Quantity is required")
+        @Digits(integer = 12, fraction = 3, message = "Quantity must have at most 3 decimal places")
+        private BigDecimal quantity;
+        
+        @PositiveOrZero(message = "Unit cost must not be negative")
+        @Digits(integer = 11, fraction = 4, message = "Unit cost must have at most 4 decimal places")
+        private BigDecimal unitCost;
+        
+        /** Batch received; required on receipts of batch-tracked items, ignored on issues */
+        @Size(max = 50, message = "Batch number must not exceed 50 characters")
+        private String batchNumber;
+        
+        private LocalDate expiryDate;
+    }
+}
@@ -0,0 +1,33 @@
+package com.supasoft.stockservice.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for a batch and its remaining quantity
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse {
+    
+    private Long id;
+    private Long itemId;
+    private Long branchId;
+    private String batchNumber;
+    private LocalDate expiryDate;
+    private Boolean expired;
+    private BigDecimal unitCost;
+    private BigDecimal quantityReceived;
+    private BigDecimal quantityRemaining;
+    private String referenceType;
+    private String referenceNumber;
+    private LocalDateTime receivedAt;
+}
@@ -0,0 +1,29 @@
+package com.supasoft.stockservice.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for stock on hand at a branch location
+ * Quantity on hand includes movements accepted but not yet written to the balance row.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockBalanceResponse {
+    
+    private Long itemId;
+    private Long branchId;
+    private Long locationId;
+    private BigDecimal quantityOnHand;
+    private BigDecimal quantityReserved;
+    private BigDecimal quantityAvailable;
+    private BigDecimal averageCost;
+    private LocalDateTime lastMovementAt;
+}
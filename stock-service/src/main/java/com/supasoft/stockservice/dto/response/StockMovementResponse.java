@@ -0,0 +1,35 @@
+package com.supasoft.stockservice.dto.response;
+
+import com.supasoft.stockservice.enums.MovementType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for a stock movement journal entry
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementResponse {
+    
+    private Long id;
+    private Long itemId;
+    private Long branchId;
+    private Long locationId;
+    private MovementType movementType;
+    private BigDecimal quantity;
+    private BigDecimal unitCost;
+    private String referenceType;
+    private String referenceNumber;
+    private LocalDate movementDate;
+    private String notes;
+    private LocalDateTime createdAt;
+    private String createdBy;
+}
@@ -0,0 +1,29 @@
+package com.supasoft.stockservice.dto.response;
+
+import com.supasoft.stockservice.enums.MovementType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Response DTO for one day's movements of one type for an item at a branch
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockMovementSummaryResponse {
+    
+    private Long itemId;
+    private Long branchId;
+    private LocalDate date;
+    private MovementType movementType;
+    private BigDecimal quantityIn;
+    private BigDecimal quantityOut;
+    private BigDecimal netQuantity;
+    private Long movementCount;
+}
@@ -0,0 +1,49 @@
+package com.supasoft.stockservice.dto.response;
+
+import com.supasoft.stockservice.enums.ValuationBasis;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response DTO for a stock valuation, totalled overall and by branch, category and department
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockValuationResponse {
+    
+    /** End of the day valued; null for a valuation of current balances */
+    private LocalDate asOf;
+    private ValuationBasis basis;
+    private BigDecimal totalQuantity;
+    private BigDecimal totalValue;
+    private Long positions;
+    private List<Group> branches;
+    private List<Group> categories;
+    private List<Group> departments;
+    private LocalDateTime generatedAt;
+    private Long elapsedMillis;
+    
+    /**
+     * Totals for one branch, category or department; id is null for unclassified items
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Group {
+        
+        private Long id;
+        private BigDecimal quantity;
+        private BigDecimal value;
+        private Long positions;
+    }
+}
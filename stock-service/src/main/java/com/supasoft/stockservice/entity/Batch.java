@@ -0,0 +1,69 @@
+package com.supasoft.stockservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One batch of an item received at a branch, and the cost layer it forms
+ * Rows are inserted and drawn down by CostLayerEngine; JPA only reads them.
+ */
+@Entity
+@Table(name = "batches", indexes = {
+        @Index(name = "idx_batch_item_branch", columnList = "item_id, branch_id, quantity_remaining"),
+        @Index(name = "idx_batch_branch_expiry", columnList = "branch_id, expiry_date"),
+        @Index(name = "idx_batch_number", columnList = "batch_number")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Batch {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "item_id", nullable = false, updatable = false)
+    private Long itemId;
+    
+    @Column(name = "branch_id", nullable = false, updatable = false)
+    private Long branchId;
+    
+    @Column(name = "batch_number", nullable = false, length = 50, updatable = false)
+    private String batchNumber;
+    
+    @Column(name = "expiry_date", updatable = false)
+    private LocalDate expiryDate;
+    
+    @Column(name = "unit_cost", nullable = false, precision = 15, scale = 4, updatable = false)
+    private BigDecimal unitCost;
+    
+    @Column(name = "quantity_received", nullable = false, precision = 15, scale = 3)
+    private BigDecimal quantityReceived;
+    
+    @Column(name = "quantity_remaining", nullable = false, precision = 15, scale = 3)
+    private BigDecimal quantityRemaining;
+    
+    @Column(name = "reference_type", length = 50, updatable = false)
+    private String referenceType;
+    
+    @Column(name = "reference_number", length = 100, updatable = false)
+    private String referenceNumber;
+    
+    @Column(name = "received_at", insertable = false, updatable = false)
+    private LocalDateTime receivedAt;
+    
+    @Column(name = "created_by", length = 100, updatable = false)
+    private String createdBy;
+    
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+    
+    public boolean isExpired(LocalDate today) {
+        return expiryDate != null && expiryDate.isBefore(today);
+    }
+}
@@ -0,0 +1,60 @@
+package com.supasoft.stockservice.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Quantity on hand for an item at a branch location
+ * Rows are written by the balance engine's batched upserts; JPA only reads them.
+ */
+@Entity
+@Table(name = "stock_balances",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stock_balance",
+                columnNames = {"item_id", "branch_id", "location_id"}),
+        indexes = {
+                @Index(name = "idx_stock_balance_branch", columnList = "branch_id, item_id"),
+                @Index(name = "idx_stock_balance_updated_at", columnList = "updated_at")
+        })
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockBalance {
+    
+    /** Location id used when a movement does not name a location */
+    public static final long DEFAULT_LOCATION = 0L;
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+    
+    @Column(name = "branch_id", nullable = false)
+    private Long branchId;
+    
+    @Column(name = "location_id", nullable = false)
+    private Long locationId;
+    
+    @Column(name = "quantity_on_hand", nullable = false, precision = 15, scale = 3)
+    private BigDecimal quantityOnHand;
+    
+    @Column(name = "quantity_reserved", nullable = false, precision = 15, scale = 3)
+    private BigDecimal quantityReserved;
+    
+    @Column(name = "average_cost", nullable = false, precision = 15, scale = 4)
+    private BigDecimal averageCost;
+    
+    @Column(name = "last_movement_at")
+    private LocalDateTime lastMovementAt;
+    
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at", insertable = false, updatable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,70 @@
+package com.supasoft.stockservice.entity;
+
+import com.supasoft.stockservice.enums.MovementType;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Journal entry for one change in quantity on hand
+ * Quantity is signed: negative for stock leaving the location. Entries are appended in batches
+ * by StockMovementJournal and never updated; the table is partitioned by month of movement_date.
+ */
+@Entity
+@Immutable
+@Table(name = "stock_movements", indexes = {
+        @Index(name = "idx_stock_movement_item_branch_date", columnList = "item_id, branch_id, movement_date"),
+        @Index(name = "idx_stock_movement_branch_date", columnList = "branch_id, movement_date"),
+        @Index(name = "idx_stock_movement_reference", columnList = "reference_type, reference_number")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockMovement {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "item_id", nullable = false, updatable = false)
+    private Long itemId;
+    
+    @Column(name = "branch_id", nullable = false, updatable = false)
+    private Long branchId;
+    
+    @Column(name = "location_id", nullable = false, updatable = false)
+    private Long locationId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 20, updatable = false)
+    private MovementType movementType;
+    
+    @Column(nullable = false, precision = 15, scale = 3, updatable = false)
+    private BigDecimal quantity;
+    
+    @Column(name = "unit_cost", precision = 15, scale = 4, updatable = false)
+    private BigDecimal unitCost;
+    
+    @Column(name = "reference_type", length = 50, updatable = false)
+    private String referenceType;
+    
+    @Column(name = "reference_number", length = 100, updatable = false)
+    private String referenceNumber;
+    
+    @Column(name = "movement_date", nullable = false, updatable = false)
+    private LocalDate movementDate;
+    
+    @Column(length = 255, updatable = false)
+    private String notes;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "created_by", length = 100, updatable = false)
+    private String createdBy;
+}
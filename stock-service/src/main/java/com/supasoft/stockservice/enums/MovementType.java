@@ -0,0 +1,57 @@
+package com.supasoft.stockservice.enums;
+
+/**
+ * Enum for stock movement types
+ * Direction is +1 for movements that add stock, -1 for those that remove it and 0 when
+ * the quantity carries its own sign (adjustments and repackaging)
+ */
+public enum MovementType {
+    PURCHASE("Purchase", 1),
+    SALE("Sale", -1),
+    ADJUSTMENT("Adjustment", 0),
+    TRANSFER_IN("Transfer In", 1),
+    TRANSFER_OUT("Transfer Out", -1),
+    RETURN("Return", 1),
+    REPACKAGE("Repackage", 0),
+    DAMAGE("Damage", -1),
+    EXPIRY("Expiry", -1);
+
+    private final String description;
+    private final int direction;
+
+    MovementType(String description, int direction) {
+        this.description = description;
+        this.direction = direction;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+
+    /**
+     * Receipts whose unit cost feeds the weighted average; other additions come in at the current average
+     */
+    public boolean carriesCost() {
+        return this == PURCHASE || this == TRANSFER_IN;
+    }
+
+    /**
+     * Issues that must come from batches still in date; write-offs and adjustments may take expired ones
+     */
+    public boolean skipsExpiredBatches() {
+        return this == SALE || this == TRANSFER_OUT;
+    }
+
+    /**
+     * Change in quantity on hand for a movement of this type
+     *
+     * @param milliQuantity quantity in thousandths; its sign is ignored unless the direction is 0
+     */
+    public long signedQuantity(long milliQuantity) {
+        return direction == 0 ? milliQuantity : direction * Math.abs(milliQuantity);
+    }
+}
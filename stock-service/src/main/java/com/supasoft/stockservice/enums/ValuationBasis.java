@@ -0,0 +1,11 @@
+package com.supasoft.stockservice.enums;
+
+/**
+ * Where a stock valuation's quantities and costs come from
+ */
+public enum ValuationBasis {
+    /** Current balances at their average cost, batch-tracked items at their batch costs */
+    BALANCES,
+    /** Quantities and average costs rebuilt from the movement journal up to a date */
+    JOURNAL
+}
@@ -0,0 +1,20 @@
+package com.supasoft.stockservice.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The fields of item-service's item created/updated events that stock valuation needs
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ItemClassificationEvent {
+    
+    private Long itemId;
+    private Long categoryId;
+    private Long departmentId;
+}
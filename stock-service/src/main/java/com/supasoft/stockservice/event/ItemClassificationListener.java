@@ -0,0 +1,33 @@
+package com.supasoft.stockservice.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records each item's category and department from item-service's item events
+ * Deleted items keep their row, since their stock history still has to be valued.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ItemClassificationListener {
+    
+    private static final String UPSERT_CLASSIFICATION =
+            "INSERT INTO stock_item_classifications (item_id, category_id, department_id) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE category_id = VALUES(category_id), department_id = VALUES(department_id)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @RabbitListener(queues = "#{itemClassificationQueue.name}")
+    public void onItemChanged(ItemClassificationEvent event) {
+        if (event.getItemId() == null) {
+            return;
+        }
+        jdbcTemplate.update(UPSERT_CLASSIFICATION, event.getItemId(), event.getCategoryId(), event.getDepartmentId());
+        log.debug("Item {} classified under category {} department {}", event.getItemId(),
+                event.getCategoryId(), event.getDepartmentId());
+    }
+}
@@ -0,0 +1,20 @@
+package com.supasoft.stockservice.exception;
+
+import com.supasoft.common.exception.BusinessException;
+
+import java.math.BigDecimal;
+
+/**
+ * Exception thrown when an issue could only be met from batches that are past their expiry date
+ */
+public class BatchExpiredException extends BusinessException {
+    
+    public BatchExpiredException(Long itemId, Long branchId, BigDecimal required, BigDecimal inDate) {
+        super(String.format("Remaining stock of item %d at branch %d has expired. Required: %s, In date: %s",
+                itemId, branchId, required, inDate), "BATCH_EXPIRED");
+    }
+    
+    public BatchExpiredException(String message) {
+        super(message, "BATCH_EXPIRED");
+    }
+}
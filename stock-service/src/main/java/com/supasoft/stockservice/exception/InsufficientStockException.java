@@ -0,0 +1,20 @@
+package com.supasoft.stockservice.exception;
+
+import com.supasoft.common.exception.BusinessException;
+
+import java.math.BigDecimal;
+
+/**
+ * Exception thrown when a movement would take stock on hand below zero
+ */
+public class InsufficientStockException extends BusinessException {
+    
+    public InsufficientStockException(Long itemId, Long branchId, BigDecimal required, BigDecimal available) {
+        super(String.format("Insufficient stock for item %d at branch %d. Required: %s, Available: %s",
+                itemId, branchId, required, available), "INSUFFICIENT_STOCK");
+    }
+    
+    public InsufficientStockException(String message) {
+        super(message, "INSUFFICIENT_STOCK");
+    }
+}
@@ -0,0 +1,21 @@
+package com.supasoft.stockservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when stock movements cannot be accepted or confirmed in time and should be retried
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class StockBalanceBusyException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public StockBalanceBusyException(String message) {
+        super(message);
+    }
+    
+    public StockBalanceBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
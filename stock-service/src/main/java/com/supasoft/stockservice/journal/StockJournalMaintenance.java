@@ -0,0 +1,235 @@
+package com.supasoft.stockservice.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the stock movement journal's monthly partitions ahead of time and compacts old months.
+ *
+ * Each run first makes sure partitions exist up to {@code months-ahead} months past the current
+ * one by splitting them off the empty catch-all partition. It then rolls every partition that
+ * ends before the retention window ({@code retain-months}) into stock_movement_daily_summaries,
+ * one movement date per transaction, and drops the partition.
+ *
+ * A date is summarised in the same transaction that records it in stock_movement_compactions,
+ * so a run interrupted at any point can simply be repeated: summarised dates are skipped and
+ * their rows are no longer counted from the journal, and the partition is dropped on the next
+ * pass. Replicas running at the same time skip each other's dates the same way.
+ *
+ * Runs daily on {@code stock.journal.cron}; set it to {@code -} to only run on demand.
+ */
+@Slf4j
+@Component
+public class StockJournalMaintenance {
+
+    private static final String TABLE = "stock_movements";
+    private static final String CATCH_ALL = "pmax";
+    private static final Pattern PARTITION_NAME = Pattern.compile("p\\w+");
+    private static final DateTimeFormatter MONTH_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private static final String SELECT_PARTITIONS =
+            "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION";
+
+    private static final String CLAIM_DATE =
+            "INSERT IGNORE INTO stock_movement_compactions (movement_date) VALUES (?)";
+
+    private static final String SUMMARISE_DATE =
+            "INSERT INTO stock_movement_daily_summaries (item_id, branch_id, location_id, summary_date, " +
+            "movement_type, quantity_in, quantity_out, total_cost, movement_count) " +
+            "SELECT item_id, branch_id, location_id, movement_date, movement_type, " +
+            "SUM(GREATEST(quantity, 0)), SUM(GREATEST(-quantity, 0)), " +
+            "SUM(ABS(quantity) * COALESCE(unit_cost, 0)), COUNT(*) " +
+            "FROM stock_movements WHERE movement_date = ? " +
+            "GROUP BY item_id, branch_id, location_id, movement_date, movement_type";
+
+    private static final String RECORD_SUMMARY_ROWS =
+            "UPDATE stock_movement_compactions SET summary_rows = ? WHERE movement_date = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int monthsAhead;
+    private final int retainMonths;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public StockJournalMaintenance(JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${stock.journal.months-ahead:3}") int monthsAhead,
+                                   @Value("${stock.journal.retain-months:13}") int retainMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retainMonths = retainMonths;
+    }
+
+    /**
+     * Partitions are cheap to add and must exist before the month starts, so check at startup too
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            ensurePartitions();
+        } catch (Exception e) {
+            log.error("Stock journal partition check failed", e);
+        }
+    }
+
+    @Scheduled(cron = "${stock.journal.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        try {
+            run();
+        } catch (Exception e) {
+            log.error("Stock journal maintenance failed; it will be retried on the next run", e);
+        }
+    }
+
+    /**
+     * Add missing partitions, then compact everything older than the retention window
+     *
+     * @return the run's totals, or an empty result if a run is already in progress on this instance
+     */
+    public MaintenanceResult run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Stock journal maintenance already running, skipping");
+            return new MaintenanceResult(0, 0, 0);
+        }
+        try {
+            long start = System.currentTimeMillis();
+            int added = ensurePartitions();
+            Compaction compaction = compact();
+            log.info("Stock journal maintenance finished: {} partitions added, {} dates compacted, " +
+                    "{} partitions dropped, {} ms", added, compaction.dates(), compaction.partitions(),
+                    System.currentTimeMillis() - start);
+            return new MaintenanceResult(added, compaction.dates(), compaction.partitions());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Split monthly partitions off the catch-all partition until {@code months-ahead} months are covered
+     *
+     * @return number of partitions added
+     */
+    public int ensurePartitions() {
+        List<Partition> partitions = partitions();
+        if (partitions.stream().noneMatch(partition -> CATCH_ALL.equals(partition.name()))) {
+            log.warn("{} has no {} partition; not adding partitions", TABLE, CATCH_ALL);
+            return 0;
+        }
+
+        LocalDate covered = partitions.stream()
+                .map(Partition::upperBound)
+                .filter(bound -> bound != null)
+                .max(LocalDate::compareTo)
+                .orElse(YearMonth.now().atDay(1));
+        LocalDate target = YearMonth.now().plusMonths(monthsAhead + 1L).atDay(1);
+
+        int added = 0;
+        while (covered.isBefore(target)) {
+            LocalDate next = covered.plusMonths(1).withDayOfMonth(1);
+            String name = covered.format(MONTH_NAME);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + CATCH_ALL + " INTO (" +
+                    "PARTITION " + name + " VALUES LESS THAN ('" + next + "'), " +
+                    "PARTITION " + CATCH_ALL + " VALUES LESS THAN (MAXVALUE))");
+            log.info("Added stock movement partition {} (before {})", name, next);
+            covered = next;
+            added++;
+        }
+        return added;
+    }
+
+    /**
+     * Summarise and drop every partition that ends on or before the start of the retention window
+     *
+     * @return dates compacted and partitions dropped
+     */
+    public Compaction compact() {
+        LocalDate cutoff = YearMonth.now().minusMonths(retainMonths).atDay(1);
+        int dates = 0;
+        int dropped = 0;
+
+        for (Partition partition : partitions()) {
+            if (partition.upperBound() == null || partition.upperBound().isAfter(cutoff)) {
+                continue;
+            }
+
+            List<Date> movementDates = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT movement_date FROM " + TABLE + " PARTITION (" + partition.name() + ") " +
+                    "ORDER BY movement_date", Date.class);
+            for (Date movementDate : movementDates) {
+                Boolean summarised = transactionTemplate.execute(status -> summarise(movementDate));
+                if (Boolean.TRUE.equals(summarised)) {
+                    dates++;
+                }
+            }
+
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + partition.name());
+            log.info("Compacted and dropped stock movement partition {} ({} dates)",
+                    partition.name(), movementDates.size());
+            dropped++;
+        }
+        return new Compaction(dates, dropped);
+    }
+
+    /**
+     * Roll up one movement date unless another run already has; runs inside a transaction
+     */
+    private boolean summarise(Date movementDate) {
+        if (jdbcTemplate.update(CLAIM_DATE, movementDate) == 0) {
+            return false;
+        }
+        int rows = jdbcTemplate.update(SUMMARISE_DATE, movementDate);
+        jdbcTemplate.update(RECORD_SUMMARY_ROWS, rows, movementDate);
+        return true;
+    }
+
+    private List<Partition> partitions() {
+        return jdbcTemplate.query(SELECT_PARTITIONS, (rs, rowNum) -> {
+            String name = rs.getString(1);
+            if (!PARTITION_NAME.matcher(name).matches()) {
+                throw new IllegalStateException("Unexpected partition name " + name);
+            }
+            String description = rs.getString(2);
+            LocalDate upperBound = description == null || description.equalsIgnoreCase("MAXVALUE")
+                    ? null
+                    : LocalDate.parse(description.replace("'", ""));
+            return new Partition(name, upperBound);
+        }, TABLE);
+    }
+
+    /**
+     * Totals for one maintenance run
+     */
+    public record MaintenanceResult(int partitionsAdded, int datesCompacted, int partitionsDropped) {
+    }
+
+    /**
+     * Totals for one compaction pass
+     */
+    public record Compaction(int dates, int partitions) {
+    }
+
+    /**
+     * A journal partition; upper bound is exclusive and null for the catch-all
+     */
+    private record Partition(String name, LocalDate upperBound) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.supasoft.stockservice.journal;
+
+import com.supasoft.stockservice.dto.response.StockMovementSummaryResponse;
+import com.supasoft.stockservice.enums.MovementType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reads movement history across the journal and its daily summaries
+ *
+ * Dates recorded in stock_movement_compactions are read from the summaries only, so the
+ * short window between a date being summarised and its partition being dropped is never
+ * counted twice. Journal reads go through idx_stock_movement_item_branch_date and only touch
+ * the partitions of the requested dates.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockMovementHistory {
+
+    private static final String NOT_COMPACTED =
+            "NOT EXISTS (SELECT 1 FROM stock_movement_compactions c WHERE c.movement_date = m.movement_date)";
+
+    private static final String SELECT_DAILY =
+            "SELECT d, movement_type, SUM(qty_in), SUM(qty_out), SUM(cnt) FROM (" +
+            "SELECT summary_date AS d, movement_type, quantity_in AS qty_in, quantity_out AS qty_out, " +
+            "movement_count AS cnt FROM stock_movement_daily_summaries " +
+            "WHERE item_id = ? AND branch_id = ? AND summary_date BETWEEN ? AND ? " +
+            "UNION ALL " +
+            "SELECT m.movement_date, m.movement_type, GREATEST(m.quantity, 0), GREATEST(-m.quantity, 0), 1 " +
+            "FROM stock_movements m " +
+            "WHERE m.item_id = ? AND m.branch_id = ? AND m.movement_date BETWEEN ? AND ? AND " + NOT_COMPACTED +
+            ") t GROUP BY d, movement_type ORDER BY d, movement_type";
+
+    private static final String SELECT_QUANTITY_AS_OF =
+            "SELECT COALESCE(SUM(q), 0) FROM (" +
+            "SELECT SUM(quantity_in - quantity_out) AS q FROM stock_movement_daily_summaries " +
+            "WHERE item_id = ? AND branch_id = ? AND location_id = ? AND summary_date <= ? " +
+            "UNION ALL " +
+            "SELECT SUM(m.quantity) FROM stock_movements m " +
+            "WHERE m.item_id = ? AND m.branch_id = ? AND m.location_id = ? AND m.movement_date <= ? AND " +
+            NOT_COMPACTED + ") t";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Quantities in and out per day and movement type for an item at a branch, all locations
+     */
+    public List<StockMovementSummaryResponse> getDailyHistory(long itemId, long branchId,
+                                                              LocalDate from, LocalDate to) {
+        Date fromDate = Date.valueOf(from);
+        Date toDate = Date.valueOf(to);
+        return jdbcTemplate.query(SELECT_DAILY, (rs, rowNum) -> {
+            BigDecimal quantityIn = rs.getBigDecimal(3);
+            BigDecimal quantityOut = rs.getBigDecimal(4);
+            return StockMovementSummaryResponse.builder()
+                    .itemId(itemId)
+                    .branchId(branchId)
+                    .date(rs.getDate(1).toLocalDate())
+                    .movementType(MovementType.valueOf(rs.getString(2)))
+                    .quantityIn(quantityIn)
+                    .quantityOut(quantityOut)
+                    .netQuantity(quantityIn.subtract(quantityOut))
+                    .movementCount(rs.getLong(5))
+                    .build();
+        }, itemId, branchId, fromDate, toDate, itemId, branchId, fromDate, toDate);
+    }
+
+    /**
+     * Quantity on hand at the end of a day, rebuilt from the summaries and the journal
+     */
+    public BigDecimal getQuantityAsOf(long itemId, long branchId, long locationId, LocalDate asOf) {
+        Date asOfDate = Date.valueOf(asOf);
+        return jdbcTemplate.queryForObject(SELECT_QUANTITY_AS_OF, BigDecimal.class,
+                itemId, branchId, locationId, asOfDate, itemId, branchId, locationId, asOfDate);
+    }
+}
@@ -0,0 +1,72 @@
+package com.supasoft.stockservice.journal;
+
+import com.supasoft.stockservice.enums.MovementType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Append-only writer for stock_movements
+ *
+ * Entries are only ever inserted, in JDBC batches of {@code insert-batch-size} (rewritten into
+ * multi-row INSERTs by the driver), and always inside the caller's transaction so a movement is
+ * journalled together with the balance change it causes. movement_date is the date the movement
+ * was accepted and decides its monthly partition.
+ */
+@Component
+public class StockMovementJournal {
+
+    private static final String INSERT_MOVEMENT =
+            "INSERT INTO stock_movements (item_id, branch_id, location_id, movement_type, quantity, unit_cost, " +
+            "reference_type, reference_number, movement_date, notes, created_at, created_by) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int insertBatchSize;
+
+    public StockMovementJournal(JdbcTemplate jdbcTemplate,
+                                @Value("${stock.journal.insert-batch-size:500}") int insertBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertBatchSize = insertBatchSize;
+    }
+
+    /**
+     * Append entries in order; must run inside an existing transaction
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT, entries, insertBatchSize, (ps, entry) -> {
+            ps.setLong(1, entry.itemId());
+            ps.setLong(2, entry.branchId());
+            ps.setLong(3, entry.locationId());
+            ps.setString(4, entry.type().name());
+            ps.setBigDecimal(5, entry.quantity());
+            ps.setBigDecimal(6, entry.unitCost());
+            ps.setString(7, entry.referenceType());
+            ps.setString(8, entry.referenceNumber());
+            ps.setDate(9, Date.valueOf(entry.createdAt().toLocalDate()));
+            ps.setString(10, entry.notes());
+            ps.setTimestamp(11, Timestamp.valueOf(entry.createdAt()));
+            ps.setString(12, entry.createdBy());
+        });
+    }
+
+    /**
+     * One journal row; quantity is signed
+     */
+    public record Entry(long itemId, long branchId, long locationId, MovementType type, BigDecimal quantity,
+                        BigDecimal unitCost, String referenceType, String referenceNumber, String notes,
+                        LocalDateTime createdAt, String createdBy) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.supasoft.stockservice.repository;
+
+import com.supasoft.stockservice.entity.Batch;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository for Batch entity
+ * Read-only in practice: batches are written by CostLayerEngine.
+ */
+@Repository
+public interface BatchRepository extends JpaRepository<Batch, Long> {
+    
+    /**
+     * Batches with stock remaining, in the order they will be drawn
+     */
+    @Query("SELECT b FROM Batch b WHERE b.itemId = :itemId AND b.branchId = :branchId " +
+           "AND b.quantityRemaining > 0 " +
+           "ORDER BY CASE WHEN b.expiryDate IS NULL THEN 1 ELSE 0 END, b.expiryDate, b.id")
+    List<Batch> findOpenBatches(@Param("itemId") Long itemId, @Param("branchId") Long branchId);
+    
+    /**
+     * Batches with stock remaining that expire on or before a date, soonest first
+     */
+    @Query("SELECT b FROM Batch b WHERE b.branchId = :branchId AND b.expiryDate <= :date " +
+           "AND b.quantityRemaining > 0 ORDER BY b.expiryDate, b.itemId, b.id")
+    Page<Batch> findExpiringBatches(@Param("branchId") Long branchId, @Param("date") LocalDate date,
+                                    Pageable pageable);
+}
@@ -0,0 +1,21 @@
+package com.supasoft.stockservice.repository;
+
+import com.supasoft.stockservice.entity.StockBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for StockBalance entity
+ */
+@Repository
+public interface StockBalanceRepository extends JpaRepository<StockBalance, Long> {
+    
+    Optional<StockBalance> findByItemIdAndBranchIdAndLocationId(Long itemId, Long branchId, Long locationId);
+    
+    List<StockBalance> findByItemIdOrderByBranchIdAscLocationIdAsc(Long itemId);
+    
+    List<StockBalance> findByItemIdAndBranchIdOrderByLocationIdAsc(Long itemId, Long branchId);
+}
@@ -0,0 +1,28 @@
+package com.supasoft.stockservice.repository;
+
+import com.supasoft.stockservice.entity.StockMovement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository for StockMovement entity
+ * Read-only in practice: movements are appended by StockMovementJournal. Queries carry a
+ * movement_date range so MySQL only opens the matching monthly partitions.
+ */
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long> {
+    
+    Page<StockMovement> findByItemIdAndBranchIdAndMovementDateBetween(
+            Long itemId, Long branchId, LocalDate from, LocalDate to, Pageable pageable);
+    
+    Page<StockMovement> findByBranchIdAndMovementDateBetween(
+            Long branchId, LocalDate from, LocalDate to, Pageable pageable);
+    
+    List<StockMovement> findByReferenceTypeAndReferenceNumberAndMovementDateBetween(
+            String referenceType, String referenceNumber, LocalDate from, LocalDate to);
+}
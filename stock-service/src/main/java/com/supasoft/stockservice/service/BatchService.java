@@ -0,0 +1,25 @@
+package com.supasoft.stockservice.service;
+
+import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.stockservice.dto.response.BatchResponse;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service interface for batches of batch-tracked items
+ * Batches are received and drawn through StockBalanceService; this is the read side.
+ */
+public interface BatchService {
+    
+    /**
+     * Batches of an item at a branch with stock remaining, in the order they will be drawn
+     */
+    List<BatchResponse> getOpenBatches(Long itemId, Long branchId);
+    
+    /**
+     * Batches at a branch with stock remaining that expire on or before a date
+     */
+    PagedResponse<BatchResponse> getExpiringBatches(Long branchId, LocalDate before, Pageable pageable);
+}
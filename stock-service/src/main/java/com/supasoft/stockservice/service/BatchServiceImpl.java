@@ -0,0 +1,58 @@
+package com.supasoft.stockservice.service;
+
+import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.stockservice.dto.response.BatchResponse;
+import com.supasoft.stockservice.entity.Batch;
+import com.supasoft.stockservice.repository.BatchRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Implementation of BatchService
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class BatchServiceImpl implements BatchService {
+    
+    private final BatchRepository batchRepository;
+    
+    @Override
+    public List<BatchResponse> getOpenBatches(Long itemId, Long branchId) {
+        LocalDate today = LocalDate.now();
+        return batchRepository.findOpenBatches(itemId, branchId).stream()
+                .map(batch -> toResponse(batch, today))
+                .toList();
+    }
+    
+    @Override
+    public PagedResponse<BatchResponse> getExpiringBatches(Long branchId, LocalDate before, Pageable pageable) {
+        LocalDate today = LocalDate.now();
+        Page<BatchResponse> page = batchRepository.findExpiringBatches(branchId, before, pageable)
+                .map(batch -> toResponse(batch, today));
+        return new PagedResponse<>(page);
+    }
+    
+    private BatchResponse toResponse(Batch batch, LocalDate today) {
+        return BatchResponse.builder()
+                .id(batch.getId())
+                .itemId(batch.getItemId())
+                .branchId(batch.getBranchId())
+                .batchNumber(batch.getBatchNumber())
+                .expiryDate(batch.getExpiryDate())
+                .expired(batch.isExpired(today))
+                .unitCost(batch.getUnitCost())
+                .quantityReceived(batch.getQuantityReceived())
+                .quantityRemaining(batch.getQuantityRemaining())
+                .referenceType(batch.getReferenceType())
+                .referenceNumber(batch.getReferenceNumber())
+                .receivedAt(batch.getReceivedAt())
+                .build();
+    }
+}
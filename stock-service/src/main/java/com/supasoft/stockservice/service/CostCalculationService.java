@@ -0,0 +1,342 @@
+package com.supasoft.stockservice.service;
+
+import com.supasoft.common.util.LongObjectHashMap;
+import com.supasoft.stockservice.balance.StockKey;
+import com.supasoft.stockservice.enums.MovementType;
+import com.supasoft.stockservice.util.WeightedAverageCostCalculator;
+import com.supasoft.stockservice.util.WeightedAverageCostCalculator.Position;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Keeps weighted average cost per item and branch up to date from the movement journal.
+ *
+ * Positions (running quantity and value in fixed point) are owned by one thread, which tails
+ * stock_movements by id every {@code poll-interval}, applies each movement in O(1) and writes
+ * the changed averages to stock_balances.average_cost in one batch. The scheduled ticks only
+ * hand work to that thread. Costed receipts (GRNs and transfers in) move the average;
+ * everything else is valued at it. Because the journal holds every replica's movements, all
+ * replicas arrive at the same averages.
+ *
+ * At startup and daily on {@code recompute-cron} every position is rebuilt from the daily
+ * summaries and the journal, items in parallel on {@code recompute-parallelism} threads, and
+ * the tail resumes from the highest id the rebuild read. Ids skipped by the tail, and ids below
+ * that point the rebuild did not see, may belong to transactions still in flight and are
+ * re-checked for a short while, as the segmentation does.
+ */
+@Slf4j
+@Service
+public class CostCalculationService {
+
+    private static final String NOT_COMPACTED =
+            "NOT EXISTS (SELECT 1 FROM stock_movement_compactions c WHERE c.movement_date = m.movement_date)";
+
+    private static final String SELECT_MAX_MOVEMENT_ID = "SELECT COALESCE(MAX(id), 0) FROM stock_movements";
+
+    private static final String SELECT_ITEMS =
+            "SELECT DISTINCT item_id FROM stock_balances ORDER BY item_id";
+
+    // Receipts before issues within a day, since the summaries no longer know the order
+    private static final String SELECT_ITEM_SUMMARIES =
+            "SELECT branch_id, movement_type, SUM(quantity_in), SUM(quantity_out), SUM(total_cost) " +
+            "FROM stock_movement_daily_summaries WHERE item_id = ? " +
+            "GROUP BY branch_id, summary_date, movement_type " +
+            "ORDER BY summary_date, SUM(quantity_out) > 0, movement_type";
+
+    private static final String SELECT_ITEM_MOVEMENTS =
+            "SELECT m.branch_id, m.movement_type, m.quantity, m.unit_cost, m.id FROM stock_movements m " +
+            "WHERE m.item_id = ? AND m.id <= ? AND " + NOT_COMPACTED + " ORDER BY m.id";
+
+    private static final String MOVEMENT_COLUMNS =
+            "SELECT m.id, m.item_id, m.branch_id, m.movement_type, m.quantity, m.unit_cost FROM stock_movements m ";
+
+    private static final String SELECT_TAIL = MOVEMENT_COLUMNS + "WHERE m.id > ? ORDER BY m.id LIMIT ?";
+
+    // Rebuild holes reach back into older ids; a compacted one is already in the summaries
+    private static final String SELECT_BY_ID = MOVEMENT_COLUMNS + "WHERE m.id IN (:ids) AND " + NOT_COMPACTED;
+
+    private static final String UPDATE_AVERAGE_COST =
+            "UPDATE stock_balances SET average_cost = ? WHERE item_id = ? AND branch_id = ?";
+
+    private static final long HOLE_TTL_MILLIS = Duration.ofMinutes(2).toMillis();
+    private static final int MAX_HOLES = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int chunkSize;
+    private final ForkJoinPool recomputePool;
+
+    // Owned by the owner thread
+    private LongObjectHashMap<Position> positions = new LongObjectHashMap<>();
+    private final Set<Long> dirty = new HashSet<>();
+    private final Map<Long, Long> holes = new HashMap<>();
+    private long lastMovementId;
+    private boolean built;
+
+    /**
+     * Periodic tasks waiting on the owner thread; a tick is dropped while its task is still queued
+     */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService owner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "stock-cost");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CostCalculationService(JdbcTemplate jdbcTemplate,
+                                  NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${stock.cost.chunk-size:5000}") int chunkSize,
+                                  @Value("${stock.cost.recompute-parallelism:4}") int recomputeParallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.recomputePool = new ForkJoinPool(recomputeParallelism);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        submit("recompute", this::recomputeQuietly);
+    }
+
+    @PreDestroy
+    public void stop() {
+        owner.shutdownNow();
+        recomputePool.shutdownNow();
+    }
+
+    @Scheduled(cron = "${stock.cost.recompute-cron:0 0 3 * * *}")
+    public void scheduledRecompute() {
+        submit("recompute", this::recomputeQuietly);
+    }
+
+    @Scheduled(fixedDelayString = "${stock.cost.poll-interval:1s}", initialDelayString = "${stock.cost.poll-interval:1s}")
+    public void scheduledPoll() {
+        submit("poll", this::pollQuietly);
+    }
+
+    /**
+     * Rebuild every position from the journal and write all averages; blocks until done
+     */
+    public void recompute() throws InterruptedException, ExecutionException {
+        owner.submit(() -> {
+            recomputeAll();
+            return null;
+        }).get();
+    }
+
+    private void recomputeAll() throws InterruptedException, ExecutionException {
+        long start = System.currentTimeMillis();
+        long maxId = jdbcTemplate.queryForObject(SELECT_MAX_MOVEMENT_ID, Long.class);
+        List<Long> items = jdbcTemplate.queryForList(SELECT_ITEMS, Long.class);
+
+        // Ids just below maxId may still be uncommitted; note which of them the replay saw
+        long holeFloor = Math.max(maxId - MAX_HOLES, 0);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+
+        LongObjectHashMap<Position> rebuilt = new LongObjectHashMap<>(Math.max(items.size() * 2, 1024));
+        recomputePool.submit(() -> items.parallelStream().forEach(itemId ->
+                recomputeItem(itemId, maxId, holeFloor, seen).forEach((branchId, position) ->
+                        rebuilt.put(StockKey.of(itemId, branchId, 0), position)))).get();
+
+        positions = rebuilt;
+        lastMovementId = maxId;
+        holes.clear();
+        long now = System.currentTimeMillis();
+        for (long id = holeFloor + 1; id <= maxId; id++) {
+            if (!seen.contains(id)) {
+                holes.put(id, now);
+            }
+        }
+        dirty.clear();
+        rebuilt.forEach((key, position) -> dirty.add(key));
+        int written = writeDirty();
+        built = true;
+
+        log.info("Weighted average cost recomputed: {} items, {} positions up to movement {} in {} ms, " +
+                "{} ids to re-check",
+                items.size(), written, maxId, System.currentTimeMillis() - start, holes.size());
+    }
+
+    /**
+     * Replay one item's history, every branch at once: summaries first, then the journal up to {@code maxId}
+     *
+     * @param seen collects the ids above {@code holeFloor} that were replayed
+     */
+    private Map<Long, Position> recomputeItem(long itemId, long maxId, long holeFloor, Set<Long> seen) {
+        Map<Long, Position> byBranch = new HashMap<>();
+        jdbcTemplate.query(SELECT_ITEM_SUMMARIES, rs -> {
+            Position position = byBranch.computeIfAbsent(rs.getLong(1), branchId -> new Position());
+            applySummary(position, MovementType.valueOf(rs.getString(2)), rs.getBigDecimal(3), rs.getBigDecimal(4),
+                    rs.getBigDecimal(5));
+        }, itemId);
+        jdbcTemplate.query(SELECT_ITEM_MOVEMENTS, rs -> {
+            Position position = byBranch.computeIfAbsent(rs.getLong(1), branchId -> new Position());
+            apply(position, MovementType.valueOf(rs.getString(2)), rs.getBigDecimal(3), rs.getBigDecimal(4));
+            long id = rs.getLong(5);
+            if (id > holeFloor) {
+                seen.add(id);
+            }
+        }, itemId, maxId);
+        return byBranch;
+    }
+
+    /**
+     * Apply movements committed since the last poll, then any late commits into earlier gaps
+     */
+    private void poll() {
+        if (!built) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (!holes.isEmpty()) {
+            holes.values().removeIf(firstSeen -> now - firstSeen > HOLE_TTL_MILLIS);
+            if (!holes.isEmpty()) {
+                namedParameterJdbcTemplate.query(SELECT_BY_ID,
+                        new MapSqlParameterSource("ids", new ArrayList<>(holes.keySet())), rs -> {
+                            holes.remove(rs.getLong(1));
+                            applyRow(rs);
+                        });
+            }
+        }
+
+        while (true) {
+            int[] rows = {0};
+            jdbcTemplate.query(SELECT_TAIL, rs -> {
+                long id = rs.getLong(1);
+                for (long gap = lastMovementId + 1; gap < id && holes.size() < MAX_HOLES; gap++) {
+                    holes.put(gap, now);
+                }
+                lastMovementId = id;
+                applyRow(rs);
+                rows[0]++;
+            }, lastMovementId, chunkSize);
+            if (rows[0] < chunkSize) {
+                break;
+            }
+        }
+
+        writeDirty();
+    }
+
+    private void applyRow(ResultSet rs) throws SQLException {
+        long key = StockKey.of(rs.getLong(2), rs.getLong(3), 0);
+        Position position = positions.get(key);
+        if (position == null) {
+            position = new Position();
+            positions.put(key, position);
+        }
+        apply(position, MovementType.valueOf(rs.getString(4)), rs.getBigDecimal(5), rs.getBigDecimal(6));
+        dirty.add(key);
+    }
+
+    /**
+     * Apply one journal movement to a position
+     */
+    static void apply(Position position, MovementType type, BigDecimal quantity, BigDecimal unitCost) {
+        position.apply(WeightedAverageCostCalculator.toQuantity(quantity),
+                unitCost != null ? WeightedAverageCostCalculator.toCost(unitCost) : 0,
+                type.carriesCost() && unitCost != null);
+    }
+
+    /**
+     * Apply one day's summarised movements of one type; callers feed a day's receipts before its issues
+     */
+    static void applySummary(Position position, MovementType type, BigDecimal quantityIn, BigDecimal quantityOut,
+                             BigDecimal totalCost) {
+        long in = WeightedAverageCostCalculator.toQuantity(quantityIn);
+        long out = WeightedAverageCostCalculator.toQuantity(quantityOut);
+        if (in > 0) {
+            if (type.carriesCost()) {
+                position.receiveValue(in, WeightedAverageCostCalculator.toCost(totalCost));
+            } else {
+                position.receiveAtAverage(in);
+            }
+        }
+        if (out > 0) {
+            position.issue(out);
+        }
+    }
+
+    /**
+     * Write the averages of every changed position, {@code chunk-size} rows per transaction
+     *
+     * @return number of positions written
+     */
+    private int writeDirty() {
+        if (dirty.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> args = new ArrayList<>(dirty.size());
+        for (Long key : dirty) {
+            Position position = positions.get(key);
+            if (position != null) {
+                args.add(new Object[]{WeightedAverageCostCalculator.fromCost(position.getAverageCost()),
+                        StockKey.itemId(key), StockKey.branchId(key)});
+            }
+        }
+        for (int from = 0; from < args.size(); from += chunkSize) {
+            List<Object[]> chunk = args.subList(from, Math.min(from + chunkSize, args.size()));
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_AVERAGE_COST, chunk));
+        }
+        dirty.clear();
+        return args.size();
+    }
+
+    private void submit(String task, Runnable runnable) {
+        if (queued.add(task)) {
+            owner.execute(() -> {
+                queued.remove(task);
+                runnable.run();
+            });
+        }
+    }
+
+    private void recomputeQuietly() {
+        try {
+            recomputeAll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Weighted average cost recompute failed", e);
+        }
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (Exception e) {
+            log.error("Weighted average cost update failed", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.supasoft.stockservice.service;
+
+import com.supasoft.stockservice.dto.request.StockMovementRequest;
+import com.supasoft.stockservice.dto.response.StockBalanceResponse;
+
+import java.util.List;
+
+/**
+ * Service interface for stock balances
+ */
+public interface StockBalanceService {
+    
+    /**
+     * Quantity on hand at one location, served from memory
+     */
+    StockBalanceResponse getBalance(Long itemId, Long branchId, Long locationId);
+    
+    List<StockBalanceResponse> getItemBalances(Long itemId);
+    
+    List<StockBalanceResponse> getItemBranchBalances(Long itemId, Long branchId);
+    
+    /**
+     * Apply all lines or none, returning once they are journalled
+     *
+     * @return the resulting balance of every location touched
+     */
+    List<StockBalanceResponse> applyMovements(StockMovementRequest request);
+}
@@ -0,0 +1,205 @@
+package com.supasoft.stockservice.service;
+
+import com.supasoft.common.exception.BusinessException;
+import com.supasoft.common.security.SecurityUtil;
+import com.supasoft.stockservice.balance.CostLayerEngine;
+import com.supasoft.stockservice.balance.CostLayerEngine.BatchMovement;
+import com.supasoft.stockservice.balance.StockBalanceEngine;
+import com.supasoft.stockservice.balance.StockBalanceEngine.Movement;
+import com.supasoft.stockservice.dto.request.StockMovementRequest;
+import com.supasoft.stockservice.dto.response.StockBalanceResponse;
+import com.supasoft.stockservice.entity.StockBalance;
+import com.supasoft.stockservice.exception.StockBalanceBusyException;
+import com.supasoft.stockservice.repository.StockBalanceRepository;
+import com.supasoft.stockservice.util.WeightedAverageCostCalculator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Implementation of StockBalanceService
+ * Quantities come from the in-memory balance engine; other balance fields from stock_balances.
+ * Batch-tracked items draw their batches first and issues are costed at the batches drawn.
+ */
+@Service
+@Slf4j
+public class StockBalanceServiceImpl implements StockBalanceService {
+    
+    private final StockBalanceEngine balanceEngine;
+    private final CostLayerEngine costLayerEngine;
+    private final StockBalanceRepository stockBalanceRepository;
+    private final Duration ackTimeout;
+    
+    public StockBalanceServiceImpl(StockBalanceEngine balanceEngine,
+                                   CostLayerEngine costLayerEngine,
+                                   StockBalanceRepository stockBalanceRepository,
+                                   @Value("${stock.balance.ack-timeout:5s}") Duration ackTimeout) {
+        this.balanceEngine = balanceEngine;
+        this.costLayerEngine = costLayerEngine;
+        this.stockBalanceRepository = stockBalanceRepository;
+        this.ackTimeout = ackTimeout;
+    }
+    
+    @Override
+    public StockBalanceResponse getBalance(Long itemId, Long branchId, Long locationId) {
+        long location = locationId != null ? locationId : StockBalance.DEFAULT_LOCATION;
+        return quantityOnly(itemId, branchId, location,
+                balanceEngine.getQuantityOnHand(itemId, branchId, location));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<StockBalanceResponse> getItemBalances(Long itemId) {
+        return stockBalanceRepository.findByItemIdOrderByBranchIdAscLocationIdAsc(itemId).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<StockBalanceResponse> getItemBranchBalances(Long itemId, Long branchId) {
+        return stockBalanceRepository.findByItemIdAndBranchIdOrderByLocationIdAsc(itemId, branchId).stream()
+                .map(this::toResponse)
+                .toList();
+    }
+    
+    @Override
+    public List<StockBalanceResponse> applyMovements(StockMovementRequest request) {
+        String createdBy = SecurityUtil.getCurrentUsername().orElse(null);
+        List<CostLayerEngine.Line> layerLines = new ArrayList<>(request.getLines().size());
+        for (StockMovementRequest.Line line : request.getLines()) {
+            long quantity = request.getMovementType().signedQuantity(StockBalanceEngine.toMilli(line.getQuantity()));
+            if (quantity == 0) {
+                throw new BusinessException("Quantity must not be zero for item " + line.getItemId());
+            }
+            layerLines.add(new CostLayerEngine.Line(line.getItemId(), request.getBranchId(),
+                    request.getMovementType(), quantity, line.getBatchNumber(), line.getExpiryDate(),
+                    line.getUnitCost(), request.getReferenceType(), request.getReferenceNumber(), createdBy));
+        }
+        
+        List<BatchMovement> batchMovements = costLayerEngine.apply(layerLines, LocalDate.now());
+        BigDecimal[] issueCosts = issueCosts(batchMovements, layerLines.size());
+        
+        List<Movement> movements = new ArrayList<>(layerLines.size());
+        for (int i = 0; i < layerLines.size(); i++) {
+            StockMovementRequest.Line line = request.getLines().get(i);
+            long location = line.getLocationId() != null ? line.getLocationId() : StockBalance.DEFAULT_LOCATION;
+            BigDecimal unitCost = issueCosts[i] != null ? issueCosts[i] : line.getUnitCost();
+            movements.add(new Movement(line.getItemId(), request.getBranchId(), location,
+                    request.getMovementType(), layerLines.get(i).quantity(), unitCost, request.getReferenceType(),
+                    request.getReferenceNumber(), request.getNotes(), createdBy));
+        }
+        
+        CompletableFuture<Void> committed;
+        try {
+            committed = balanceEngine.apply(movements);
+        } catch (RuntimeException e) {
+            revertBatches(batchMovements, request);
+            throw e;
+        }
+        try {
+            committed.get(ackTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (balanceEngine.withdraw(committed)) {
+                revertBatches(batchMovements, request);
+                throw new StockBalanceBusyException("Stock movements could not be saved in time, please retry", e);
+            }
+            // A flush already holds the movements and may still commit them, so the batches drawn stay drawn
+            log.warn("Stock movements for {} {} not confirmed within {}", request.getReferenceType(),
+                    request.getReferenceNumber(), ackTimeout);
+            throw new StockBalanceBusyException("Stock movements were not confirmed in time; "
+                    + "check the reference before retrying", e);
+        } catch (InterruptedException e) {
+            if (balanceEngine.withdraw(committed)) {
+                revertBatches(batchMovements, request);
+            }
+            Thread.currentThread().interrupt();
+            throw new StockBalanceBusyException("Interrupted while saving stock movements", e);
+        } catch (ExecutionException e) {
+            revertBatches(batchMovements, request);
+            throw new StockBalanceBusyException("Stock movements could not be saved, please retry", e.getCause());
+        }
+        
+        Map<String, StockBalanceResponse> touched = new LinkedHashMap<>();
+        for (Movement movement : movements) {
+            touched.computeIfAbsent(movement.itemId() + ":" + movement.locationId(), key -> quantityOnly(
+                    movement.itemId(), movement.branchId(), movement.locationId(),
+                    balanceEngine.getQuantityOnHand(movement.itemId(), movement.branchId(), movement.locationId())));
+        }
+        return new ArrayList<>(touched.values());
+    }
+    
+    /**
+     * Unit cost of each issue line from the batches it drew, null for lines that drew none
+     */
+    private static BigDecimal[] issueCosts(List<BatchMovement> batchMovements, int lines) {
+        long[] quantities = new long[lines];
+        long[] values = new long[lines];
+        for (BatchMovement movement : batchMovements) {
+            if (movement.quantity() < 0) {
+                quantities[movement.line()] -= movement.quantity();
+                values[movement.line()] += WeightedAverageCostCalculator.value(-movement.quantity(), movement.unitCost());
+            }
+        }
+        BigDecimal[] costs = new BigDecimal[lines];
+        for (int i = 0; i < lines; i++) {
+            if (quantities[i] > 0) {
+                costs[i] = WeightedAverageCostCalculator.fromCost(
+                        WeightedAverageCostCalculator.unitCost(values[i], quantities[i]));
+            }
+        }
+        return costs;
+    }
+    
+    private void revertBatches(List<BatchMovement> batchMovements, StockMovementRequest request) {
+        try {
+            costLayerEngine.revert(batchMovements);
+        } catch (RuntimeException e) {
+            log.error("Could not return batches drawn for {} {}; batch quantities need checking",
+                    request.getReferenceType(), request.getReferenceNumber(), e);
+        }
+    }
+    
+    private StockBalanceResponse quantityOnly(long itemId, long branchId, long locationId, BigDecimal onHand) {
+        return StockBalanceResponse.builder()
+                .itemId(itemId)
+                .branchId(branchId)
+                .locationId(locationId)
+                .quantityOnHand(onHand)
+                .build();
+    }
+    
+    /**
+     * Row values, with quantity on hand taken from memory where the engine has it
+     */
+    private StockBalanceResponse toResponse(StockBalance balance) {
+        BigDecimal onHand = balanceEngine.peekQuantityOnHand(
+                balance.getItemId(), balance.getBranchId(), balance.getLocationId());
+        if (onHand == null) {
+            onHand = balance.getQuantityOnHand();
+        }
+        return StockBalanceResponse.builder()
+                .itemId(balance.getItemId())
+                .branchId(balance.getBranchId())
+                .locationId(balance.getLocationId())
+                .quantityOnHand(onHand)
+                .quantityReserved(balance.getQuantityReserved())
+                .quantityAvailable(onHand.subtract(balance.getQuantityReserved()))
+                .averageCost(balance.getAverageCost())
+                .lastMovementAt(balance.getLastMovementAt())
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.supasoft.stockservice.service;
+
+import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.stockservice.dto.response.StockBalanceResponse;
+import com.supasoft.stockservice.dto.response.StockMovementResponse;
+import com.supasoft.stockservice.dto.response.StockMovementSummaryResponse;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service interface for the stock movement journal
+ * Movements are posted through StockBalanceService; this is the read side.
+ */
+public interface StockMovementService {
+    
+    PagedResponse<StockMovementResponse> getItemMovements(Long itemId, Long branchId, LocalDate from, LocalDate to,
+                                                          Pageable pageable);
+    
+    PagedResponse<StockMovementResponse> getBranchMovements(Long branchId, LocalDate from, LocalDate to,
+                                                            Pageable pageable);
+    
+    /**
+     * Daily totals per movement type, including days already compacted into summaries
+     */
+    List<StockMovementSummaryResponse> getDailyHistory(Long itemId, Long branchId, LocalDate from, LocalDate to);
+    
+    /**
+     * Quantity on hand at the end of a day, rebuilt from the journal
+     */
+    StockBalanceResponse getBalanceAsOf(Long itemId, Long branchId, Long locationId, LocalDate asOf);
+}
@@ -0,0 +1,104 @@
+package com.supasoft.stockservice.service;
+
+import com.supasoft.common.dto.PagedResponse;
+import com.supasoft.common.exception.BusinessException;
+import com.supasoft.stockservice.dto.response.StockBalanceResponse;
+import com.supasoft.stockservice.dto.response.StockMovementResponse;
+import com.supasoft.stockservice.dto.response.StockMovementSummaryResponse;
+import com.supasoft.stockservice.entity.StockBalance;
+import com.supasoft.stockservice.entity.StockMovement;
+import com.supasoft.stockservice.journal.StockMovementHistory;
+import com.supasoft.stockservice.repository.StockMovementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Implementation of StockMovementService
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class StockMovementServiceImpl implements StockMovementService {
+    
+    /** Longest date range a movement listing may span; keeps listings to a few partitions */
+    private static final long MAX_RANGE_DAYS = 366;
+    
+    private final StockMovementRepository stockMovementRepository;
+    private final StockMovementHistory stockMovementHistory;
+    
+    @Override
+    public PagedResponse<StockMovementResponse> getItemMovements(Long itemId, Long branchId, LocalDate from,
+                                                                 LocalDate to, Pageable pageable) {
+        checkRange(from, to);
+        Page<StockMovementResponse> page = stockMovementRepository
+                .findByItemIdAndBranchIdAndMovementDateBetween(itemId, branchId, from, to, pageable)
+                .map(this::toResponse);
+        return new PagedResponse<>(page);
+    }
+    
+    @Override
+    public PagedResponse<StockMovementResponse> getBranchMovements(Long branchId, LocalDate from, LocalDate to,
+                                                                   Pageable pageable) {
+        checkRange(from, to);
+        Page<StockMovementResponse> page = stockMovementRepository
+                .findByBranchIdAndMovementDateBetween(branchId, from, to, pageable)
+                .map(this::toResponse);
+        return new PagedResponse<>(page);
+    }
+    
+    @Override
+    public List<StockMovementSummaryResponse> getDailyHistory(Long itemId, Long branchId, LocalDate from,
+                                                              LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new BusinessException("End date must not be before start date");
+        }
+        return stockMovementHistory.getDailyHistory(itemId, branchId, from, to);
+    }
+    
+    @Override
+    public StockBalanceResponse getBalanceAsOf(Long itemId, Long branchId, Long locationId, LocalDate asOf) {
+        long location = locationId != null ? locationId : StockBalance.DEFAULT_LOCATION;
+        return StockBalanceResponse.builder()
+                .itemId(itemId)
+                .branchId(branchId)
+                .locationId(location)
+                .quantityOnHand(stockMovementHistory.getQuantityAsOf(itemId, branchId, location, asOf))
+                .build();
+    }
+    
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new BusinessException("End date must not be before start date");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > MAX_RANGE_DAYS) {
+            throw new BusinessException("Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+    }
+    
+    private StockMovementResponse toResponse(StockMovement movement) {
+        return StockMovementResponse.builder()
+                .id(movement.getId())
+                .itemId(movement.getItemId())
+                .branchId(movement.getBranchId())
+                .locationId(movement.getLocationId())
+                .movementType(movement.getMovementType())
+                .quantity(movement.getQuantity())
+                .unitCost(movement.getUnitCost())
+                .referenceType(movement.getReferenceType())
+                .referenceNumber(movement.getReferenceNumber())
+                .movementDate(movement.getMovementDate())
+                .notes(movement.getNotes())
+                .createdAt(movement.getCreatedAt())
+                .createdBy(movement.getCreatedBy())
+                .build();
+    }
+}
@@ -0,0 +1,285 @@
+package com.supasoft.stockservice.service;
+
+import com.supasoft.common.exception.BusinessException;
+import com.supasoft.common.util.LongObjectHashMap;
+import com.supasoft.stockservice.dto.response.StockValuationResponse;
+import com.supasoft.stockservice.enums.MovementType;
+import com.supasoft.stockservice.enums.ValuationBasis;
+import com.supasoft.stockservice.util.WeightedAverageCostCalculator;
+import com.supasoft.stockservice.util.WeightedAverageCostCalculator.Position;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Values stock across branches, one branch per fork-join task.
+ *
+ * Each branch's rows are streamed through a server-side cursor ({@code fetch-size} rows per
+ * round trip) and valued in fixed point as they arrive, so no branch is ever held in memory
+ * as entities. Results are added to per-branch, per-category and per-department totals made
+ * of {@link LongAdder}s, which the branch tasks share without locking.
+ *
+ * A current valuation takes quantities and average costs from stock_balances; batch-tracked
+ * items are valued at the cost of their remaining batches, with any quantity not covered by
+ * batches at the average. A valuation as of a date replays the branch's daily summaries and
+ * journal up to the end of that day through the same weighted average positions as
+ * {@link CostCalculationService}, so it needs no stored snapshot.
+ *
+ * Categories and departments come from stock_item_classifications; items not yet classified
+ * are totalled under a null id.
+ */
+@Slf4j
+@Service
+public class ValuationService {
+
+    private static final long UNCLASSIFIED = 0L;
+
+    private static final String NOT_COMPACTED =
+            "NOT EXISTS (SELECT 1 FROM stock_movement_compactions c WHERE c.movement_date = m.movement_date)";
+
+    private static final String SELECT_BRANCHES = "SELECT DISTINCT branch_id FROM stock_balances ORDER BY branch_id";
+
+    private static final String SELECT_CLASSIFICATIONS =
+            "SELECT item_id, category_id, department_id FROM stock_item_classifications";
+
+    private static final String SELECT_BRANCH_BALANCES =
+            "SELECT item_id, SUM(quantity_on_hand), MAX(average_cost) FROM stock_balances " +
+            "WHERE branch_id = ? GROUP BY item_id";
+
+    private static final String SELECT_BRANCH_LAYERS =
+            "SELECT item_id, SUM(quantity_remaining), SUM(quantity_remaining * unit_cost) FROM batches " +
+            "WHERE branch_id = ? AND quantity_remaining > 0 GROUP BY item_id";
+
+    // Receipts before issues within a day, as in the cost recompute
+    private static final String SELECT_BRANCH_SUMMARIES =
+            "SELECT item_id, movement_type, SUM(quantity_in), SUM(quantity_out), SUM(total_cost) " +
+            "FROM stock_movement_daily_summaries WHERE branch_id = ? AND summary_date <= ? " +
+            "GROUP BY item_id, summary_date, movement_type " +
+            "ORDER BY item_id, summary_date, SUM(quantity_out) > 0, movement_type";
+
+    // Follows idx_stock_movement_branch_date, which ends in the primary key, so no sort is needed
+    private static final String SELECT_BRANCH_MOVEMENTS =
+            "SELECT m.item_id, m.movement_type, m.quantity, m.unit_cost FROM stock_movements m " +
+            "WHERE m.branch_id = ? AND m.movement_date <= ? AND " + NOT_COMPACTED +
+            " ORDER BY m.movement_date, m.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ForkJoinPool valuationPool;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ValuationService(DataSource dataSource,
+                            @Value("${stock.valuation.parallelism:4}") int parallelism,
+                            @Value("${stock.valuation.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.valuationPool = new ForkJoinPool(parallelism);
+    }
+
+    @PreDestroy
+    public void stop() {
+        valuationPool.shutdownNow();
+    }
+
+    /**
+     * Value current stock
+     *
+     * @param branchIds branches to value; all branches when null or empty
+     */
+    public StockValuationResponse valueCurrent(List<Long> branchIds) {
+        return run(null, branchIds, this::valueBalances);
+    }
+
+    /**
+     * Value stock as it stood at the end of a day, rebuilt from the movement journal
+     *
+     * @param branchIds branches to value; all branches when null or empty
+     */
+    public StockValuationResponse valueAsOf(LocalDate asOf, List<Long> branchIds) {
+        Date asOfDate = Date.valueOf(asOf);
+        return run(asOf, branchIds, (branchId, totals) -> valueJournal(branchId, asOfDate, totals));
+    }
+
+    private StockValuationResponse run(LocalDate asOf, List<Long> branchIds, BranchValuer valuer) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("A stock valuation is already running, please retry when it finishes");
+        }
+        try {
+            long start = System.currentTimeMillis();
+            List<Long> branches = branchIds != null && !branchIds.isEmpty()
+                    ? branchIds
+                    : jdbcTemplate.queryForList(SELECT_BRANCHES, Long.class);
+            Totals totals = new Totals(loadClassifications());
+
+            valuationPool.submit(() -> branches.parallelStream()
+                    .forEach(branchId -> valuer.value(branchId, totals))).get();
+
+            long elapsed = System.currentTimeMillis() - start;
+            log.info("Stock valued {}: {} branches, {} positions in {} ms",
+                    asOf != null ? "as of " + asOf : "from current balances", branches.size(),
+                    totals.total.positions.sum(), elapsed);
+            return StockValuationResponse.builder()
+                    .asOf(asOf)
+                    .basis(asOf != null ? ValuationBasis.JOURNAL : ValuationBasis.BALANCES)
+                    .totalQuantity(WeightedAverageCostCalculator.fromQuantity(totals.total.quantity.sum()))
+                    .totalValue(WeightedAverageCostCalculator.fromCost(totals.total.value.sum()))
+                    .positions(totals.total.positions.sum())
+                    .branches(groups(totals.branches))
+                    .categories(groups(totals.categories))
+                    .departments(groups(totals.departments))
+                    .generatedAt(LocalDateTime.now())
+                    .elapsedMillis(elapsed)
+                    .build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while valuing stock", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Stock valuation failed", e.getCause());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Current balances at average cost; batch-tracked items at their batches' cost
+     */
+    private void valueBalances(long branchId, Totals totals) {
+        LongObjectHashMap<long[]> layers = new LongObjectHashMap<>();
+        jdbcTemplate.query(SELECT_BRANCH_LAYERS, rs -> {
+            layers.put(rs.getLong(1), new long[]{WeightedAverageCostCalculator.toQuantity(rs.getBigDecimal(2)),
+                    WeightedAverageCostCalculator.toCost(rs.getBigDecimal(3))});
+        }, branchId);
+
+        jdbcTemplate.query(SELECT_BRANCH_BALANCES, rs -> {
+            long itemId = rs.getLong(1);
+            long quantity = WeightedAverageCostCalculator.toQuantity(rs.getBigDecimal(2));
+            long averageCost = WeightedAverageCostCalculator.toCost(rs.getBigDecimal(3));
+            long[] layer = layers.get(itemId);
+            long value = layer == null
+                    ? WeightedAverageCostCalculator.value(quantity, averageCost)
+                    : layer[1] + WeightedAverageCostCalculator.value(quantity - layer[0], averageCost);
+            totals.add(branchId, itemId, quantity, value);
+        }, branchId);
+    }
+
+    /**
+     * Replay the branch's summaries and journal up to the end of {@code asOf} into per-item positions
+     */
+    private void valueJournal(long branchId, Date asOf, Totals totals) {
+        LongObjectHashMap<Position> positions = new LongObjectHashMap<>(1 << 14);
+        jdbcTemplate.query(SELECT_BRANCH_SUMMARIES, rs -> {
+            CostCalculationService.applySummary(position(positions, rs.getLong(1)),
+                    MovementType.valueOf(rs.getString(2)), rs.getBigDecimal(3), rs.getBigDecimal(4),
+                    rs.getBigDecimal(5));
+        }, branchId, asOf);
+        jdbcTemplate.query(SELECT_BRANCH_MOVEMENTS, rs -> {
+            CostCalculationService.apply(position(positions, rs.getLong(1)),
+                    MovementType.valueOf(rs.getString(2)), rs.getBigDecimal(3), rs.getBigDecimal(4));
+        }, branchId, asOf);
+
+        positions.forEach((itemId, position) ->
+                totals.add(branchId, itemId, position.getQuantity(), position.getValue()));
+    }
+
+    private static Position position(LongObjectHashMap<Position> positions, long itemId) {
+        Position position = positions.get(itemId);
+        if (position == null) {
+            position = new Position();
+            positions.put(itemId, position);
+        }
+        return position;
+    }
+
+    /**
+     * Item id to {category id, department id}, zero where unknown
+     */
+    private LongObjectHashMap<long[]> loadClassifications() {
+        LongObjectHashMap<long[]> classifications = new LongObjectHashMap<>(1 << 16);
+        jdbcTemplate.query(SELECT_CLASSIFICATIONS, rs -> {
+            classifications.put(rs.getLong(1), new long[]{rs.getLong(2), rs.getLong(3)});
+        });
+        return classifications;
+    }
+
+    private static List<StockValuationResponse.Group> groups(Map<Long, Accumulator> accumulators) {
+        return accumulators.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+                .map(entry -> StockValuationResponse.Group.builder()
+                        .id(entry.getKey() == UNCLASSIFIED ? null : entry.getKey())
+                        .quantity(WeightedAverageCostCalculator.fromQuantity(entry.getValue().quantity.sum()))
+                        .value(WeightedAverageCostCalculator.fromCost(entry.getValue().value.sum()))
+                        .positions(entry.getValue().positions.sum())
+                        .build())
+                .toList();
+    }
+
+    @FunctionalInterface
+    private interface BranchValuer {
+        void value(long branchId, Totals totals);
+    }
+
+    /**
+     * Running totals shared by every branch task of one valuation
+     */
+    private static final class Totals {
+
+        private final LongObjectHashMap<long[]> classifications;
+        private final Map<Long, Accumulator> branches = new ConcurrentHashMap<>();
+        private final Map<Long, Accumulator> categories = new ConcurrentHashMap<>();
+        private final Map<Long, Accumulator> departments = new ConcurrentHashMap<>();
+        private final Accumulator total = new Accumulator();
+
+        private Totals(LongObjectHashMap<long[]> classifications) {
+            this.classifications = classifications;
+        }
+
+        /**
+         * Add one item's quantity (thousandths) and value (ten-thousandths) at a branch
+         */
+        private void add(long branchId, long itemId, long quantity, long value) {
+            if (quantity == 0 && value == 0) {
+                return;
+            }
+            long[] classification = classifications.get(itemId);
+            accumulator(branches, branchId).add(quantity, value);
+            accumulator(categories, classification != null ? classification[0] : UNCLASSIFIED).add(quantity, value);
+            accumulator(departments, classification != null ? classification[1] : UNCLASSIFIED).add(quantity, value);
+            total.add(quantity, value);
+        }
+
+        private static Accumulator accumulator(Map<Long, Accumulator> accumulators, long key) {
+            Accumulator accumulator = accumulators.get(key);
+            return accumulator != null ? accumulator : accumulators.computeIfAbsent(key, k -> new Accumulator());
+        }
+    }
+
+    private static final class Accumulator {
+
+        private final LongAdder quantity = new LongAdder();
+        private final LongAdder value = new LongAdder();
+        private final LongAdder positions = new LongAdder();
+
+        private void add(long addedQuantity, long addedValue) {
+            quantity.add(addedQuantity);
+            value.add(addedValue);
+            positions.increment();
+        }
+    }
+}
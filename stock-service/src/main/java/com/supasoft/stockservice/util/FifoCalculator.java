@@ -0,0 +1,242 @@
+package com.supasoft.stockservice.util;
+
+import java.util.Arrays;
+
+/**
+ * Cost layers of one item at one branch, consumed first-expiry-first-out then first-in-first-out
+ *
+ * Layers sit in a ring buffer of parallel long arrays (batch id, quantity, unit cost, expiry day)
+ * ordered by expiry day and then by arrival, so batches without an expiry date are plain FIFO and
+ * dated batches are FEFO. A receipt usually expires after everything already on hand and is
+ * appended in O(1); an issue drains layers from the head in O(layers touched). Expired layers
+ * collect at the head, so skipping them costs only as many steps as there are expired batches.
+ *
+ * Quantities are in thousandths and costs in ten-thousandths, as in
+ * {@link WeightedAverageCostCalculator}. Not thread-safe.
+ */
+public final class FifoCalculator {
+
+    /** Expiry day of batches that do not expire; sorts after every real date */
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] batchIds;
+    private long[] quantities;
+    private long[] unitCosts;
+    private long[] expiryDays;
+    private int head;
+    private int size;
+    private long quantity;
+
+    public FifoCalculator() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public FifoCalculator(int expectedLayers) {
+        int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(expectedLayers - 1, 1)) << 1);
+        batchIds = new long[capacity];
+        quantities = new long[capacity];
+        unitCosts = new long[capacity];
+        expiryDays = new long[capacity];
+    }
+
+    /**
+     * Add a layer behind every layer that expires on or before it
+     *
+     * @param expiryDay epoch day of the expiry date, or {@link #NO_EXPIRY}
+     */
+    public void add(long batchId, long layerQuantity, long unitCost, long expiryDay) {
+        if (layerQuantity <= 0) {
+            throw new IllegalArgumentException("Layer quantity must be positive");
+        }
+        if (size == batchIds.length) {
+            grow();
+        }
+        int position = size;
+        while (position > 0 && expiryDays[index(position - 1)] > expiryDay) {
+            move(index(position - 1), index(position));
+            position--;
+        }
+        int slot = index(position);
+        batchIds[slot] = batchId;
+        quantities[slot] = layerQuantity;
+        unitCosts[slot] = unitCost;
+        expiryDays[slot] = expiryDay;
+        size++;
+        quantity += layerQuantity;
+    }
+
+    /**
+     * Take a quantity from the head layers
+     *
+     * @param skipExpired leave layers that expired before {@code today} in place and start after them
+     * @throws IllegalArgumentException if the layers cannot cover the quantity; check
+     *                                  {@link #getAvailable} or {@link #getQuantity} first
+     */
+    public Allocation consume(long required, long today, boolean skipExpired) {
+        int skipped = skipExpired ? expiredLayers(today) : 0;
+        long eligible = quantity - quantityOf(skipped);
+        if (required <= 0 || required > eligible) {
+            throw new IllegalArgumentException("Cannot consume " + required + " from " + eligible);
+        }
+
+        int touched = 0;
+        for (long remaining = required; remaining > 0; touched++) {
+            remaining -= quantities[index(skipped + touched)];
+        }
+
+        Allocation allocation = new Allocation(touched);
+        long remaining = required;
+        int drained = 0;
+        for (int i = 0; i < touched; i++) {
+            int slot = index(skipped + i);
+            long taken = Math.min(remaining, quantities[slot]);
+            allocation.set(i, batchIds[slot], taken, unitCosts[slot]);
+            quantities[slot] -= taken;
+            remaining -= taken;
+            if (quantities[slot] == 0) {
+                drained++;
+            }
+        }
+
+        // Drained layers are contiguous after the skipped ones: close the gap by moving the skipped ones up
+        for (int i = skipped - 1; i >= 0; i--) {
+            move(index(i), index(i + drained));
+        }
+        head = index(drained);
+        size -= drained;
+        quantity -= required;
+        return allocation;
+    }
+
+    /**
+     * Quantity in layers that have not expired before {@code today}
+     */
+    public long getAvailable(long today) {
+        return quantity - quantityOf(expiredLayers(today));
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Quantity-weighted unit cost of the remaining layers; zero when there are none
+     */
+    public long getAverageCost() {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            int slot = index(i);
+            value += WeightedAverageCostCalculator.value(quantities[slot], unitCosts[slot]);
+        }
+        return WeightedAverageCostCalculator.unitCost(value, quantity);
+    }
+
+    /**
+     * Number of layers
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int expiredLayers(long today) {
+        int expired = 0;
+        while (expired < size && expiryDays[index(expired)] < today) {
+            expired++;
+        }
+        return expired;
+    }
+
+    private long quantityOf(int headLayers) {
+        long total = 0;
+        for (int i = 0; i < headLayers; i++) {
+            total += quantities[index(i)];
+        }
+        return total;
+    }
+
+    private int index(int position) {
+        return (head + position) & (batchIds.length - 1);
+    }
+
+    private void move(int from, int to) {
+        batchIds[to] = batchIds[from];
+        quantities[to] = quantities[from];
+        unitCosts[to] = unitCosts[from];
+        expiryDays[to] = expiryDays[from];
+    }
+
+    private void grow() {
+        int capacity = batchIds.length << 1;
+        batchIds = unwrap(batchIds, capacity);
+        quantities = unwrap(quantities, capacity);
+        unitCosts = unwrap(unitCosts, capacity);
+        expiryDays = unwrap(expiryDays, capacity);
+        head = 0;
+    }
+
+    private long[] unwrap(long[] values, int capacity) {
+        long[] grown = Arrays.copyOf(values, capacity);
+        if (head > 0) {
+            int tail = values.length - head;
+            System.arraycopy(values, head, grown, 0, tail);
+            System.arraycopy(values, 0, grown, tail, head);
+        }
+        return grown;
+    }
+
+    /**
+     * Layers drawn by one {@link #consume} call, in the order they were taken
+     */
+    public static final class Allocation {
+
+        private final long[] batchIds;
+        private final long[] quantities;
+        private final long[] unitCosts;
+        private long cost;
+
+        private Allocation(int layers) {
+            batchIds = new long[layers];
+            quantities = new long[layers];
+            unitCosts = new long[layers];
+        }
+
+        private void set(int layer, long batchId, long taken, long unitCost) {
+            batchIds[layer] = batchId;
+            quantities[layer] = taken;
+            unitCosts[layer] = unitCost;
+            cost += WeightedAverageCostCalculator.value(taken, unitCost);
+        }
+
+        /**
+         * Number of layers drawn
+         */
+        public int size() {
+            return batchIds.length;
+        }
+
+        public long batchId(int layer) {
+            return batchIds[layer];
+        }
+
+        public long quantity(int layer) {
+            return quantities[layer];
+        }
+
+        public long unitCost(int layer) {
+            return unitCosts[layer];
+        }
+
+        /**
+         * Total cost of the quantity taken, in ten-thousandths
+         */
+        public long getCost() {
+            return cost;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.supasoft.stockservice.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Weighted average cost in scaled-long fixed point
+ *
+ * Quantities are held in thousandths (the scale of stock quantities) and costs and values in
+ * ten-thousandths (the scale of average_cost), so a running position is two longs and every
+ * receipt or issue is a handful of integer operations with no allocation. Products are checked
+ * with {@link Math#multiplyHigh} and only fall back to BigInteger when they would overflow.
+ * Division rounds half away from zero, as {@link RoundingMode#HALF_UP} does.
+ */
+public final class WeightedAverageCostCalculator {
+
+    public static final int QUANTITY_SCALE = 3;
+    public static final int COST_SCALE = 4;
+
+    private static final long QUANTITY_ONE = 1_000L;
+
+    private WeightedAverageCostCalculator() {
+    }
+
+    public static long toQuantity(BigDecimal quantity) {
+        return quantity.setScale(QUANTITY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromQuantity(long quantity) {
+        return BigDecimal.valueOf(quantity, QUANTITY_SCALE);
+    }
+
+    public static long toCost(BigDecimal cost) {
+        return cost.setScale(COST_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromCost(long cost) {
+        return BigDecimal.valueOf(cost, COST_SCALE);
+    }
+
+    /**
+     * Value of a quantity at a unit cost: quantity (thousandths) x cost (ten-thousandths)
+     */
+    public static long value(long quantity, long unitCost) {
+        return multiplyDivide(quantity, unitCost, QUANTITY_ONE);
+    }
+
+    /**
+     * Unit cost of a value spread over a quantity; zero for a zero quantity
+     */
+    public static long unitCost(long value, long quantity) {
+        return quantity == 0 ? 0 : multiplyDivide(value, QUANTITY_ONE, quantity);
+    }
+
+    /**
+     * a * b / divisor, rounded half away from zero
+     */
+    static long multiplyDivide(long a, long b, long divisor) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return divideRounded(low, divisor);
+        }
+        BigInteger[] quotient = BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+                .divideAndRemainder(BigInteger.valueOf(divisor));
+        long result = quotient[0].longValueExact();
+        if (quotient[1].abs().shiftLeft(1).compareTo(BigInteger.valueOf(divisor).abs()) >= 0) {
+            result += quotient[1].signum() * Long.signum(divisor);
+        }
+        return result;
+    }
+
+    private static long divideRounded(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder != 0 && Math.abs(remainder) >= Math.abs(divisor) - Math.abs(remainder)) {
+            quotient += Long.signum(remainder) * Long.signum(divisor);
+        }
+        return quotient;
+    }
+
+    /**
+     * Running quantity and value of one item at one branch; not thread-safe
+     *
+     * While stock is on hand the average only moves on costed receipts. A receipt into zero or
+     * negative stock starts again at the receipt's cost, and issues never change the average.
+     */
+    public static final class Position {
+
+        private long quantity;
+        private long value;
+        private long averageCost;
+
+        public Position() {
+        }
+
+        public Position(long quantity, long averageCost) {
+            reset(quantity, averageCost);
+        }
+
+        public void reset(long quantity, long averageCost) {
+            this.quantity = quantity;
+            this.averageCost = averageCost;
+            this.value = value(quantity, averageCost);
+        }
+
+        /**
+         * Receive a quantity at a unit cost (e.g. a GRN line or a transfer in)
+         */
+        public void receive(long receivedQuantity, long unitCost) {
+            receiveValue(receivedQuantity, value(receivedQuantity, unitCost));
+        }
+
+        /**
+         * Receive a quantity with its total cost (e.g. a day's receipts from the summaries)
+         */
+        public void receiveValue(long receivedQuantity, long receivedValue) {
+            if (receivedQuantity <= 0) {
+                return;
+            }
+            if (quantity <= 0) {
+                quantity += receivedQuantity;
+                averageCost = unitCost(receivedValue, receivedQuantity);
+                value = value(quantity, averageCost);
+                return;
+            }
+            quantity += receivedQuantity;
+            value += receivedValue;
+            averageCost = unitCost(value, quantity);
+        }
+
+        /**
+         * Add stock at the current average (returns and positive adjustments without a cost)
+         */
+        public void receiveAtAverage(long receivedQuantity) {
+            quantity += receivedQuantity;
+            value = value(quantity, averageCost);
+        }
+
+        /**
+         * Take stock out at the current average
+         */
+        public void issue(long issuedQuantity) {
+            long remaining = quantity - issuedQuantity;
+            value = remaining > 0 ? value - value(issuedQuantity, averageCost) : value(remaining, averageCost);
+            quantity = remaining;
+        }
+
+        /**
+         * Apply a signed movement; positive movements revalue stock only when costed
+         *
+         * @param unitCost unit cost in ten-thousandths, used when {@code costed} is true
+         */
+        public void apply(long signedQuantity, long unitCost, boolean costed) {
+            if (signedQuantity < 0) {
+                issue(-signedQuantity);
+            } else if (costed) {
+                receive(signedQuantity, unitCost);
+            } else {
+                receiveAtAverage(signedQuantity);
+            }
+        }
+
+        public long getQuantity() {
+            return quantity;
+        }
+
+        public long getValue() {
+            return value;
+        }
+
+        public long getAverageCost() {
+            return averageCost;
+        }
+    }
+}
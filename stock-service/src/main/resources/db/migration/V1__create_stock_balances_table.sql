@@ -0,0 +1,16 @@
+-- Quantity on hand per item, branch and location; location 0 is the branch's default location
+CREATE TABLE stock_balances (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    item_id BIGINT NOT NULL,
+    branch_id BIGINT NOT NULL,
+    location_id BIGINT NOT NULL DEFAULT 0,
+    quantity_on_hand DECIMAL(15,3) NOT NULL DEFAULT 0.000,
+    quantity_reserved DECIMAL(15,3) NOT NULL DEFAULT 0.000,
+    average_cost DECIMAL(15,4) NOT NULL DEFAULT 0.0000,
+    last_movement_at TIMESTAMP(3) NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    UNIQUE KEY uk_stock_balance (item_id, branch_id, location_id),
+    INDEX idx_stock_balance_branch (branch_id, item_id),
+    INDEX idx_stock_balance_updated_at (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
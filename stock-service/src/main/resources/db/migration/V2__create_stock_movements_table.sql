@@ -0,0 +1,19 @@
+-- Journal of every quantity change; written in the same transaction as the balance it moves
+CREATE TABLE stock_movements (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    item_id BIGINT NOT NULL,
+    branch_id BIGINT NOT NULL,
+    location_id BIGINT NOT NULL DEFAULT 0,
+    movement_type VARCHAR(20) NOT NULL,
+    quantity DECIMAL(15,3) NOT NULL,
+    unit_cost DECIMAL(15,4),
+    reference_type VARCHAR(50),
+    reference_number VARCHAR(100),
+    movement_date DATE NOT NULL,
+    notes VARCHAR(255),
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    created_by VARCHAR(100),
+    INDEX idx_stock_movement_item_branch (item_id, branch_id, id),
+    INDEX idx_stock_movement_date (movement_date),
+    INDEX idx_stock_movement_reference (reference_type, reference_number)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
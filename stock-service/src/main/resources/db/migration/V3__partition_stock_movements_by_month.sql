@@ -0,0 +1,27 @@
+-- Monthly range partitions on movement_date so history queries prune to the months they cover
+-- and old months can be compacted and dropped whole. The partition column has to be part of
+-- the primary key; later months are added by the journal maintenance job.
+ALTER TABLE stock_movements
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, movement_date),
+    DROP INDEX idx_stock_movement_item_branch,
+    DROP INDEX idx_stock_movement_date,
+    ADD INDEX idx_stock_movement_item_branch_date (item_id, branch_id, movement_date),
+    ADD INDEX idx_stock_movement_branch_date (branch_id, movement_date);
+
+ALTER TABLE stock_movements PARTITION BY RANGE COLUMNS (movement_date) (
+    PARTITION p0 VALUES LESS THAN ('2026-01-01'),
+    PARTITION p202601 VALUES LESS THAN ('2026-02-01'),
+    PARTITION p202602 VALUES LESS THAN ('2026-03-01'),
+    PARTITION p202603 VALUES LESS THAN ('2026-04-01'),
+    PARTITION p202604 VALUES LESS THAN ('2026-05-01'),
+    PARTITION p202605 VALUES LESS THAN ('2026-06-01'),
+    PARTITION p202606 VALUES LESS THAN ('2026-07-01'),
+    PARTITION p202607 VALUES LESS THAN ('2026-08-01'),
+    PARTITION p202608 VALUES LESS THAN ('2026-09-01'),
+    PARTITION p202609 VALUES LESS THAN ('2026-10-01'),
+    PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+    PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+    PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+    PARTITION pmax VALUES LESS THAN (MAXVALUE)
+);
@@ -0,0 +1,21 @@
+-- Movements older than the journal retention, rolled up per item, location, day and movement type
+CREATE TABLE stock_movement_daily_summaries (
+    item_id BIGINT NOT NULL,
+    branch_id BIGINT NOT NULL,
+    location_id BIGINT NOT NULL,
+    summary_date DATE NOT NULL,
+    movement_type VARCHAR(20) NOT NULL,
+    quantity_in DECIMAL(18,3) NOT NULL DEFAULT 0.000,
+    quantity_out DECIMAL(18,3) NOT NULL DEFAULT 0.000,
+    total_cost DECIMAL(20,4) NOT NULL DEFAULT 0.0000,
+    movement_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (item_id, branch_id, location_id, summary_date, movement_type),
+    INDEX idx_stock_summary_branch_date (branch_id, summary_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- One row per movement date already rolled up; written in the same transaction as its summaries
+CREATE TABLE stock_movement_compactions (
+    movement_date DATE PRIMARY KEY,
+    summary_rows INT NOT NULL DEFAULT 0,
+    compacted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,19 @@
+-- Cost layers of batch-tracked items: one row per batch received at a branch, drawn down FIFO/FEFO
+CREATE TABLE batches (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    item_id BIGINT NOT NULL,
+    branch_id BIGINT NOT NULL,
+    batch_number VARCHAR(50) NOT NULL,
+    expiry_date DATE NULL,
+    unit_cost DECIMAL(15,4) NOT NULL,
+    quantity_received DECIMAL(15,3) NOT NULL,
+    quantity_remaining DECIMAL(15,3) NOT NULL,
+    reference_type VARCHAR(50),
+    reference_number VARCHAR(100),
+    received_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    created_by VARCHAR(100),
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+    INDEX idx_batch_item_branch (item_id, branch_id, quantity_remaining),
+    INDEX idx_batch_branch_expiry (branch_id, expiry_date),
+    INDEX idx_batch_number (batch_number)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,7 @@
+-- Category and department of each item, copied from item-service's item events for valuation roll-ups
+CREATE TABLE stock_item_classifications (
+    item_id BIGINT PRIMARY KEY,
+    category_id BIGINT NULL,
+    department_id BIGINT NULL,
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
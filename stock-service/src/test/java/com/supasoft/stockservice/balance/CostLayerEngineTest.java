@@ -0,0 +1,107 @@
+package com.supasoft.stockservice.balance;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.supasoft.stockservice.balance.CostLayerEngine.BatchMovement;
+import com.supasoft.stockservice.balance.CostLayerEngine.Line;
+import com.supasoft.stockservice.enums.MovementType;
+import com.supasoft.stockservice.exception.BatchExpiredException;
+import com.supasoft.stockservice.exception.InsufficientStockException;
+
+public class CostLayerEngineTest {
+
+    private static final long ITEM = 7;
+    private static final long BRANCH = 3;
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 1);
+
+    private JdbcTemplate jdbcTemplate;
+    private CostLayerEngine engine;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            Consumer<TransactionStatus> callback = invocation.getArgument(0);
+            callback.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        engine = new CostLayerEngine(jdbcTemplate, transactionTemplate, Duration.ofSeconds(30));
+
+        // One expired batch and one in date, 2 units each
+        ResultSet expired = layer(1, "2026-02-01");
+        ResultSet inDate = layer(2, "2026-06-01");
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(expired);
+            handler.processRow(inDate);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(ITEM), eq(BRANCH));
+    }
+
+    @Test
+    public void testSaleCoveredOnlyByExpiredBatchesIsRejected() {
+        List<Line> lines = List.of(line(MovementType.SALE, -3_000));
+
+        assertThrows(BatchExpiredException.class, () -> engine.apply(lines, TODAY));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    public void testIssueBeyondAllBatchesIsInsufficientStock() {
+        List<Line> lines = List.of(line(MovementType.SALE, -5_000));
+
+        assertThrows(InsufficientStockException.class, () -> engine.apply(lines, TODAY));
+    }
+
+    @Test
+    public void testAdjustmentMayDrawExpiredBatches() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+
+        List<BatchMovement> drawn = engine.apply(List.of(line(MovementType.ADJUSTMENT, -3_000)), TODAY);
+
+        assertEquals(2, drawn.size());
+        assertEquals(1, drawn.get(0).batchId());
+        assertEquals(-2_000, drawn.get(0).quantity());
+        assertEquals(2, drawn.get(1).batchId());
+        assertEquals(-1_000, drawn.get(1).quantity());
+    }
+
+    private static Line line(MovementType type, long quantity) {
+        return new Line(ITEM, BRANCH, type, quantity, null, null, null, "TEST", "T-1", "tester");
+    }
+
+    private static ResultSet layer(long batchId, String expiry) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(batchId);
+        when(rs.getBigDecimal(2)).thenReturn(new BigDecimal("10.0000"));
+        when(rs.getBigDecimal(3)).thenReturn(new BigDecimal("2.000"));
+        when(rs.getDate(4)).thenReturn(Date.valueOf(expiry));
+        return rs;
+    }
+}
@@ -0,0 +1,181 @@
+package com.supasoft.stockservice.balance;
+
+import com.supasoft.stockservice.enums.MovementType;
+import com.supasoft.stockservice.exception.InsufficientStockException;
+import com.supasoft.stockservice.journal.StockMovementJournal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StockBalanceEngineTest {
+
+    private static final long BRANCH = 1;
+    private static final long LOCATION = 0;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private StockMovementJournal journal;
+    private StockBalanceEngine engine;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        journal = mock(StockMovementJournal.class);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        // Item 1 has 10 on hand; no other item has a balance row yet
+        when(jdbcTemplate.queryForList(anyString(), eq(BigDecimal.class), any(), any(), any()))
+                .thenAnswer(invocation -> Long.valueOf(1).equals(invocation.getArgument(2))
+                        ? List.of(new BigDecimal("10.000")) : List.of());
+
+        engine = new StockBalanceEngine(jdbcTemplate, transactionTemplate, journal, false, Duration.ofMillis(5), 1000,
+                50000, Duration.ofSeconds(2), Duration.ofSeconds(5), 10000);
+    }
+
+    @Test
+    public void testMovementsAreAppliedAllOrNone() {
+        assertThrows(InsufficientStockException.class,
+                () -> engine.apply(List.of(sale(1, "4"), sale(2, "1"))));
+
+        assertEquals(new BigDecimal("10.000"), engine.getQuantityOnHand(1, BRANCH, LOCATION));
+        assertEquals(0, engine.getPendingMovements());
+    }
+
+    @Test
+    public void testConcurrentSalesNeverTakeStockBelowZero() throws Exception {
+        engine.apply(List.of(movement(3, MovementType.PURCHASE, "100")));
+        int threads = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        engine.apply(List.of(sale(3, "3")));
+                        return true;
+                    } catch (InsufficientStockException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                accepted += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(33, accepted);
+            assertEquals(new BigDecimal("1.000"), engine.getQuantityOnHand(3, BRANCH, LOCATION));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFlushCommitsMovementsAndCompletesCallers() {
+        CompletableFuture<Void> first = engine.apply(List.of(sale(1, "2")));
+        CompletableFuture<Void> second = engine.apply(List.of(sale(1, "3")));
+
+        assertEquals(2, engine.flush());
+
+        assertTrue(first.isDone() && !first.isCompletedExceptionally());
+        assertTrue(second.isDone() && !second.isCompletedExceptionally());
+        assertEquals(new BigDecimal("5.000"), engine.getQuantityOnHand(1, BRANCH, LOCATION));
+        assertEquals(0, engine.getPendingMovements());
+        verify(journal).append(anyList());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    public void testFailedFlushRejectsMovementsAndRevertsBalance() {
+        doThrow(new DataAccessResourceFailureException("connection lost"))
+                .when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        CompletableFuture<Void> sale = engine.apply(List.of(sale(1, "4")));
+        assertEquals(new BigDecimal("6.000"), engine.getQuantityOnHand(1, BRANCH, LOCATION));
+
+        assertEquals(0, engine.flush());
+
+        assertTrue(sale.isCompletedExceptionally());
+        assertEquals(new BigDecimal("10.000"), engine.getQuantityOnHand(1, BRANCH, LOCATION));
+        assertEquals(0, engine.getPendingMovements());
+    }
+
+    @Test
+    public void testWithdrawnMovementsAreNeverWritten() {
+        CompletableFuture<Void> sale = engine.apply(List.of(sale(1, "4")));
+
+        assertTrue(engine.withdraw(sale));
+
+        assertTrue(sale.isCancelled());
+        assertEquals(new BigDecimal("10.000"), engine.getQuantityOnHand(1, BRANCH, LOCATION));
+        assertEquals(0, engine.getPendingMovements());
+        assertEquals(0, engine.flush());
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    @Test
+    public void testMovementsCannotBeWithdrawnOnceFlushed() {
+        CompletableFuture<Void> sale = engine.apply(List.of(sale(1, "4")));
+        assertEquals(1, engine.flush());
+
+        assertFalse(engine.withdraw(sale));
+
+        assertEquals(new BigDecimal("6.000"), engine.getQuantityOnHand(1, BRANCH, LOCATION));
+    }
+
+    @Test
+    public void testCancellingTheFutureAloneDoesNotWithdrawMovements() {
+        engine.apply(List.of(sale(1, "4"))).cancel(false);
+
+        assertEquals(1, engine.flush());
+
+        assertEquals(new BigDecimal("6.000"), engine.getQuantityOnHand(1, BRANCH, LOCATION));
+    }
+
+    private static StockBalanceEngine.Movement sale(long itemId, String quantity) {
+        return movement(itemId, MovementType.SALE, quantity);
+    }
+
+    private static StockBalanceEngine.Movement movement(long itemId, MovementType type, String quantity) {
+        return new StockBalanceEngine.Movement(itemId, BRANCH, LOCATION, type,
+                type.signedQuantity(StockBalanceEngine.toMilli(new BigDecimal(quantity))), null,
+                "TEST", "T-1", null, "test");
+    }
+}
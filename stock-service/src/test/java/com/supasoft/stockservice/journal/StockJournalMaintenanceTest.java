@@ -0,0 +1,119 @@
+package com.supasoft.stockservice.journal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StockJournalMaintenanceTest {
+
+    private static final DateTimeFormatter MONTH_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private StockJournalMaintenance maintenance;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        maintenance = new StockJournalMaintenance(jdbcTemplate, transactionTemplate, 3, 13);
+    }
+
+    @Test
+    public void testPartitionsAreSplitOffUpToMonthsAhead() throws Exception {
+        YearMonth current = YearMonth.now();
+        givenPartitions(name(current), current.plusMonths(1).atDay(1).toString(), "pmax", "MAXVALUE");
+
+        assertEquals(3, maintenance.ensurePartitions());
+
+        verify(jdbcTemplate, times(3)).execute(contains("REORGANIZE PARTITION pmax"));
+        verify(jdbcTemplate).execute(contains("PARTITION " + name(current.plusMonths(3)) + " VALUES LESS THAN ('"
+                + current.plusMonths(4).atDay(1) + "')"));
+    }
+
+    @Test
+    public void testNothingIsAddedWithoutCatchAllPartition() throws Exception {
+        YearMonth current = YearMonth.now();
+        givenPartitions(name(current), current.plusMonths(1).atDay(1).toString());
+
+        assertEquals(0, maintenance.ensurePartitions());
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    public void testOldPartitionsAreSummarisedOncePerDateThenDropped() throws Exception {
+        YearMonth old = YearMonth.now().minusMonths(15);
+        YearMonth recent = YearMonth.now().minusMonths(1);
+        givenPartitions(name(old), old.plusMonths(1).atDay(1).toString(),
+                name(recent), recent.plusMonths(1).atDay(1).toString(),
+                "pmax", "MAXVALUE");
+
+        Date first = Date.valueOf(old.atDay(1));
+        Date second = Date.valueOf(old.atDay(2));
+        when(jdbcTemplate.queryForList(contains("PARTITION (" + name(old) + ")"), eq(Date.class)))
+                .thenReturn(List.of(first, second));
+        when(jdbcTemplate.update(startsWith("INSERT IGNORE INTO stock_movement_compactions"), eq(first)))
+                .thenReturn(1);
+        // Another replica already summarised the second date
+        when(jdbcTemplate.update(startsWith("INSERT IGNORE INTO stock_movement_compactions"), eq(second)))
+                .thenReturn(0);
+
+        StockJournalMaintenance.Compaction compaction = maintenance.compact();
+
+        assertEquals(1, compaction.dates());
+        assertEquals(1, compaction.partitions());
+        verify(jdbcTemplate).update(startsWith("INSERT INTO stock_movement_daily_summaries"), eq(first));
+        verify(jdbcTemplate, never()).update(startsWith("INSERT INTO stock_movement_daily_summaries"), eq(second));
+        verify(jdbcTemplate).execute("ALTER TABLE stock_movements DROP PARTITION " + name(old));
+        verify(jdbcTemplate, never()).execute(contains("DROP PARTITION " + name(recent)));
+    }
+
+    /**
+     * Stub information_schema.PARTITIONS with name/description pairs, in partition order
+     */
+    @SuppressWarnings("unchecked")
+    private void givenPartitions(String... namesAndDescriptions) throws Exception {
+        when(jdbcTemplate.query(contains("information_schema.PARTITIONS"), any(RowMapper.class), eq("stock_movements")))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    List<Object> rows = new ArrayList<>();
+                    for (int i = 0; i < namesAndDescriptions.length; i += 2) {
+                        ResultSet rs = mock(ResultSet.class);
+                        when(rs.getString(1)).thenReturn(namesAndDescriptions[i]);
+                        when(rs.getString(2)).thenReturn(namesAndDescriptions[i + 1]);
+                        rows.add(mapper.mapRow(rs, i / 2));
+                    }
+                    return rows;
+                });
+    }
+
+    private static String name(YearMonth month) {
+        return LocalDate.from(month.atDay(1)).format(MONTH_NAME);
+    }
+}
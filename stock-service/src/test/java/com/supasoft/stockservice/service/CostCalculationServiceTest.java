@@ -0,0 +1,77 @@
+package com.supasoft.stockservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CostCalculationServiceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private CostCalculationService costCalculationService;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        namedParameterJdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        costCalculationService = new CostCalculationService(jdbcTemplate, namedParameterJdbcTemplate,
+                mock(TransactionTemplate.class), 100, 2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        costCalculationService.stop();
+    }
+
+    @Test
+    public void testIdsTheRebuildDidNotSeeAreRechecked() throws Exception {
+        when(jdbcTemplate.queryForObject(contains("MAX(id)"), eq(Long.class))).thenReturn(5L);
+        when(jdbcTemplate.queryForList(contains("FROM stock_balances"), eq(Long.class))).thenReturn(List.of(1L));
+        // Movement 3 had not committed when item 1 was replayed
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (long id : new long[]{1, 2, 4, 5}) {
+                handler.processRow(movement(id));
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains("m.id <= ?"), any(RowCallbackHandler.class), any(), any());
+
+        costCalculationService.recompute();
+        costCalculationService.scheduledPoll();
+
+        ArgumentCaptor<MapSqlParameterSource> ids = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(namedParameterJdbcTemplate, timeout(5000))
+                .query(contains("m.id IN (:ids)"), ids.capture(), any(RowCallbackHandler.class));
+        assertEquals(List.of(3L), ids.getValue().getValue("ids"));
+    }
+
+    private static ResultSet movement(long id) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(1L);
+        when(rs.getString(2)).thenReturn("PURCHASE");
+        when(rs.getBigDecimal(3)).thenReturn(BigDecimal.ONE);
+        when(rs.getBigDecimal(4)).thenReturn(BigDecimal.TEN);
+        when(rs.getLong(5)).thenReturn(id);
+        return rs;
+    }
+}
@@ -0,0 +1,133 @@
+package com.supasoft.stockservice.service;
+
+import com.supasoft.stockservice.dto.response.StockValuationResponse;
+import com.supasoft.stockservice.enums.ValuationBasis;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ValuationServiceTest {
+
+    private final Map<String, List<Object[]>> rows = new HashMap<>();
+    private ValuationService valuationService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        valuationService = new ValuationService(mock(DataSource.class), 2, 100);
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> stream(invocation.getArgument(0), invocation.getArgument(1), null))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+        doAnswer(invocation -> stream(invocation.getArgument(0), invocation.getArgument(1),
+                invocation.getArgument(2)))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any());
+        doAnswer(invocation -> stream(invocation.getArgument(0), invocation.getArgument(1),
+                invocation.getArgument(2)))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), any());
+        ReflectionTestUtils.setField(valuationService, "jdbcTemplate", jdbcTemplate);
+
+        // Item 10 is in category 100 of department 1000; item 20 has not been classified yet
+        given("FROM stock_item_classifications", null, new Object[]{10L, 100L, 1000L});
+    }
+
+    @AfterEach
+    public void tearDown() {
+        valuationService.stop();
+    }
+
+    @Test
+    public void testCurrentValuationUsesBatchCostForBatchTrackedItems() {
+        given("FROM stock_balances", 1L,
+                new Object[]{10L, "5", "2.00"},
+                new Object[]{20L, "4", "3.00"});
+        // Three of item 20's four units are covered by batches worth 12.00 in total
+        given("FROM batches", 1L, new Object[]{20L, "3", "12.00"});
+        given("FROM stock_balances", 2L, new Object[]{10L, "1", "2.00"});
+
+        StockValuationResponse response = valuationService.valueCurrent(List.of(1L, 2L));
+
+        assertEquals(ValuationBasis.BALANCES, response.getBasis());
+        assertEquals(0, new BigDecimal("27").compareTo(response.getTotalValue()));
+        assertEquals(0, new BigDecimal("10").compareTo(response.getTotalQuantity()));
+        assertEquals(3L, response.getPositions());
+
+        assertEquals(2, response.getBranches().size());
+        assertEquals(0, new BigDecimal("25").compareTo(response.getBranches().get(0).getValue()));
+        assertEquals(0, new BigDecimal("2").compareTo(response.getBranches().get(1).getValue()));
+
+        assertNull(response.getCategories().get(0).getId());
+        assertEquals(0, new BigDecimal("15").compareTo(response.getCategories().get(0).getValue()));
+        assertEquals(100L, response.getCategories().get(1).getId());
+        assertEquals(0, new BigDecimal("12").compareTo(response.getCategories().get(1).getValue()));
+        assertEquals(1000L, response.getDepartments().get(1).getId());
+    }
+
+    @Test
+    public void testValuationAsOfReplaysSummariesThenJournal() {
+        given("FROM stock_movement_daily_summaries", 1L, new Object[]{10L, "PURCHASE", "10", "0", "50.00"});
+        given("FROM stock_movements m", 1L,
+                new Object[]{10L, "SALE", "-4", null},
+                new Object[]{10L, "PURCHASE", "2", "8.00"});
+
+        StockValuationResponse response = valuationService.valueAsOf(LocalDate.of(2026, 1, 31), List.of(1L));
+
+        assertEquals(ValuationBasis.JOURNAL, response.getBasis());
+        assertEquals(LocalDate.of(2026, 1, 31), response.getAsOf());
+        assertEquals(0, new BigDecimal("8").compareTo(response.getTotalQuantity()));
+        assertEquals(0, new BigDecimal("46").compareTo(response.getTotalValue()));
+    }
+
+    /**
+     * Rows returned for a query containing {@code fragment}, for one branch or, when null, for any
+     */
+    private void given(String fragment, Long branchId, Object[]... values) {
+        rows.put(fragment + "#" + branchId, List.of(values));
+    }
+
+    private Object stream(String sql, RowCallbackHandler handler, Object branchId) throws Exception {
+        List<Object[]> matched = new ArrayList<>();
+        rows.forEach((key, values) -> {
+            String[] parts = key.split("#");
+            if (sql.contains(parts[0]) && (parts[1].equals("null") || parts[1].equals(String.valueOf(branchId)))) {
+                matched.addAll(values);
+            }
+        });
+        for (Object[] row : matched) {
+            handler.processRow(resultSet(row));
+        }
+        return null;
+    }
+
+    private static ResultSet resultSet(Object[] row) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(anyInt())).thenAnswer(invocation -> ((Number) row[(int) invocation.getArgument(0) - 1])
+                .longValue());
+        when(rs.getString(anyInt())).thenAnswer(invocation -> (String) row[(int) invocation.getArgument(0) - 1]);
+        when(rs.getBigDecimal(anyInt())).thenAnswer(invocation -> {
+            Object value = row[(int) invocation.getArgument(0) - 1];
+            return value != null ? new BigDecimal(value.toString()) : null;
+        });
+        return rs;
+    }
+}
@@ -0,0 +1,113 @@
+package com.supasoft.stockservice.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+
+import com.supasoft.stockservice.util.FifoCalculator.Allocation;
+
+public class FifoCalculatorTest {
+
+    private static final long COST = 10_000;
+
+    @Test
+    public void testLayersDrawInExpiryThenArrivalOrder() {
+        FifoCalculator fifo = new FifoCalculator();
+        fifo.add(1, 1_000, COST, FifoCalculator.NO_EXPIRY);
+        fifo.add(2, 1_000, COST, 200);
+        fifo.add(3, 1_000, COST, 100);
+        fifo.add(4, 1_000, COST, 200);
+
+        Allocation allocation = fifo.consume(4_000, 0, true);
+
+        assertArrayEquals(new long[]{3, 2, 4, 1}, batchIds(allocation));
+        assertEquals(0, fifo.size());
+    }
+
+    @Test
+    public void testSkippedExpiredLayersStayAheadOfPartlyDrainedLayer() {
+        FifoCalculator fifo = new FifoCalculator();
+        fifo.add(1, 1_000, COST, 10);
+        fifo.add(2, 1_000, COST, 20);
+        fifo.add(3, 2_000, COST, 100);
+        fifo.add(4, 1_000, COST, 200);
+
+        Allocation first = fifo.consume(1_500, 50, true);
+        assertArrayEquals(new long[]{3}, batchIds(first));
+        assertEquals(4, fifo.size());
+
+        // Drains what is left of batch 3 and half of batch 4; batches 1 and 2 are skipped
+        Allocation second = fifo.consume(1_000, 50, true);
+        assertArrayEquals(new long[]{3, 4}, batchIds(second));
+        assertArrayEquals(new long[]{500, 500}, quantities(second));
+        assertEquals(3, fifo.size());
+        assertEquals(2_500, fifo.getQuantity());
+        assertEquals(500, fifo.getAvailable(50));
+
+        // The expired layers were moved up next to the partly drained one, still in order
+        Allocation all = fifo.consume(2_500, 50, false);
+        assertArrayEquals(new long[]{1, 2, 4}, batchIds(all));
+        assertArrayEquals(new long[]{1_000, 1_000, 500}, quantities(all));
+    }
+
+    @Test
+    public void testGrowWhileWrapped() {
+        FifoCalculator fifo = new FifoCalculator();
+        for (long batchId = 1; batchId <= 6; batchId++) {
+            fifo.add(batchId, 1_000, COST, FifoCalculator.NO_EXPIRY);
+        }
+        fifo.consume(5_000, 0, false);
+
+        // The head is now near the end of the buffer, so these wrap round and then force it to grow
+        for (long batchId = 7; batchId <= 16; batchId++) {
+            fifo.add(batchId, 1_000, COST, FifoCalculator.NO_EXPIRY);
+        }
+        fifo.add(17, 1_000, COST, 5);
+        assertEquals(12, fifo.size());
+
+        Allocation allocation = fifo.consume(12_000, 0, false);
+        assertArrayEquals(new long[]{17, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16}, batchIds(allocation));
+        assertEquals(0, fifo.getQuantity());
+    }
+
+    @Test
+    public void testAllocationCostsEachLayer() {
+        FifoCalculator fifo = new FifoCalculator();
+        fifo.add(1, 2_000, 100_000, FifoCalculator.NO_EXPIRY);
+        fifo.add(2, 2_000, 120_000, FifoCalculator.NO_EXPIRY);
+
+        Allocation allocation = fifo.consume(3_000, 0, false);
+
+        // 2 at 10.0000 plus 1 at 12.0000
+        assertEquals(320_000, allocation.getCost());
+        assertEquals(120_000, fifo.getAverageCost());
+    }
+
+    @Test
+    public void testConsumeBeyondInDateStockFails() {
+        FifoCalculator fifo = new FifoCalculator();
+        fifo.add(1, 1_000, COST, 10);
+        fifo.add(2, 1_000, COST, 100);
+
+        assertThrows(IllegalArgumentException.class, () -> fifo.consume(1_500, 50, true));
+        assertEquals(2_000, fifo.getQuantity());
+        assertEquals(1_000, fifo.getAvailable(50));
+    }
+
+    private static long[] batchIds(Allocation allocation) {
+        long[] ids = new long[allocation.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = allocation.batchId(i);
+        }
+        return ids;
+    }
+
+    private static long[] quantities(Allocation allocation) {
+        long[] taken = new long[allocation.size()];
+        for (int i = 0; i < taken.length; i++) {
+            taken[i] = allocation.quantity(i);
+        }
+        return taken;
+    }
+}
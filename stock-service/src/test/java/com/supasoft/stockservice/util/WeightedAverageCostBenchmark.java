@@ -0,0 +1,105 @@
+package com.supasoft.stockservice.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.supasoft.stockservice.util.WeightedAverageCostCalculator.Position;
+
+/**
+ * Fixed-point positions against the BigDecimal arithmetic they replace
+ *
+ * Both sides replay the same mix of costed receipts and issues. Run {@link #main} from the
+ * test classpath after {@code mvn test-compile}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WeightedAverageCostBenchmark {
+
+    private static final int MOVEMENTS = 10_000;
+
+    private long[] quantities;
+    private long[] unitCosts;
+    private BigDecimal[] decimalQuantities;
+    private BigDecimal[] decimalUnitCosts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        quantities = new long[MOVEMENTS];
+        unitCosts = new long[MOVEMENTS];
+        decimalQuantities = new BigDecimal[MOVEMENTS];
+        decimalUnitCosts = new BigDecimal[MOVEMENTS];
+        for (int i = 0; i < MOVEMENTS; i++) {
+            // Roughly one receipt for every three issues, receipts larger
+            boolean receipt = i % 4 == 0;
+            long quantity = receipt ? 1_000 + random.nextInt(100_000) : 1 + random.nextInt(30_000);
+            quantities[i] = receipt ? quantity : -quantity;
+            unitCosts[i] = 500_000 + random.nextInt(100_000);
+            decimalQuantities[i] = WeightedAverageCostCalculator.fromQuantity(quantities[i]);
+            decimalUnitCosts[i] = WeightedAverageCostCalculator.fromCost(unitCosts[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVEMENTS)
+    public long fixedPoint() {
+        Position position = new Position();
+        for (int i = 0; i < MOVEMENTS; i++) {
+            position.apply(quantities[i], unitCosts[i], true);
+        }
+        return position.getAverageCost();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVEMENTS)
+    public BigDecimal bigDecimal() {
+        BigDecimal quantity = BigDecimal.ZERO;
+        BigDecimal value = BigDecimal.ZERO;
+        BigDecimal averageCost = BigDecimal.ZERO;
+        for (int i = 0; i < MOVEMENTS; i++) {
+            BigDecimal moved = decimalQuantities[i];
+            if (moved.signum() < 0) {
+                quantity = quantity.add(moved);
+                value = quantity.signum() > 0
+                        ? value.add(moved.multiply(averageCost)).setScale(4, RoundingMode.HALF_UP)
+                        : quantity.multiply(averageCost).setScale(4, RoundingMode.HALF_UP);
+            } else if (quantity.signum() <= 0) {
+                quantity = quantity.add(moved);
+                averageCost = decimalUnitCosts[i];
+                value = quantity.multiply(averageCost).setScale(4, RoundingMode.HALF_UP);
+            } else {
+                quantity = quantity.add(moved);
+                value = value.add(moved.multiply(decimalUnitCosts[i])).setScale(4, RoundingMode.HALF_UP);
+                averageCost = value.divide(quantity, 4, RoundingMode.HALF_UP);
+            }
+        }
+        return averageCost;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(WeightedAverageCostBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
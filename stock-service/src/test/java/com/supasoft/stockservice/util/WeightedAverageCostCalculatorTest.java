@@ -0,0 +1,68 @@
+package com.supasoft.stockservice.util;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+import com.supasoft.stockservice.util.WeightedAverageCostCalculator.Position;
+
+public class WeightedAverageCostCalculatorTest {
+
+    @Test
+    public void testReceiptsAverageByQuantity() {
+        Position position = new Position();
+        position.receive(quantity("10"), cost("100"));
+        position.receive(quantity("30"), cost("120"));
+
+        assertEquals(new BigDecimal("115.0000"), WeightedAverageCostCalculator.fromCost(position.getAverageCost()));
+        assertEquals(quantity("40"), position.getQuantity());
+    }
+
+    @Test
+    public void testIssueKeepsAverage() {
+        Position position = new Position();
+        position.receive(quantity("3"), cost("10"));
+        position.receive(quantity("7"), cost("11"));
+        position.issue(quantity("4.5"));
+        position.receive(quantity("1"), cost("20"));
+
+        // 5.5 left at 10.7000 = 58.8500, plus 20 = 78.8500 over 6.5
+        assertEquals(new BigDecimal("12.1308"), WeightedAverageCostCalculator.fromCost(position.getAverageCost()));
+    }
+
+    @Test
+    public void testReceiptIntoNegativeStockRestartsAverage() {
+        Position position = new Position(quantity("2"), cost("50"));
+        position.issue(quantity("5"));
+        position.receive(quantity("10"), cost("40"));
+
+        assertEquals(quantity("7"), position.getQuantity());
+        assertEquals(cost("40"), position.getAverageCost());
+        assertEquals(cost("280"), position.getValue());
+    }
+
+    @Test
+    public void testUncostedReceiptUsesAverage() {
+        Position position = new Position(quantity("4"), cost("25"));
+        position.apply(quantity("2"), 0, false);
+
+        assertEquals(cost("25"), position.getAverageCost());
+        assertEquals(cost("150"), position.getValue());
+    }
+
+    @Test
+    public void testMultiplyDivideRoundsHalfAwayFromZero() {
+        assertEquals(3, WeightedAverageCostCalculator.multiplyDivide(5, 1, 2));
+        assertEquals(-3, WeightedAverageCostCalculator.multiplyDivide(-5, 1, 2));
+        assertEquals(3, WeightedAverageCostCalculator.multiplyDivide(Long.MAX_VALUE, 3, Long.MAX_VALUE));
+    }
+
+    private static long quantity(String quantity) {
+        return WeightedAverageCostCalculator.toQuantity(new BigDecimal(quantity));
+    }
+
+    private static long cost(String cost) {
+        return WeightedAverageCostCalculator.toCost(new BigDecimal(cost));
+    }
+}